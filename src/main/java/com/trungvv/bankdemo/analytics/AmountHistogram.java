@@ -0,0 +1,107 @@
+package com.trungvv.bankdemo.analytics;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Histogram số tiền (đơn vị xu) với bucket theo thang log: bucket i chứa các giá trị trong (γ^(i-1), γ^i],
+ * γ = (1 + α) / (1 - α), α = 1%. Mọi quantile trả về sai lệch tương đối không quá α so với giá trị thật
+ * ở cùng thứ hạng, bất kể phân phối. Gộp hai histogram là cộng số đếm theo bucket, nên kết quả gộp
+ * các ngày giống hệt histogram dựng trực tiếp từ mọi giao dịch trong khoảng.
+ * Lưu dạng thưa: chỉ các bucket khác 0, mã hóa varint (chỉ số chênh lệch, số đếm).
+ */
+public final class AmountHistogram {
+
+    public static final double RELATIVE_ACCURACY = 0.01;
+    private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+
+    private final TreeMap<Integer, Long> buckets = new TreeMap<>();
+    private long count;
+
+    public void add(long cents) {
+        if (cents <= 0) {
+            throw new IllegalArgumentException("Amount must be positive: " + cents);
+        }
+        buckets.merge((int) Math.ceil(Math.log(cents) / LOG_GAMMA), 1L, Long::sum);
+        count++;
+    }
+
+    public void merge(AmountHistogram other) {
+        other.buckets.forEach((index, n) -> buckets.merge(index, n, Long::sum));
+        count += other.count;
+    }
+
+    public long count() {
+        return count;
+    }
+
+    /**
+     * Giá trị (xu) ở quantile q trong [0, 1]; 0 nếu histogram rỗng.
+     */
+    public long quantile(double q) {
+        if (q < 0 || q > 1) {
+            throw new IllegalArgumentException("Quantile must be in [0, 1]: " + q);
+        }
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(q * count));
+        long seen = 0;
+        for (Map.Entry<Integer, Long> bucket : buckets.entrySet()) {
+            seen += bucket.getValue();
+            if (seen >= rank) {
+                // Điểm giữa tương đối của bucket (γ^(i-1), γ^i]
+                return Math.round(2 * Math.pow(GAMMA, bucket.getKey()) / (GAMMA + 1));
+            }
+        }
+        throw new IllegalStateException("Bucket counts do not add up to " + count);
+    }
+
+    public byte[] toBytes() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(4 + buckets.size() * 3);
+        writeVarLong(out, buckets.size());
+        int previous = 0;
+        for (Map.Entry<Integer, Long> bucket : buckets.entrySet()) {
+            writeVarLong(out, bucket.getKey() - previous);
+            writeVarLong(out, bucket.getValue());
+            previous = bucket.getKey();
+        }
+        return out.toByteArray();
+    }
+
+    public static AmountHistogram fromBytes(byte[] bytes) {
+        ByteBuffer in = ByteBuffer.wrap(bytes);
+        AmountHistogram histogram = new AmountHistogram();
+        long size = readVarLong(in);
+        int index = 0;
+        for (long i = 0; i < size; i++) {
+            index += (int) readVarLong(in);
+            long n = readVarLong(in);
+            histogram.buckets.put(index, n);
+            histogram.count += n;
+        }
+        return histogram;
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+    }
+}
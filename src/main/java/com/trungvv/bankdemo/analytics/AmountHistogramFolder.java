@@ -0,0 +1,213 @@
+package com.trungvv.bankdemo.analytics;
+
+import com.trungvv.bankdemo.dto.ISentTransfer;
+import com.trungvv.bankdemo.model.DailyAmountHistogram;
+import com.trungvv.bankdemo.repository.DailyAmountHistogramRepository;
+import com.trungvv.bankdemo.repository.JobWatermarkRepository;
+import com.trungvv.bankdemo.repository.TransactionRepository;
+import com.trungvv.bankdemo.shard.ShardRouter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Cộng dồn giao dịch SUCCESS vào histogram số tiền theo ngày (toàn hệ thống và theo tài khoản gửi).
+ * Giống snapshot sổ cái: mỗi lượt đọc các giao dịch trong [watermark, now - lag) theo index created_at,
+ * cộng vào các dòng daily_amount_histograms và dời watermark trong cùng một transaction, nên mỗi giao dịch
+ * được cộng đúng một lần kể cả khi ứng dụng dừng giữa chừng. Mỗi lát khóa dòng job_watermarks FOLD_LOCK
+ * trước khi đọc watermark, nên nhiều instance chạy cùng lúc không cộng trùng một lát. Độ trễ lag để giao dịch
+ * đã lấy created_at nhưng chưa commit không bị bỏ qua. Truy vấn phân phối chỉ đọc các dòng histogram, không quét transactions.
+ * Khi chia shard mỗi shard cộng dồn giao dịch do tài khoản trên shard đó gửi vào histogram của shard,
+ * truy vấn phân phối gộp histogram của mọi shard.
+ */
+@Slf4j
+@Component
+public class AmountHistogramFolder {
+
+    private static final Duration SLICE = Duration.ofHours(1);
+    // Dòng job_watermarks chỉ dùng làm khóa; watermark vẫn là MAX(folded_until) của các dòng GLOBAL_SCOPE
+    static final String FOLD_LOCK = "amount_histograms";
+
+    private record Key(UUID scopeId, LocalDate date) {
+    }
+
+    private static final class Delta {
+        final AmountHistogram histogram = new AmountHistogram();
+        BigDecimal total = BigDecimal.ZERO;
+    }
+
+    private final TransactionRepository transactionRepository;
+    private final DailyAmountHistogramRepository dailyAmountHistogramRepository;
+    private final JobWatermarkRepository jobWatermarkRepository;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate writeTemplate;
+    private final long lagSeconds;
+
+    public AmountHistogramFolder(TransactionRepository transactionRepository,
+                                 DailyAmountHistogramRepository dailyAmountHistogramRepository,
+                                 JobWatermarkRepository jobWatermarkRepository,
+                                 ShardRouter shardRouter,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${bank.amount-histograms.fold-lag-seconds:60}") long lagSeconds) {
+        this.transactionRepository = transactionRepository;
+        this.dailyAmountHistogramRepository = dailyAmountHistogramRepository;
+        this.jobWatermarkRepository = jobWatermarkRepository;
+        this.shardRouter = shardRouter;
+        this.writeTemplate = new TransactionTemplate(transactionManager);
+        this.lagSeconds = lagSeconds;
+    }
+
+    @Scheduled(fixedDelayString = "${bank.amount-histograms.fold-interval-ms:60000}")
+    public void fold() {
+        fold(LocalDateTime.now().minusSeconds(lagSeconds));
+    }
+
+    /**
+     * Cộng dồn các giao dịch tạo trước cutoff, từng lát một giờ, mỗi lát một transaction.
+     *
+     * @return số giao dịch đã cộng dồn
+     */
+    public synchronized long fold(LocalDateTime cutoff) {
+        // folded_until lưu tới micro giây: mốc có phần nano sẽ không bao giờ bằng cutoff và vòng lặp không dừng
+        LocalDateTime until = cutoff.truncatedTo(ChronoUnit.MICROS);
+        long folded = 0;
+        for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+            folded += shardRouter.on(shard, () -> foldOnCurrentShard(until));
+        }
+        if (folded > 0) {
+            log.debug("Folded {} transactions into amount histograms until {}", folded, until);
+        }
+        return folded;
+    }
+
+    private long foldOnCurrentShard(LocalDateTime cutoff) {
+        long folded = 0;
+        while (true) {
+            Long sliceFolded = writeTemplate.execute(status -> foldNextSlice(cutoff));
+            if (sliceFolded == null) {
+                return folded;
+            }
+            folded += sliceFolded;
+        }
+    }
+
+    /**
+     * Cộng dồn lát kế tiếp sau watermark (tối đa SLICE, không quá cutoff); null nếu watermark đã tới cutoff.
+     */
+    private Long foldNextSlice(LocalDateTime cutoff) {
+        // Instance khác đang cộng dồn thì chờ ở đây, rồi đọc watermark nó vừa dời
+        jobWatermarkRepository.findForUpdate(FOLD_LOCK)
+                .orElseThrow(() -> new IllegalStateException("Missing job watermark " + FOLD_LOCK));
+        LocalDateTime from = dailyAmountHistogramRepository.findWatermark();
+        if (from == null) {
+            from = transactionRepository.findFirstCreatedAt();
+            if (from == null) {
+                return null;
+            }
+        }
+        if (!from.isBefore(cutoff)) {
+            return null;
+        }
+        LocalDateTime to = from.plus(SLICE).isBefore(cutoff) ? from.plus(SLICE) : cutoff;
+        return foldSlice(from, to);
+    }
+
+    private long foldSlice(LocalDateTime from, LocalDateTime to) {
+        Map<Key, Delta> deltas = new HashMap<>();
+        long folded = 0;
+        int shard = ShardRouter.current();
+        try (Stream<ISentTransfer> transfers = transactionRepository.streamSentBetween(from, to)) {
+            for (ISentTransfer transfer : (Iterable<ISentTransfer>) transfers::iterator) {
+                if (shardRouter.shardOf(transfer.getSenderAccountId()) != shard) {
+                    // Bản sao giao dịch liên shard trên shard nhận, đã được cộng ở shard gửi
+                    continue;
+                }
+                LocalDate date = transfer.getCreatedAt().toLocalDate();
+                long cents = transfer.getAmount().movePointRight(2).longValue();
+                if (cents <= 0) {
+                    // Số tiền dưới 1 xu được lưu thành 0.00: không có bucket nào chứa, bỏ qua thay vì làm hỏng cả lát
+                    continue;
+                }
+                for (UUID scope : new UUID[]{DailyAmountHistogram.GLOBAL_SCOPE, transfer.getSenderAccountId()}) {
+                    Delta delta = deltas.computeIfAbsent(new Key(scope, date), key -> new Delta());
+                    delta.histogram.add(cents);
+                    delta.total = delta.total.add(transfer.getAmount());
+                }
+                folded++;
+            }
+        }
+        // Dòng toàn hệ thống của ngày cuối lát luôn được ghi để watermark tiến lên cả khi lát rỗng
+        deltas.computeIfAbsent(new Key(DailyAmountHistogram.GLOBAL_SCOPE, to.toLocalDate()), key -> new Delta());
+
+        List<DailyAmountHistogram.HistogramId> ids = deltas.keySet().stream()
+                .map(key -> new DailyAmountHistogram.HistogramId(key.scopeId(), key.date()))
+                .toList();
+        Map<DailyAmountHistogram.HistogramId, DailyAmountHistogram> existing = new HashMap<>();
+        for (DailyAmountHistogram row : dailyAmountHistogramRepository.findAllById(ids)) {
+            existing.put(new DailyAmountHistogram.HistogramId(row.getScopeId(), row.getHistogramDate()), row);
+        }
+        List<DailyAmountHistogram> changed = new ArrayList<>(deltas.size());
+        for (DailyAmountHistogram.HistogramId id : ids) {
+            Delta delta = deltas.get(new Key(id.getScopeId(), id.getHistogramDate()));
+            DailyAmountHistogram row = existing.get(id);
+            AmountHistogram histogram = delta.histogram;
+            if (row == null) {
+                row = DailyAmountHistogram.builder()
+                        .scopeId(id.getScopeId())
+                        .histogramDate(id.getHistogramDate())
+                        .totalAmount(BigDecimal.ZERO)
+                        .build();
+            } else {
+                histogram = AmountHistogram.fromBytes(row.getSketch());
+                histogram.merge(delta.histogram);
+            }
+            row.setSketch(histogram.toBytes());
+            row.setTransactionCount(histogram.count());
+            row.setTotalAmount(row.getTotalAmount().add(delta.total));
+            row.setFoldedUntil(to);
+            changed.add(row);
+        }
+        dailyAmountHistogramRepository.saveAll(changed);
+        return folded;
+    }
+
+    /**
+     * Histogram gộp của scope trong [fromDate, toDate] cùng tổng tiền và mốc đã cộng dồn.
+     */
+    public Distribution distribution(UUID scopeId, LocalDate fromDate, LocalDate toDate) {
+        AmountHistogram merged = new AmountHistogram();
+        BigDecimal total = BigDecimal.ZERO;
+        LocalDateTime foldedUntil = null;
+        for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+            List<DailyAmountHistogram> rows = shardRouter.on(shard, () -> dailyAmountHistogramRepository.findInRange(scopeId, fromDate, toDate));
+            for (DailyAmountHistogram row : rows) {
+                merged.merge(AmountHistogram.fromBytes(row.getSketch()));
+                total = total.add(row.getTotalAmount());
+            }
+            // Mốc chung là mốc của shard chậm nhất; shard chưa có giao dịch nào không tính
+            LocalDateTime shardFoldedUntil = shardRouter.on(shard, dailyAmountHistogramRepository::findWatermark);
+            if (shardFoldedUntil != null && (foldedUntil == null || shardFoldedUntil.isBefore(foldedUntil))) {
+                foldedUntil = shardFoldedUntil;
+            }
+        }
+        return new Distribution(merged, total, foldedUntil);
+    }
+
+    public record Distribution(AmountHistogram histogram, BigDecimal totalAmount, LocalDateTime foldedUntil) {
+    }
+}
@@ -0,0 +1,216 @@
+package com.trungvv.bankdemo.analytics;
+
+import com.trungvv.bankdemo.dto.ISentTransfer;
+import com.trungvv.bankdemo.dto.TransactionDto;
+import com.trungvv.bankdemo.model.CounterpartySketch;
+import com.trungvv.bankdemo.outbox.TransactionEvent;
+import com.trungvv.bankdemo.outbox.TransactionEventBus;
+import com.trungvv.bankdemo.repository.CounterpartySketchRepository;
+import com.trungvv.bankdemo.repository.TransactionRepository;
+import com.trungvv.bankdemo.service.OutboxService;
+import com.trungvv.bankdemo.shard.ShardRouter;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Đếm xấp xỉ số đối tác khác nhau của mỗi tài khoản bằng HyperLogLog theo ngày.
+ * Mỗi giao dịch TRANSACTION_COMPLETED trên TransactionEventBus thêm bên nhận vào sketch ngày của bên gửi và ngược lại.
+ * Các sketch thay đổi được giữ trong bộ nhớ (4 KB mỗi tài khoản-ngày) và định kỳ gộp (max theo thanh ghi)
+ * vào account_counterparty_sketches; truy vấn khoảng ngày gộp các dòng đã lưu với phần chưa flush.
+ * Vì gộp HyperLogLog là idempotent, khi khởi động chỉ cần phát lại các giao dịch gần đây
+ * mà không lo đếm trùng phần đã flush. Khi chia shard, sketch nằm cùng shard với tài khoản
+ * (bản sao giao dịch liên shard được phát lại hai lần cũng không làm sai kết quả).
+ */
+@Slf4j
+@Component
+public class CounterpartyTracker {
+
+    private record Key(UUID accountId, LocalDate date) {
+    }
+
+    private final TransactionEventBus transactionEventBus;
+    private final TransactionRepository transactionRepository;
+    private final CounterpartySketchRepository counterpartySketchRepository;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate writeTemplate;
+    private final Duration replay;
+    private final int flushBatchSize;
+    private Map<Key, HyperLogLog> dirty = new HashMap<>();
+    // Lô đang được ghi: vẫn được tính trong truy vấn cho tới khi commit
+    private Map<Key, HyperLogLog> flushing = Map.of();
+    private AutoCloseable subscription;
+
+    public CounterpartyTracker(TransactionEventBus transactionEventBus,
+                               TransactionRepository transactionRepository,
+                               CounterpartySketchRepository counterpartySketchRepository,
+                               ShardRouter shardRouter,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${bank.counterparties.replay-minutes:10}") long replayMinutes,
+                               @Value("${bank.counterparties.flush-batch-size:500}") int flushBatchSize) {
+        this.transactionEventBus = transactionEventBus;
+        this.transactionRepository = transactionRepository;
+        this.counterpartySketchRepository = counterpartySketchRepository;
+        this.shardRouter = shardRouter;
+        this.writeTemplate = new TransactionTemplate(transactionManager);
+        this.replay = Duration.ofMinutes(replayMinutes);
+        this.flushBatchSize = flushBatchSize;
+    }
+
+    /**
+     * Phát lại các giao dịch trong replay-minutes gần nhất (phải lớn hơn chu kỳ flush) để bù phần chưa flush
+     * trước khi dừng, rồi đăng ký nhận sự kiện mới.
+     */
+    @PostConstruct
+    void start() {
+        LocalDateTime since = LocalDateTime.now().minus(replay);
+        int replayed = 0;
+        for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+            List<ISentTransfer> transfers = shardRouter.on(shard, () -> transactionRepository.findSentSince(since));
+            for (ISentTransfer transfer : transfers) {
+                record(transfer.getSenderAccountId(), transfer.getReceiverAccountId(), transfer.getCreatedAt().toLocalDate());
+            }
+            replayed += transfers.size();
+        }
+        log.info("Counterparty sketches replayed {} transactions since {}", replayed, since);
+        subscription = transactionEventBus.subscribe(this::onEvent);
+    }
+
+    @PreDestroy
+    void stop() throws Exception {
+        subscription.close();
+        flush();
+    }
+
+    void onEvent(TransactionEvent event) {
+        if (OutboxService.TRANSACTION_COMPLETED.equals(event.getEventType())) {
+            TransactionDto transaction = event.getTransaction();
+            record(transaction.getSenderAccountId(), transaction.getReceiverAccountId(), event.getOccurredAt().toLocalDate());
+        }
+    }
+
+    synchronized void record(UUID senderId, UUID receiverId, LocalDate date) {
+        dirty.computeIfAbsent(new Key(senderId, date), key -> new HyperLogLog()).add(receiverId);
+        dirty.computeIfAbsent(new Key(receiverId, date), key -> new HyperLogLog()).add(senderId);
+    }
+
+    /**
+     * Ghi các sketch đã thay đổi xuống DB, trả về số dòng đã ghi. Lô lỗi được trả lại bộ nhớ để lần sau ghi tiếp.
+     */
+    @Scheduled(fixedDelayString = "${bank.counterparties.flush-interval-ms:10000}")
+    public int flush() {
+        Map<Key, HyperLogLog> batch;
+        synchronized (this) {
+            if (dirty.isEmpty()) {
+                return 0;
+            }
+            batch = dirty;
+            flushing = batch;
+            dirty = new HashMap<>();
+        }
+        // Xếp theo shard của tài khoản để mỗi lô chỉ ghi trên một shard
+        List<Map.Entry<Key, HyperLogLog>> entries = new ArrayList<>(batch.entrySet());
+        entries.sort(Comparator.comparingInt(this::shardOf));
+        int written = 0;
+        try {
+            while (written < entries.size()) {
+                int shard = shardOf(entries.get(written));
+                int to = written + 1;
+                while (to < entries.size() && to - written < flushBatchSize && shardOf(entries.get(to)) == shard) {
+                    to++;
+                }
+                List<Map.Entry<Key, HyperLogLog>> chunk = entries.subList(written, to);
+                shardRouter.on(shard, () -> writeTemplate.execute(status -> {
+                    writeChunk(chunk);
+                    return null;
+                }));
+                written = to;
+            }
+        } catch (RuntimeException e) {
+            log.warn("Counterparty sketch flush failed after {} rows, will retry", written, e);
+            synchronized (this) {
+                for (Map.Entry<Key, HyperLogLog> entry : entries.subList(written, entries.size())) {
+                    dirty.computeIfAbsent(entry.getKey(), key -> new HyperLogLog()).merge(entry.getValue());
+                }
+            }
+        } finally {
+            synchronized (this) {
+                flushing = Map.of();
+            }
+        }
+        return written;
+    }
+
+    private int shardOf(Map.Entry<Key, HyperLogLog> entry) {
+        return shardRouter.shardOf(entry.getKey().accountId());
+    }
+
+    private void writeChunk(List<Map.Entry<Key, HyperLogLog>> chunk) {
+        List<CounterpartySketch.SketchId> ids = chunk.stream()
+                .map(entry -> new CounterpartySketch.SketchId(entry.getKey().accountId(), entry.getKey().date()))
+                .toList();
+        Map<CounterpartySketch.SketchId, CounterpartySketch> existing = new HashMap<>();
+        for (CounterpartySketch sketch : counterpartySketchRepository.findAllById(ids)) {
+            existing.put(new CounterpartySketch.SketchId(sketch.getAccountId(), sketch.getSketchDate()), sketch);
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<CounterpartySketch> changed = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            CounterpartySketch sketch = existing.get(ids.get(i));
+            HyperLogLog merged = chunk.get(i).getValue();
+            if (sketch == null) {
+                sketch = CounterpartySketch.builder()
+                        .accountId(ids.get(i).getAccountId())
+                        .sketchDate(ids.get(i).getSketchDate())
+                        .build();
+            } else {
+                HyperLogLog stored = HyperLogLog.fromBytes(sketch.getRegisters());
+                stored.merge(merged);
+                merged = stored;
+            }
+            sketch.setRegisters(merged.toBytes());
+            sketch.setUpdatedAt(now);
+            changed.add(sketch);
+        }
+        counterpartySketchRepository.saveAll(changed);
+    }
+
+    /**
+     * Ước lượng số đối tác khác nhau của tài khoản trong [fromDate, toDate]; gọi trên shard của tài khoản.
+     */
+    public long estimateDistinctCounterparties(UUID accountId, LocalDate fromDate, LocalDate toDate) {
+        HyperLogLog union = new HyperLogLog();
+        for (CounterpartySketch sketch : counterpartySketchRepository.findInRange(accountId, fromDate, toDate)) {
+            union.merge(HyperLogLog.fromBytes(sketch.getRegisters()));
+        }
+        synchronized (this) {
+            for (LocalDate date = fromDate; !date.isAfter(toDate); date = date.plusDays(1)) {
+                Key key = new Key(accountId, date);
+                HyperLogLog pending = dirty.get(key);
+                if (pending != null) {
+                    union.merge(pending);
+                }
+                pending = flushing.get(key);
+                if (pending != null) {
+                    union.merge(pending);
+                }
+            }
+        }
+        return union.estimate();
+    }
+}
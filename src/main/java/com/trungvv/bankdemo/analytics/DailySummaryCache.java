@@ -0,0 +1,188 @@
+package com.trungvv.bankdemo.analytics;
+
+import com.trungvv.bankdemo.bulkhead.ReportConnectionGate;
+import com.trungvv.bankdemo.dto.AccountDaySummaryDto;
+import com.trungvv.bankdemo.dto.IAccountTotal;
+import com.trungvv.bankdemo.repository.TransactionRepository;
+import com.trungvv.bankdemo.shard.ShardRouter;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Tổng hợp gửi/nhận/net theo tài khoản theo từng ngày. Mỗi ngày là hai truy vấn GROUP BY trên index created_at,
+ * các ngày chưa có trong cache được tính song song. Ngày đã đóng (kết thúc trước now - close-lag) không còn
+ * giao dịch mới nên được giữ trong cache cho tới khi bị đẩy ra (LRU, tối đa cache-days ngày) hoặc bị
+ * evict khi trạng thái một giao dịch cũ thay đổi; ngày hiện tại luôn được tính lại.
+ * Khi chia shard, mỗi ngày được tính trên mọi shard: phía gửi lấy từ shard người gửi, phía nhận từ
+ * shard người nhận, nên bản sao giao dịch liên shard không bị đếm hai lần.
+ */
+@Component
+public class DailySummaryCache {
+
+    private final TransactionRepository transactionRepository;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate readTemplate;
+    private final long closeLagSeconds;
+    private final ExecutorService workers;
+    private final Map<LocalDate, List<AccountDaySummaryDto>> closedDays;
+
+    public DailySummaryCache(TransactionRepository transactionRepository,
+                             ShardRouter shardRouter,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${bank.daily-summary.close-lag-seconds:60}") long closeLagSeconds,
+                             @Value("${bank.daily-summary.cache-days:400}") int cacheDays,
+                             @Value("${bank.daily-summary.parallelism:4}") int parallelism) {
+        this.transactionRepository = transactionRepository;
+        this.shardRouter = shardRouter;
+        this.readTemplate = new TransactionTemplate(transactionManager);
+        this.readTemplate.setReadOnly(true);
+        this.closeLagSeconds = closeLagSeconds;
+        this.workers = Executors.newFixedThreadPool(parallelism, ReportConnectionGate.threadFactory("daily-summary"));
+        this.closedDays = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<LocalDate, List<AccountDaySummaryDto>> eldest) {
+                return size() > cacheDays;
+            }
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        workers.shutdownNow();
+    }
+
+    /**
+     * Tổng hợp các ngày trong [fromDate, toDate], sắp theo ngày rồi theo tài khoản.
+     */
+    public List<AccountDaySummaryDto> summarize(LocalDate fromDate, LocalDate toDate) {
+        return summarize(fromDate, toDate, LocalDateTime.now());
+    }
+
+    List<AccountDaySummaryDto> summarize(LocalDate fromDate, LocalDate toDate, LocalDateTime now) {
+        Map<LocalDate, List<AccountDaySummaryDto>> days = new TreeMap<>();
+        Map<LocalDate, Future<List<AccountDaySummaryDto>>> pending = new TreeMap<>();
+        for (LocalDate date = fromDate; !date.isAfter(toDate); date = date.plusDays(1)) {
+            List<AccountDaySummaryDto> cached = closedDays.get(date);
+            if (cached != null) {
+                days.put(date, cached);
+            } else {
+                LocalDate day = date;
+                pending.put(date, workers.submit(() -> computeDay(day)));
+            }
+        }
+        for (Map.Entry<LocalDate, Future<List<AccountDaySummaryDto>>> entry : pending.entrySet()) {
+            List<AccountDaySummaryDto> day = await(entry.getValue());
+            if (isClosed(entry.getKey(), now)) {
+                closedDays.put(entry.getKey(), day);
+            }
+            days.put(entry.getKey(), day);
+        }
+        List<AccountDaySummaryDto> result = new ArrayList<>();
+        days.values().forEach(result::addAll);
+        return result;
+    }
+
+    /**
+     * Bỏ ngày khỏi cache, dùng khi một giao dịch của ngày đó đổi trạng thái hoặc bị xóa.
+     */
+    public void evict(LocalDate date) {
+        closedDays.remove(date);
+    }
+
+    /**
+     * Như evict nhưng chờ transaction hiện tại commit (nếu có). Evict trước commit thì một lượt đọc chen giữa
+     * sẽ tính lại ngày từ dữ liệu cũ và giữ kết quả sai trong cache.
+     */
+    public void evictAfterCommit(LocalDate date) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evict(date);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evict(date);
+            }
+        });
+    }
+
+    int cachedDays() {
+        return closedDays.size();
+    }
+
+    private boolean isClosed(LocalDate date, LocalDateTime now) {
+        return !date.plusDays(1).atStartOfDay().plusSeconds(closeLagSeconds).isAfter(now);
+    }
+
+    private List<AccountDaySummaryDto> computeDay(LocalDate date) {
+        LocalDateTime start = date.atStartOfDay();
+        LocalDateTime end = date.plusDays(1).atStartOfDay();
+        Map<UUID, AccountDaySummaryDto> accounts = new TreeMap<>();
+        for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+            int current = shard;
+            shardRouter.on(shard, () -> readTemplate.execute(status -> {
+                for (IAccountTotal sent : transactionRepository.sumSentBetween(start, end)) {
+                    if (shardRouter.shardOf(sent.getAccountId()) == current) {
+                        AccountDaySummaryDto summary = accounts.computeIfAbsent(sent.getAccountId(), id -> empty(date, id));
+                        summary.setSentCount(sent.getTransactionCount());
+                        summary.setSentAmount(sent.getAmount());
+                    }
+                }
+                for (IAccountTotal received : transactionRepository.sumReceivedBetween(start, end)) {
+                    if (shardRouter.shardOf(received.getAccountId()) == current) {
+                        AccountDaySummaryDto summary = accounts.computeIfAbsent(received.getAccountId(), id -> empty(date, id));
+                        summary.setReceivedCount(received.getTransactionCount());
+                        summary.setReceivedAmount(received.getAmount());
+                    }
+                }
+                return null;
+            }));
+        }
+        List<AccountDaySummaryDto> day = new ArrayList<>(accounts.values());
+        day.forEach(summary -> summary.setNetAmount(summary.getReceivedAmount().subtract(summary.getSentAmount())));
+        return Collections.unmodifiableList(day);
+    }
+
+    private static AccountDaySummaryDto empty(LocalDate date, UUID accountId) {
+        return AccountDaySummaryDto.builder()
+                .date(date)
+                .accountId(accountId)
+                .sentAmount(BigDecimal.ZERO)
+                .receivedAmount(BigDecimal.ZERO)
+                .build();
+    }
+
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while computing daily summary", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
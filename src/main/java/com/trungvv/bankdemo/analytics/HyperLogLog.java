@@ -0,0 +1,104 @@
+package com.trungvv.bankdemo.analytics;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * HyperLogLog độ chính xác P = 12: 4096 thanh ghi 1 byte (4 KB), sai số chuẩn tương đối 1.04 / sqrt(4096) ≈ 1.6%
+ * (khoảng 95% ước lượng nằm trong ±3.3%). Với tập nhỏ dùng linear counting nên gần như chính xác.
+ * Thêm lại cùng một phần tử hay gộp lại cùng một sketch không làm thay đổi kết quả (max theo thanh ghi).
+ * Không thread-safe.
+ */
+public final class HyperLogLog {
+
+    public static final int PRECISION = 12;
+    public static final int REGISTERS = 1 << PRECISION;
+    public static final double RELATIVE_STANDARD_ERROR = 1.04 / Math.sqrt(REGISTERS);
+
+    private final byte[] registers;
+
+    public HyperLogLog() {
+        this(new byte[REGISTERS]);
+    }
+
+    private HyperLogLog(byte[] registers) {
+        this.registers = registers;
+    }
+
+    public static HyperLogLog fromBytes(byte[] bytes) {
+        if (bytes.length != REGISTERS) {
+            throw new IllegalArgumentException("Expected " + REGISTERS + " registers but found " + bytes.length);
+        }
+        return new HyperLogLog(bytes.clone());
+    }
+
+    public void add(UUID value) {
+        long hash = fmix64(value.getMostSignificantBits() ^ fmix64(value.getLeastSignificantBits()));
+        int index = (int) (hash >>> (64 - PRECISION));
+        // Bit canh ở vị trí P - 1 giới hạn rank tối đa là 64 - P + 1
+        byte rank = (byte) (Long.numberOfLeadingZeros((hash << PRECISION) | (1L << (PRECISION - 1))) + 1);
+        if (registers[index] < rank) {
+            registers[index] = rank;
+        }
+    }
+
+    public void merge(HyperLogLog other) {
+        for (int i = 0; i < REGISTERS; i++) {
+            if (registers[i] < other.registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+
+    public long estimate() {
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        double m = REGISTERS;
+        // Chọn theo ước lượng linear counting: ước lượng thô lệch lên vài % quanh 2.5m nên không dùng nó để chọn
+        if (zeros > 0) {
+            double linear = m * Math.log(m / zeros);
+            if (linear <= 3 * m) {
+                return Math.round(linear);
+            }
+        }
+        return Math.round(0.7213 / (1 + 1.079 / m) * m * m / sum);
+    }
+
+    public byte[] toBytes() {
+        return registers.clone();
+    }
+
+    public boolean isEmpty() {
+        for (byte register : registers) {
+            if (register != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof HyperLogLog other && Arrays.equals(registers, other.registers);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(registers);
+    }
+
+    private static long fmix64(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
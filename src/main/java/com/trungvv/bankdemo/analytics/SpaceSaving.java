@@ -0,0 +1,129 @@
+package com.trungvv.bankdemo.analytics;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.UUID;
+
+/**
+ * Space-Saving có trọng số: giữ tối đa capacity bộ đếm. Khi đầy, khóa mới thay thế bộ đếm nhỏ nhất
+ * và kế thừa giá trị của nó làm sai số, nên count luôn là cận trên và count - error là cận dưới của tổng thật.
+ * Mọi khóa không được theo dõi có tổng thật không vượt quá absentBound().
+ * Không thread-safe.
+ */
+final class SpaceSaving {
+
+    static final class Counter {
+        final UUID key;
+        long count;
+        long error;
+
+        Counter(UUID key, long count, long error) {
+            this.key = key;
+            this.count = count;
+            this.error = error;
+        }
+    }
+
+    private static final Comparator<Counter> BY_COUNT = Comparator.<Counter>comparingLong(c -> c.count).thenComparing(c -> c.key);
+
+    private final int capacity;
+    private final Map<UUID, Counter> counters = new HashMap<>();
+    private final TreeSet<Counter> byCount = new TreeSet<>(BY_COUNT);
+    private long absentBound;
+
+    SpaceSaving(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
+    }
+
+    void offer(UUID key, long weight) {
+        Counter counter = counters.get(key);
+        if (counter == null) {
+            if (counters.size() < capacity) {
+                counter = new Counter(key, 0, 0);
+            } else {
+                Counter evicted = byCount.pollFirst();
+                counters.remove(evicted.key);
+                absentBound = Math.max(absentBound, evicted.count);
+                counter = new Counter(key, evicted.count, evicted.count);
+            }
+            counters.put(key, counter);
+        } else {
+            byCount.remove(counter);
+        }
+        counter.count += weight;
+        byCount.add(counter);
+    }
+
+    long absentBound() {
+        return absentBound;
+    }
+
+    int size() {
+        return counters.size();
+    }
+
+    Collection<Counter> counters() {
+        return counters.values();
+    }
+
+    /**
+     * k bộ đếm lớn nhất, giảm dần.
+     */
+    List<Counter> top(int k) {
+        List<Counter> result = new ArrayList<>(Math.min(k, counters.size()));
+        for (Counter counter : byCount.descendingSet()) {
+            if (result.size() == k) {
+                break;
+            }
+            result.add(counter);
+        }
+        return result;
+    }
+
+    /**
+     * Gộp nhiều summary (các cửa sổ rời nhau): khóa vắng mặt ở một summary được cộng absentBound của summary đó
+     * vào cả count và error, rồi giữ lại capacity khóa lớn nhất.
+     */
+    static SpaceSaving merge(List<SpaceSaving> parts, int capacity) {
+        long absentTotal = 0;
+        Map<UUID, Counter> merged = new HashMap<>();
+        // Tổng absentBound của các summary có chứa khóa, để suy ra phần phải cộng cho các summary không chứa
+        Map<UUID, Long> presentBounds = new HashMap<>();
+        for (SpaceSaving part : parts) {
+            absentTotal += part.absentBound;
+            for (Counter counter : part.counters.values()) {
+                Counter target = merged.computeIfAbsent(counter.key, key -> new Counter(key, 0, 0));
+                target.count += counter.count;
+                target.error += counter.error;
+                if (part.absentBound > 0) {
+                    presentBounds.merge(counter.key, part.absentBound, Long::sum);
+                }
+            }
+        }
+
+        SpaceSaving result = new SpaceSaving(capacity);
+        for (Counter counter : merged.values()) {
+            long missing = absentTotal - presentBounds.getOrDefault(counter.key, 0L);
+            counter.count += missing;
+            counter.error += missing;
+            result.byCount.add(counter);
+            if (result.byCount.size() > capacity) {
+                result.byCount.pollFirst();
+            }
+        }
+        long dropped = merged.size() > capacity ? result.byCount.first().count : 0;
+        for (Counter counter : result.byCount) {
+            result.counters.put(counter.key, counter);
+        }
+        result.absentBound = Math.max(absentTotal, dropped);
+        return result;
+    }
+}
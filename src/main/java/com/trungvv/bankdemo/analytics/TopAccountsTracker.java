@@ -0,0 +1,171 @@
+package com.trungvv.bankdemo.analytics;
+
+import com.trungvv.bankdemo.dto.TopAccountDto;
+import com.trungvv.bankdemo.dto.TransactionDto;
+import com.trungvv.bankdemo.outbox.TransactionEvent;
+import com.trungvv.bankdemo.outbox.TransactionEventBus;
+import com.trungvv.bankdemo.service.OutboxService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Top tài khoản theo tổng tiền gửi/nhận trong giờ và ngày gần nhất, tính dạng streaming từ sự kiện
+ * TRANSACTION_COMPLETED trên TransactionEventBus (sau commit, đúng thứ tự outbox) thay vì GROUP BY trên transactions.
+ * Mỗi khoảng là một vòng cửa sổ tumbling (giờ: 12 x 5 phút, ngày: 24 x 1 giờ), mỗi cửa sổ một Space-Saving
+ * capacity bộ đếm, nên bộ nhớ bị chặn. Kết quả gộp các cửa sổ đã đóng được cache tới khi vòng quay sang cửa sổ mới;
+ * một truy vấn chỉ gộp cache đó với cửa sổ hiện tại.
+ */
+@Component
+// Phải đăng ký subscriber ngay khi khởi động, kể cả với profile lazy-initialization
+@Lazy(false)
+public class TopAccountsTracker {
+
+    public enum Range {
+        HOUR(Duration.ofMinutes(5), 12),
+        DAY(Duration.ofHours(1), 24);
+
+        private final Duration window;
+        private final int windows;
+
+        Range(Duration window, int windows) {
+            this.window = window;
+            this.windows = windows;
+        }
+    }
+
+    public enum Side {
+        SENDER, RECEIVER
+    }
+
+    private final TransactionEventBus transactionEventBus;
+    private final int capacity;
+    private final Map<Range, Map<Side, TumblingWindows>> rings = new EnumMap<>(Range.class);
+    private AutoCloseable subscription;
+
+    public TopAccountsTracker(TransactionEventBus transactionEventBus,
+                              @Value("${bank.top-accounts.capacity:1000}") int capacity) {
+        this.transactionEventBus = transactionEventBus;
+        this.capacity = capacity;
+        for (Range range : Range.values()) {
+            Map<Side, TumblingWindows> sides = new EnumMap<>(Side.class);
+            for (Side side : Side.values()) {
+                sides.put(side, new TumblingWindows(range.window.toMillis(), range.windows));
+            }
+            rings.put(range, sides);
+        }
+    }
+
+    @PostConstruct
+    void subscribe() {
+        subscription = transactionEventBus.subscribe(this::onEvent);
+    }
+
+    @PreDestroy
+    void unsubscribe() throws Exception {
+        subscription.close();
+    }
+
+    void onEvent(TransactionEvent event) {
+        if (OutboxService.TRANSACTION_COMPLETED.equals(event.getEventType())) {
+            record(event.getTransaction(), event.getOccurredAt());
+        }
+    }
+
+    synchronized void record(TransactionDto transaction, LocalDateTime occurredAt) {
+        long atMs = occurredAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        long cents = transaction.getAmount().movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValue();
+        for (Map<Side, TumblingWindows> sides : rings.values()) {
+            sides.get(Side.SENDER).offer(transaction.getSenderAccountId(), cents, atMs);
+            sides.get(Side.RECEIVER).offer(transaction.getReceiverAccountId(), cents, atMs);
+        }
+    }
+
+    /**
+     * limit tài khoản có tổng tiền lớn nhất trong khoảng, giảm dần.
+     */
+    public List<TopAccountDto> top(Range range, Side side, int limit) {
+        return top(range, side, limit, System.currentTimeMillis());
+    }
+
+    synchronized List<TopAccountDto> top(Range range, Side side, int limit, long nowMs) {
+        if (limit <= 0 || limit > capacity) {
+            throw new IllegalArgumentException("limit phải nằm trong khoảng 1.." + capacity);
+        }
+        List<TopAccountDto> result = new ArrayList<>(limit);
+        for (SpaceSaving.Counter counter : rings.get(range).get(side).summary(nowMs).top(limit)) {
+            result.add(TopAccountDto.builder()
+                    .accountId(counter.key)
+                    .volume(BigDecimal.valueOf(counter.count, 2))
+                    .maxError(BigDecimal.valueOf(counter.error, 2))
+                    .build());
+        }
+        return result;
+    }
+
+    /**
+     * Vòng windows cửa sổ tumbling dài windowMs, cửa sổ thứ e chứa các giao dịch trong [e * windowMs, (e + 1) * windowMs).
+     */
+    private final class TumblingWindows {
+        private final long windowMs;
+        private final SpaceSaving[] slots;
+        private final long[] epochs;
+        private SpaceSaving closed;
+        private long closedEpoch = Long.MIN_VALUE;
+
+        TumblingWindows(long windowMs, int windows) {
+            this.windowMs = windowMs;
+            this.slots = new SpaceSaving[windows];
+            this.epochs = new long[windows];
+        }
+
+        void offer(UUID accountId, long cents, long atMs) {
+            long epoch = Math.floorDiv(atMs, windowMs);
+            int slot = (int) Math.floorMod(epoch, (long) slots.length);
+            if (slots[slot] == null || epochs[slot] < epoch) {
+                slots[slot] = new SpaceSaving(capacity);
+                epochs[slot] = epoch;
+            } else if (epochs[slot] > epoch) {
+                // Sự kiện cũ hơn cả vòng
+                return;
+            }
+            slots[slot].offer(accountId, cents);
+            if (epoch < closedEpoch) {
+                // Sự kiện đến muộn vào cửa sổ đã đóng: tính lại cache ở lần truy vấn sau
+                closed = null;
+            }
+        }
+
+        SpaceSaving summary(long nowMs) {
+            long current = Math.floorDiv(nowMs, windowMs);
+            if (closed == null || closedEpoch != current) {
+                List<SpaceSaving> parts = new ArrayList<>(slots.length - 1);
+                for (int i = 0; i < slots.length; i++) {
+                    if (slots[i] != null && epochs[i] > current - slots.length && epochs[i] < current) {
+                        parts.add(slots[i]);
+                    }
+                }
+                closed = SpaceSaving.merge(parts, capacity);
+                closedEpoch = current;
+            }
+            int slot = (int) Math.floorMod(current, (long) slots.length);
+            if (slots[slot] == null || epochs[slot] != current) {
+                return closed;
+            }
+            return SpaceSaving.merge(List.of(closed, slots[slot]), capacity);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.trungvv.bankdemo.bulkhead;
+
+import com.trungvv.bankdemo.exception.BulkheadFullException;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Bulkhead cho các endpoint báo cáo: chạy trên pool thread riêng có số thread và hàng chờ cố định,
+ * thread Tomcat được trả lại ngay nên không bị báo cáo chậm giữ. Connection của các thread báo cáo tính vào
+ * giới hạn chung của ReportConnectionGate cùng các worker mà báo cáo gọi tới, nên chuyển tiền luôn còn connection.
+ * Hàng chờ đầy thì từ chối ngay (503) thay vì xếp hàng vô hạn.
+ */
+@Component
+public class ReportBulkhead {
+
+    private final ThreadPoolExecutor executor;
+    private final long retryAfterSeconds;
+
+    public ReportBulkhead(@Value("${bank.reporting.threads:4}") int threads,
+                          @Value("${bank.reporting.queue-capacity:100}") int queueCapacity,
+                          @Value("${bank.reporting.retry-after-seconds:1}") long retryAfterSeconds) {
+        if (threads <= 0 || queueCapacity <= 0) {
+            throw new IllegalArgumentException("bank.reporting.threads and bank.reporting.queue-capacity must be positive");
+        }
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity),
+                ReportConnectionGate.threadFactory("report"), new ThreadPoolExecutor.AbortPolicy());
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Chạy báo cáo trên pool báo cáo; future lỗi với BulkheadFullException nếu pool và hàng chờ đã đầy.
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> report) {
+        try {
+            return CompletableFuture.supplyAsync(report, executor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(new BulkheadFullException("Reporting is saturated, try again later", retryAfterSeconds));
+        }
+    }
+
+    int queued() {
+        return executor.getQueue().size();
+    }
+}
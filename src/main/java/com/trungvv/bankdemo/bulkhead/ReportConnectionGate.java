@@ -0,0 +1,179 @@
+package com.trungvv.bankdemo.bulkhead;
+
+import com.trungvv.bankdemo.shard.ShardRoutingDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Giới hạn chung số connection mà báo cáo và job nền (thread tạo bởi threadFactory/forkJoinThreadFactory:
+ * pool báo cáo, tổng hợp theo ngày, đối soát, sao kê) được giữ cùng lúc trên mỗi pool Hikari.
+ * Connection lấy từ các thread đó phải có permit, thiếu permit quá connection-timeout-ms thì lỗi như khi
+ * Hikari cạn pool. Vì max-connections nhỏ hơn maximum-pool-size, chuyển tiền luôn còn phần còn lại của pool
+ * dù các pool nền có bao nhiêu thread.
+ */
+@Component
+public class ReportConnectionGate implements BeanPostProcessor {
+
+    private static final ThreadLocal<Boolean> GATED = new ThreadLocal<>();
+
+    private final int maxConnections;
+    private final long timeoutMs;
+
+    public ReportConnectionGate(@Value("${bank.reporting.max-connections:4}") int maxConnections,
+                                @Value("${bank.reporting.connection-timeout-ms:30000}") long timeoutMs,
+                                @Value("${spring.datasource.hikari.maximum-pool-size:10}") int connectionPoolSize) {
+        if (maxConnections <= 0) {
+            throw new IllegalArgumentException("bank.reporting.max-connections must be positive");
+        }
+        if (maxConnections >= connectionPoolSize) {
+            throw new IllegalArgumentException("bank.reporting.max-connections (" + maxConnections + ") must be smaller than the connection pool ("
+                    + connectionPoolSize + ") so transfers always have connections left");
+        }
+        this.maxConnections = maxConnections;
+        this.timeoutMs = timeoutMs;
+    }
+
+    /**
+     * Thread daemon tên prefix-n, mọi connection lấy từ thread này đều tính vào giới hạn.
+     */
+    public static ThreadFactory threadFactory(String prefix) {
+        AtomicInteger sequence = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(() -> {
+                GATED.set(Boolean.TRUE);
+                runnable.run();
+            }, prefix + "-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    public static ForkJoinPool.ForkJoinWorkerThreadFactory forkJoinThreadFactory(String prefix) {
+        AtomicInteger sequence = new AtomicInteger();
+        return pool -> {
+            ForkJoinWorkerThread thread = new ForkJoinWorkerThread(pool) {
+                @Override
+                protected void onStart() {
+                    super.onStart();
+                    GATED.set(Boolean.TRUE);
+                }
+            };
+            thread.setName(prefix + "-" + sequence.incrementAndGet());
+            return thread;
+        };
+    }
+
+    /**
+     * Bọc một pool connection; mỗi pool (mỗi shard) có giới hạn riêng.
+     */
+    public DataSource guard(DataSource dataSource) {
+        return new GatedDataSource(dataSource, new Semaphore(maxConnections, true), timeoutMs);
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        // Khi chia shard, ShardingConfig bọc từng pool của shard thay vì DataSource định tuyến
+        if (bean instanceof DataSource dataSource && !(bean instanceof GatedDataSource) && !(bean instanceof ShardRoutingDataSource)) {
+            return guard(dataSource);
+        }
+        return bean;
+    }
+
+    static final class GatedDataSource extends DelegatingDataSource implements AutoCloseable {
+
+        private final Semaphore permits;
+        private final long timeoutMs;
+
+        GatedDataSource(DataSource target, Semaphore permits, long timeoutMs) {
+            super(target);
+            this.permits = permits;
+            this.timeoutMs = timeoutMs;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            if (GATED.get() == null) {
+                return super.getConnection();
+            }
+            acquire();
+            try {
+                return releasingOnClose(super.getConnection());
+            } catch (SQLException | RuntimeException e) {
+                permits.release();
+                throw e;
+            }
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            if (GATED.get() == null) {
+                return super.getConnection(username, password);
+            }
+            acquire();
+            try {
+                return releasingOnClose(super.getConnection(username, password));
+            } catch (SQLException | RuntimeException e) {
+                permits.release();
+                throw e;
+            }
+        }
+
+        int availablePermits() {
+            return permits.availablePermits();
+        }
+
+        @Override
+        public void close() throws Exception {
+            if (getTargetDataSource() instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+
+        private void acquire() throws SQLException {
+            try {
+                if (!permits.tryAcquire(timeoutMs, TimeUnit.MILLISECONDS)) {
+                    throw new SQLTransientConnectionException("Reporting connections exhausted, none available after " + timeoutMs + "ms");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLTransientConnectionException("Interrupted while waiting for a reporting connection", e);
+            }
+        }
+
+        private Connection releasingOnClose(Connection connection) {
+            AtomicBoolean released = new AtomicBoolean();
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> {
+                        if (method.getName().equals("close") && released.compareAndSet(false, true)) {
+                            try {
+                                connection.close();
+                            } finally {
+                                permits.release();
+                            }
+                            return null;
+                        }
+                        try {
+                            return method.invoke(connection, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getTargetException();
+                        }
+                    });
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.trungvv.bankdemo.config;
+
+import com.trungvv.bankdemo.bulkhead.ReportConnectionGate;
+import com.trungvv.bankdemo.shard.ShardRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Chia tài khoản ra nhiều database (bank.sharding.urls, shard i là url thứ i). Username, password, driver
+ * và kích thước pool lấy từ spring.datasource; JPA dùng một DataSource định tuyến theo ShardRouter,
+ * Flyway migrate lần lượt từng shard. Pool của mỗi shard có giới hạn connection báo cáo riêng (ReportConnectionGate).
+ */
+@Configuration
+@ConditionalOnProperty(name = "bank.sharding.enabled", havingValue = "true")
+public class ShardingConfig {
+
+    @Bean
+    @Primary
+    public ShardRoutingDataSource dataSource(DataSourceProperties properties,
+                                             ReportConnectionGate reportConnectionGate,
+                                             @Value("${bank.sharding.urls}") List<String> urls,
+                                             @Value("${spring.datasource.hikari.maximum-pool-size:10}") int maximumPoolSize) {
+        Map<Object, Object> shards = new HashMap<>();
+        for (int shard = 0; shard < urls.size(); shard++) {
+            HikariDataSource dataSource = properties.initializeDataSourceBuilder()
+                    .type(HikariDataSource.class)
+                    .url(urls.get(shard))
+                    .build();
+            dataSource.setPoolName("shard-" + shard);
+            dataSource.setMaximumPoolSize(maximumPoolSize);
+            shards.put(shard, reportConnectionGate.guard(dataSource));
+        }
+        ShardRoutingDataSource routing = new ShardRoutingDataSource();
+        routing.setTargetDataSources(shards);
+        routing.setDefaultTargetDataSource(shards.get(0));
+        return routing;
+    }
+
+    @Bean
+    public FlywayMigrationStrategy shardMigrationStrategy(ShardRoutingDataSource dataSource) {
+        return flyway -> dataSource.getResolvedDataSources().forEach((shard, shardDataSource) ->
+                Flyway.configure().configuration(flyway.getConfiguration()).dataSource(shardDataSource).load().migrate());
+    }
+}
@@ -1,17 +1,28 @@
 package com.trungvv.bankdemo.controller;
 
+import com.trungvv.bankdemo.bulkhead.ReportBulkhead;
 import com.trungvv.bankdemo.dto.AccountDto;
+import com.trungvv.bankdemo.dto.BulkImportResultDto;
+import com.trungvv.bankdemo.service.AccountImportService;
 import com.trungvv.bankdemo.service.AccountService;
+import com.trungvv.bankdemo.service.LedgerService;
 import com.trungvv.bankdemo.exception.ResourceNotFoundException;
+import com.trungvv.bankdemo.shard.ShardRouter;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 @RequestMapping("/api/accounts")
 @RequiredArgsConstructor
@@ -21,18 +32,38 @@ public class AccountController {
     @Autowired
     private AccountService accountService;
 
-    // Tạo tài khoản
+    private final AccountImportService accountImportService;
+
+    private final LedgerService ledgerService;
+
+    private final ReportBulkhead reportBulkhead;
+
+    private final ShardRouter shardRouter;
+
+    // Tạo tài khoản (trên một shard ngẫu nhiên khi chia shard)
     @PostMapping("/")
     public ResponseEntity<AccountDto> createAccount(@RequestParam String name, @RequestParam BigDecimal initialBalance) {
-        AccountDto newAccount = accountService.createAccount(name, initialBalance);
+        AccountDto newAccount = shardRouter.onAnyShard(() -> accountService.createAccount(name, initialBalance));
         return new ResponseEntity<>(newAccount, HttpStatus.CREATED);
     }
 
-    // Lấy tài khoản theo ID
+    // Tạo tài khoản hàng loạt từ file CSV hoặc NDJSON (đọc dạng stream)
+    @PostMapping(value = "/bulk", consumes = {"text/csv", MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<BulkImportResultDto> importAccounts(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                                              InputStream body) throws IOException {
+        return new ResponseEntity<>(accountImportService.importAccounts(body, contentType), HttpStatus.OK);
+    }
+
+    // Lấy tài khoản theo ID (trả về 304 nếu ETag của client vẫn còn đúng)
     @GetMapping("/{accountId}")
-    public ResponseEntity<AccountDto> getAccountById(@PathVariable String accountId) {
+    public ResponseEntity<AccountDto> getAccountById(@PathVariable String accountId, WebRequest request) {
         try {
-            AccountDto account = accountService.getAccountById(UUID.fromString(accountId));
+            UUID id = UUID.fromString(accountId);
+            String eTag = shardRouter.onShardOf(id, () -> accountService.getAccountETag(id));
+            if (eTag != null && request.checkNotModified(eTag)) {
+                return null;
+            }
+            AccountDto account = shardRouter.onShardOf(id, () -> accountService.getAccountById(id));
             return new ResponseEntity<>(account, HttpStatus.OK);
         } catch (ResourceNotFoundException ex) {
             return new ResponseEntity<>(null, HttpStatus.NOT_FOUND);
@@ -43,7 +74,8 @@ public class AccountController {
     @PutMapping("/{accountId}/status")
     public ResponseEntity<AccountDto> updateAccountStatus(@PathVariable String accountId, @RequestParam String status) {
         try {
-            AccountDto updatedAccount = accountService.updateAccountStatus(UUID.fromString(accountId), status);
+            UUID id = UUID.fromString(accountId);
+            AccountDto updatedAccount = shardRouter.onShardOf(id, () -> accountService.updateAccountStatus(id, status));
             return new ResponseEntity<>(updatedAccount, HttpStatus.OK);
         } catch (ResourceNotFoundException ex) {
             return new ResponseEntity<>(null, HttpStatus.NOT_FOUND);
@@ -54,47 +86,84 @@ public class AccountController {
     @PutMapping("/{accountId}/balance")
     public ResponseEntity<AccountDto> updateAccountBalance(@PathVariable String accountId, @RequestParam BigDecimal newBalance) {
         try {
-            AccountDto updatedAccount = accountService.updateAccountBalance(UUID.fromString(accountId), newBalance);
+            UUID id = UUID.fromString(accountId);
+            AccountDto updatedAccount = shardRouter.onShardOf(id, () -> accountService.updateAccountBalance(id, newBalance));
             return new ResponseEntity<>(updatedAccount, HttpStatus.OK);
         } catch (ResourceNotFoundException ex) {
             return new ResponseEntity<>(null, HttpStatus.NOT_FOUND);
         }
     }
 
+    // Bật/tắt số dư phân slot (striped balance) cho tài khoản nhận nhiều giao dịch
+    @PutMapping("/{accountId}/balance-slots")
+    public ResponseEntity<AccountDto> updateBalanceSlots(@PathVariable String accountId, @RequestParam int slots) {
+        try {
+            UUID id = UUID.fromString(accountId);
+            AccountDto updatedAccount = shardRouter.onShardOf(id, () -> accountService.updateBalanceSlots(id, slots));
+            return new ResponseEntity<>(updatedAccount, HttpStatus.OK);
+        } catch (ResourceNotFoundException ex) {
+            return new ResponseEntity<>(null, HttpStatus.NOT_FOUND);
+        }
+    }
+
+    // Lấy các bút toán sổ cái của tài khoản (mới nhất trước)
+    @GetMapping("/{accountId}/ledger")
+    public ResponseEntity<?> listLedgerEntries(@PathVariable String accountId, @RequestParam(defaultValue = "0") int page, @RequestParam(defaultValue = "50") int size) {
+        UUID id = UUID.fromString(accountId);
+        return new ResponseEntity<>(shardRouter.onShardOf(id, () -> ledgerService.listEntries(id, page, size)), HttpStatus.OK);
+    }
+
+    // Số đối tác khác nhau trong N ngày gần nhất (ước lượng HyperLogLog, sai số chuẩn ~1.6%)
+    @GetMapping("/{accountId}/analytics/counterparties")
+    public ResponseEntity<?> getCounterpartyCount(@PathVariable String accountId, @RequestParam(defaultValue = "30") int days) {
+        try {
+            UUID id = UUID.fromString(accountId);
+            return new ResponseEntity<>(shardRouter.onShardOf(id, () -> accountService.getCounterpartyCount(id, days)), HttpStatus.OK);
+        } catch (ResourceNotFoundException ex) {
+            return new ResponseEntity<>(ex.getMessage(), HttpStatus.NOT_FOUND);
+        } catch (IllegalArgumentException ex) {
+            return new ResponseEntity<>(ex.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
     // Xóa tài khoản
     @DeleteMapping("/{accountId}")
     public ResponseEntity<Void> deleteAccount(@PathVariable String accountId) {
         try {
-            accountService.deleteAccount(UUID.fromString(accountId));
+            UUID id = UUID.fromString(accountId);
+            shardRouter.onShardOf(id, () -> {
+                accountService.deleteAccount(id);
+                return null;
+            });
             return new ResponseEntity<>(HttpStatus.NO_CONTENT);
         } catch (ResourceNotFoundException ex) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
     }
 
-    // Lấy danh sách tất cả tài khoản
+    // Lấy danh sách tất cả tài khoản của mọi shard (chạy trên pool báo cáo)
     @GetMapping("/")
-    public ResponseEntity<List<AccountDto>> listAllAccounts() {
-        List<AccountDto> accounts = accountService.listAllAccounts();
-        return new ResponseEntity<>(accounts, HttpStatus.OK);
+    public CompletableFuture<ResponseEntity<List<AccountDto>>> listAllAccounts() {
+        return reportBulkhead.submit(() -> new ResponseEntity<>(accountService.listAllAccounts(), HttpStatus.OK));
     }
 
-    // Lọc tài khoản theo trạng thái
+    // Lọc tài khoản theo trạng thái, gộp kết quả của mọi shard
     @GetMapping("/search")
     public ResponseEntity<?> listAccountsByStatus(@RequestParam String keySearch, @RequestParam String status, @RequestParam int page, @RequestParam int size) {
         return new ResponseEntity<>(accountService.listAccountsByKey(keySearch,status,page,size), HttpStatus.OK);
     }
 
-    // Lấy số dư của tài khoản
-//    @GetMapping("/{accountId}/balance")
-//    public ResponseEntity<BigDecimal> getAccountBalance(@PathVariable String accountId) {
-//        try {
-//            BigDecimal balance = accountService.getAccountBalance(UUID.fromString(accountId));
-//            return new ResponseEntity<>(balance, HttpStatus.OK);
-//        } catch (ResourceNotFoundException ex) {
-//            return new ResponseEntity<>(null, HttpStatus.NOT_FOUND);
-//        }
-//    }
+    // Lấy số dư của tài khoản từ sổ cái (snapshot gần nhất cộng các bút toán phát sinh sau đó)
+    @GetMapping("/{accountId}/balance")
+    public ResponseEntity<BigDecimal> getAccountBalance(@PathVariable String accountId) {
+        try {
+            UUID id = UUID.fromString(accountId);
+            BigDecimal balance = shardRouter.onShardOf(id, () -> accountService.getAccountBalance(id));
+            return new ResponseEntity<>(balance, HttpStatus.OK);
+        } catch (ResourceNotFoundException ex) {
+            return new ResponseEntity<>(null, HttpStatus.NOT_FOUND);
+        }
+    }
 
 //    @GetMapping
 //    public ResponseEntity<AccountDto> getAccountByAccountNumber(@RequestParam String accountNumber) {
@@ -106,8 +175,19 @@ public class AccountController {
 //        }
 //    }
 
+    // Lấy nhiều tài khoản theo danh sách id (?ids=id1,id2,...), mỗi id đọc trên shard của nó, bỏ qua id không tồn tại
+    @GetMapping(params = "ids")
+    public ResponseEntity<?> getAccountsByIds(@RequestParam List<String> ids) {
+        try {
+            List<UUID> accountIds = ids.stream().map(UUID::fromString).toList();
+            return ResponseEntity.ok(accountService.getAccountsByIds(accountIds));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     @GetMapping
-    public ResponseEntity<?> getALLAccount() {
-        return ResponseEntity.ok(accountService.listAllAccounts());
+    public CompletableFuture<ResponseEntity<?>> getALLAccount() {
+        return reportBulkhead.submit(() -> ResponseEntity.ok(accountService.listAllAccounts()));
     }
 }
@@ -0,0 +1,52 @@
+package com.trungvv.bankdemo.controller;
+
+import com.trungvv.bankdemo.exception.ResourceNotFoundException;
+import com.trungvv.bankdemo.service.ReconciliationService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/reconciliations")
+@RequiredArgsConstructor
+public class ReconciliationController {
+
+    private final ReconciliationService reconciliationService;
+
+    // Start a reconciliation run in the background
+    @PostMapping
+    public ResponseEntity<?> startReconciliation() {
+        try {
+            return new ResponseEntity<>(reconciliationService.startReconciliation(), HttpStatus.ACCEPTED);
+        } catch (IllegalStateException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.CONFLICT);
+        } catch (Exception e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    // Progress and throughput of a run
+    @GetMapping("/{runId}")
+    public ResponseEntity<?> getRun(@PathVariable Long runId) {
+        try {
+            return ResponseEntity.ok(reconciliationService.getRun(runId));
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null);
+        } catch (Exception e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    // Accounts whose balance disagrees with their history
+    @GetMapping("/{runId}/mismatches")
+    public ResponseEntity<?> listMismatches(@PathVariable Long runId,
+                                            @RequestParam(defaultValue = "0") int page,
+                                            @RequestParam(defaultValue = "50") int size) {
+        try {
+            return ResponseEntity.ok(reconciliationService.listMismatches(runId, page, size));
+        } catch (Exception e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.trungvv.bankdemo.controller;
+
+import com.trungvv.bankdemo.exception.ResourceNotFoundException;
+import com.trungvv.bankdemo.service.ScheduledTransferService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/scheduled-transfers")
+@RequiredArgsConstructor
+public class ScheduledTransferController {
+
+    private final ScheduledTransferService scheduledTransferService;
+
+    // Create a scheduled / recurring transfer, startAt and endAt in ISO format (yyyy-MM-ddTHH:mm:ss)
+    @PostMapping
+    public ResponseEntity<?> createSchedule(@RequestParam String senderId,
+                                            @RequestParam String receiverId,
+                                            @RequestParam BigDecimal amount,
+                                            @RequestParam(required = false) String message,
+                                            @RequestParam(defaultValue = "ONCE") String recurrence,
+                                            @RequestParam String startAt,
+                                            @RequestParam(required = false) String endAt) {
+        try {
+            return new ResponseEntity<>(scheduledTransferService.createSchedule(UUID.fromString(senderId), UUID.fromString(receiverId),
+                    amount, message, recurrence, LocalDateTime.parse(startAt), endAt == null ? null : LocalDateTime.parse(endAt)),
+                    HttpStatus.CREATED);
+        } catch (DateTimeParseException e) {
+            return new ResponseEntity<>("Invalid date-time, expected yyyy-MM-ddTHH:mm:ss: " + e.getParsedString(), HttpStatus.BAD_REQUEST);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        } catch (ResourceNotFoundException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_FOUND);
+        } catch (Exception e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    // Get a scheduled transfer
+    @GetMapping("/{scheduleId}")
+    public ResponseEntity<?> getSchedule(@PathVariable Long scheduleId) {
+        try {
+            return ResponseEntity.ok(scheduledTransferService.getSchedule(scheduleId));
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null);
+        } catch (Exception e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    // List scheduled transfers of a sender account
+    @GetMapping
+    public ResponseEntity<?> listSchedules(@RequestParam String senderId) {
+        try {
+            return ResponseEntity.ok(scheduledTransferService.listSchedulesBySender(UUID.fromString(senderId)));
+        } catch (Exception e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    // Cancel an active scheduled transfer
+    @DeleteMapping("/{scheduleId}")
+    public ResponseEntity<?> cancelSchedule(@PathVariable Long scheduleId) {
+        try {
+            return ResponseEntity.ok(scheduledTransferService.cancelSchedule(scheduleId));
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null);
+        } catch (IllegalStateException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.CONFLICT);
+        } catch (Exception e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+}
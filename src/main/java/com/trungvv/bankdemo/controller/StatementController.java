@@ -0,0 +1,43 @@
+package com.trungvv.bankdemo.controller;
+
+import com.trungvv.bankdemo.exception.ResourceNotFoundException;
+import com.trungvv.bankdemo.service.StatementService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+
+@RestController
+@RequestMapping("/api/statements")
+@RequiredArgsConstructor
+public class StatementController {
+
+    private final StatementService statementService;
+
+    // Start (or resume) monthly statement generation, month in yyyy-MM
+    @PostMapping
+    public ResponseEntity<?> startMonthlyStatements(@RequestParam String month) {
+        try {
+            return new ResponseEntity<>(statementService.startMonthlyStatements(YearMonth.parse(month)), HttpStatus.ACCEPTED);
+        } catch (DateTimeParseException e) {
+            return new ResponseEntity<>("Invalid month, expected yyyy-MM: " + month, HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    // Job progress
+    @GetMapping("/{jobId}")
+    public ResponseEntity<?> getJob(@PathVariable Long jobId) {
+        try {
+            return ResponseEntity.ok(statementService.getJob(jobId));
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null);
+        } catch (Exception e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+}
@@ -1,20 +1,30 @@
 package com.trungvv.bankdemo.controller;
 
+import com.trungvv.bankdemo.bulkhead.ReportBulkhead;
+import com.trungvv.bankdemo.dto.SingleFlightStatsDto;
+import com.trungvv.bankdemo.dto.TopAccountDto;
 import com.trungvv.bankdemo.dto.TransactionDto;
 import com.trungvv.bankdemo.model.Transaction;
 import com.trungvv.bankdemo.service.TransactionService;
+import com.trungvv.bankdemo.shard.ShardRouter;
+import com.trungvv.bankdemo.shard.TransferCoordinator;
 import com.trungvv.bankdemo.exception.ResourceNotFoundException;
+import com.trungvv.bankdemo.exception.VelocityLimitExceededException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/transactions")
@@ -23,61 +33,111 @@ public class TransactionController {
 
     private final TransactionService transactionService;
 
-    // Create a new transaction
+    private final ReportBulkhead reportBulkhead;
+
+    private final TransferCoordinator transferCoordinator;
+
+    private final ShardRouter shardRouter;
+
+    // Create a new transaction (a saga across shards when sender and receiver live on different shards)
     @PostMapping
     public ResponseEntity<?> createTransaction(@RequestParam String senderId,
                                                          @RequestParam String receiverId,
                                                          @RequestParam BigDecimal amount,
                                                         @RequestParam String message) {
         try {
-            TransactionDto transaction = transactionService.createTransaction(UUID.fromString(senderId), UUID.fromString(receiverId), amount, message);
+            TransactionDto transaction = transferCoordinator.transfer(UUID.fromString(senderId), UUID.fromString(receiverId), amount, message);
             return new ResponseEntity<>(transaction, HttpStatus.CREATED);
+        } catch (VelocityLimitExceededException e) {
+            // Sender exceeded a velocity rule, same contract as the rate limiter
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .body(e.getMessage());
         } catch (Exception e) {
             // Catch any exceptions that occur during the transaction creation process
             return new ResponseEntity<>(e.getMessage(),HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
 
-    // Get a transaction by its ID
+    // Top accounts by transferred volume in the last hour/day, served from streaming counters
+    @GetMapping("/top")
+    public ResponseEntity<?> getTopAccounts(@RequestParam(defaultValue = "HOUR") String range,
+                                            @RequestParam(defaultValue = "SENDER") String side,
+                                            @RequestParam(defaultValue = "100") int limit) {
+        try {
+            List<TopAccountDto> topAccounts = transactionService.getTopAccounts(range, side, limit);
+            return ResponseEntity.ok(topAccounts);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            return new ResponseEntity<>(e.getMessage(),HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    // Amount percentiles over a date range, merged from per-day histograms (all accounts when accountId is absent)
+    @GetMapping("/amount-distribution")
+    public ResponseEntity<?> getAmountDistribution(@RequestParam LocalDate startDate,
+                                                   @RequestParam LocalDate endDate,
+                                                   @RequestParam(required = false) UUID accountId) {
+        try {
+            return ResponseEntity.ok(transactionService.getAmountDistribution(startDate, endDate, accountId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            return new ResponseEntity<>(e.getMessage(),HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    // Get a transaction by its ID; the ID does not tell the shard, so look on each shard in turn
     @GetMapping("/{transactionId}")
     public ResponseEntity<?> getTransactionById(@PathVariable String transactionId) {
         try {
-            Transaction transaction = transactionService.getTransactionById(UUID.fromString(transactionId));
-            if (transaction != null) {
-                return ResponseEntity.ok(transaction);
-            } else {
-                throw new ResourceNotFoundException("Transaction not found with ID " + transactionId);
+            UUID id = UUID.fromString(transactionId);
+            for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+                Transaction transaction = findOnShard(shard, () -> transactionService.getTransactionById(id));
+                if (transaction != null) {
+                    return ResponseEntity.ok(transaction);
+                }
             }
-        } catch (ResourceNotFoundException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null);
         } catch (Exception e) {
             return new ResponseEntity<>(e.getMessage(),HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
 
-    // Update transaction status
+    // Update transaction status on every shard holding it (sender and receiver copies of a cross-shard transfer)
     @PutMapping("/{transactionId}/status")
     public ResponseEntity<?> updateTransactionStatus(@PathVariable String transactionId,
                                                                @RequestParam String status) {
         try {
-            TransactionDto transaction = transactionService.updateTransactionStatus(UUID.fromString(transactionId), status);
-            if (transaction != null) {
-                return ResponseEntity.ok(transaction);
-            } else {
-                throw new ResourceNotFoundException("Transaction not found with ID " + transactionId);
+            UUID id = UUID.fromString(transactionId);
+            TransactionDto updated = null;
+            for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+                TransactionDto transaction = findOnShard(shard, () -> transactionService.updateTransactionStatus(id, status));
+                if (updated == null) {
+                    updated = transaction;
+                }
             }
-        } catch (ResourceNotFoundException e) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null);
+            if (updated == null) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null);
+            }
+            return ResponseEntity.ok(updated);
         } catch (Exception e) {
             return new ResponseEntity<>(e.getMessage(),HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
 
-    // Delete a transaction
+    // Delete a transaction from every shard holding a copy of it
     @DeleteMapping("/{transactionId}")
     public ResponseEntity<?> deleteTransaction(@PathVariable String transactionId) {
         try {
-            transactionService.deleteTransaction(UUID.fromString(transactionId));
+            UUID id = UUID.fromString(transactionId);
+            for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+                shardRouter.on(shard, () -> {
+                    transactionService.deleteTransaction(id);
+                    return null;
+                });
+            }
             return ResponseEntity.noContent().build();
         } catch (Exception e) {
             // Catch any exceptions during delete
@@ -85,11 +145,16 @@ public class TransactionController {
         }
     }
 
-    // List transactions by user ID (Sender or Receiver)
+    // List transactions by user ID (Sender or Receiver), 304 when the client's ETag is still current
     @GetMapping("/user/{userId}")
-    public ResponseEntity<?> listTransactionsByUserId(@PathVariable String userId) {
+    public ResponseEntity<?> listTransactionsByUserId(@PathVariable String userId, WebRequest request) {
         try {
-            List<TransactionDto> transactions = transactionService.listTransactionsByUserId(UUID.fromString(userId));
+            UUID accountId = UUID.fromString(userId);
+            String eTag = shardRouter.onShardOf(accountId, () -> transactionService.getTransactionHistoryETag(accountId));
+            if (eTag != null && request.checkNotModified(eTag)) {
+                return null;
+            }
+            List<TransactionDto> transactions = shardRouter.onShardOf(accountId, () -> transactionService.listTransactionsByUserId(accountId));
             return ResponseEntity.ok(transactions);
         } catch (Exception e) {
             return new ResponseEntity<>(e.getMessage(),HttpStatus.INTERNAL_SERVER_ERROR);
@@ -97,9 +162,9 @@ public class TransactionController {
     }
 
 
-    // List transactions within a date range
+    // List transactions within a date range (runs on the reporting bulkhead)
     @GetMapping("/date-range")
-    public ResponseEntity<?> listTransactionsByDateRange(@RequestParam LocalDate startDate,
+    public CompletableFuture<ResponseEntity<?>> listTransactionsByDateRange(@RequestParam LocalDate startDate,
                                                                          @RequestParam LocalDate endDate,
                                                                          @RequestParam String accountId,
                                                                          @RequestParam String status,
@@ -107,32 +172,68 @@ public class TransactionController {
                                                                         @RequestParam int size,
                                                                         @RequestParam String typeTransaction
                                                                 ) {
-        try {
-            Page<TransactionDto> transactions = transactionService.listTransactionsByDateRange(startDate, endDate, UUID.fromString(accountId), status,typeTransaction, page, size);
-            return ResponseEntity.ok(transactions);
-        } catch (Exception e) {
-            return new ResponseEntity<>(e.getMessage(),HttpStatus.INTERNAL_SERVER_ERROR);
-        }
+        return reportBulkhead.submit(() -> {
+            try {
+                UUID id = UUID.fromString(accountId);
+                Page<TransactionDto> transactions = shardRouter.onShardOf(id,
+                        () -> transactionService.listTransactionsByDateRange(startDate, endDate, id, status,typeTransaction, page, size));
+                return ResponseEntity.ok(transactions);
+            } catch (Exception e) {
+                return new ResponseEntity<>(e.getMessage(),HttpStatus.INTERNAL_SERVER_ERROR);
+            }
+        });
     }
 
     // Get total transaction amount for an account
     @GetMapping("/total-amount/{accountId}")
     public ResponseEntity<?> getTotalTransactionsAmountByAccountId(@PathVariable String accountId) {
         try {
-            BigDecimal totalAmount = transactionService.getTotalTransactionsAmountByAccountId(UUID.fromString(accountId));
+            UUID id = UUID.fromString(accountId);
+            BigDecimal totalAmount = shardRouter.onShardOf(id, () -> transactionService.getTotalTransactionsAmountByAccountId(id));
             return ResponseEntity.ok(totalAmount);
         } catch (Exception e) {
             return new ResponseEntity<>(e.getMessage(),HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
 
-    // Get daily transaction summary
+    // Get daily transaction summary across all shards (runs on the reporting bulkhead)
     @GetMapping("/daily-summary")
-    public ResponseEntity<?> getDailyTransactionSummary(@RequestParam LocalDate date) {
+    public CompletableFuture<ResponseEntity<?>> getDailyTransactionSummary(@RequestParam LocalDate date) {
+        return reportBulkhead.submit(() -> {
+            try {
+                return ResponseEntity.ok(transactionService.getDailyTransactionSummary(date));
+            } catch (Exception e) {
+                return new ResponseEntity<>(e.getMessage(),HttpStatus.INTERNAL_SERVER_ERROR);
+            }
+        });
+    }
+
+    // How many duplicate report calls were served from an in-flight computation or the short-lived cache
+    @GetMapping("/report-stats")
+    public ResponseEntity<List<SingleFlightStatsDto>> getReportStats() {
+        return ResponseEntity.ok(transactionService.getReportSingleFlightStats());
+    }
+
+    // Sent, received and net amount per account for every day in the range across all shards; closed days come from cache
+    @GetMapping("/daily-summary/range")
+    public CompletableFuture<ResponseEntity<?>> getDailySummaries(@RequestParam LocalDate startDate, @RequestParam LocalDate endDate) {
+        return reportBulkhead.submit(() -> {
+            try {
+                return ResponseEntity.ok(transactionService.getDailySummaries(startDate, endDate));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(e.getMessage());
+            } catch (Exception e) {
+                return new ResponseEntity<>(e.getMessage(),HttpStatus.INTERNAL_SERVER_ERROR);
+            }
+        });
+    }
+
+    // Result of the lookup on one shard, null when the transaction is not there
+    private <T> T findOnShard(int shard, Supplier<T> lookup) {
         try {
-            return ResponseEntity.ok(transactionService.getDailyTransactionSummary(date));
-        } catch (Exception e) {
-            return new ResponseEntity<>(e.getMessage(),HttpStatus.INTERNAL_SERVER_ERROR);
+            return shardRouter.on(shard, lookup);
+        } catch (ResourceNotFoundException e) {
+            return null;
         }
     }
 }
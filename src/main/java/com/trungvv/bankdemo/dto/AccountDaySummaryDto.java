@@ -0,0 +1,25 @@
+package com.trungvv.bankdemo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AccountDaySummaryDto {
+    private LocalDate date;
+    private UUID accountId;
+    private long sentCount;
+    private BigDecimal sentAmount;
+    private long receivedCount;
+    private BigDecimal receivedAmount;
+    // receivedAmount - sentAmount
+    private BigDecimal netAmount;
+}
@@ -0,0 +1,31 @@
+package com.trungvv.bankdemo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AmountDistributionDto {
+    // null nếu là phân phối toàn hệ thống
+    private UUID accountId;
+    private LocalDate fromDate;
+    private LocalDate toDate;
+    private long transactionCount;
+    private BigDecimal totalAmount;
+    // Các phân vị có sai số tương đối tối đa relativeAccuracy; null nếu không có giao dịch
+    private BigDecimal p50;
+    private BigDecimal p95;
+    private BigDecimal p99;
+    private double relativeAccuracy;
+    // Giao dịch tạo sau mốc này chưa được cộng dồn
+    private LocalDateTime foldedUntil;
+}
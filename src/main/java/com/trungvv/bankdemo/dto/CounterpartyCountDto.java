@@ -0,0 +1,23 @@
+package com.trungvv.bankdemo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CounterpartyCountDto {
+    private UUID accountId;
+    private LocalDate fromDate;
+    private LocalDate toDate;
+    // Ước lượng HyperLogLog số đối tác khác nhau
+    private long distinctCounterparties;
+    // Sai số chuẩn tương đối; ~95% ước lượng nằm trong ±2 lần giá trị này
+    private double relativeStandardError;
+}
@@ -0,0 +1,10 @@
+package com.trungvv.bankdemo.dto;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+public interface IAccountTotal {
+    UUID getAccountId();
+    Long getTransactionCount();
+    BigDecimal getAmount();
+}
@@ -0,0 +1,9 @@
+package com.trungvv.bankdemo.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+public interface IAccountVersion {
+    LocalDateTime getLastModified();
+    BigDecimal getSlotBalance();
+}
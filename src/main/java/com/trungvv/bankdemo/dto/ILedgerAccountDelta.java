@@ -0,0 +1,9 @@
+package com.trungvv.bankdemo.dto;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+public interface ILedgerAccountDelta {
+    UUID getAccountId();
+    BigDecimal getDelta();
+}
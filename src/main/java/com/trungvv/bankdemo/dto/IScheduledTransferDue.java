@@ -0,0 +1,8 @@
+package com.trungvv.bankdemo.dto;
+
+import java.time.LocalDateTime;
+
+public interface IScheduledTransferDue {
+    Long getId();
+    LocalDateTime getNextRunAt();
+}
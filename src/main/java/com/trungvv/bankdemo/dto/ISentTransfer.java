@@ -0,0 +1,12 @@
+package com.trungvv.bankdemo.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public interface ISentTransfer {
+    UUID getSenderAccountId();
+    UUID getReceiverAccountId();
+    BigDecimal getAmount();
+    LocalDateTime getCreatedAt();
+}
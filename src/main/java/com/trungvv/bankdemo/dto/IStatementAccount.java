@@ -0,0 +1,9 @@
+package com.trungvv.bankdemo.dto;
+
+import java.util.UUID;
+
+public interface IStatementAccount {
+    UUID getId();
+    String getAccountNumber();
+    String getAccountName();
+}
@@ -0,0 +1,14 @@
+package com.trungvv.bankdemo.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public interface IStatementLine {
+    UUID getId();
+    UUID getSenderAccountId();
+    UUID getReceiverAccountId();
+    BigDecimal getAmount();
+    String getMessage();
+    LocalDateTime getCreatedAt();
+}
@@ -0,0 +1,9 @@
+package com.trungvv.bankdemo.dto;
+
+import java.time.LocalDateTime;
+
+public interface ITransactionHistoryVersion {
+    Long getTransactionCount();
+    Long getSuccessCount();
+    LocalDateTime getLastCreatedAt();
+}
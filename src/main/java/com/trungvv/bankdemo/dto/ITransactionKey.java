@@ -0,0 +1,9 @@
+package com.trungvv.bankdemo.dto;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public interface ITransactionKey {
+    UUID getId();
+    LocalDateTime getCreatedAt();
+}
@@ -0,0 +1,24 @@
+package com.trungvv.bankdemo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LedgerEntryDto {
+    private Long id;
+    private UUID accountId;
+    private UUID transactionId;
+    private String entryType;
+    private String source;
+    private BigDecimal amount;
+    private LocalDateTime createdAt;
+}
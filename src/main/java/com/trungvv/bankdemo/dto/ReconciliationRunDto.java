@@ -0,0 +1,26 @@
+package com.trungvv.bankdemo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ReconciliationRunDto {
+    private Long id;
+    private String status;
+    private int partitions;
+    private int completedPartitions;
+    private double progressPercent;
+    private long accountsChecked;
+    private long mismatches;
+    private double accountsPerSecond;
+    private String errorMessage;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+}
@@ -0,0 +1,31 @@
+package com.trungvv.bankdemo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ScheduledTransferDto {
+    private Long id;
+    private UUID senderAccountId;
+    private UUID receiverAccountId;
+    private BigDecimal amount;
+    private String message;
+    private String recurrence;
+    private LocalDateTime startAt;
+    private LocalDateTime endAt;
+    private LocalDateTime nextRunAt;
+    private int occurrences;
+    private String status;
+    private LocalDateTime lastRunAt;
+    private UUID lastTransactionId;
+    private String lastError;
+}
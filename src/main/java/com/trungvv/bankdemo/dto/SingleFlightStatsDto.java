@@ -0,0 +1,20 @@
+package com.trungvv.bankdemo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SingleFlightStatsDto {
+    private String name;
+    private long calls;
+    // Số lần thực sự chạy truy vấn
+    private long executions;
+    // Số lời gọi trùng đã dùng chung kết quả của lời gọi đang chạy
+    private long collapsed;
+    private long cacheHits;
+}
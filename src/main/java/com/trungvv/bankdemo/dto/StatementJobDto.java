@@ -0,0 +1,25 @@
+package com.trungvv.bankdemo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StatementJobDto {
+    private Long id;
+    private String month;
+    private String status;
+    private int totalChunks;
+    private long completedChunks;
+    private long accountsWritten;
+    private String outputDir;
+    private String errorMessage;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+}
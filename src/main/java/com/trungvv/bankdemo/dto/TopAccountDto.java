@@ -0,0 +1,20 @@
+package com.trungvv.bankdemo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TopAccountDto {
+    private UUID accountId;
+    // Cận trên của tổng tiền; tổng thật nằm trong [volume - maxError, volume]
+    private BigDecimal volume;
+    private BigDecimal maxError;
+}
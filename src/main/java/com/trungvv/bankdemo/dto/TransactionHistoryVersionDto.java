@@ -0,0 +1,34 @@
+package com.trungvv.bankdemo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Phiên bản lịch sử giao dịch ghép từ phía gửi và phía nhận của cùng một tài khoản.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionHistoryVersionDto implements ITransactionHistoryVersion {
+    private Long transactionCount;
+    private Long successCount;
+    private LocalDateTime lastCreatedAt;
+
+    public static TransactionHistoryVersionDto merge(ITransactionHistoryVersion sent, ITransactionHistoryVersion received) {
+        LocalDateTime sentAt = sent.getLastCreatedAt();
+        LocalDateTime receivedAt = received.getLastCreatedAt();
+        LocalDateTime lastCreatedAt = sentAt == null ? receivedAt
+                : receivedAt == null || sentAt.isAfter(receivedAt) ? sentAt : receivedAt;
+        return new TransactionHistoryVersionDto(
+                nullToZero(sent.getTransactionCount()) + nullToZero(received.getTransactionCount()),
+                nullToZero(sent.getSuccessCount()) + nullToZero(received.getSuccessCount()),
+                lastCreatedAt);
+    }
+
+    private static long nullToZero(Long value) {
+        return value == null ? 0L : value;
+    }
+}
@@ -0,0 +1,15 @@
+package com.trungvv.bankdemo.exception;
+
+public class VelocityLimitExceededException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public VelocityLimitExceededException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
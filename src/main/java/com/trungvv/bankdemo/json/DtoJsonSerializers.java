@@ -0,0 +1,297 @@
+package com.trungvv.bankdemo.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import com.trungvv.bankdemo.dto.AccountDto;
+import com.trungvv.bankdemo.dto.TransactionDto;
+import org.springframework.boot.jackson.JsonComponent;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Serializer viết tay cho các DTO trên đường đọc lịch sử (TransactionDto, AccountDto, PageImpl) thay cho
+ * BeanSerializer gọi getter qua reflection. Tên trường được encode sẵn (SerializedString), UUID được ghi
+ * vào buffer char dùng lại theo thread thay vì cấp phát mỗi lần. Thứ tự trường và cách ghi từng kiểu giữ
+ * đúng như Jackson mặc định để output không đổi từng byte (DtoJsonSerializersTest so sánh với mapper mặc định).
+ */
+@JsonComponent
+public class DtoJsonSerializers {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private static final ThreadLocal<char[]> UUID_BUFFER = ThreadLocal.withInitial(() -> new char[36]);
+
+    private static final SerializableString ID = new SerializedString("id");
+    private static final SerializableString SENDER_ACCOUNT_ID = new SerializedString("senderAccountId");
+    private static final SerializableString RECEIVER_ACCOUNT_ID = new SerializedString("receiverAccountId");
+    private static final SerializableString AMOUNT = new SerializedString("amount");
+    private static final SerializableString STATUS = new SerializedString("status");
+    private static final SerializableString DESCRIPTION = new SerializedString("description");
+    private static final SerializableString ACCOUNT_NUMBER = new SerializedString("accountNumber");
+    private static final SerializableString ACCOUNT_NAME = new SerializedString("accountName");
+    private static final SerializableString BALANCE = new SerializedString("balance");
+
+    /**
+     * Các serializer dưới dạng module, cho ObjectMapper tạo ngoài Spring context (benchmark, test).
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static SimpleModule module() {
+        SimpleModule module = new SimpleModule("DtoJsonSerializers");
+        module.addSerializer(TransactionDto.class, new TransactionDtoSerializer());
+        module.addSerializer(AccountDto.class, new AccountDtoSerializer());
+        module.addSerializer((Class) PageImpl.class, new PageSerializer());
+        return module;
+    }
+
+    public static class TransactionDtoSerializer extends JsonSerializer<TransactionDto> {
+
+        @Override
+        public void serialize(TransactionDto value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject(value);
+            gen.writeFieldName(ID);
+            writeUuid(gen, value.getId());
+            gen.writeFieldName(SENDER_ACCOUNT_ID);
+            writeUuid(gen, value.getSenderAccountId());
+            gen.writeFieldName(RECEIVER_ACCOUNT_ID);
+            writeUuid(gen, value.getReceiverAccountId());
+            gen.writeFieldName(AMOUNT);
+            writeDecimal(gen, value.getAmount());
+            gen.writeFieldName(STATUS);
+            gen.writeString(value.getStatus());
+            gen.writeFieldName(DESCRIPTION);
+            gen.writeString(value.getDescription());
+            gen.writeEndObject();
+        }
+    }
+
+    public static class AccountDtoSerializer extends JsonSerializer<AccountDto> {
+
+        @Override
+        public void serialize(AccountDto value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject(value);
+            gen.writeFieldName(ID);
+            writeUuid(gen, value.getId());
+            gen.writeFieldName(ACCOUNT_NUMBER);
+            gen.writeString(value.getAccountNumber());
+            gen.writeFieldName(ACCOUNT_NAME);
+            gen.writeString(value.getAccountName());
+            gen.writeFieldName(BALANCE);
+            writeDecimal(gen, value.getBalance());
+            gen.writeFieldName(STATUS);
+            gen.writeString(value.getStatus());
+            gen.writeEndObject();
+        }
+    }
+
+    /**
+     * Cùng cấu trúc mà Jackson sinh ra từ getter của PageImpl, PageRequest và Sort. Thứ tự getter lấy qua
+     * reflection không cố định giữa các lần chạy JVM, nên thứ tự thuộc tính được lấy một lần cho mỗi lớp từ
+     * introspection của chính Jackson; thuộc tính lạ (phiên bản Spring Data khác) ghi qua accessor như mặc định.
+     * Phần tử trong content dùng serializer đã đăng ký cho kiểu của nó (tra một lần cho mỗi kiểu liên tiếp).
+     */
+    public static class PageSerializer extends JsonSerializer<PageImpl<?>> {
+
+        private final Map<Class<?>, Property[]> orders = new ConcurrentHashMap<>();
+
+        @Override
+        public void serialize(PageImpl<?> value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject(value);
+            for (Property property : order(value.getClass(), PageField.PAGE, provider)) {
+                if (property.field() == null) {
+                    writeUnknown(value, property, gen, provider);
+                    continue;
+                }
+                gen.writeFieldName(property.field().name);
+                switch (property.field()) {
+                    case CONTENT -> writeContent(value.getContent(), gen, provider);
+                    case PAGEABLE -> writePageable(value.getPageable(), gen, provider);
+                    case TOTAL_PAGES -> gen.writeNumber(value.getTotalPages());
+                    case TOTAL_ELEMENTS -> gen.writeNumber(value.getTotalElements());
+                    case LAST -> gen.writeBoolean(value.isLast());
+                    case SIZE -> gen.writeNumber(value.getSize());
+                    case NUMBER -> gen.writeNumber(value.getNumber());
+                    case SORT -> writeSort(value.getSort(), gen, provider);
+                    case FIRST -> gen.writeBoolean(value.isFirst());
+                    case NUMBER_OF_ELEMENTS -> gen.writeNumber(value.getNumberOfElements());
+                    case EMPTY -> gen.writeBoolean(value.isEmpty());
+                    default -> throw new IllegalStateException("Unexpected page property " + property.field());
+                }
+            }
+            gen.writeEndObject();
+        }
+
+        private static void writeContent(List<?> content, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartArray(content, content.size());
+            Class<?> lastType = null;
+            JsonSerializer<Object> serializer = null;
+            for (Object element : content) {
+                if (element == null) {
+                    provider.defaultSerializeNull(gen);
+                    continue;
+                }
+                if (element.getClass() != lastType) {
+                    lastType = element.getClass();
+                    serializer = provider.findValueSerializer(lastType);
+                }
+                serializer.serialize(element, gen, provider);
+            }
+            gen.writeEndArray();
+        }
+
+        private void writePageable(Pageable pageable, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            // Unpaged có serializer riêng của Spring Data (ghi "INSTANCE")
+            if (pageable.getClass() != PageRequest.class) {
+                provider.defaultSerializeValue(pageable, gen);
+                return;
+            }
+            gen.writeStartObject(pageable);
+            for (Property property : order(PageRequest.class, PageField.PAGEABLE_FIELDS, provider)) {
+                if (property.field() == null) {
+                    writeUnknown(pageable, property, gen, provider);
+                    continue;
+                }
+                gen.writeFieldName(property.field().name);
+                switch (property.field()) {
+                    case PAGE_NUMBER -> gen.writeNumber(pageable.getPageNumber());
+                    case PAGE_SIZE -> gen.writeNumber(pageable.getPageSize());
+                    case SORT -> writeSort(pageable.getSort(), gen, provider);
+                    case OFFSET -> gen.writeNumber(pageable.getOffset());
+                    case PAGED -> gen.writeBoolean(pageable.isPaged());
+                    case UNPAGED -> gen.writeBoolean(pageable.isUnpaged());
+                    default -> throw new IllegalStateException("Unexpected pageable property " + property.field());
+                }
+            }
+            gen.writeEndObject();
+        }
+
+        private void writeSort(Sort sort, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            if (sort.getClass() != Sort.class) {
+                provider.defaultSerializeValue(sort, gen);
+                return;
+            }
+            gen.writeStartObject(sort);
+            for (Property property : order(Sort.class, PageField.SORT_FIELDS, provider)) {
+                if (property.field() == null) {
+                    writeUnknown(sort, property, gen, provider);
+                    continue;
+                }
+                gen.writeFieldName(property.field().name);
+                switch (property.field()) {
+                    case EMPTY -> gen.writeBoolean(sort.isEmpty());
+                    case SORTED -> gen.writeBoolean(sort.isSorted());
+                    case UNSORTED -> gen.writeBoolean(sort.isUnsorted());
+                    default -> throw new IllegalStateException("Unexpected sort property " + property.field());
+                }
+            }
+            gen.writeEndObject();
+        }
+
+        private Property[] order(Class<?> type, Map<String, PageField> known, SerializerProvider provider) {
+            Property[] order = orders.get(type);
+            if (order == null) {
+                order = provider.getConfig().introspect(provider.constructType(type)).findProperties().stream()
+                        .filter(definition -> definition.getAccessor() != null)
+                        .map(definition -> new Property(known.get(definition.getName()), definition))
+                        .toArray(Property[]::new);
+                orders.put(type, order);
+            }
+            return order;
+        }
+
+        private static void writeUnknown(Object bean, Property property, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            provider.defaultSerializeField(property.definition().getName(),
+                    property.definition().getAccessor().getValue(bean), gen);
+        }
+
+        private record Property(PageField field, BeanPropertyDefinition definition) {
+        }
+    }
+
+    private enum PageField {
+        CONTENT("content"), PAGEABLE("pageable"), TOTAL_PAGES("totalPages"), TOTAL_ELEMENTS("totalElements"),
+        LAST("last"), SIZE("size"), NUMBER("number"), SORT("sort"), FIRST("first"),
+        NUMBER_OF_ELEMENTS("numberOfElements"), EMPTY("empty"), PAGE_NUMBER("pageNumber"), PAGE_SIZE("pageSize"),
+        OFFSET("offset"), PAGED("paged"), UNPAGED("unpaged"), SORTED("sorted"), UNSORTED("unsorted");
+
+        static final Map<String, PageField> PAGE = byName(CONTENT, PAGEABLE, TOTAL_PAGES, TOTAL_ELEMENTS, LAST, SIZE,
+                NUMBER, SORT, FIRST, NUMBER_OF_ELEMENTS, EMPTY);
+        static final Map<String, PageField> PAGEABLE_FIELDS = byName(PAGE_NUMBER, PAGE_SIZE, SORT, OFFSET, PAGED, UNPAGED);
+        static final Map<String, PageField> SORT_FIELDS = byName(EMPTY, SORTED, UNSORTED);
+
+        final SerializableString name;
+
+        PageField(String name) {
+            this.name = new SerializedString(name);
+        }
+
+        private static Map<String, PageField> byName(PageField... fields) {
+            Map<String, PageField> map = new HashMap<>();
+            for (PageField field : fields) {
+                map.put(field.name.getValue(), field);
+            }
+            return map;
+        }
+    }
+
+    /**
+     * Như UUIDSerializer: định dạng nhị phân (CBOR...) ghi 16 byte, JSON ghi chuỗi 36 ký tự chữ thường.
+     */
+    static void writeUuid(JsonGenerator gen, UUID value) throws IOException {
+        if (value == null) {
+            gen.writeNull();
+            return;
+        }
+        long msb = value.getMostSignificantBits();
+        long lsb = value.getLeastSignificantBits();
+        if (gen.canWriteBinaryNatively() && !(gen instanceof TokenBuffer)) {
+            byte[] bytes = new byte[16];
+            for (int i = 0; i < 8; i++) {
+                bytes[i] = (byte) (msb >>> (56 - 8 * i));
+                bytes[i + 8] = (byte) (lsb >>> (56 - 8 * i));
+            }
+            gen.writeBinary(bytes);
+            return;
+        }
+        char[] buffer = UUID_BUFFER.get();
+        appendHex(buffer, 0, msb >>> 32, 8);
+        buffer[8] = '-';
+        appendHex(buffer, 9, msb >>> 16, 4);
+        buffer[13] = '-';
+        appendHex(buffer, 14, msb, 4);
+        buffer[18] = '-';
+        appendHex(buffer, 19, lsb >>> 48, 4);
+        buffer[23] = '-';
+        appendHex(buffer, 24, lsb, 12);
+        gen.writeString(buffer, 0, 36);
+    }
+
+    private static void appendHex(char[] buffer, int offset, long bits, int digits) {
+        for (int i = offset + digits - 1; i >= offset; i--) {
+            buffer[i] = HEX[(int) (bits & 0xF)];
+            bits >>>= 4;
+        }
+    }
+
+    private static void writeDecimal(JsonGenerator gen, BigDecimal value) throws IOException {
+        if (value == null) {
+            gen.writeNull();
+        } else {
+            gen.writeNumber(value);
+        }
+    }
+}
@@ -2,14 +2,15 @@ package com.trungvv.bankdemo.model;
 
 import jakarta.persistence.*;
 import lombok.*;
-import org.hibernate.annotations.GenericGenerator;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
-@Table(name = "accounts")
+@Table(name = "accounts", indexes = {
+        @Index(name = "uk_accounts_account_number", columnList = "account_number", unique = true)
+})
 @Builder
 @Getter
 @Setter
@@ -17,8 +18,7 @@ import java.util.UUID;
 @AllArgsConstructor
 public class Account {
     @Id
-    @GeneratedValue(generator = "uuid2")
-    @GenericGenerator(name = "uuid2", strategy = "uuid2")
+    @AssignableUuid
     @Column(columnDefinition = "BINARY(16)")
     private UUID id;
 
@@ -41,4 +41,13 @@ public class Account {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    /**
+     * Số slot số dư con (striped balance) cho tài khoản nhận nhiều giao dịch; null hoặc 0 là tắt.
+     */
+    @Column(name = "balance_slots")
+    private Integer balanceSlots;
+
+    public boolean hasStripedBalance() {
+        return balanceSlots != null && balanceSlots > 0;
+    }
 }
@@ -0,0 +1,42 @@
+package com.trungvv.bankdemo.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Số dư con của tài khoản nhận nhiều giao dịch (striped balance).
+ * Tiền nhận được cộng vào một trong N slot thay vì cập nhật dòng accounts,
+ * số dư thực = accounts.balance + tổng các slot.
+ */
+@Entity
+@Table(name = "account_balance_slots")
+@IdClass(AccountBalanceSlot.SlotId.class)
+@Builder
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccountBalanceSlot {
+    @Id
+    @Column(name = "account_id", columnDefinition = "BINARY(16)")
+    private UUID accountId;
+
+    @Id
+    @Column(name = "slot")
+    private Integer slot;
+
+    @Column(name = "balance", nullable = false)
+    private BigDecimal balance;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class SlotId implements Serializable {
+        private UUID accountId;
+        private Integer slot;
+    }
+}
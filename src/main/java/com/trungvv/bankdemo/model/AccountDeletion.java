@@ -0,0 +1,29 @@
+package com.trungvv.bankdemo.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Tài khoản đã xóa nhưng giao dịch, bút toán và snapshot số dư của nó chưa được job retention dọn.
+ */
+@Entity
+@Table(name = "account_deletions", indexes = {
+        @Index(name = "idx_account_deletions_deleted_at", columnList = "deleted_at")
+})
+@Builder
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccountDeletion {
+
+    @Id
+    @Column(name = "account_id", columnDefinition = "BINARY(16)")
+    private UUID accountId;
+
+    @Column(name = "deleted_at", nullable = false)
+    private LocalDateTime deletedAt;
+}
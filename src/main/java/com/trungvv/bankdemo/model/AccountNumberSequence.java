@@ -0,0 +1,23 @@
+package com.trungvv.bankdemo.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Bộ đếm cấp số tài khoản theo khối cho import hàng loạt.
+ */
+@Entity
+@Table(name = "account_number_sequences")
+@Builder
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccountNumberSequence {
+    @Id
+    @Column(name = "name", nullable = false)
+    private String name;
+
+    @Column(name = "next_value", nullable = false)
+    private Long nextValue;
+}
@@ -0,0 +1,44 @@
+package com.trungvv.bankdemo.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Bản sao giao dịch đã hết hạn lưu giữ, được job retention chép sang trước khi xóa khỏi transactions.
+ */
+@Entity
+@Table(name = "transactions_archive")
+@Builder
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArchivedTransaction {
+
+    @Id
+    @Column(columnDefinition = "BINARY(16)")
+    private UUID id;
+
+    @Column(name = "sender_account_id", nullable = false, columnDefinition = "BINARY(16)")
+    private UUID senderAccountId;
+
+    @Column(name = "receiver_account_id", nullable = false, columnDefinition = "BINARY(16)")
+    private UUID receiverAccountId;
+
+    private BigDecimal amount;
+
+    @Enumerated(EnumType.STRING)
+    private TransactionStatus status;
+
+    private String message;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+}
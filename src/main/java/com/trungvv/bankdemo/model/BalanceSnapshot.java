@@ -0,0 +1,34 @@
+package com.trungvv.bankdemo.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Số dư đã cộng dồn tới bút toán lastEntryId; số dư hiện tại = balance + các bút toán có id lớn hơn.
+ */
+@Entity
+@Table(name = "balance_snapshots")
+@Builder
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class BalanceSnapshot {
+
+    @Id
+    @Column(name = "account_id", columnDefinition = "BINARY(16)")
+    private UUID accountId;
+
+    @Column(name = "balance", nullable = false)
+    private BigDecimal balance;
+
+    @Column(name = "last_entry_id", nullable = false)
+    private Long lastEntryId;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
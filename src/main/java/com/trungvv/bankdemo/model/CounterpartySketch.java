@@ -0,0 +1,44 @@
+package com.trungvv.bankdemo.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Sketch HyperLogLog các đối tác (bên gửi hoặc nhận còn lại) của một tài khoản trong một ngày.
+ */
+@Entity
+@Table(name = "account_counterparty_sketches")
+@IdClass(CounterpartySketch.SketchId.class)
+@Builder
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CounterpartySketch {
+    @Id
+    @Column(name = "account_id", columnDefinition = "BINARY(16)")
+    private UUID accountId;
+
+    @Id
+    @Column(name = "sketch_date")
+    private LocalDate sketchDate;
+
+    @Column(name = "registers", nullable = false, length = 4096)
+    private byte[] registers;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class SketchId implements Serializable {
+        private UUID accountId;
+        private LocalDate sketchDate;
+    }
+}
@@ -0,0 +1,54 @@
+package com.trungvv.bankdemo.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Chuyển tiền giữa hai shard, lưu ở shard của tài khoản gửi. PENDING: đã trừ tiền người gửi, chưa biết
+ * tiền đã vào tài khoản nhận hay chưa. id cũng là id giao dịch trên cả hai shard, giao dịch trên shard
+ * nhận đánh dấu bước cộng tiền đã chạy.
+ */
+@Entity
+@Table(name = "cross_shard_transfers", indexes = {
+        @Index(name = "idx_cross_shard_transfers_status", columnList = "status, created_at")
+})
+@Builder
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CrossShardTransfer {
+
+    @Id
+    @Column(columnDefinition = "BINARY(16)")
+    private UUID id;
+
+    @Column(name = "sender_account_id", nullable = false, columnDefinition = "BINARY(16)")
+    private UUID senderAccountId;
+
+    @Column(name = "receiver_account_id", nullable = false, columnDefinition = "BINARY(16)")
+    private UUID receiverAccountId;
+
+    @Column(name = "amount", nullable = false)
+    private BigDecimal amount;
+
+    @Column(name = "message")
+    private String message;
+
+    @Column(name = "status", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private CrossShardTransferStatus status;
+
+    @Column(name = "last_error")
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,55 @@
+package com.trungvv.bankdemo.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Histogram số tiền giao dịch SUCCESS trong một ngày, theo tài khoản gửi hoặc toàn hệ thống (scopeId = GLOBAL_SCOPE).
+ * Đã cộng dồn mọi giao dịch tạo trước foldedUntil.
+ */
+@Entity
+@Table(name = "daily_amount_histograms")
+@IdClass(DailyAmountHistogram.HistogramId.class)
+@Builder
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class DailyAmountHistogram {
+
+    public static final UUID GLOBAL_SCOPE = new UUID(0L, 0L);
+
+    @Id
+    @Column(name = "scope_id", columnDefinition = "BINARY(16)")
+    private UUID scopeId;
+
+    @Id
+    @Column(name = "histogram_date")
+    private LocalDate histogramDate;
+
+    @Column(name = "sketch", nullable = false, length = 32768)
+    private byte[] sketch;
+
+    @Column(name = "transaction_count", nullable = false)
+    private Long transactionCount;
+
+    @Column(name = "total_amount", nullable = false)
+    private BigDecimal totalAmount;
+
+    @Column(name = "folded_until", nullable = false)
+    private LocalDateTime foldedUntil;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class HistogramId implements Serializable {
+        private UUID scopeId;
+        private LocalDate histogramDate;
+    }
+}
@@ -0,0 +1,82 @@
+package com.trungvv.bankdemo.model;
+
+import com.trungvv.bankdemo.shard.ShardRouter;
+import org.hibernate.id.IntegralDataTypeHolder;
+import org.hibernate.id.enhanced.AccessCallback;
+import org.hibernate.id.enhanced.Optimizer;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Như pooled-lo: mỗi lần đọc bảng id lấy một khối [giá trị, giá trị + incrementSize) và cấp dần trong bộ nhớ,
+ * nên Hibernate vẫn gom được INSERT thành JDBC batch. Khác ở chỗ khối đã lấy quá MAX_BLOCK_AGE thì bị bỏ dở,
+ * nên id cấp bởi mọi instance chỉ lệch thứ tự thời gian tối đa MAX_BLOCK_AGE; mốc snapshot số dư theo id
+ * (bank.ledger.snapshot-lag-seconds) phải lớn hơn khoảng này cộng thời gian một transaction.
+ * Mỗi shard có bảng id riêng nên khối được giữ riêng theo ShardRouter.current(), tránh cấp id của shard này cho shard khác.
+ */
+public class ExpiringPooledLoOptimizer implements Optimizer {
+
+    static final long MAX_BLOCK_AGE_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private final int incrementSize;
+    private final long maxBlockAgeNanos;
+    private final LongSupplier nanoClock;
+    private final Map<Integer, Block> blocks = new HashMap<>();
+
+    public ExpiringPooledLoOptimizer(Class<?> returnClass, int incrementSize) {
+        this(returnClass, incrementSize, MAX_BLOCK_AGE_NANOS, System::nanoTime);
+    }
+
+    ExpiringPooledLoOptimizer(Class<?> returnClass, int incrementSize, long maxBlockAgeNanos, LongSupplier nanoClock) {
+        if (returnClass != Long.class && returnClass != long.class) {
+            throw new IllegalArgumentException("Only Long identifiers are supported, got " + returnClass);
+        }
+        if (incrementSize < 1) {
+            throw new IllegalArgumentException("incrementSize must be positive");
+        }
+        this.incrementSize = incrementSize;
+        this.maxBlockAgeNanos = maxBlockAgeNanos;
+        this.nanoClock = nanoClock;
+    }
+
+    @Override
+    public synchronized Serializable generate(AccessCallback callback) {
+        long now = nanoClock.getAsLong();
+        Block block = blocks.computeIfAbsent(ShardRouter.current(), shard -> new Block());
+        if (block.lastSourceValue == null || block.next >= block.upperLimit || now - block.fetchedAt > maxBlockAgeNanos) {
+            // callback đọc bảng id qua connection của shard hiện tại
+            block.lastSourceValue = callback.getNextValue();
+            block.next = block.lastSourceValue.makeValue().longValue();
+            block.upperLimit = block.next + incrementSize;
+            block.fetchedAt = now;
+        }
+        return block.next++;
+    }
+
+    @Override
+    public synchronized IntegralDataTypeHolder getLastSourceValue() {
+        Block block = blocks.get(ShardRouter.current());
+        return block == null ? null : block.lastSourceValue;
+    }
+
+    @Override
+    public int getIncrementSize() {
+        return incrementSize;
+    }
+
+    @Override
+    public boolean applyIncrementSizeToSourceValues() {
+        return true;
+    }
+
+    private static final class Block {
+        private IntegralDataTypeHolder lastSourceValue;
+        private long next;
+        private long upperLimit;
+        private long fetchedAt;
+    }
+}
@@ -0,0 +1,24 @@
+package com.trungvv.bankdemo.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Mốc tiến độ của một job nền chạy trên nhiều instance. Job khóa dòng (SELECT ... FOR UPDATE) trước khi
+ * đọc mốc, xử lý phần kế tiếp và ghi mốc mới trong cùng transaction, nên hai instance không xử lý trùng.
+ */
+@Entity
+@Table(name = "job_watermarks")
+@Builder
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class JobWatermark {
+    @Id
+    @Column(name = "name", nullable = false)
+    private String name;
+
+    @Column(name = "watermark", nullable = false)
+    private Long watermark;
+}
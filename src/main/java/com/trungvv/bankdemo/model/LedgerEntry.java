@@ -0,0 +1,50 @@
+package com.trungvv.bankdemo.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Bút toán kép, chỉ ghi thêm (append-only): mỗi lần tiền dịch chuyển sinh một cặp DEBIT/CREDIT
+ * có tổng bằng 0. Số dư mở và điều chỉnh thủ công đối ứng với tài khoản hệ thống.
+ */
+@Entity
+@Table(name = "ledger_entries", indexes = {
+        @Index(name = "idx_ledger_entries_account_id", columnList = "account_id, id"),
+        @Index(name = "idx_ledger_entries_transaction_id", columnList = "transaction_id")
+})
+@Builder
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class LedgerEntry {
+
+    // Cấp theo khối để INSERT được gom batch (IDENTITY tắt JDBC batching của Hibernate)
+    @Id
+    @PooledTableId(segment = "ledger_entries")
+    private Long id;
+
+    @Column(name = "account_id", columnDefinition = "BINARY(16)", nullable = false)
+    private UUID accountId;
+
+    @Column(name = "transaction_id", columnDefinition = "BINARY(16)")
+    private UUID transactionId;
+
+    @Column(name = "entry_type", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private LedgerEntryType entryType;
+
+    @Column(name = "source", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private LedgerEntrySource source;
+
+    @Column(name = "amount", nullable = false)
+    private BigDecimal amount;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
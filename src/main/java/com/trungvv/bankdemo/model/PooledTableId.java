@@ -0,0 +1,31 @@
+package com.trungvv.bankdemo.model;
+
+import org.hibernate.annotations.IdGeneratorType;
+import org.hibernate.id.enhanced.Optimizer;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * Id Long cấp theo khối từ một dòng (segment) của bảng id, xem PooledTableIdGenerator.
+ */
+@IdGeneratorType(PooledTableIdGenerator.class)
+@Retention(RUNTIME)
+@Target({FIELD, METHOD})
+public @interface PooledTableId {
+
+    String table() default "id_generators";
+
+    /**
+     * Giá trị cột name của dòng giữ id tiếp theo.
+     */
+    String segment();
+
+    int increment() default 500;
+
+    Class<? extends Optimizer> optimizer() default ExpiringPooledLoOptimizer.class;
+}
@@ -0,0 +1,35 @@
+package com.trungvv.bankdemo.model;
+
+import org.hibernate.MappingException;
+import org.hibernate.generator.AnnotationBasedGenerator;
+import org.hibernate.generator.GeneratorCreationContext;
+import org.hibernate.id.enhanced.TableGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.lang.reflect.Member;
+import java.util.Properties;
+
+/**
+ * TableGenerator cấu hình bằng @PooledTableId (bảng có cột name, next_val) thay cho @GenericGenerator đã deprecated.
+ */
+public class PooledTableIdGenerator extends TableGenerator implements AnnotationBasedGenerator<PooledTableId> {
+
+    private PooledTableId config;
+
+    @Override
+    public void initialize(PooledTableId config, Member member, GeneratorCreationContext context) {
+        this.config = config;
+    }
+
+    @Override
+    public void configure(Type type, Properties parameters, ServiceRegistry serviceRegistry) throws MappingException {
+        parameters.put(TABLE_PARAM, config.table());
+        parameters.put(SEGMENT_COLUMN_PARAM, "name");
+        parameters.put(SEGMENT_VALUE_PARAM, config.segment());
+        parameters.put(VALUE_COLUMN_PARAM, "next_val");
+        parameters.put(INCREMENT_PARAM, String.valueOf(config.increment()));
+        parameters.put(OPT_PARAM, config.optimizer().getName());
+        super.configure(type, parameters, serviceRegistry);
+    }
+}
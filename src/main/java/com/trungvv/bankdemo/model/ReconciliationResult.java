@@ -0,0 +1,45 @@
+package com.trungvv.bankdemo.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Tài khoản có số dư lệch so với số dư tính lại từ lịch sử trong một lần đối soát.
+ */
+@Entity
+@Table(name = "reconciliation_results", indexes = {
+        @Index(name = "idx_reconciliation_results_run_id", columnList = "run_id, id")
+})
+@Builder
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReconciliationResult {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "run_id", nullable = false)
+    private Long runId;
+
+    @Column(name = "account_id", columnDefinition = "BINARY(16)", nullable = false)
+    private UUID accountId;
+
+    @Column(name = "actual_balance", nullable = false)
+    private BigDecimal actualBalance;
+
+    @Column(name = "expected_balance", nullable = false)
+    private BigDecimal expectedBalance;
+
+    @Column(name = "difference", nullable = false)
+    private BigDecimal difference;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,45 @@
+package com.trungvv.bankdemo.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "reconciliation_runs")
+@Builder
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReconciliationRun {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "status", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private ReconciliationRunStatus status;
+
+    @Column(name = "partitions", nullable = false)
+    private Integer partitions;
+
+    @Column(name = "completed_partitions", nullable = false)
+    private Integer completedPartitions;
+
+    @Column(name = "accounts_checked", nullable = false)
+    private Long accountsChecked;
+
+    @Column(name = "mismatches", nullable = false)
+    private Long mismatches;
+
+    @Column(name = "error_message")
+    private String errorMessage;
+
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+}
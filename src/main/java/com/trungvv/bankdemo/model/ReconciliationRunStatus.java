@@ -0,0 +1,5 @@
+package com.trungvv.bankdemo.model;
+
+public enum ReconciliationRunStatus {
+    RUNNING, COMPLETED, FAILED
+}
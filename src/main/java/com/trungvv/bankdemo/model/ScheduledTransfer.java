@@ -0,0 +1,73 @@
+package com.trungvv.bankdemo.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Lệnh chuyển tiền hẹn giờ / định kỳ. next_run_at là lần chạy kế tiếp chưa thực hiện,
+ * occurrences là số lần đã đến hạn (kể cả lần thất bại).
+ */
+@Entity
+@Table(name = "scheduled_transfers", indexes = {
+        @Index(name = "idx_scheduled_transfers_due", columnList = "status, next_run_at"),
+        @Index(name = "idx_scheduled_transfers_sender", columnList = "sender_account_id")
+})
+@Builder
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScheduledTransfer {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "sender_account_id", nullable = false, columnDefinition = "BINARY(16)")
+    private UUID senderAccountId;
+
+    @Column(name = "receiver_account_id", nullable = false, columnDefinition = "BINARY(16)")
+    private UUID receiverAccountId;
+
+    @Column(name = "amount", nullable = false)
+    private BigDecimal amount;
+
+    @Column(name = "message")
+    private String message;
+
+    @Column(name = "recurrence", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private TransferRecurrence recurrence;
+
+    @Column(name = "start_at", nullable = false)
+    private LocalDateTime startAt;
+
+    @Column(name = "end_at")
+    private LocalDateTime endAt;
+
+    @Column(name = "next_run_at", nullable = false)
+    private LocalDateTime nextRunAt;
+
+    @Column(name = "occurrences", nullable = false)
+    private Integer occurrences;
+
+    @Column(name = "status", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private ScheduledTransferStatus status;
+
+    @Column(name = "last_run_at")
+    private LocalDateTime lastRunAt;
+
+    @Column(name = "last_transaction_id", columnDefinition = "BINARY(16)")
+    private UUID lastTransactionId;
+
+    @Column(name = "last_error")
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,5 @@
+package com.trungvv.bankdemo.model;
+
+public enum ScheduledTransferStatus {
+    ACTIVE, COMPLETED, FAILED, CANCELLED
+}
@@ -0,0 +1,37 @@
+package com.trungvv.bankdemo.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Checkpoint: chunk đã ghi xong toàn bộ file sao kê. Khi chạy lại job chỉ xử lý các chunk chưa có dòng ở đây.
+ */
+@Entity
+@Table(name = "statement_chunks", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_statement_chunks_job_chunk", columnNames = {"job_id", "chunk_index"})
+})
+@Builder
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatementChunk {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "job_id", nullable = false)
+    private Long jobId;
+
+    @Column(name = "chunk_index", nullable = false)
+    private Integer chunkIndex;
+
+    @Column(name = "accounts_written", nullable = false)
+    private Integer accountsWritten;
+
+    @Column(name = "completed_at", nullable = false)
+    private LocalDateTime completedAt;
+}
@@ -0,0 +1,59 @@
+package com.trungvv.bankdemo.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Job sinh sao kê tháng; tiến độ được lưu theo từng chunk trong statement_chunks.
+ */
+@Entity
+@Table(name = "statement_jobs", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_statement_jobs_month", columnNames = "statement_month")
+})
+@Builder
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatementJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * Tháng sao kê dạng yyyy-MM.
+     */
+    @Column(name = "statement_month", nullable = false, length = 7)
+    private String month;
+
+    @Column(name = "status", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private StatementJobStatus status;
+
+    @Column(name = "total_chunks", nullable = false)
+    private Integer totalChunks;
+
+    @Column(name = "output_dir", nullable = false)
+    private String outputDir;
+
+    @Column(name = "error_message")
+    private String errorMessage;
+
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    /**
+     * Số lần job được nhận chạy; instance chỉ ghi tiến độ khi attempt vẫn là lần nó đã nhận.
+     */
+    @Column(name = "attempt", nullable = false)
+    private Integer attempt;
+
+    @Column(name = "heartbeat_at")
+    private LocalDateTime heartbeatAt;
+}
@@ -2,14 +2,17 @@ package com.trungvv.bankdemo.model;
 
 import jakarta.persistence.*;
 import lombok.*;
-import org.hibernate.annotations.GenericGenerator;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
-@Table(name = "transactions")
+@Table(name = "transactions", indexes = {
+        @Index(name = "idx_transactions_sender_created", columnList = "sender_account_id, created_at"),
+        @Index(name = "idx_transactions_receiver_created", columnList = "receiver_account_id, created_at"),
+        @Index(name = "idx_transactions_created_at", columnList = "created_at")
+})
 @Builder
 @Getter
 @Setter
@@ -18,8 +21,7 @@ import java.util.UUID;
 public class Transaction {
 
     @Id
-    @GeneratedValue(generator = "uuid2")
-    @GenericGenerator(name = "uuid2", strategy = "uuid2")
+    @AssignableUuid
     @Column(columnDefinition = "BINARY(16)")
     private UUID id;
 
@@ -31,10 +33,10 @@ public class Transaction {
 //    @JoinColumn(name = "receiver_account_id", referencedColumnName = "id", nullable = false)
 //    private Account receiverAccountId;
 
-    @Column(name = "sender_account_id", nullable = false)
+    @Column(name = "sender_account_id", nullable = false, columnDefinition = "BINARY(16)")
     private UUID senderAccountId;
 
-    @Column(name = "receiver_account_id", nullable = false)
+    @Column(name = "receiver_account_id", nullable = false, columnDefinition = "BINARY(16)")
     private UUID receiverAccountId;
 
     private BigDecimal amount;
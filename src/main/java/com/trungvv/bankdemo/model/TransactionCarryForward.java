@@ -0,0 +1,27 @@
+package com.trungvv.bankdemo.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Tổng tiền nhận - gửi của các giao dịch SUCCESS của tài khoản đã bị dọn khỏi bảng transactions.
+ */
+@Entity
+@Table(name = "transaction_carry_forwards")
+@Builder
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionCarryForward {
+
+    @Id
+    @Column(name = "account_id", columnDefinition = "BINARY(16)")
+    private UUID accountId;
+
+    @Column(name = "amount", nullable = false)
+    private BigDecimal amount;
+}
@@ -0,0 +1,23 @@
+package com.trungvv.bankdemo.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Chu kỳ lặp của lệnh chuyển tiền định kỳ. Lần chạy thứ n luôn tính từ thời điểm bắt đầu
+ * (không cộng dồn từ lần trước) để lệnh hàng tháng ngày 31 không bị trôi về ngày 28.
+ */
+public enum TransferRecurrence {
+    ONCE, DAILY, WEEKLY, MONTHLY;
+
+    /**
+     * Thời điểm của lần chạy thứ n (bắt đầu từ 0), null nếu không còn lần chạy nào.
+     */
+    public LocalDateTime occurrence(LocalDateTime startAt, int n) {
+        return switch (this) {
+            case ONCE -> n == 0 ? startAt : null;
+            case DAILY -> startAt.plusDays(n);
+            case WEEKLY -> startAt.plusWeeks(n);
+            case MONTHLY -> startAt.plusMonths(n);
+        };
+    }
+}
@@ -0,0 +1,108 @@
+package com.trungvv.bankdemo.outbox;
+
+import com.trungvv.bankdemo.model.OutboxEvent;
+import com.trungvv.bankdemo.repository.OutboxEventRepository;
+import com.trungvv.bankdemo.shard.ShardRouter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Đọc outbox theo thứ tự id và phát từng lô ra các sink.
+ * Một lô lỗi sẽ dừng vòng relay để không có sự kiện nào vượt lên trước sự kiện chưa phát.
+ * Sự kiện đã phát được giữ thêm published-retention-hours rồi xóa theo lô.
+ * Khi chia shard mỗi shard có outbox riêng (id tăng riêng) và được relay lần lượt; lỗi ở một shard
+ * không chặn các shard khác.
+ */
+@Slf4j
+@Component
+public class OutboxRelay {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ShardRouter shardRouter;
+    private final List<OutboxSink> sinks;
+    private final int batchSize;
+    private final Duration publishedRetention;
+
+    public OutboxRelay(OutboxEventRepository outboxEventRepository, ShardRouter shardRouter, List<OutboxSink> sinks,
+                       @Value("${bank.outbox.batch-size:200}") int batchSize,
+                       @Value("${bank.outbox.published-retention-hours:24}") long publishedRetentionHours) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.shardRouter = shardRouter;
+        this.sinks = sinks;
+        this.batchSize = batchSize;
+        this.publishedRetention = Duration.ofHours(publishedRetentionHours);
+    }
+
+    /**
+     * Phát toàn bộ sự kiện đang chờ, trả về số sự kiện đã phát.
+     */
+    @Scheduled(fixedDelayString = "${bank.outbox.relay-interval-ms:500}")
+    public synchronized int publishPending() {
+        int published = 0;
+        for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+            published += shardRouter.on(shard, this::publishPendingOnCurrentShard);
+        }
+        return published;
+    }
+
+    private int publishPendingOnCurrentShard() {
+        int published = 0;
+        while (true) {
+            List<OutboxEvent> batch = outboxEventRepository.findUnpublished(PageRequest.of(0, batchSize));
+            if (batch.isEmpty()) {
+                return published;
+            }
+            try {
+                for (OutboxSink sink : sinks) {
+                    sink.publish(batch);
+                }
+            } catch (Exception e) {
+                log.warn("Outbox relay failed at event {} on shard {}, will retry", batch.get(0).getId(), ShardRouter.current(), e);
+                return published;
+            }
+            outboxEventRepository.markPublished(batch.stream().map(OutboxEvent::getId).toList(), LocalDateTime.now());
+            published += batch.size();
+            if (batch.size() < batchSize) {
+                return published;
+            }
+        }
+    }
+
+    /**
+     * Xóa các sự kiện đã phát trước now - published-retention-hours, mỗi lô batch-size dòng trong transaction riêng.
+     * Trả về số dòng đã xóa.
+     */
+    @Scheduled(fixedDelayString = "${bank.outbox.cleanup-interval-ms:600000}")
+    public int purgePublished() {
+        return purgePublished(LocalDateTime.now().minus(publishedRetention));
+    }
+
+    int purgePublished(LocalDateTime publishedBefore) {
+        int deleted = 0;
+        for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+            deleted += shardRouter.on(shard, () -> purgePublishedOnCurrentShard(publishedBefore));
+        }
+        return deleted;
+    }
+
+    private int purgePublishedOnCurrentShard(LocalDateTime publishedBefore) {
+        int deleted = 0;
+        while (true) {
+            List<Long> ids = outboxEventRepository.findPublishedIdsBefore(publishedBefore, PageRequest.of(0, batchSize));
+            if (ids.isEmpty()) {
+                return deleted;
+            }
+            deleted += outboxEventRepository.deleteByIdIn(ids);
+            if (ids.size() < batchSize) {
+                return deleted;
+            }
+        }
+    }
+}
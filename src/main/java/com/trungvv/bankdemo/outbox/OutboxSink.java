@@ -0,0 +1,14 @@
+package com.trungvv.bankdemo.outbox;
+
+import com.trungvv.bankdemo.model.OutboxEvent;
+
+import java.util.List;
+
+/**
+ * Đích phát sự kiện của outbox relay. Lô chỉ được đánh dấu đã phát khi mọi sink thành công,
+ * nếu một sink ném lỗi cả lô sẽ được phát lại (at-least-once), sink nên khử trùng theo id.
+ */
+public interface OutboxSink {
+
+    void publish(List<OutboxEvent> events) throws Exception;
+}
@@ -0,0 +1,18 @@
+package com.trungvv.bankdemo.outbox;
+
+import com.trungvv.bankdemo.dto.TransactionDto;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+
+@Getter
+@ToString
+@AllArgsConstructor
+public class TransactionEvent {
+    private final long eventId;
+    private final String eventType;
+    private final LocalDateTime occurredAt;
+    private final TransactionDto transaction;
+}
@@ -0,0 +1,111 @@
+package com.trungvv.bankdemo.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trungvv.bankdemo.dto.TransactionDto;
+import com.trungvv.bankdemo.model.OutboxEvent;
+import com.trungvv.bankdemo.shard.ShardRouter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Sink trong tiến trình: phát sự kiện giao dịch cho các subscriber theo đúng thứ tự outbox,
+ * trên thread của relay. Subscriber lỗi làm cả lô bị ném lại cho relay phát lại (at-least-once),
+ * còn các subscriber đã nhận rồi thì nhớ id các sự kiện đã nhận để bỏ qua khi phát lại.
+ * Không dùng offset tăng dần: id IDENTITY cấp lúc insert chứ không phải lúc commit, nên sự kiện
+ * id nhỏ hơn có thể tới sau sự kiện id lớn hơn. Id chỉ duy nhất trong một shard nên nhớ theo shard.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TransactionEventBus implements OutboxSink {
+
+    // Số id đã nhận nhớ cho mỗi shard, phải lớn hơn nhiều so với bank.outbox.batch-size
+    static final int DELIVERED_IDS_PER_SHARD = 10_000;
+
+    private final ObjectMapper objectMapper;
+    private final List<Subscription> subscribers = new CopyOnWriteArrayList<>();
+
+    /**
+     * Đăng ký subscriber, gọi close() trên kết quả trả về để hủy đăng ký.
+     * Subscriber chỉ nhận các sự kiện được relay phát sau thời điểm đăng ký.
+     */
+    public AutoCloseable subscribe(Consumer<TransactionEvent> subscriber) {
+        Subscription subscription = new Subscription(subscriber);
+        subscribers.add(subscription);
+        return () -> subscribers.remove(subscription);
+    }
+
+    @Override
+    public void publish(List<OutboxEvent> events) throws Exception {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        List<TransactionEvent> transactionEvents = new ArrayList<>(events.size());
+        for (OutboxEvent event : events) {
+            transactionEvents.add(new TransactionEvent(event.getId(), event.getEventType(), event.getCreatedAt(),
+                    objectMapper.readValue(event.getPayload(), TransactionDto.class)));
+        }
+        RuntimeException failure = null;
+        for (Subscription subscription : subscribers) {
+            try {
+                subscription.deliver(ShardRouter.current(), transactionEvents);
+            } catch (RuntimeException e) {
+                // Các subscriber còn lại vẫn nhận lô này, lần phát lại chúng bỏ qua các id đã nhận
+                log.warn("Subscriber failed in outbox batch starting at event {} on shard {}, batch will be redelivered",
+                        events.get(0).getId(), ShardRouter.current(), e);
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private static final class Subscription {
+        private final Consumer<TransactionEvent> subscriber;
+        // Shard -> id các sự kiện đã nhận gần nhất; chỉ thread relay ghi (OutboxRelay.publishPending là synchronized)
+        private final Map<Integer, Set<Long>> deliveredIds = new ConcurrentHashMap<>();
+
+        private Subscription(Consumer<TransactionEvent> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        /**
+         * Dừng ở sự kiện lỗi đầu tiên để subscriber vẫn nhận theo đúng thứ tự khi lô được phát lại.
+         */
+        private void deliver(int shard, List<TransactionEvent> events) {
+            Set<Long> delivered = deliveredIds.computeIfAbsent(shard, s -> boundedSet());
+            for (TransactionEvent event : events) {
+                if (delivered.contains(event.getEventId())) {
+                    continue;
+                }
+                subscriber.accept(event);
+                delivered.add(event.getEventId());
+            }
+        }
+
+        private static Set<Long> boundedSet() {
+            return Collections.newSetFromMap(new LinkedHashMap<>() {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, Boolean> eldest) {
+                    return size() > DELIVERED_IDS_PER_SHARD;
+                }
+            });
+        }
+    }
+}
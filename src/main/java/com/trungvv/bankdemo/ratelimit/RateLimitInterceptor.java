@@ -0,0 +1,86 @@
+package com.trungvv.bankdemo.ratelimit;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.io.IOException;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Giới hạn tốc độ tạo giao dịch theo tài khoản gửi và theo client (địa chỉ IP),
+ * trả về 429 ngay tại tầng web trước khi TransactionServiceImpl chạm tới DB.
+ */
+@Component
+public class RateLimitInterceptor implements HandlerInterceptor {
+
+    private final boolean enabled;
+    private final RateLimiter senderLimiter;
+    private final RateLimiter clientLimiter;
+
+    public RateLimitInterceptor(@Value("${bank.rate-limit.enabled:true}") boolean enabled,
+                                @Value("${bank.rate-limit.sender.capacity:20}") int senderCapacity,
+                                @Value("${bank.rate-limit.sender.refill-per-second:10}") double senderRefillPerSecond,
+                                @Value("${bank.rate-limit.client.capacity:200}") int clientCapacity,
+                                @Value("${bank.rate-limit.client.refill-per-second:100}") double clientRefillPerSecond,
+                                @Value("${bank.rate-limit.max-keys:100000}") int maxKeys) {
+        this.enabled = enabled;
+        this.senderLimiter = new RateLimiter(senderCapacity, senderRefillPerSecond, maxKeys);
+        this.clientLimiter = new RateLimiter(clientCapacity, clientRefillPerSecond, maxKeys);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws IOException {
+        if (!enabled || !"POST".equalsIgnoreCase(request.getMethod())) {
+            return true;
+        }
+        String clientKey = request.getRemoteAddr();
+        long waitNanos = clientLimiter.tryAcquire(clientKey);
+        String senderKey = senderKey(request.getParameter("senderId"));
+        if (waitNanos == 0 && senderKey != null) {
+            waitNanos = senderLimiter.tryAcquire(senderKey);
+            if (waitNanos > 0) {
+                // Request bị từ chối thì không tính vào giới hạn của client
+                clientLimiter.release(clientKey);
+            }
+        }
+        if (waitNanos == 0) {
+            return true;
+        }
+        long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        response.getWriter().write("Too many transfer requests, retry after " + retryAfterSeconds + " second(s)");
+        return false;
+    }
+
+    @Scheduled(fixedDelayString = "${bank.rate-limit.eviction-interval-ms:30000}")
+    public void evictIdleBuckets() {
+        senderLimiter.evictIdle();
+        clientLimiter.evictIdle();
+    }
+
+    /**
+     * Chuẩn hóa senderId để không thể lách giới hạn bằng cách đổi chữ hoa/thường;
+     * giá trị không hợp lệ sẽ bị controller từ chối nên không cần giới hạn.
+     */
+    private static String senderKey(String senderId) {
+        if (senderId == null) {
+            return null;
+        }
+        try {
+            return UUID.fromString(senderId).toString();
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.trungvv.bankdemo.ratelimit;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket theo khóa, cài đặt bằng GCRA: mỗi bucket chỉ là một AtomicLong lưu
+ * "theoretical arrival time" và được cập nhật bằng CAS, không dùng lock.
+ * Bucket có TAT <= hiện tại tương đương bucket đầy nên có thể xóa mà không mất trạng thái;
+ * khi đạt maxKeys, các khóa mới dùng chung một bucket tràn để bộ nhớ luôn bị chặn.
+ */
+public class RateLimiter {
+
+    static final String OVERFLOW_KEY = "\u0000overflow";
+    private static final long MIN_SWEEP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final long emissionIntervalNanos;
+    private final long burstNanos;
+    private final int maxKeys;
+    private final LongSupplier nanoClock;
+    private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final AtomicLong lastSweepNanos;
+
+    public RateLimiter(int capacity, double refillPerSecond, int maxKeys) {
+        this(capacity, refillPerSecond, maxKeys, System::nanoTime);
+    }
+
+    RateLimiter(int capacity, double refillPerSecond, int maxKeys, LongSupplier nanoClock) {
+        if (capacity <= 0 || refillPerSecond <= 0 || maxKeys <= 0) {
+            throw new IllegalArgumentException("capacity, refillPerSecond and maxKeys must be positive");
+        }
+        this.emissionIntervalNanos = Math.max(1L, (long) (TimeUnit.SECONDS.toNanos(1) / refillPerSecond));
+        this.burstNanos = emissionIntervalNanos * capacity;
+        this.maxKeys = maxKeys;
+        this.nanoClock = nanoClock;
+        this.lastSweepNanos = new AtomicLong(nanoClock.getAsLong());
+    }
+
+    /**
+     * Lấy một token cho khóa.
+     *
+     * @return 0 nếu được phép, ngược lại là số nano giây cần chờ trước khi thử lại
+     */
+    public long tryAcquire(String key) {
+        long now = nanoClock.getAsLong();
+        AtomicLong tat = bucketFor(key, now);
+        while (true) {
+            long current = tat.get();
+            long next = Math.max(current, now) + emissionIntervalNanos;
+            long excess = next - now - burstNanos;
+            if (excess > 0) {
+                return excess;
+            }
+            if (tat.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Trả lại token vừa lấy bằng tryAcquire khi request vẫn bị từ chối ở bước kiểm tra sau.
+     */
+    public void release(String key) {
+        AtomicLong tat = buckets.get(key);
+        if (tat == null) {
+            tat = buckets.get(OVERFLOW_KEY);
+        }
+        if (tat == null) {
+            return;
+        }
+        long now = nanoClock.getAsLong();
+        while (true) {
+            long current = tat.get();
+            // TAT <= hiện tại đã là bucket đầy, không cộng thêm token quá capacity
+            long previous = Math.max(current - emissionIntervalNanos, Math.min(current, now));
+            if (tat.compareAndSet(current, previous)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Xóa các bucket đã hồi đầy (không có hoạt động gần đây).
+     */
+    public int evictIdle() {
+        long now = nanoClock.getAsLong();
+        lastSweepNanos.set(now);
+        int before = buckets.size();
+        buckets.entrySet().removeIf(entry -> entry.getValue().get() <= now);
+        return before - buckets.size();
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+
+    private AtomicLong bucketFor(String key, long now) {
+        AtomicLong bucket = buckets.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (buckets.size() >= maxKeys) {
+            long lastSweep = lastSweepNanos.get();
+            if (now - lastSweep >= MIN_SWEEP_INTERVAL_NANOS && lastSweepNanos.compareAndSet(lastSweep, now)) {
+                evictIdle();
+            }
+            if (buckets.size() >= maxKeys) {
+                key = OVERFLOW_KEY;
+            }
+        }
+        return buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+    }
+}
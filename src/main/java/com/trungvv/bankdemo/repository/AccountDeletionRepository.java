@@ -0,0 +1,15 @@
+package com.trungvv.bankdemo.repository;
+
+import com.trungvv.bankdemo.model.AccountDeletion;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+import java.util.UUID;
+
+public interface AccountDeletionRepository extends JpaRepository<AccountDeletion, UUID> {
+
+    @Query("SELECT d FROM AccountDeletion d ORDER BY d.deletedAt")
+    List<AccountDeletion> findOldest(Pageable pageable);
+}
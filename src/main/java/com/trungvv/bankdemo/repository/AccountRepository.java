@@ -1,13 +1,19 @@
 package com.trungvv.bankdemo.repository;
 
+import com.trungvv.bankdemo.dto.AccountDto;
+import com.trungvv.bankdemo.dto.IAccountAmount;
+import com.trungvv.bankdemo.dto.IAccountVersion;
+import com.trungvv.bankdemo.dto.IStatementAccount;
 import com.trungvv.bankdemo.model.Account;
 import com.trungvv.bankdemo.model.AccountStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -18,4 +24,47 @@ public interface AccountRepository extends JpaRepository<Account, UUID> {
     @Query("SELECT a FROM Account a WHERE (:status IS NULL OR a.status = :status) AND (a.accountName LIKE %:keySearch% OR a.accountNumber LIKE %:keySearch%)")
     Page<Account> findByKeySearch(String keySearch, AccountStatus status, Pageable pageable);
 
+    /**
+     * Các truy vấn chỉ đọc: chiếu thẳng vào AccountDto, không nạp entity vào persistence context.
+     * Số dư của tài khoản striped gồm cả tổng các slot.
+     */
+    @Query("SELECT new com.trungvv.bankdemo.dto.AccountDto(a.id, a.accountNumber, a.accountName, " +
+            "CASE WHEN a.balanceSlots > 0 THEN a.balance + COALESCE((SELECT SUM(s.balance) FROM AccountBalanceSlot s WHERE s.accountId = a.id), 0) ELSE a.balance END, CAST(a.status AS String)) " +
+            "FROM Account a")
+    List<AccountDto> findAllAccountDtos();
+
+    @Query(value = "SELECT new com.trungvv.bankdemo.dto.AccountDto(a.id, a.accountNumber, a.accountName, " +
+            "CASE WHEN a.balanceSlots > 0 THEN a.balance + COALESCE((SELECT SUM(s.balance) FROM AccountBalanceSlot s WHERE s.accountId = a.id), 0) ELSE a.balance END, CAST(a.status AS String)) " +
+            "FROM Account a WHERE (:status IS NULL OR a.status = :status) AND (a.accountName LIKE %:keySearch% OR a.accountNumber LIKE %:keySearch%)",
+            countQuery = "SELECT COUNT(a) FROM Account a WHERE (:status IS NULL OR a.status = :status) AND (a.accountName LIKE %:keySearch% OR a.accountNumber LIKE %:keySearch%)")
+    Page<AccountDto> findDtoByKeySearch(String keySearch, AccountStatus status, Pageable pageable);
+
+    @Query("SELECT new com.trungvv.bankdemo.dto.AccountDto(a.id, a.accountNumber, a.accountName, " +
+            "CASE WHEN a.balanceSlots > 0 THEN a.balance + COALESCE((SELECT SUM(s.balance) FROM AccountBalanceSlot s WHERE s.accountId = a.id), 0) ELSE a.balance END, CAST(a.status AS String)) " +
+            "FROM Account a WHERE a.id IN :ids")
+    List<AccountDto> findAccountDtosByIdIn(@Param("ids") Collection<UUID> ids);
+
+    /**
+     * Phiên bản tài khoản để tính ETag: thời điểm cập nhật và tổng slot (nếu striped).
+     */
+    @Query("SELECT COALESCE(a.updatedAt, a.createdAt) AS lastModified, " +
+            "CASE WHEN a.balanceSlots > 0 THEN (SELECT COALESCE(SUM(s.balance), 0) FROM AccountBalanceSlot s WHERE s.accountId = a.id) ELSE NULL END AS slotBalance " +
+            "FROM Account a WHERE a.id = :accountId")
+    Optional<IAccountVersion> findVersionById(@Param("accountId") UUID accountId);
+
+    @Query("SELECT a.accountNumber FROM Account a WHERE a.accountNumber BETWEEN :fromNumber AND :toNumber")
+    List<String> findAccountNumbersBetween(@Param("fromNumber") String fromNumber, @Param("toNumber") String toNumber);
+
+
+    /**
+     * Số dư thực (gồm các slot) của các tài khoản trong khoảng id [fromId, toId], dùng cho đối soát.
+     */
+    @Query("SELECT a.id AS accountId, " +
+            "a.balance + COALESCE((SELECT SUM(s.balance) FROM AccountBalanceSlot s WHERE s.accountId = a.id), 0) AS amount " +
+            "FROM Account a WHERE a.id >= :fromId AND a.id <= :toId")
+    List<IAccountAmount> findBalancesInRange(@Param("fromId") UUID fromId, @Param("toId") UUID toId);
+
+    @Query("SELECT a.id AS id, a.accountNumber AS accountNumber, a.accountName AS accountName " +
+            "FROM Account a WHERE a.id >= :fromId AND a.id <= :toId ORDER BY a.id")
+    List<IStatementAccount> findStatementAccountsInRange(@Param("fromId") UUID fromId, @Param("toId") UUID toId);
 }
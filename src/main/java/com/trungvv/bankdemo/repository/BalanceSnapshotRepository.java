@@ -0,0 +1,9 @@
+package com.trungvv.bankdemo.repository;
+
+import com.trungvv.bankdemo.model.BalanceSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.UUID;
+
+public interface BalanceSnapshotRepository extends JpaRepository<BalanceSnapshot, UUID> {
+}
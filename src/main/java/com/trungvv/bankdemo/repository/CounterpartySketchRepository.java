@@ -0,0 +1,21 @@
+package com.trungvv.bankdemo.repository;
+
+import com.trungvv.bankdemo.model.CounterpartySketch;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+public interface CounterpartySketchRepository extends JpaRepository<CounterpartySketch, CounterpartySketch.SketchId> {
+
+    /**
+     * Sketch từng ngày của tài khoản trong [fromDate, toDate], đọc theo khóa chính.
+     */
+    @Query("SELECT s FROM CounterpartySketch s WHERE s.accountId = :accountId " +
+            "AND s.sketchDate >= :fromDate AND s.sketchDate <= :toDate")
+    List<CounterpartySketch> findInRange(@Param("accountId") UUID accountId,
+                                         @Param("fromDate") LocalDate fromDate, @Param("toDate") LocalDate toDate);
+}
@@ -0,0 +1,29 @@
+package com.trungvv.bankdemo.repository;
+
+import com.trungvv.bankdemo.model.CrossShardTransfer;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface CrossShardTransferRepository extends JpaRepository<CrossShardTransfer, UUID> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM CrossShardTransfer t WHERE t.id = :id")
+    Optional<CrossShardTransfer> findForUpdate(@Param("id") UUID id);
+
+    /**
+     * Các chuyển tiền còn PENDING tạo trước cutoff, cũ nhất trước (index idx_cross_shard_transfers_status).
+     */
+    @Query("SELECT t FROM CrossShardTransfer t " +
+            "WHERE t.status = com.trungvv.bankdemo.model.CrossShardTransferStatus.PENDING AND t.createdAt < :cutoff " +
+            "ORDER BY t.createdAt")
+    List<CrossShardTransfer> findPendingBefore(@Param("cutoff") LocalDateTime cutoff, Pageable pageable);
+}
@@ -0,0 +1,32 @@
+package com.trungvv.bankdemo.repository;
+
+import com.trungvv.bankdemo.model.DailyAmountHistogram;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+public interface DailyAmountHistogramRepository extends JpaRepository<DailyAmountHistogram, DailyAmountHistogram.HistogramId> {
+
+    /**
+     * Mốc thời gian đã được cộng dồn gần nhất, null nếu chưa cộng dồn lần nào.
+     */
+    default LocalDateTime findWatermark() {
+        return findLastFoldedUntil(DailyAmountHistogram.GLOBAL_SCOPE);
+    }
+
+    @Query("SELECT MAX(h.foldedUntil) FROM DailyAmountHistogram h WHERE h.scopeId = :scopeId")
+    LocalDateTime findLastFoldedUntil(@Param("scopeId") UUID scopeId);
+
+    /**
+     * Histogram từng ngày của scope trong [fromDate, toDate], đọc theo khóa chính.
+     */
+    @Query("SELECT h FROM DailyAmountHistogram h WHERE h.scopeId = :scopeId " +
+            "AND h.histogramDate >= :fromDate AND h.histogramDate <= :toDate")
+    List<DailyAmountHistogram> findInRange(@Param("scopeId") UUID scopeId,
+                                           @Param("fromDate") LocalDate fromDate, @Param("toDate") LocalDate toDate);
+}
@@ -0,0 +1,80 @@
+package com.trungvv.bankdemo.repository;
+
+import com.trungvv.bankdemo.dto.IAccountAmount;
+import com.trungvv.bankdemo.dto.ILedgerAccountDelta;
+import com.trungvv.bankdemo.dto.LedgerEntryDto;
+import com.trungvv.bankdemo.model.LedgerEntry;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+public interface LedgerEntryRepository extends JpaRepository<LedgerEntry, Long> {
+
+    /**
+     * Tổng có dấu (CREDIT dương, DEBIT âm) các bút toán của tài khoản sau afterId.
+     */
+    @Query("SELECT COALESCE(SUM(CASE WHEN e.entryType = com.trungvv.bankdemo.model.LedgerEntryType.CREDIT THEN e.amount ELSE -e.amount END), 0) " +
+            "FROM LedgerEntry e WHERE e.accountId = :accountId AND e.id > :afterId")
+    BigDecimal sumSince(@Param("accountId") UUID accountId, @Param("afterId") long afterId);
+
+    @Query("SELECT e.accountId AS accountId, " +
+            "SUM(CASE WHEN e.entryType = com.trungvv.bankdemo.model.LedgerEntryType.CREDIT THEN e.amount ELSE -e.amount END) AS delta " +
+            "FROM LedgerEntry e WHERE e.id > :fromId AND e.id <= :toId GROUP BY e.accountId")
+    List<ILedgerAccountDelta> sumByAccountBetween(@Param("fromId") long fromId, @Param("toId") long toId);
+
+    @Query("SELECT MAX(e.id) FROM LedgerEntry e WHERE e.createdAt < :cutoff")
+    Long findMaxIdCreatedBefore(@Param("cutoff") LocalDateTime cutoff);
+
+    @Query("SELECT COALESCE(SUM(CASE WHEN e.entryType = com.trungvv.bankdemo.model.LedgerEntryType.CREDIT THEN e.amount ELSE -e.amount END), 0) " +
+            "FROM LedgerEntry e")
+    BigDecimal sumAll();
+
+    @Query(value = "SELECT new com.trungvv.bankdemo.dto.LedgerEntryDto(e.id, e.accountId, e.transactionId, CAST(e.entryType AS String), CAST(e.source AS String), e.amount, e.createdAt) " +
+            "FROM LedgerEntry e WHERE e.accountId = :accountId ORDER BY e.id DESC",
+            countQuery = "SELECT COUNT(e) FROM LedgerEntry e WHERE e.accountId = :accountId")
+    Page<LedgerEntryDto> findDtoByAccountId(@Param("accountId") UUID accountId, Pageable pageable);
+
+    /**
+     * Tài khoản (id > afterId, theo thứ tự id) chưa có bút toán số dư mở vì tạo trước khi có sổ cái,
+     * kèm số dư mở cần ghi: số dư thực hiện tại trừ tổng các bút toán đã có.
+     */
+    @Query("SELECT a.id AS accountId, " +
+            "a.balance + COALESCE((SELECT SUM(s.balance) FROM AccountBalanceSlot s WHERE s.accountId = a.id), 0) " +
+            "- COALESCE((SELECT SUM(CASE WHEN l.entryType = com.trungvv.bankdemo.model.LedgerEntryType.CREDIT THEN l.amount ELSE -l.amount END) " +
+            "FROM LedgerEntry l WHERE l.accountId = a.id), 0) AS delta " +
+            "FROM Account a WHERE a.id > :afterId AND NOT EXISTS (SELECT 1 FROM LedgerEntry e WHERE e.accountId = a.id " +
+            "AND e.source = com.trungvv.bankdemo.model.LedgerEntrySource.OPENING) ORDER BY a.id")
+    List<ILedgerAccountDelta> findMissingOpeningBalances(@Param("afterId") UUID afterId, Pageable pageable);
+
+    /**
+     * Tổng có dấu các bút toán không phải chuyển khoản (số dư mở, điều chỉnh) trong khoảng id tài khoản.
+     */
+    @Query("SELECT e.accountId AS accountId, " +
+            "SUM(CASE WHEN e.entryType = com.trungvv.bankdemo.model.LedgerEntryType.CREDIT THEN e.amount ELSE -e.amount END) AS amount " +
+            "FROM LedgerEntry e WHERE e.source <> com.trungvv.bankdemo.model.LedgerEntrySource.TRANSFER " +
+            "AND e.accountId >= :fromId AND e.accountId <= :toId GROUP BY e.accountId")
+    List<IAccountAmount> sumNonTransferInRange(@Param("fromId") UUID fromId, @Param("toId") UUID toId);
+
+    /**
+     * Số dư theo sổ cái tại thời điểm before của các tài khoản trong khoảng id.
+     */
+    @Query("SELECT e.accountId AS accountId, " +
+            "SUM(CASE WHEN e.entryType = com.trungvv.bankdemo.model.LedgerEntryType.CREDIT THEN e.amount ELSE -e.amount END) AS amount " +
+            "FROM LedgerEntry e WHERE e.accountId >= :fromId AND e.accountId <= :toId AND e.createdAt < :before GROUP BY e.accountId")
+    List<IAccountAmount> sumBeforeInRange(@Param("fromId") UUID fromId, @Param("toId") UUID toId, @Param("before") LocalDateTime before);
+
+    @Query("SELECT e.id FROM LedgerEntry e WHERE e.accountId = :accountId AND e.id > :afterId ORDER BY e.id")
+    List<Long> findIdsByAccountId(@Param("accountId") UUID accountId, @Param("afterId") long afterId, Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM LedgerEntry e WHERE e.id IN :ids")
+    int deleteByIdIn(@Param("ids") List<Long> ids);
+}
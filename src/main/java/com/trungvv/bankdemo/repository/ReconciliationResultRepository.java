@@ -0,0 +1,11 @@
+package com.trungvv.bankdemo.repository;
+
+import com.trungvv.bankdemo.model.ReconciliationResult;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface ReconciliationResultRepository extends JpaRepository<ReconciliationResult, Long> {
+
+    Page<ReconciliationResult> findByRunIdOrderById(Long runId, Pageable pageable);
+}
@@ -0,0 +1,7 @@
+package com.trungvv.bankdemo.repository;
+
+import com.trungvv.bankdemo.model.ReconciliationRun;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface ReconciliationRunRepository extends JpaRepository<ReconciliationRun, Long> {
+}
@@ -0,0 +1,44 @@
+package com.trungvv.bankdemo.repository;
+
+import com.trungvv.bankdemo.dto.IScheduledTransferDue;
+import com.trungvv.bankdemo.model.ScheduledTransfer;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface ScheduledTransferRepository extends JpaRepository<ScheduledTransfer, Long> {
+
+    /**
+     * Trang đầu các lệnh ACTIVE đến hạn trước windowEnd (kể cả lệnh quá hạn), theo thứ tự (next_run_at, id)
+     * của index idx_scheduled_transfers_due.
+     */
+    @Query("SELECT s.id AS id, s.nextRunAt AS nextRunAt FROM ScheduledTransfer s " +
+            "WHERE s.status = com.trungvv.bankdemo.model.ScheduledTransferStatus.ACTIVE AND s.nextRunAt < :windowEnd " +
+            "ORDER BY s.nextRunAt, s.id")
+    List<IScheduledTransferDue> findDue(@Param("windowEnd") LocalDateTime windowEnd, Pageable pageable);
+
+    /**
+     * Trang kế tiếp sau con trỏ (afterRunAt, afterId).
+     */
+    @Query("SELECT s.id AS id, s.nextRunAt AS nextRunAt FROM ScheduledTransfer s " +
+            "WHERE s.status = com.trungvv.bankdemo.model.ScheduledTransferStatus.ACTIVE AND s.nextRunAt < :windowEnd " +
+            "AND (s.nextRunAt > :afterRunAt OR (s.nextRunAt = :afterRunAt AND s.id > :afterId)) " +
+            "ORDER BY s.nextRunAt, s.id")
+    List<IScheduledTransferDue> findDueAfter(@Param("windowEnd") LocalDateTime windowEnd,
+                                             @Param("afterRunAt") LocalDateTime afterRunAt,
+                                             @Param("afterId") Long afterId, Pageable pageable);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM ScheduledTransfer s WHERE s.id = :id")
+    Optional<ScheduledTransfer> findForUpdate(@Param("id") Long id);
+
+    List<ScheduledTransfer> findBySenderAccountIdOrderById(UUID senderAccountId);
+}
@@ -0,0 +1,19 @@
+package com.trungvv.bankdemo.repository;
+
+import com.trungvv.bankdemo.model.StatementChunk;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface StatementChunkRepository extends JpaRepository<StatementChunk, Long> {
+
+    @Query("SELECT c.chunkIndex FROM StatementChunk c WHERE c.jobId = :jobId")
+    List<Integer> findCompletedChunkIndexes(@Param("jobId") Long jobId);
+
+    long countByJobId(Long jobId);
+
+    @Query("SELECT COALESCE(SUM(c.accountsWritten), 0) FROM StatementChunk c WHERE c.jobId = :jobId")
+    long sumAccountsWritten(@Param("jobId") Long jobId);
+}
@@ -0,0 +1,40 @@
+package com.trungvv.bankdemo.repository;
+
+import com.trungvv.bankdemo.model.StatementJob;
+import com.trungvv.bankdemo.model.StatementJobStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface StatementJobRepository extends JpaRepository<StatementJob, Long> {
+
+    Optional<StatementJob> findByMonth(String month);
+
+    List<StatementJob> findByStatus(StatementJobStatus status);
+
+    /**
+     * Nhận job để chạy: chỉ thành công (trả về 1) nếu chưa instance nào nhận lần attempt này.
+     */
+    @Modifying
+    @Query("UPDATE StatementJob j SET j.attempt = j.attempt + 1, j.status = com.trungvv.bankdemo.model.StatementJobStatus.RUNNING, " +
+            "j.heartbeatAt = :now, j.errorMessage = NULL, j.finishedAt = NULL WHERE j.id = :id AND j.attempt = :attempt")
+    int claim(@Param("id") Long id, @Param("attempt") int attempt, @Param("now") LocalDateTime now);
+
+    /**
+     * Trả về 0 nếu instance khác đã nhận lại job.
+     */
+    @Modifying
+    @Query("UPDATE StatementJob j SET j.heartbeatAt = :now WHERE j.id = :id AND j.attempt = :attempt")
+    int heartbeat(@Param("id") Long id, @Param("attempt") int attempt, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE StatementJob j SET j.status = :status, j.errorMessage = :errorMessage, j.finishedAt = :finishedAt " +
+            "WHERE j.id = :id AND j.attempt = :attempt")
+    int finish(@Param("id") Long id, @Param("attempt") int attempt, @Param("status") StatementJobStatus status,
+               @Param("errorMessage") String errorMessage, @Param("finishedAt") LocalDateTime finishedAt);
+}
@@ -0,0 +1,24 @@
+package com.trungvv.bankdemo.repository;
+
+import com.trungvv.bankdemo.dto.IAccountAmount;
+import com.trungvv.bankdemo.model.TransactionCarryForward;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public interface TransactionCarryForwardRepository extends JpaRepository<TransactionCarryForward, UUID> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM TransactionCarryForward c WHERE c.accountId IN :accountIds")
+    List<TransactionCarryForward> findForUpdate(@Param("accountIds") Collection<UUID> accountIds);
+
+    @Query("SELECT c.accountId AS accountId, c.amount AS amount FROM TransactionCarryForward c " +
+            "WHERE c.accountId >= :fromId AND c.accountId <= :toId")
+    List<IAccountAmount> findInRange(@Param("fromId") UUID fromId, @Param("toId") UUID toId);
+}
@@ -1,13 +1,26 @@
 package com.trungvv.bankdemo.repository;
 
+import com.trungvv.bankdemo.dto.IAccountAmount;
+import com.trungvv.bankdemo.dto.IAccountTotal;
 import com.trungvv.bankdemo.dto.IDailLyTransactionSummary;
-import com.trungvv.bankdemo.model.Account;
+import com.trungvv.bankdemo.dto.ISentTransfer;
+import com.trungvv.bankdemo.dto.IStatementLine;
+import com.trungvv.bankdemo.dto.ITransactionHistoryVersion;
+import com.trungvv.bankdemo.dto.ITransactionKey;
+import com.trungvv.bankdemo.dto.TransactionHistoryVersionDto;
+import com.trungvv.bankdemo.dto.TransactionDto;
 import com.trungvv.bankdemo.model.Transaction;
 import com.trungvv.bankdemo.model.TransactionStatus;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import java.math.BigDecimal;
@@ -16,6 +29,7 @@ import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 public interface TransactionRepository extends JpaRepository<Transaction, UUID> {
 
@@ -30,41 +44,214 @@ public interface TransactionRepository extends JpaRepository<Transaction, UUID>
 //    List<Transaction> findByStatus(TransactionStatus status);
 
     /**
-     * Tìm giao dịch trong khoảng thời gian.
+     * Tìm giao dịch trong khoảng thời gian [startTime, endTime).
+     * So sánh trực tiếp created_at (không CAST) để dùng được index idx_transactions_created_at.
      */
     @Query("SELECT t " +
             "FROM Transaction t " +
-            "WHERE CAST(t.createdAt AS date) BETWEEN :startDate AND :endDate " +
+            "WHERE t.createdAt >= :startTime AND t.createdAt < :endTime " +
             "AND ((:typeTransaction = 'ALL' AND (t.senderAccountId = :accountId OR t.receiverAccountId = :accountId)) " +
             "     OR (:typeTransaction = 'TRANSFER' AND t.senderAccountId = :accountId) " +
             "     OR (:typeTransaction = 'RECEIVE' AND t.receiverAccountId = :accountId))")
-    Page<Transaction> findByCreatedAtBetween(LocalDate startDate, LocalDate endDate, UUID accountId, TransactionStatus status, String typeTransaction , Pageable pageable);
+    Page<Transaction> findByCreatedAtRange(LocalDateTime startTime, LocalDateTime endTime, UUID accountId, TransactionStatus status, String typeTransaction, Pageable pageable);
 
     /**
-     * Tính tổng số tiền giao dịch theo Account ID.
-     * Bao gồm cả giao dịch gửi và nhận.
+     * Tìm giao dịch từ ngày startDate đến hết ngày endDate.
+     */
+    default Page<Transaction> findByCreatedAtBetween(LocalDate startDate, LocalDate endDate, UUID accountId, TransactionStatus status, String typeTransaction, Pageable pageable) {
+        return findByCreatedAtRange(startDate.atStartOfDay(), endDate.plusDays(1).atStartOfDay(), accountId, status, typeTransaction, pageable);
+    }
+
+    /**
+     * Như findByCreatedAtRange nhưng chiếu thẳng vào TransactionDto (chỉ đọc, không nạp entity).
      */
-    @Query("SELECT COALESCE(SUM(t.amount), 0) " +
+    @Query(value = "SELECT new com.trungvv.bankdemo.dto.TransactionDto(t.id, t.senderAccountId, t.receiverAccountId, t.amount, CAST(t.status AS String), t.message) " +
+            "FROM Transaction t " +
+            "WHERE t.createdAt >= :startTime AND t.createdAt < :endTime " +
+            "AND ((:typeTransaction = 'ALL' AND (t.senderAccountId = :accountId OR t.receiverAccountId = :accountId)) " +
+            "     OR (:typeTransaction = 'TRANSFER' AND t.senderAccountId = :accountId) " +
+            "     OR (:typeTransaction = 'RECEIVE' AND t.receiverAccountId = :accountId))",
+            countQuery = "SELECT COUNT(t) " +
             "FROM Transaction t " +
-            "WHERE t.senderAccountId = :accountId OR t.receiverAccountId = :accountId")
+            "WHERE t.createdAt >= :startTime AND t.createdAt < :endTime " +
+            "AND ((:typeTransaction = 'ALL' AND (t.senderAccountId = :accountId OR t.receiverAccountId = :accountId)) " +
+            "     OR (:typeTransaction = 'TRANSFER' AND t.senderAccountId = :accountId) " +
+            "     OR (:typeTransaction = 'RECEIVE' AND t.receiverAccountId = :accountId))")
+    Page<TransactionDto> findDtoByCreatedAtRange(LocalDateTime startTime, LocalDateTime endTime, UUID accountId, TransactionStatus status, String typeTransaction, Pageable pageable);
+
+    default Page<TransactionDto> findDtoByCreatedAtBetween(LocalDate startDate, LocalDate endDate, UUID accountId, TransactionStatus status, String typeTransaction, Pageable pageable) {
+        return findDtoByCreatedAtRange(startDate.atStartOfDay(), endDate.plusDays(1).atStartOfDay(), accountId, status, typeTransaction, pageable);
+    }
+
+    /**
+     * Tính tổng số tiền giao dịch theo Account ID.
+     * Bao gồm cả giao dịch gửi và nhận. Hai vế tách riêng (thay cho OR) để mỗi vế dùng index
+     * theo sender/receiver; giao dịch tự chuyển cho chính mình bị chặn nên không đếm trùng.
+     */
+    @Query("SELECT (SELECT COALESCE(SUM(s.amount), 0) FROM Transaction s WHERE s.senderAccountId = :accountId) " +
+            "+ (SELECT COALESCE(SUM(r.amount), 0) FROM Transaction r WHERE r.receiverAccountId = :accountId)")
     Optional<BigDecimal> sumTransactionAmountByAccountId(@Param("accountId") UUID accountId);
 
     /**
      * Đếm số lượng giao dịch theo Account ID.
      * Bao gồm cả giao dịch gửi và nhận.
      */
-    @Query("SELECT COUNT(t) " +
-            "FROM Transaction t " +
-            "WHERE t.senderAccountId = :accountId OR t.receiverAccountId = :accountId")
-    Long countBySenderAccountIdOrReceiverAccountId(@Param("accountId") Account account);
+    @Query("SELECT (SELECT COUNT(s) FROM Transaction s WHERE s.senderAccountId = :accountId) " +
+            "+ (SELECT COUNT(r) FROM Transaction r WHERE r.receiverAccountId = :accountId)")
+    Long countBySenderAccountIdOrReceiverAccountId(@Param("accountId") UUID accountId);
 
     /**
      * Báo cáo giao dịch hàng ngày: Tổng số tiền giao dịch theo ngày.
      */
     @Query("SELECT CAST(t.createdAt AS date) AS date, t.senderAccountId AS accountId, COUNT(t) AS transactionCount, COALESCE(SUM(t.amount), 0) AS totalAmount " +
             "FROM Transaction t " +
-            "WHERE CAST(t.createdAt AS date) = :date " +
+            "WHERE t.createdAt >= :startTime AND t.createdAt < :endTime " +
             "GROUP BY CAST(t.createdAt AS date), t.senderAccountId")
-    List<IDailLyTransactionSummary> getDailyTransactionSummaryForAllCustomers(@Param("date") LocalDate date);
+    List<IDailLyTransactionSummary> getDailyTransactionSummaryInRange(@Param("startTime") LocalDateTime startTime, @Param("endTime") LocalDateTime endTime);
+
+    default List<IDailLyTransactionSummary> getDailyTransactionSummaryForAllCustomers(LocalDate date) {
+        return getDailyTransactionSummaryInRange(date.atStartOfDay(), date.plusDays(1).atStartOfDay());
+    }
+
+    /**
+     * Số giao dịch SUCCESS và tổng tiền gửi theo tài khoản gửi, các giao dịch tạo trong [start, end).
+     */
+    @Query("SELECT t.senderAccountId AS accountId, COUNT(t) AS transactionCount, SUM(t.amount) AS amount FROM Transaction t " +
+            "WHERE t.status = com.trungvv.bankdemo.model.TransactionStatus.SUCCESS " +
+            "AND t.createdAt >= :start AND t.createdAt < :end GROUP BY t.senderAccountId")
+    List<IAccountTotal> sumSentBetween(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    /**
+     * Số giao dịch SUCCESS và tổng tiền nhận theo tài khoản nhận, các giao dịch tạo trong [start, end).
+     */
+    @Query("SELECT t.receiverAccountId AS accountId, COUNT(t) AS transactionCount, SUM(t.amount) AS amount FROM Transaction t " +
+            "WHERE t.status = com.trungvv.bankdemo.model.TransactionStatus.SUCCESS " +
+            "AND t.createdAt >= :start AND t.createdAt < :end GROUP BY t.receiverAccountId")
+    List<IAccountTotal> sumReceivedBetween(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    /**
+     * Phiên bản lịch sử giao dịch của tài khoản: số lượng, số giao dịch thành công
+     * (thay đổi khi cập nhật trạng thái) và thời điểm giao dịch mới nhất.
+     * Dùng để tính ETag mà không phải tải toàn bộ lịch sử.
+     * Phía gửi và phía nhận được đọc riêng qua index tương ứng rồi ghép lại.
+     */
+    default ITransactionHistoryVersion getTransactionHistoryVersion(UUID accountId) {
+        return TransactionHistoryVersionDto.merge(getSentHistoryVersion(accountId), getReceivedHistoryVersion(accountId));
+    }
+
+    @Query("SELECT COUNT(t) AS transactionCount, " +
+            "SUM(CASE WHEN t.status = com.trungvv.bankdemo.model.TransactionStatus.SUCCESS THEN 1 ELSE 0 END) AS successCount, " +
+            "MAX(t.createdAt) AS lastCreatedAt " +
+            "FROM Transaction t " +
+            "WHERE t.senderAccountId = :accountId")
+    ITransactionHistoryVersion getSentHistoryVersion(@Param("accountId") UUID accountId);
+
+    @Query("SELECT COUNT(t) AS transactionCount, " +
+            "SUM(CASE WHEN t.status = com.trungvv.bankdemo.model.TransactionStatus.SUCCESS THEN 1 ELSE 0 END) AS successCount, " +
+            "MAX(t.createdAt) AS lastCreatedAt " +
+            "FROM Transaction t " +
+            "WHERE t.receiverAccountId = :accountId")
+    ITransactionHistoryVersion getReceivedHistoryVersion(@Param("accountId") UUID accountId);
+
+
+    /**
+     * Tổng tiền nhận (giao dịch SUCCESS) theo tài khoản nhận trong khoảng id [fromId, toId].
+     */
+    @Query("SELECT t.receiverAccountId AS accountId, SUM(t.amount) AS amount FROM Transaction t " +
+            "WHERE t.status = com.trungvv.bankdemo.model.TransactionStatus.SUCCESS " +
+            "AND t.receiverAccountId >= :fromId AND t.receiverAccountId <= :toId GROUP BY t.receiverAccountId")
+    List<IAccountAmount> sumReceivedInRange(@Param("fromId") UUID fromId, @Param("toId") UUID toId);
+
+    /**
+     * Tổng tiền gửi (giao dịch SUCCESS) theo tài khoản gửi trong khoảng id [fromId, toId].
+     */
+    @Query("SELECT t.senderAccountId AS accountId, SUM(t.amount) AS amount FROM Transaction t " +
+            "WHERE t.status = com.trungvv.bankdemo.model.TransactionStatus.SUCCESS " +
+            "AND t.senderAccountId >= :fromId AND t.senderAccountId <= :toId GROUP BY t.senderAccountId")
+    List<IAccountAmount> sumSentInRange(@Param("fromId") UUID fromId, @Param("toId") UUID toId);
+
+    /**
+     * Đọc dạng stream các giao dịch SUCCESS trong [start, end) có bên gửi hoặc bên nhận thuộc khoảng id,
+     * theo thứ tự created_at. Phải gọi trong transaction và đóng stream sau khi dùng.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT t.id AS id, t.senderAccountId AS senderAccountId, t.receiverAccountId AS receiverAccountId, " +
+            "t.amount AS amount, t.message AS message, t.createdAt AS createdAt FROM Transaction t " +
+            "WHERE t.status = com.trungvv.bankdemo.model.TransactionStatus.SUCCESS " +
+            "AND t.createdAt >= :start AND t.createdAt < :end " +
+            "AND ((t.senderAccountId >= :fromId AND t.senderAccountId <= :toId) " +
+            "     OR (t.receiverAccountId >= :fromId AND t.receiverAccountId <= :toId)) " +
+            "ORDER BY t.createdAt, t.id")
+    Stream<IStatementLine> streamStatementLines(@Param("fromId") UUID fromId, @Param("toId") UUID toId,
+                                                @Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    /**
+     * Các giao dịch SUCCESS tạo từ thời điểm since, dùng để dựng lại trạng thái trong bộ nhớ
+     * (cửa sổ velocity, sketch đối tác) khi khởi động.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT t.senderAccountId AS senderAccountId, t.receiverAccountId AS receiverAccountId, t.amount AS amount, t.createdAt AS createdAt FROM Transaction t " +
+            "WHERE t.status = com.trungvv.bankdemo.model.TransactionStatus.SUCCESS AND t.createdAt >= :since")
+    List<ISentTransfer> findSentSince(@Param("since") LocalDateTime since);
+
+    /**
+     * Đọc dạng stream các giao dịch SUCCESS tạo trong [start, end). Phải gọi trong transaction và đóng stream sau khi dùng.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT t.senderAccountId AS senderAccountId, t.receiverAccountId AS receiverAccountId, t.amount AS amount, t.createdAt AS createdAt FROM Transaction t " +
+            "WHERE t.status = com.trungvv.bankdemo.model.TransactionStatus.SUCCESS AND t.createdAt >= :start AND t.createdAt < :end")
+    Stream<ISentTransfer> streamSentBetween(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    @Query("SELECT MIN(t.createdAt) FROM Transaction t")
+    LocalDateTime findFirstCreatedAt();
+
+    /**
+     * Khóa các giao dịch tạo trước cutoff, sau con trỏ keyset (afterCreatedAt, afterId), theo (created_at, id).
+     */
+    @Query("SELECT t.id AS id, t.createdAt AS createdAt FROM Transaction t " +
+            "WHERE t.createdAt < :cutoff AND t.createdAt >= :afterCreatedAt " +
+            "AND (t.createdAt > :afterCreatedAt OR t.id > :afterId) " +
+            "ORDER BY t.createdAt, t.id")
+    List<ITransactionKey> findKeysCreatedBefore(@Param("cutoff") LocalDateTime cutoff, @Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+                                                @Param("afterId") UUID afterId, Pageable pageable);
+
+    /**
+     * Khóa các giao dịch tài khoản đã gửi, sau con trỏ keyset (afterCreatedAt, afterId).
+     */
+    @Query("SELECT t.id AS id, t.createdAt AS createdAt FROM Transaction t " +
+            "WHERE t.senderAccountId = :accountId AND t.createdAt >= :afterCreatedAt " +
+            "AND (t.createdAt > :afterCreatedAt OR t.id > :afterId) " +
+            "ORDER BY t.createdAt, t.id")
+    List<ITransactionKey> findKeysBySender(@Param("accountId") UUID accountId, @Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+                                           @Param("afterId") UUID afterId, Pageable pageable);
+
+    /**
+     * Khóa các giao dịch tài khoản đã nhận, sau con trỏ keyset (afterCreatedAt, afterId).
+     */
+    @Query("SELECT t.id AS id, t.createdAt AS createdAt FROM Transaction t " +
+            "WHERE t.receiverAccountId = :accountId AND t.createdAt >= :afterCreatedAt " +
+            "AND (t.createdAt > :afterCreatedAt OR t.id > :afterId) " +
+            "ORDER BY t.createdAt, t.id")
+    List<ITransactionKey> findKeysByReceiver(@Param("accountId") UUID accountId, @Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+                                             @Param("afterId") UUID afterId, Pageable pageable);
+
+    /**
+     * Khóa các giao dịch của lô sắp dọn; giao dịch đã bị instance khác dọn không còn trong kết quả.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM Transaction t WHERE t.id IN :ids")
+    List<Transaction> lockByIdIn(@Param("ids") List<UUID> ids);
+
+    /**
+     * Chép các giao dịch sang transactions_archive (chưa xóa khỏi transactions).
+     */
+    @Modifying
+    @Query("INSERT INTO ArchivedTransaction (id, senderAccountId, receiverAccountId, amount, status, message, createdAt, archivedAt) " +
+            "SELECT t.id, t.senderAccountId, t.receiverAccountId, t.amount, t.status, t.message, t.createdAt, :archivedAt " +
+            "FROM Transaction t WHERE t.id IN :ids")
+    int archiveByIdIn(@Param("ids") List<UUID> ids, @Param("archivedAt") LocalDateTime archivedAt);
 
+    @Modifying
+    @Query("DELETE FROM Transaction t WHERE t.id IN :ids")
+    int deleteByIdIn(@Param("ids") List<UUID> ids);
 }
@@ -0,0 +1,58 @@
+package com.trungvv.bankdemo.retention;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Đọc độ trễ replica (Seconds_Behind_Source của SHOW REPLICA STATUS) để job nền tự dừng khi replica tụt lại.
+ * Không cấu hình replica-url thì luôn trả 0. Kết quả được giữ lại một giây để không mở connection cho mỗi lô.
+ */
+@Slf4j
+@Component
+public class ReplicaLagProbe {
+
+    private static final long CHECK_INTERVAL_NANOS = 1_000_000_000L;
+
+    private final JdbcTemplate replica;
+    private long lastLag;
+    private long lastCheckedAt;
+
+    public ReplicaLagProbe(@Value("${bank.retention.replica-url:}") String replicaUrl,
+                           DataSourceProperties dataSourceProperties) {
+        this.replica = replicaUrl.isBlank() ? null : new JdbcTemplate(new DriverManagerDataSource(replicaUrl,
+                dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword()));
+    }
+
+    /**
+     * Số giây replica trễ so với primary; Long.MAX_VALUE khi replication đang dừng hoặc không đọc được.
+     */
+    public synchronized long lagSeconds() {
+        if (replica == null) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        if (lastCheckedAt != 0 && now - lastCheckedAt < CHECK_INTERVAL_NANOS) {
+            return lastLag;
+        }
+        try {
+            List<Long> lags = replica.query("SHOW REPLICA STATUS", (rs, rowNum) -> {
+                long lag = rs.getLong("Seconds_Behind_Source");
+                return rs.wasNull() ? Long.MAX_VALUE : lag;
+            });
+            lastLag = lags.isEmpty() ? Long.MAX_VALUE : Collections.max(lags);
+        } catch (DataAccessException e) {
+            log.warn("Cannot read replica lag", e);
+            lastLag = Long.MAX_VALUE;
+        }
+        lastCheckedAt = now;
+        return lastLag;
+    }
+}
@@ -0,0 +1,12 @@
+package com.trungvv.bankdemo.retention;
+
+public enum RetentionMode {
+    /**
+     * Chép sang transactions_archive rồi xóa khỏi transactions.
+     */
+    ARCHIVE,
+    /**
+     * Xóa hẳn.
+     */
+    DELETE
+}
@@ -0,0 +1,297 @@
+package com.trungvv.bankdemo.retention;
+
+import com.trungvv.bankdemo.analytics.DailySummaryCache;
+import com.trungvv.bankdemo.dto.ITransactionKey;
+import com.trungvv.bankdemo.model.AccountDeletion;
+import com.trungvv.bankdemo.model.Transaction;
+import com.trungvv.bankdemo.model.TransactionCarryForward;
+import com.trungvv.bankdemo.model.TransactionStatus;
+import com.trungvv.bankdemo.repository.AccountDeletionRepository;
+import com.trungvv.bankdemo.repository.BalanceSnapshotRepository;
+import com.trungvv.bankdemo.repository.LedgerEntryRepository;
+import com.trungvv.bankdemo.repository.TransactionCarryForwardRepository;
+import com.trungvv.bankdemo.repository.TransactionRepository;
+import com.trungvv.bankdemo.shard.ShardRouter;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionTimedOutException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Dọn dữ liệu hết hạn lưu giữ theo từng lô nhỏ, đủ nhẹ để chạy liên tục trong giờ làm việc:
+ * <ul>
+ *     <li>dữ liệu mồ côi của tài khoản đã xóa (hàng đợi account_deletions): giao dịch gửi/nhận, bút toán, snapshot số dư;</li>
+ *     <li>giao dịch tạo trước now - transaction-days.</li>
+ * </ul>
+ * Mỗi lô đọc khóa theo keyset (created_at, id) rồi archive/xóa theo khóa chính trong một transaction ngắn,
+ * chỉ khóa đúng các dòng của lô thay vì một câu DELETE lớn giữ khóa cả khoảng index. Cùng transaction đó
+ * cộng tiền nhận - gửi của các giao dịch SUCCESS bị dọn vào transaction_carry_forwards của hai bên, để đối soát
+ * của tài khoản còn lại (đối tác của tài khoản đã xóa, mọi tài khoản có giao dịch cũ) không lệch sau khi dọn. Lô chạy lâu hơn
+ * target-chunk-ms (thường là do chờ khóa) thì giảm nửa kích thước lô và nghỉ lâu hơn, lô nhanh thì tăng dần lại.
+ * Lô quá chunk-timeout-seconds hoặc replica trễ quá max-replica-lag-seconds thì dừng vòng này, đợi lần sau.
+ * Chạy trên thread riêng để các lần nghỉ không chặn các job @Scheduled khác.
+ */
+@Slf4j
+@Component
+public class RetentionPurger {
+
+    private static final int MIN_CHUNK_SIZE = 10;
+    private static final int DELETIONS_PER_RUN = 100;
+    private static final LocalDateTime KEYSET_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final UUID KEYSET_START_ID = new UUID(0L, 0L);
+
+    private final ShardRouter shardRouter;
+    private final TransactionRepository transactionRepository;
+    private final TransactionCarryForwardRepository transactionCarryForwardRepository;
+    private final LedgerEntryRepository ledgerEntryRepository;
+    private final BalanceSnapshotRepository balanceSnapshotRepository;
+    private final AccountDeletionRepository accountDeletionRepository;
+    private final DailySummaryCache dailySummaryCache;
+    private final ReplicaLagProbe replicaLagProbe;
+    private final TransactionTemplate writeTemplate;
+    private final boolean enabled;
+    private final RetentionMode mode;
+    private final int transactionDays;
+    private final long intervalMs;
+    private final int batchSize;
+    private final long pauseMs;
+    private final long targetChunkMs;
+    private final long maxReplicaLagSeconds;
+    private final ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor();
+
+    // Chỉ truy cập trong purge (synchronized)
+    private int chunkSize;
+    private int purged;
+
+    public RetentionPurger(ShardRouter shardRouter,
+                           TransactionRepository transactionRepository,
+                           TransactionCarryForwardRepository transactionCarryForwardRepository,
+                           LedgerEntryRepository ledgerEntryRepository,
+                           BalanceSnapshotRepository balanceSnapshotRepository,
+                           AccountDeletionRepository accountDeletionRepository,
+                           DailySummaryCache dailySummaryCache,
+                           ReplicaLagProbe replicaLagProbe,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${bank.retention.enabled:true}") boolean enabled,
+                           @Value("${bank.retention.mode:ARCHIVE}") RetentionMode mode,
+                           @Value("${bank.retention.transaction-days:2555}") int transactionDays,
+                           @Value("${bank.retention.interval-ms:60000}") long intervalMs,
+                           @Value("${bank.retention.batch-size:500}") int batchSize,
+                           @Value("${bank.retention.pause-ms:200}") long pauseMs,
+                           @Value("${bank.retention.target-chunk-ms:500}") long targetChunkMs,
+                           @Value("${bank.retention.chunk-timeout-seconds:5}") int chunkTimeoutSeconds,
+                           @Value("${bank.retention.max-replica-lag-seconds:5}") long maxReplicaLagSeconds) {
+        this.shardRouter = shardRouter;
+        this.transactionRepository = transactionRepository;
+        this.transactionCarryForwardRepository = transactionCarryForwardRepository;
+        this.ledgerEntryRepository = ledgerEntryRepository;
+        this.balanceSnapshotRepository = balanceSnapshotRepository;
+        this.accountDeletionRepository = accountDeletionRepository;
+        this.dailySummaryCache = dailySummaryCache;
+        this.replicaLagProbe = replicaLagProbe;
+        this.writeTemplate = new TransactionTemplate(transactionManager);
+        this.writeTemplate.setTimeout(chunkTimeoutSeconds);
+        this.enabled = enabled;
+        this.mode = mode;
+        this.transactionDays = transactionDays;
+        this.intervalMs = intervalMs;
+        this.batchSize = Math.max(MIN_CHUNK_SIZE, batchSize);
+        this.pauseMs = pauseMs;
+        this.targetChunkMs = targetChunkMs;
+        this.maxReplicaLagSeconds = maxReplicaLagSeconds;
+        this.chunkSize = this.batchSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (enabled) {
+            ticker.scheduleWithFixedDelay(() -> {
+                try {
+                    purge(LocalDateTime.now());
+                } catch (Exception e) {
+                    log.error("Retention purge failed", e);
+                }
+            }, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        ticker.shutdownNow();
+    }
+
+    /**
+     * Một vòng dọn trên mọi shard, trả về số dòng giao dịch và bút toán đã dọn.
+     */
+    synchronized int purge(LocalDateTime now) {
+        purged = 0;
+        for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+            if (!shardRouter.on(shard, () -> purgeShard(now))) {
+                break;
+            }
+        }
+        if (purged > 0) {
+            log.info("Retention purge removed {} rows", purged);
+        }
+        return purged;
+    }
+
+    private boolean purgeShard(LocalDateTime now) {
+        for (AccountDeletion deletion : accountDeletionRepository.findOldest(PageRequest.of(0, DELETIONS_PER_RUN))) {
+            if (!purgeDeletedAccount(deletion.getAccountId())) {
+                return false;
+            }
+        }
+        if (transactionDays <= 0) {
+            return true;
+        }
+        LocalDateTime cutoff = now.minusDays(transactionDays);
+        return purgeTransactions((afterCreatedAt, afterId, limit) ->
+                transactionRepository.findKeysCreatedBefore(cutoff, afterCreatedAt, afterId, PageRequest.of(0, limit)));
+    }
+
+    private boolean purgeDeletedAccount(UUID accountId) {
+        boolean finished = purgeTransactions((afterCreatedAt, afterId, limit) ->
+                        transactionRepository.findKeysBySender(accountId, afterCreatedAt, afterId, PageRequest.of(0, limit)))
+                && purgeTransactions((afterCreatedAt, afterId, limit) ->
+                        transactionRepository.findKeysByReceiver(accountId, afterCreatedAt, afterId, PageRequest.of(0, limit)))
+                && purgeLedgerEntries(accountId);
+        if (finished) {
+            writeTemplate.executeWithoutResult(status -> {
+                balanceSnapshotRepository.findById(accountId).ifPresent(balanceSnapshotRepository::delete);
+                transactionCarryForwardRepository.findById(accountId).ifPresent(transactionCarryForwardRepository::delete);
+                accountDeletionRepository.deleteById(accountId);
+            });
+        }
+        return finished;
+    }
+
+    private boolean purgeTransactions(TransactionKeyQuery query) {
+        LocalDateTime[] afterCreatedAt = {KEYSET_START};
+        UUID[] afterId = {KEYSET_START_ID};
+        Set<LocalDate> days = new HashSet<>();
+        try {
+            return drain(limit -> {
+                List<ITransactionKey> keys = query.find(afterCreatedAt[0], afterId[0], limit);
+                if (keys.isEmpty()) {
+                    return 0;
+                }
+                // Chỉ dọn các dòng khóa được: dòng instance khác vừa dọn không được cộng chuyển kỳ lần nữa
+                List<Transaction> transactions = transactionRepository.lockByIdIn(keys.stream().map(ITransactionKey::getId).toList());
+                if (!transactions.isEmpty()) {
+                    List<UUID> ids = transactions.stream().map(Transaction::getId).toList();
+                    carryForward(transactions);
+                    if (mode == RetentionMode.ARCHIVE) {
+                        transactionRepository.archiveByIdIn(ids, LocalDateTime.now());
+                    }
+                    transactionRepository.deleteByIdIn(ids);
+                }
+                // Con trỏ giúp lô sau không phải đi lại qua các entry index vừa xóa mà InnoDB chưa purge
+                ITransactionKey last = keys.get(keys.size() - 1);
+                afterCreatedAt[0] = last.getCreatedAt();
+                afterId[0] = last.getId();
+                keys.forEach(key -> days.add(key.getCreatedAt().toLocalDate()));
+                return keys.size();
+            });
+        } finally {
+            days.forEach(dailySummaryCache::evict);
+        }
+    }
+
+    private void carryForward(List<Transaction> transactions) {
+        Map<UUID, BigDecimal> deltas = new HashMap<>();
+        for (Transaction transaction : transactions) {
+            if (transaction.getStatus() == TransactionStatus.SUCCESS) {
+                deltas.merge(transaction.getReceiverAccountId(), transaction.getAmount(), BigDecimal::add);
+                deltas.merge(transaction.getSenderAccountId(), transaction.getAmount().negate(), BigDecimal::add);
+            }
+        }
+        if (deltas.isEmpty()) {
+            return;
+        }
+        Map<UUID, TransactionCarryForward> rows = new HashMap<>();
+        transactionCarryForwardRepository.findForUpdate(deltas.keySet()).forEach(row -> rows.put(row.getAccountId(), row));
+        deltas.forEach((accountId, delta) -> {
+            TransactionCarryForward row = rows.computeIfAbsent(accountId,
+                    id -> TransactionCarryForward.builder().accountId(id).amount(BigDecimal.ZERO).build());
+            row.setAmount(row.getAmount().add(delta));
+        });
+        transactionCarryForwardRepository.saveAll(rows.values());
+    }
+
+    private boolean purgeLedgerEntries(UUID accountId) {
+        long[] afterId = {0L};
+        return drain(limit -> {
+            List<Long> ids = ledgerEntryRepository.findIdsByAccountId(accountId, afterId[0], PageRequest.of(0, limit));
+            if (ids.isEmpty()) {
+                return 0;
+            }
+            ledgerEntryRepository.deleteByIdIn(ids);
+            afterId[0] = ids.get(ids.size() - 1);
+            return ids.size();
+        });
+    }
+
+    /**
+     * Chạy chunk (mỗi lần một transaction, nhận kích thước lô, trả về số dòng đã dọn) tới khi chunk trả về
+     * ít dòng hơn kích thước lô. Trả false nếu phải dừng giữa chừng vì replica trễ, tranh chấp khóa hoặc ứng dụng dừng.
+     */
+    private boolean drain(IntUnaryOperator chunk) {
+        while (true) {
+            long lag = replicaLagProbe.lagSeconds();
+            if (lag > maxReplicaLagSeconds) {
+                log.info("Replica lag {}s over {}s, retention purge paused", lag == Long.MAX_VALUE ? "unknown" : lag, maxReplicaLagSeconds);
+                return false;
+            }
+            int limit = chunkSize;
+            long startedAt = System.nanoTime();
+            int rows;
+            try {
+                rows = writeTemplate.execute(status -> chunk.applyAsInt(limit));
+            } catch (TransientDataAccessException | TransactionTimedOutException e) {
+                chunkSize = Math.max(MIN_CHUNK_SIZE, limit / 2);
+                log.info("Retention chunk of {} rows gave up on lock contention, next chunk {} rows: {}", limit, chunkSize, e.getMessage());
+                return false;
+            }
+            purged += rows;
+            long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+            boolean slow = elapsedMs > targetChunkMs;
+            chunkSize = slow ? Math.max(MIN_CHUNK_SIZE, limit / 2) : Math.min(batchSize, limit + Math.max(1, batchSize / 10));
+            if (rows < limit) {
+                return true;
+            }
+            try {
+                Thread.sleep(slow ? pauseMs + elapsedMs : pauseMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface TransactionKeyQuery {
+        List<ITransactionKey> find(LocalDateTime afterCreatedAt, UUID afterId, int limit);
+    }
+}
@@ -0,0 +1,288 @@
+package com.trungvv.bankdemo.schedule;
+
+import com.trungvv.bankdemo.dto.IScheduledTransferDue;
+import com.trungvv.bankdemo.dto.TransactionDto;
+import com.trungvv.bankdemo.exception.ResourceNotFoundException;
+import com.trungvv.bankdemo.exception.VelocityLimitExceededException;
+import com.trungvv.bankdemo.model.ScheduledTransfer;
+import com.trungvv.bankdemo.model.ScheduledTransferStatus;
+import com.trungvv.bankdemo.model.TransferRecurrence;
+import com.trungvv.bankdemo.repository.ScheduledTransferRepository;
+import com.trungvv.bankdemo.shard.ShardRouter;
+import com.trungvv.bankdemo.shard.TransferCoordinator;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Thực thi lệnh chuyển tiền hẹn giờ. Thay vì một timer cho mỗi lệnh, một thread tick duy nhất:
+ * <ul>
+ *     <li>mỗi nửa cửa sổ nạp các lệnh ACTIVE có next_run_at trước now + window (kể cả lệnh quá hạn do
+ *     ứng dụng ngừng chạy) theo keyset vào timing wheel;</li>
+ *     <li>mỗi tick lấy các lệnh đến hạn khỏi wheel và chạy theo lô trên pool worker.</li>
+ * </ul>
+ * Mỗi lần chạy khóa dòng lệnh, gọi TransferCoordinator.transfer và đẩy next_run_at trong cùng
+ * một transaction trên shard của lệnh (shard người gửi), nên mỗi lần đến hạn được thực hiện đúng một lần
+ * kể cả khi ứng dụng dừng giữa chừng; với người nhận khác shard, transaction này là bước trừ tiền của saga
+ * và phần còn lại chạy sau commit hoặc do job khôi phục. Lệnh định kỳ bị lỡ nhiều lần được chạy bù lần lượt
+ * từng lần. Wheel giữ id toàn cục của lệnh, cửa sổ được nạp từ mọi shard.
+ */
+@Slf4j
+@Component
+public class ScheduledTransferExecutor {
+
+    private static final int LOAD_PAGE_SIZE = 1000;
+    private static final int WHEEL_SIZE = 64;
+    private static final int MAX_ERROR_LENGTH = 255;
+
+    private final ScheduledTransferRepository scheduledTransferRepository;
+    private final TransferCoordinator transferCoordinator;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate writeTemplate;
+    private final boolean enabled;
+    private final long tickMs;
+    private final Duration window;
+    private final int batchSize;
+    private final ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor();
+    private final ExecutorService workers;
+
+    // Chỉ thread tick truy cập wheel, pending, ready và nextLoadAt
+    private TimingWheel<Long> wheel;
+    private final Set<Long> pending = new HashSet<>();
+    private final List<Long> ready = new ArrayList<>();
+    private LocalDateTime nextLoadAt;
+    private volatile LocalDateTime loadedUntil;
+    private final Queue<Due> arrivals = new ConcurrentLinkedQueue<>();
+
+    public ScheduledTransferExecutor(ScheduledTransferRepository scheduledTransferRepository,
+                                     TransferCoordinator transferCoordinator,
+                                     ShardRouter shardRouter,
+                                     PlatformTransactionManager transactionManager,
+                                     @Value("${bank.scheduled-transfers.enabled:true}") boolean enabled,
+                                     @Value("${bank.scheduled-transfers.tick-ms:1000}") long tickMs,
+                                     @Value("${bank.scheduled-transfers.window-seconds:300}") long windowSeconds,
+                                     @Value("${bank.scheduled-transfers.batch-size:100}") int batchSize,
+                                     @Value("${bank.scheduled-transfers.parallelism:2}") int parallelism) {
+        this.scheduledTransferRepository = scheduledTransferRepository;
+        this.transferCoordinator = transferCoordinator;
+        this.shardRouter = shardRouter;
+        this.writeTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.tickMs = tickMs;
+        this.window = Duration.ofSeconds(windowSeconds);
+        this.batchSize = batchSize;
+        this.workers = Executors.newFixedThreadPool(parallelism);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (enabled) {
+            ticker.scheduleWithFixedDelay(() -> {
+                try {
+                    tick(LocalDateTime.now());
+                } catch (Exception e) {
+                    log.error("Scheduled transfer tick failed", e);
+                }
+            }, 0, tickMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        ticker.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    /**
+     * Báo lệnh mới (hoặc vừa đổi lịch) cho executor. Lệnh nằm ngoài cửa sổ đã nạp sẽ được lần nạp sau lấy.
+     */
+    public void track(Long id, LocalDateTime nextRunAt) {
+        LocalDateTime until = loadedUntil;
+        if (until != null && nextRunAt.isBefore(until)) {
+            arrivals.add(new Due(id, nextRunAt));
+        }
+    }
+
+    /**
+     * Một nhịp: nạp cửa sổ nếu tới lúc, nhận lệnh mới, chạy mọi lệnh đến hạn (kể cả lần chạy bù).
+     * Trả về số lần chuyển tiền đã xử lý.
+     */
+    int tick(LocalDateTime now) {
+        if (wheel == null) {
+            wheel = new TimingWheel<>(tickMs, WHEEL_SIZE, toMillis(now));
+        }
+        if (nextLoadAt == null || !now.isBefore(nextLoadAt)) {
+            loadWindow(now);
+        }
+        for (Due due; (due = arrivals.poll()) != null; ) {
+            schedule(due.id(), due.nextRunAt());
+        }
+        ready.addAll(wheel.advance(toMillis(now)));
+
+        int processed = 0;
+        while (!ready.isEmpty()) {
+            List<Long> due = new ArrayList<>(ready);
+            ready.clear();
+            processed += due.size();
+            runBatches(due, now);
+        }
+        return processed;
+    }
+
+    private void loadWindow(LocalDateTime now) {
+        LocalDateTime windowEnd = now.plus(window);
+        int loaded = 0;
+        for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+            int current = shard;
+            List<IScheduledTransferDue> page = shardRouter.on(shard,
+                    () -> scheduledTransferRepository.findDue(windowEnd, PageRequest.of(0, LOAD_PAGE_SIZE)));
+            while (!page.isEmpty()) {
+                for (IScheduledTransferDue due : page) {
+                    schedule(shardRouter.toGlobalId(current, due.getId()), due.getNextRunAt());
+                }
+                loaded += page.size();
+                IScheduledTransferDue last = page.get(page.size() - 1);
+                page = page.size() < LOAD_PAGE_SIZE ? List.of() : shardRouter.on(shard,
+                        () -> scheduledTransferRepository.findDueAfter(windowEnd, last.getNextRunAt(), last.getId(), PageRequest.of(0, LOAD_PAGE_SIZE)));
+            }
+        }
+        loadedUntil = windowEnd;
+        nextLoadAt = now.plus(window.dividedBy(2));
+        log.debug("Loaded {} scheduled transfers due before {}", loaded, windowEnd);
+    }
+
+    private void schedule(Long id, LocalDateTime nextRunAt) {
+        if (pending.add(id) && !wheel.add(toMillis(nextRunAt), id)) {
+            ready.add(id);
+        }
+    }
+
+    private void runBatches(List<Long> due, LocalDateTime now) {
+        List<List<Long>> batches = new ArrayList<>();
+        List<Future<List<Due>>> futures = new ArrayList<>();
+        for (int from = 0; from < due.size(); from += batchSize) {
+            List<Long> batch = due.subList(from, Math.min(from + batchSize, due.size()));
+            Callable<List<Due>> task = () -> {
+                List<Due> next = new ArrayList<>(batch.size());
+                for (Long id : batch) {
+                    next.add(new Due(id, runOccurrence(id, now)));
+                }
+                return next;
+            };
+            batches.add(batch);
+            futures.add(workers.submit(task));
+        }
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                for (Due next : futures.get(i).get()) {
+                    pending.remove(next.id());
+                    // Lần kế tiếp còn trong cửa sổ đã nạp thì đưa lại vào wheel (quá hạn thì chạy bù ngay)
+                    if (next.nextRunAt() != null && next.nextRunAt().isBefore(loadedUntil)) {
+                        schedule(next.id(), next.nextRunAt());
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                log.error("Scheduled transfer batch failed", e.getCause());
+                // Bỏ đánh dấu để lần nạp cửa sổ sau lấy lại
+                batches.get(i).forEach(pending::remove);
+            }
+        }
+    }
+
+    /**
+     * Chạy lần đến hạn hiện tại của lệnh (id toàn cục) trên shard của lệnh; trả về next_run_at mới nếu lệnh vẫn ACTIVE.
+     * Lỗi nghiệp vụ (số dư không đủ, tài khoản không khả dụng) bỏ qua lần này và ghi last_error;
+     * vượt giới hạn velocity và lỗi khác giữ nguyên lệnh để lần nạp cửa sổ sau thử lại.
+     */
+    LocalDateTime runOccurrence(Long globalId, LocalDateTime now) {
+        return shardRouter.on(shardRouter.shardOfGlobalId(globalId), () -> runOccurrenceOnCurrentShard(shardRouter.toLocalId(globalId), now));
+    }
+
+    private LocalDateTime runOccurrenceOnCurrentShard(Long id, LocalDateTime now) {
+        try {
+            return writeTemplate.execute(status -> {
+                ScheduledTransfer transfer = lockActive(id);
+                if (transfer == null || transfer.getNextRunAt().isAfter(now)) {
+                    return transfer == null ? null : transfer.getNextRunAt();
+                }
+                TransactionDto transaction = transferCoordinator.transfer(transfer.getSenderAccountId(),
+                        transfer.getReceiverAccountId(), transfer.getAmount(), transfer.getMessage());
+                return advance(transfer, now, transaction, null);
+            });
+        } catch (VelocityLimitExceededException e) {
+            log.info("Scheduled transfer {} deferred: {}", id, e.getMessage());
+            return null;
+        } catch (IllegalArgumentException | ResourceNotFoundException e) {
+            log.warn("Scheduled transfer {} rejected: {}", id, e.getMessage());
+            return writeTemplate.execute(status -> {
+                ScheduledTransfer transfer = lockActive(id);
+                if (transfer == null || transfer.getNextRunAt().isAfter(now)) {
+                    return transfer == null ? null : transfer.getNextRunAt();
+                }
+                return advance(transfer, now, null, e.getMessage());
+            });
+        } catch (RuntimeException e) {
+            log.error("Scheduled transfer {} failed, will retry on next window load", id, e);
+            return null;
+        }
+    }
+
+    private ScheduledTransfer lockActive(Long id) {
+        return scheduledTransferRepository.findForUpdate(id)
+                .filter(transfer -> transfer.getStatus() == ScheduledTransferStatus.ACTIVE)
+                .orElse(null);
+    }
+
+    private LocalDateTime advance(ScheduledTransfer transfer, LocalDateTime now, TransactionDto transaction, String error) {
+        int occurrences = transfer.getOccurrences() + 1;
+        LocalDateTime next = transfer.getRecurrence().occurrence(transfer.getStartAt(), occurrences);
+        transfer.setOccurrences(occurrences);
+        transfer.setLastRunAt(now);
+        transfer.setLastTransactionId(transaction == null ? null : transaction.getId());
+        transfer.setLastError(error == null || error.length() <= MAX_ERROR_LENGTH ? error : error.substring(0, MAX_ERROR_LENGTH));
+        if (next == null || (transfer.getEndAt() != null && next.isAfter(transfer.getEndAt()))) {
+            transfer.setStatus(error != null && transfer.getRecurrence() == TransferRecurrence.ONCE
+                    ? ScheduledTransferStatus.FAILED : ScheduledTransferStatus.COMPLETED);
+            return null;
+        }
+        transfer.setNextRunAt(next);
+        return next;
+    }
+
+    int pendingCount() {
+        return pending.size();
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private record Due(Long id, LocalDateTime nextRunAt) {
+    }
+}
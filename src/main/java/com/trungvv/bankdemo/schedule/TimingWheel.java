@@ -0,0 +1,128 @@
+package com.trungvv.bankdemo.schedule;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Timing wheel phân cấp: tầng 0 có wheelSize ô, mỗi ô rộng tickMs; mục quá xa được đẩy lên tầng trên
+ * (mỗi ô rộng bằng cả vòng của tầng dưới, tạo khi cần) và được hạ xuống khi ô của nó tới lượt.
+ * Thêm và lấy mục đến hạn đều O(1) trên mỗi mục, không cần timer riêng cho từng mục.
+ * <p>
+ * Hạn được làm tròn lên theo tick của tầng 0 nên mục không bao giờ được trả về sớm, trễ tối đa một tick.
+ * Không thread-safe: chỉ một thread gọi add/advance.
+ */
+final class TimingWheel<T> {
+
+    private final long tickMs;
+    private final int wheelSize;
+    private final long intervalMs;
+    private final List<Entry<T>>[] buckets;
+    private long currentTime;
+    private TimingWheel<T> overflowWheel;
+    private int size;
+
+    TimingWheel(long tickMs, int wheelSize, long startMs) {
+        if (tickMs <= 0 || wheelSize < 2) {
+            throw new IllegalArgumentException("tickMs must be > 0 and wheelSize >= 2");
+        }
+        this.tickMs = tickMs;
+        this.wheelSize = wheelSize;
+        this.intervalMs = tickMs * wheelSize;
+        @SuppressWarnings("unchecked")
+        List<Entry<T>>[] buckets = (List<Entry<T>>[]) new List<?>[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            buckets[i] = new ArrayList<>();
+        }
+        this.buckets = buckets;
+        this.currentTime = floor(startMs);
+    }
+
+    /**
+     * Thêm mục với hạn deadlineMs; trả về false nếu mục đã đến hạn (người gọi xử lý ngay).
+     */
+    boolean add(long deadlineMs, T item) {
+        long floor = floor(deadlineMs);
+        long dueMs = floor == deadlineMs ? floor : floor + tickMs;
+        if (!add(new Entry<>(deadlineMs, dueMs, item))) {
+            return false;
+        }
+        size++;
+        return true;
+    }
+
+    /**
+     * Đẩy đồng hồ tới nowMs và trả về các mục đã đến hạn theo thứ tự hạn.
+     */
+    List<T> advance(long nowMs) {
+        List<Entry<T>> drained = new ArrayList<>();
+        drain(nowMs, drained);
+        List<Entry<T>> expired = new ArrayList<>();
+        for (Entry<T> entry : drained) {
+            // Mục từ tầng trên được hạ xuống tầng phù hợp, mục đã đến hạn thì trả về
+            if (!add(entry)) {
+                expired.add(entry);
+            }
+        }
+        expired.sort(Comparator.comparingLong(Entry::deadlineMs));
+        size -= expired.size();
+        List<T> items = new ArrayList<>(expired.size());
+        for (Entry<T> entry : expired) {
+            items.add(entry.item());
+        }
+        return items;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private boolean add(Entry<T> entry) {
+        long slotTime = floor(entry.dueMs());
+        if (slotTime <= currentTime) {
+            return false;
+        }
+        if (slotTime < currentTime + intervalMs) {
+            buckets[Math.floorMod(slotTime / tickMs, wheelSize)].add(entry);
+            return true;
+        }
+        if (overflowWheel == null) {
+            overflowWheel = new TimingWheel<>(intervalMs, wheelSize, currentTime);
+        }
+        return overflowWheel.add(entry);
+    }
+
+    private void drain(long nowMs, List<Entry<T>> out) {
+        long target = floor(nowMs);
+        if (target <= currentTime) {
+            return;
+        }
+        long ticks = (target - currentTime) / tickMs;
+        if (ticks >= wheelSize) {
+            for (List<Entry<T>> bucket : buckets) {
+                out.addAll(bucket);
+                bucket.clear();
+            }
+        } else {
+            for (long time = currentTime + tickMs; time <= target; time += tickMs) {
+                List<Entry<T>> bucket = buckets[Math.floorMod(time / tickMs, wheelSize)];
+                out.addAll(bucket);
+                bucket.clear();
+            }
+        }
+        currentTime = target;
+        if (overflowWheel != null) {
+            overflowWheel.drain(nowMs, out);
+        }
+    }
+
+    private long floor(long timeMs) {
+        return timeMs - Math.floorMod(timeMs, tickMs);
+    }
+
+    /**
+     * dueMs: hạn đã làm tròn lên theo tick tầng 0, dùng để chọn ô ở mọi tầng.
+     */
+    private record Entry<T>(long deadlineMs, long dueMs, T item) {
+    }
+}
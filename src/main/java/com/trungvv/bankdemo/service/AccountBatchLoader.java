@@ -0,0 +1,165 @@
+package com.trungvv.bankdemo.service;
+
+import com.trungvv.bankdemo.dto.AccountDto;
+import com.trungvv.bankdemo.repository.AccountRepository;
+import com.trungvv.bankdemo.shard.ShardRouter;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gom các lần đọc tài khoản theo id từ nhiều request đồng thời thành một truy vấn WHERE id IN (...).
+ * Lần đọc đầu tiên mở một lô và hẹn gửi lô sau window-ms; các lần đọc tới trước đó (kể cả cùng id)
+ * dùng chung lô, lô đủ max-batch-size id thì được gửi ngay. Dữ liệu đọc ở transaction riêng (read-only)
+ * nên chỉ thấy dữ liệu đã commit: không dùng trong transaction ghi cần entity được quản lý.
+ * Khi chia shard, lô được tách thành một truy vấn cho mỗi shard.
+ */
+@Component
+public class AccountBatchLoader {
+
+    private final AccountRepository accountRepository;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate readTemplate;
+    private final boolean enabled;
+    private final long windowMs;
+    private final int maxBatchSize;
+    private final ScheduledExecutorService dispatcher;
+
+    // Lô đang gom, được thay bằng lô mới khi gửi; chỉ truy cập khi giữ khóa của this
+    private Map<UUID, CompletableFuture<AccountDto>> batch = new LinkedHashMap<>();
+
+    public AccountBatchLoader(AccountRepository accountRepository,
+                              ShardRouter shardRouter,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${bank.account-loader.enabled:true}") boolean enabled,
+                              @Value("${bank.account-loader.window-ms:2}") long windowMs,
+                              @Value("${bank.account-loader.max-batch-size:100}") int maxBatchSize,
+                              @Value("${bank.account-loader.parallelism:4}") int parallelism) {
+        this.accountRepository = accountRepository;
+        this.shardRouter = shardRouter;
+        this.readTemplate = new TransactionTemplate(transactionManager);
+        this.readTemplate.setReadOnly(true);
+        // Gọi trong transaction của shard khác (enabled=false chạy trên thread gọi) vẫn đọc đúng shard
+        this.readTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.enabled = enabled;
+        this.windowMs = windowMs;
+        this.maxBatchSize = maxBatchSize;
+        this.dispatcher = Executors.newScheduledThreadPool(parallelism);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        dispatcher.shutdownNow();
+    }
+
+    public Optional<AccountDto> load(UUID accountId) {
+        return Optional.ofNullable(loadAll(List.of(accountId)).get(accountId));
+    }
+
+    /**
+     * Đọc nhiều tài khoản; tài khoản không tồn tại không có trong kết quả.
+     */
+    public Map<UUID, AccountDto> loadAll(Collection<UUID> accountIds) {
+        if (!enabled) {
+            return query(new LinkedHashSet<>(accountIds));
+        }
+        Map<UUID, CompletableFuture<AccountDto>> futures = new LinkedHashMap<>();
+        List<Map<UUID, CompletableFuture<AccountDto>>> full = new ArrayList<>();
+        synchronized (this) {
+            for (UUID accountId : accountIds) {
+                CompletableFuture<AccountDto> future = batch.get(accountId);
+                if (future == null) {
+                    future = new CompletableFuture<>();
+                    batch.put(accountId, future);
+                    if (batch.size() == 1) {
+                        Map<UUID, CompletableFuture<AccountDto>> opened = batch;
+                        dispatcher.schedule(() -> dispatchIfOpen(opened), windowMs, TimeUnit.MILLISECONDS);
+                    }
+                    if (batch.size() >= maxBatchSize) {
+                        full.add(batch);
+                        batch = new LinkedHashMap<>();
+                    }
+                }
+                futures.put(accountId, future);
+            }
+        }
+        full.forEach(ready -> dispatcher.execute(() -> dispatch(ready)));
+
+        Map<UUID, AccountDto> accounts = new HashMap<>();
+        futures.forEach((accountId, future) -> {
+            AccountDto account = await(future);
+            if (account != null) {
+                accounts.put(accountId, account);
+            }
+        });
+        return accounts;
+    }
+
+    private void dispatchIfOpen(Map<UUID, CompletableFuture<AccountDto>> opened) {
+        synchronized (this) {
+            if (batch != opened) {
+                // Lô đã đầy và được gửi trước khi hết cửa sổ
+                return;
+            }
+            batch = new LinkedHashMap<>();
+        }
+        dispatch(opened);
+    }
+
+    private void dispatch(Map<UUID, CompletableFuture<AccountDto>> ready) {
+        try {
+            Map<UUID, AccountDto> accounts = query(ready.keySet());
+            ready.forEach((accountId, future) -> future.complete(accounts.get(accountId)));
+        } catch (RuntimeException e) {
+            ready.values().forEach(future -> future.completeExceptionally(e));
+        }
+    }
+
+    private Map<UUID, AccountDto> query(Collection<UUID> accountIds) {
+        Map<Integer, List<UUID>> byShard = new HashMap<>();
+        for (UUID accountId : accountIds) {
+            byShard.computeIfAbsent(shardRouter.shardOf(accountId), shard -> new ArrayList<>()).add(accountId);
+        }
+        Map<UUID, AccountDto> accounts = new HashMap<>();
+        byShard.forEach((shard, ids) -> shardRouter.on(shard, () -> {
+            for (int from = 0; from < ids.size(); from += maxBatchSize) {
+                List<UUID> chunk = ids.subList(from, Math.min(from + maxBatchSize, ids.size()));
+                readTemplate.execute(status -> {
+                    accountRepository.findAccountDtosByIdIn(chunk).forEach(account -> accounts.put(account.getId(), account));
+                    return null;
+                });
+            }
+            return null;
+        }));
+        return accounts;
+    }
+
+    private static AccountDto await(CompletableFuture<AccountDto> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.trungvv.bankdemo.service;
+
+import com.trungvv.bankdemo.dto.BulkImportResultDto;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface AccountImportService {
+    BulkImportResultDto importAccounts(InputStream input, MediaType contentType) throws IOException;
+}
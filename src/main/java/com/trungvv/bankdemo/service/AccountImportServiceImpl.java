@@ -0,0 +1,250 @@
+package com.trungvv.bankdemo.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trungvv.bankdemo.dto.BulkImportResultDto;
+import com.trungvv.bankdemo.model.Account;
+import com.trungvv.bankdemo.model.AccountStatus;
+import com.trungvv.bankdemo.repository.AccountRepository;
+import com.trungvv.bankdemo.shard.ShardRouter;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Nhập tài khoản hàng loạt từ CSV (accountName,initialBalance) hoặc NDJSON
+ * ({"accountName": ..., "initialBalance": ...}).
+ * File được đọc theo từng dòng, mỗi khối BATCH_SIZE dòng hợp lệ được cấp số tài khoản
+ * một lần và ghi trong một transaction riêng (JDBC batch), nên bộ nhớ không phụ thuộc kích thước file.
+ * Khi chia shard, khối được chia đều (xoay vòng) cho các shard; mỗi phần được cấp số và id của shard đó
+ * và ghi trong transaction riêng trên shard, lỗi ở một shard chỉ từ chối các dòng của phần đó.
+ */
+@Service
+public class AccountImportServiceImpl implements AccountImportService {
+
+    static final int BATCH_SIZE = 500;
+    static final int MAX_REPORTED_ERRORS = 1000;
+    static final int MAX_ACCOUNT_NAME_LENGTH = 255;
+
+    private final AccountRepository accountRepository;
+    private final AccountNumberAllocator accountNumberAllocator;
+    private final LedgerService ledgerService;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    public AccountImportServiceImpl(AccountRepository accountRepository,
+                                    AccountNumberAllocator accountNumberAllocator,
+                                    LedgerService ledgerService,
+                                    ShardRouter shardRouter,
+                                    PlatformTransactionManager transactionManager,
+                                    ObjectMapper objectMapper) {
+        this.accountRepository = accountRepository;
+        this.accountNumberAllocator = accountNumberAllocator;
+        this.ledgerService = ledgerService;
+        this.shardRouter = shardRouter;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public BulkImportResultDto importAccounts(InputStream input, MediaType contentType) throws IOException {
+        boolean ndjson = contentType != null && MediaType.APPLICATION_NDJSON.isCompatibleWith(contentType);
+        ImportState state = new ImportState();
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            String line;
+            long lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                if (!ndjson && lineNumber == 1 && isCsvHeader(line)) {
+                    continue;
+                }
+                state.totalRows++;
+                try {
+                    state.pending.add(ndjson ? parseNdjsonRow(lineNumber, line) : parseCsvRow(lineNumber, line));
+                } catch (IllegalArgumentException e) {
+                    state.reject(lineNumber, e.getMessage());
+                }
+                if (state.pending.size() >= BATCH_SIZE) {
+                    flush(state);
+                }
+            }
+        }
+        flush(state);
+
+        return BulkImportResultDto.builder()
+                .totalRows(state.totalRows)
+                .importedRows(state.importedRows)
+                .failedRows(state.failedRows)
+                .errors(state.errors)
+                .errorsTruncated(state.failedRows > state.errors.size())
+                .build();
+    }
+
+    /**
+     * Chia khối cho các shard; mỗi phần được cấp số tài khoản và lưu trong một transaction trên shard của nó.
+     */
+    private void flush(ImportState state) {
+        if (state.pending.isEmpty()) {
+            return;
+        }
+        int shards = shardRouter.shardCount();
+        List<List<ImportRow>> byShard = new ArrayList<>(shards);
+        for (int shard = 0; shard < shards; shard++) {
+            byShard.add(new ArrayList<>(state.pending.size() / shards + 1));
+        }
+        for (int i = 0; i < state.pending.size(); i++) {
+            byShard.get(i % shards).add(state.pending.get(i));
+        }
+        for (int shard = 0; shard < shards; shard++) {
+            List<ImportRow> rows = byShard.get(shard);
+            if (!rows.isEmpty()) {
+                shardRouter.on(shard, () -> {
+                    saveOnCurrentShard(state, rows);
+                    return null;
+                });
+            }
+        }
+        state.pending = new ArrayList<>(BATCH_SIZE);
+    }
+
+    private void saveOnCurrentShard(ImportState state, List<ImportRow> rows) {
+        try {
+            List<String> accountNumbers = accountNumberAllocator.allocate(rows.size());
+            LocalDateTime now = LocalDateTime.now();
+            List<Account> accounts = new ArrayList<>(rows.size());
+            for (int i = 0; i < rows.size(); i++) {
+                accounts.add(Account.builder()
+                        .id(shardRouter.isSharded() ? shardRouter.newIdOnCurrentShard() : null)
+                        .accountNumber(accountNumbers.get(i))
+                        .accountName(rows.get(i).accountName())
+                        .balance(rows.get(i).initialBalance())
+                        .status(AccountStatus.ACTIVE)
+                        .createdAt(now)
+                        .build());
+            }
+            transactionTemplate.executeWithoutResult(status -> ledgerService.recordOpening(accountRepository.saveAll(accounts)));
+            state.importedRows += rows.size();
+        } catch (RuntimeException e) {
+            for (ImportRow row : rows) {
+                state.reject(row.line(), "Could not save row: " + e.getMessage());
+            }
+        }
+    }
+
+    private ImportRow parseCsvRow(long lineNumber, String line) {
+        List<String> fields = splitCsvLine(line);
+        if (fields.size() != 2) {
+            throw new IllegalArgumentException("Expected 2 columns (accountName,initialBalance) but found " + fields.size());
+        }
+        return validate(lineNumber, fields.get(0), fields.get(1));
+    }
+
+    private ImportRow parseNdjsonRow(long lineNumber, String line) {
+        JsonNode node;
+        try {
+            node = objectMapper.readTree(line);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Malformed JSON");
+        }
+        if (node == null || !node.isObject()) {
+            throw new IllegalArgumentException("Expected a JSON object");
+        }
+        JsonNode name = node.hasNonNull("accountName") ? node.get("accountName") : node.get("name");
+        JsonNode balance = node.get("initialBalance");
+        return validate(lineNumber,
+                name == null || name.isNull() ? null : name.asText(),
+                balance == null || balance.isNull() ? null : balance.asText());
+    }
+
+    private ImportRow validate(long lineNumber, String accountName, String initialBalance) {
+        if (accountName == null || accountName.isBlank()) {
+            throw new IllegalArgumentException("accountName is required");
+        }
+        if (accountName.length() > MAX_ACCOUNT_NAME_LENGTH) {
+            throw new IllegalArgumentException("accountName is longer than " + MAX_ACCOUNT_NAME_LENGTH + " characters");
+        }
+        if (initialBalance == null || initialBalance.isBlank()) {
+            throw new IllegalArgumentException("initialBalance is required");
+        }
+        BigDecimal balance;
+        try {
+            balance = new BigDecimal(initialBalance.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid initialBalance value: " + initialBalance);
+        }
+        if (balance.signum() < 0) {
+            throw new IllegalArgumentException("initialBalance must not be negative");
+        }
+        return new ImportRow(lineNumber, accountName.trim(), balance);
+    }
+
+    private static boolean isCsvHeader(String line) {
+        List<String> fields = splitCsvLine(line);
+        return fields.size() == 2 && fields.get(1).trim().equalsIgnoreCase("initialBalance");
+    }
+
+    /**
+     * Tách một dòng CSV, hỗ trợ trường trong dấu nháy kép ("a, b" và "" để thoát dấu nháy).
+     */
+    static List<String> splitCsvLine(String line) {
+        List<String> fields = new ArrayList<>(2);
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        fields.add(current.toString());
+        return fields;
+    }
+
+    private record ImportRow(long line, String accountName, BigDecimal initialBalance) {
+    }
+
+    private static class ImportState {
+        private long totalRows;
+        private long importedRows;
+        private long failedRows;
+        private final List<BulkImportResultDto.RowError> errors = new ArrayList<>();
+        private List<ImportRow> pending = new ArrayList<>(BATCH_SIZE);
+
+        private void reject(long line, String message) {
+            failedRows++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new BulkImportResultDto.RowError(line, message));
+            }
+        }
+    }
+}
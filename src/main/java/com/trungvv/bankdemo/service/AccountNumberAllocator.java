@@ -0,0 +1,73 @@
+package com.trungvv.bankdemo.service;
+
+import com.trungvv.bankdemo.model.AccountNumberSequence;
+import com.trungvv.bankdemo.repository.AccountNumberSequenceRepository;
+import com.trungvv.bankdemo.repository.AccountRepository;
+import com.trungvv.bankdemo.shard.ShardRouter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Cấp số tài khoản 8 chữ số theo khối liên tiếp thay vì dò ngẫu nhiên từng số.
+ * Mỗi lần cấp chỉ khóa một dòng bộ đếm và kiểm tra trùng bằng một truy vấn theo dải,
+ * bỏ qua những số đã có trong accounts từ trước.
+ * Khối chỉ lấy trong [0, BLOCK_RANGE_END); createAccount chọn ngẫu nhiên trong phần còn lại, nên số
+ * đã cấp nhưng chưa được import ghi xuống không thể bị createAccount chọn trùng.
+ * Khi chia shard, mỗi shard có bộ đếm riêng đếm theo chỉ số k và cấp số k * shardCount + shard,
+ * giữ quy tắc số tài khoản trên shard s chia shardCount dư s như createAccount. Phải gọi trong
+ * ShardRouter.on của shard sẽ ghi tài khoản.
+ */
+@Component
+@RequiredArgsConstructor
+public class AccountNumberAllocator {
+
+    static final String SEQUENCE_NAME = "account_number";
+    static final long MAX_ACCOUNT_NUMBER = 100_000_000L;
+    static final long BLOCK_RANGE_END = 50_000_000L;
+
+    private final AccountNumberSequenceRepository sequenceRepository;
+    private final AccountRepository accountRepository;
+    private final ShardRouter shardRouter;
+
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public List<String> allocate(int count) {
+        AccountNumberSequence sequence = sequenceRepository.findForUpdate(SEQUENCE_NAME)
+                .orElseGet(() -> sequenceRepository.save(new AccountNumberSequence(SEQUENCE_NAME, 0L)));
+
+        int shards = shardRouter.shardCount();
+        int shard = ShardRouter.current();
+        // Chỉ số k đầu tiên có k * shards + shard >= BLOCK_RANGE_END
+        long indexEnd = (BLOCK_RANGE_END - shard + shards - 1) / shards;
+        List<String> numbers = new ArrayList<>(count);
+        long next = sequence.getNextValue();
+        while (numbers.size() < count) {
+            long blockEnd = Math.min(next + (count - numbers.size()), indexEnd);
+            if (next >= blockEnd) {
+                throw new IllegalStateException("Account number range exhausted");
+            }
+            Set<String> taken = new HashSet<>(accountRepository.findAccountNumbersBetween(
+                    format(next * shards + shard), format((blockEnd - 1) * shards + shard)));
+            for (long index = next; index < blockEnd; index++) {
+                String accountNumber = format(index * shards + shard);
+                if (!taken.contains(accountNumber)) {
+                    numbers.add(accountNumber);
+                }
+            }
+            next = blockEnd;
+        }
+        sequence.setNextValue(next);
+        sequenceRepository.save(sequence);
+        return numbers;
+    }
+
+    private static String format(long accountNumber) {
+        return String.format("%08d", accountNumber);
+    }
+}
@@ -1,6 +1,7 @@
 package com.trungvv.bankdemo.service;
 
 import com.trungvv.bankdemo.dto.AccountDto;
+import com.trungvv.bankdemo.dto.CounterpartyCountDto;
 import com.trungvv.bankdemo.model.Account;
 import org.springframework.data.domain.Page;
 import org.springframework.stereotype.Service;
@@ -12,10 +13,14 @@ import java.util.UUID;
 public interface AccountService {
     AccountDto createAccount(String name, BigDecimal initialBalance);
     AccountDto getAccountById(UUID accountId);
+    List<AccountDto> getAccountsByIds(List<UUID> accountIds);
     AccountDto updateAccountStatus(UUID accountId, String status);
     AccountDto updateAccountBalance(UUID accountId, BigDecimal newBalance);
     void deleteAccount(UUID accountId);
     List<AccountDto> listAllAccounts();
     Page<AccountDto> listAccountsByKey(String keySearch, String status, int page, int size);
     BigDecimal getAccountBalance(UUID accountId);
+    String getAccountETag(UUID accountId);
+    AccountDto updateBalanceSlots(UUID accountId, int slots);
+    CounterpartyCountDto getCounterpartyCount(UUID accountId, int days);
 }
@@ -1,64 +1,120 @@
 package com.trungvv.bankdemo.service;
 
+import com.trungvv.bankdemo.analytics.CounterpartyTracker;
+import com.trungvv.bankdemo.analytics.HyperLogLog;
 import com.trungvv.bankdemo.dto.AccountDto;
+import com.trungvv.bankdemo.dto.CounterpartyCountDto;
 import com.trungvv.bankdemo.mapper.AccountMapper;
 import com.trungvv.bankdemo.model.Account;
+import com.trungvv.bankdemo.model.AccountDeletion;
 import com.trungvv.bankdemo.model.AccountStatus;
+import com.trungvv.bankdemo.repository.AccountDeletionRepository;
 import com.trungvv.bankdemo.repository.AccountRepository;
 import com.trungvv.bankdemo.exception.ResourceNotFoundException;
+import com.trungvv.bankdemo.shard.ShardRouter;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Random;
+import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class AccountServiceImpl implements AccountService {
 
+    private static final int MAX_COUNTERPARTY_DAYS = 90;
+    private static final int MAX_MULTI_GET_IDS = 100;
+
     private final AccountRepository accountRepository;
     private final AccountMapper accountMapper;
+    private final StripedBalanceService stripedBalanceService;
+    private final LedgerService ledgerService;
+    private final CounterpartyTracker counterpartyTracker;
+    private final AccountBatchLoader accountBatchLoader;
+    private final ShardRouter shardRouter;
+    private final AccountDeletionRepository accountDeletionRepository;
 
+    /**
+     * Chọn ngẫu nhiên trong [BLOCK_RANGE_END, MAX_ACCOUNT_NUMBER), tách khỏi dải AccountNumberAllocator cấp cho import.
+     * Khi chia shard, số tài khoản trên shard s luôn chia shardCount dư s nên chỉ cần kiểm tra trùng trong shard.
+     */
     private String generateUniqueAccountNumber() {
         String accountNumber;
         boolean isUnique = false;
+        int shards = shardRouter.shardCount();
+        long first = (AccountNumberAllocator.BLOCK_RANGE_END + shards - 1) / shards;
+        long count = AccountNumberAllocator.MAX_ACCOUNT_NUMBER / shards - first;
 
         do {
-            accountNumber = String.format("%08d", new Random().nextInt(100000000)); // 8 chữ số
+            long candidate = (first + ThreadLocalRandom.current().nextLong(count)) * shards + ShardRouter.current();
+            accountNumber = String.format("%08d", candidate); // 8 chữ số
             isUnique = accountRepository.findByAccountNumber(accountNumber).isEmpty();
         } while (!isUnique);
 
         return accountNumber;
     }
 
+    /**
+     * Tạo tài khoản trên shard hiện tại; khi chia shard, id được chọn trước sao cho thuộc shard này.
+     */
     @Override
+    @Transactional
     public AccountDto createAccount(String accountName, BigDecimal initialBalance) {
         String accountNumber = generateUniqueAccountNumber();
 
         Account account = Account.builder()
+                .id(shardRouter.isSharded() ? shardRouter.newIdOnCurrentShard() : null)
                 .accountNumber(accountNumber)
                 .accountName(accountName)
                 .balance(initialBalance)
                 .status(AccountStatus.ACTIVE)
                 .createdAt(LocalDateTime.now())
                 .build();
-        return accountMapper.accountToAccountDto(accountRepository.save(account));
+        Account saved = accountRepository.save(account);
+        ledgerService.recordOpening(List.of(saved));
+        return accountMapper.accountToAccountDto(saved);
     }
 
+    /**
+     * Đọc qua AccountBatchLoader: các request đồng thời dùng chung một truy vấn IN (...).
+     */
     @Override
     public AccountDto getAccountById(UUID accountId) {
-        Account account = accountRepository.findById(accountId)
+        return accountBatchLoader.load(accountId)
                 .orElseThrow(() -> new ResourceNotFoundException("Account not found with id: " + accountId));
-        return  accountMapper.accountToAccountDto(account);
+    }
+
+    /**
+     * Đọc nhiều tài khoản theo thứ tự id truyền vào, bỏ qua id không tồn tại.
+     * Id được chia theo shard, mỗi nhóm đọc trên shard của nó.
+     */
+    @Override
+    public List<AccountDto> getAccountsByIds(List<UUID> accountIds) {
+        if (accountIds.isEmpty() || accountIds.size() > MAX_MULTI_GET_IDS) {
+            throw new IllegalArgumentException("Số id phải nằm trong khoảng 1.." + MAX_MULTI_GET_IDS);
+        }
+        Map<Integer, List<UUID>> byShard = accountIds.stream().distinct().collect(Collectors.groupingBy(shardRouter::shardOf));
+        Map<UUID, AccountDto> accounts = new HashMap<>();
+        byShard.forEach((shard, ids) -> accounts.putAll(shardRouter.on(shard, () -> accountBatchLoader.loadAll(ids))));
+        return accountIds.stream().distinct().map(accounts::get).filter(Objects::nonNull).toList();
     }
 
     @Override
@@ -69,16 +125,23 @@ public class AccountServiceImpl implements AccountService {
         try {
             account.setStatus(AccountStatus.valueOf(status.toUpperCase()));
             account.setUpdatedAt(LocalDateTime.now());
-            return accountMapper.accountToAccountDto(accountRepository.save(account));
+            return toDto(accountRepository.save(account));
         } catch (IllegalArgumentException e) {
             throw new IllegalArgumentException("Invalid status value: " + status);
         }
     }
 
     @Override
+    @Transactional
     public AccountDto updateAccountBalance(UUID accountId, BigDecimal newBalance) {
         Account account = accountRepository.findById(accountId)
                 .orElseThrow(() -> new ResourceNotFoundException("Account not found with id: " + accountId));
+        if (account.hasStripedBalance()) {
+            // Đưa các slot về 0 để số dư mới là số dư thực
+            stripedBalanceService.consolidate(account);
+        }
+        // Ghi phần chênh lệch vào sổ cái như một bút toán điều chỉnh
+        ledgerService.recordAdjustment(accountId, newBalance.subtract(account.getBalance()));
         account.setBalance(newBalance);
         account.setUpdatedAt(LocalDateTime.now());
         return accountMapper.accountToAccountDto(accountRepository.save(account));
@@ -89,28 +152,123 @@ public class AccountServiceImpl implements AccountService {
     public void deleteAccount(UUID accountId) {
         Account account = accountRepository.findById(accountId)
                 .orElseThrow(() -> new ResourceNotFoundException("Account not found with id: " + accountId));
+        if (account.hasStripedBalance()) {
+            stripedBalanceService.removeSlots(accountId);
+        }
         accountRepository.delete(account);
+        // Giao dịch, bút toán và snapshot của tài khoản được RetentionPurger dọn dần theo lô
+        accountDeletionRepository.save(AccountDeletion.builder().accountId(accountId).deletedAt(LocalDateTime.now()).build());
     }
 
+    /**
+     * Tài khoản của mọi shard; mỗi shard đọc trong transaction riêng nên không mở transaction ở đây.
+     */
     public List<AccountDto> listAllAccounts() {
-        return accountMapper.accountsToAccountDtos(accountRepository.findAll());
+        List<AccountDto> accounts = new ArrayList<>();
+        for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+            accounts.addAll(shardRouter.on(shard, accountRepository::findAllAccountDtos));
+        }
+        return accounts;
     }
 
+    /**
+     * Khi chia shard, mỗi shard trả (page + 1) * size dòng đầu theo số tài khoản rồi gộp lại và cắt đúng trang,
+     * nên trang càng sâu càng đọc nhiều; tổng số dòng là tổng của các shard.
+     */
     public Page<AccountDto> listAccountsByKey(String keySearch, String status, int page, int size) {
+        AccountStatus accountStatus;
         try {
-            AccountStatus accountStatus = (status == null || status.trim().isEmpty()) ? null : AccountStatus.valueOf(status.toUpperCase());
-            Pageable pageable = PageRequest.of(page, size);
-            Page<Account> accountPage = accountRepository.findByKeySearch(keySearch, accountStatus, pageable);
-            List<AccountDto> accountDtos = accountMapper.accountsToAccountDtos(accountPage.getContent());
-            return new PageImpl<>(accountDtos, pageable, accountPage.getTotalElements());
+            accountStatus = (status == null || status.trim().isEmpty()) ? null : AccountStatus.valueOf(status.toUpperCase());
         } catch (IllegalArgumentException e) {
             throw new IllegalArgumentException("Invalid status value: " + status);
         }
+        Pageable pageable = PageRequest.of(page, size);
+        if (!shardRouter.isSharded()) {
+            return accountRepository.findDtoByKeySearch(keySearch, accountStatus, pageable);
+        }
+        Pageable head = PageRequest.of(0, (page + 1) * size, Sort.by("accountNumber"));
+        List<AccountDto> merged = new ArrayList<>();
+        long total = 0;
+        for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+            Page<AccountDto> shardPage = shardRouter.on(shard, () -> accountRepository.findDtoByKeySearch(keySearch, accountStatus, head));
+            merged.addAll(shardPage.getContent());
+            total += shardPage.getTotalElements();
+        }
+        merged.sort(Comparator.comparing(AccountDto::getAccountNumber));
+        List<AccountDto> content = merged.subList(Math.min((int) pageable.getOffset(), merged.size()),
+                Math.min((int) pageable.getOffset() + size, merged.size()));
+        return new PageImpl<>(new ArrayList<>(content), pageable, total);
     }
 
+    /**
+     * Số dư lấy từ sổ cái: snapshot gần nhất cộng các bút toán phát sinh sau đó.
+     */
     public BigDecimal getAccountBalance(UUID accountId) {
+        if (!accountRepository.existsById(accountId)) {
+            throw new ResourceNotFoundException("Account not found with id: " + accountId);
+        }
+        return ledgerService.getBalance(accountId);
+    }
+
+    /**
+     * Bật striped balance với N slot (0 để tắt) cho tài khoản nhận nhiều giao dịch.
+     */
+    @Override
+    @Transactional
+    public AccountDto updateBalanceSlots(UUID accountId, int slots) {
         Account account = accountRepository.findById(accountId)
                 .orElseThrow(() -> new ResourceNotFoundException("Account not found with id: " + accountId));
-        return account.getBalance();
+        stripedBalanceService.configureSlots(account, slots);
+        return toDto(accountRepository.save(account));
+    }
+
+    /**
+     * ETag của tài khoản, tính từ updatedAt (hoặc createdAt nếu chưa cập nhật lần nào) và tổng slot nếu striped.
+     * Trả về null nếu tài khoản không tồn tại.
+     */
+    @Override
+    public String getAccountETag(UUID accountId) {
+        return accountRepository.findVersionById(accountId)
+                .map(version -> {
+                    LocalDateTime lastModified = version.getLastModified();
+                    String tag = lastModified.toEpochSecond(ZoneOffset.UTC) + "." + lastModified.getNano();
+                    // Tiền vào slot không đổi updatedAt, nên tổng slot là một phần của ETag
+                    if (version.getSlotBalance() != null) {
+                        tag += "-" + version.getSlotBalance().toPlainString();
+                    }
+                    return "W/\"" + tag + "\"";
+                })
+                .orElse(null);
+    }
+
+    /**
+     * Số đối tác khác nhau (gửi hoặc nhận) của tài khoản trong days ngày gần nhất, kể cả hôm nay.
+     * Ước lượng bằng HyperLogLog, sai số chuẩn tương đối ~1.6%.
+     */
+    @Override
+    public CounterpartyCountDto getCounterpartyCount(UUID accountId, int days) {
+        if (days < 1 || days > MAX_COUNTERPARTY_DAYS) {
+            throw new IllegalArgumentException("days phải nằm trong khoảng 1.." + MAX_COUNTERPARTY_DAYS);
+        }
+        if (!accountRepository.existsById(accountId)) {
+            throw new ResourceNotFoundException("Account not found with id: " + accountId);
+        }
+        LocalDate toDate = LocalDate.now();
+        LocalDate fromDate = toDate.minusDays(days - 1);
+        return CounterpartyCountDto.builder()
+                .accountId(accountId)
+                .fromDate(fromDate)
+                .toDate(toDate)
+                .distinctCounterparties(counterpartyTracker.estimateDistinctCounterparties(accountId, fromDate, toDate))
+                .relativeStandardError(HyperLogLog.RELATIVE_STANDARD_ERROR)
+                .build();
+    }
+
+    private AccountDto toDto(Account account) {
+        AccountDto dto = accountMapper.accountToAccountDto(account);
+        if (account.hasStripedBalance() && dto != null) {
+            dto.setBalance(account.getBalance().add(stripedBalanceService.getSlotBalance(account.getId())));
+        }
+        return dto;
     }
 }
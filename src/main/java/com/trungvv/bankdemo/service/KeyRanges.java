@@ -0,0 +1,48 @@
+package com.trungvv.bankdemo.service;
+
+import java.util.UUID;
+
+/**
+ * Chia không gian UUID theo 16 bit đầu thành các khoảng liên tiếp cho các job chạy theo phân vùng.
+ * Cận được so sánh dạng BINARY(16) (từng byte, không dấu) nên các khoảng phủ kín và không chồng nhau.
+ */
+final class KeyRanges {
+
+    static final int KEY_SPACE = 1 << 16;
+
+    private KeyRanges() {
+    }
+
+    static void validate(int partitions, String property) {
+        if (partitions < 1 || partitions > KEY_SPACE) {
+            throw new IllegalArgumentException(property + " must be between 1 and " + KEY_SPACE);
+        }
+    }
+
+    static UUID lowerBound(int index, int partitions) {
+        return new UUID(prefix(index, partitions) << 48, 0L);
+    }
+
+    /**
+     * Cận trên (bao gồm) của khoảng thứ index.
+     */
+    static UUID upperBound(int index, int partitions) {
+        return new UUID((prefix(index + 1, partitions) << 48) - 1, -1L);
+    }
+
+    static int indexOf(UUID id, int partitions) {
+        long prefix = id.getMostSignificantBits() >>> 48;
+        int index = (int) (prefix * partitions / KEY_SPACE);
+        while (index + 1 < partitions && prefix(index + 1, partitions) <= prefix) {
+            index++;
+        }
+        while (prefix(index, partitions) > prefix) {
+            index--;
+        }
+        return index;
+    }
+
+    private static long prefix(int index, int partitions) {
+        return (long) index * KEY_SPACE / partitions;
+    }
+}
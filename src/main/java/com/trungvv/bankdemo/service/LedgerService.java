@@ -0,0 +1,39 @@
+package com.trungvv.bankdemo.service;
+
+import com.trungvv.bankdemo.dto.LedgerEntryDto;
+import com.trungvv.bankdemo.model.Account;
+import org.springframework.data.domain.Page;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+public interface LedgerService {
+
+    /**
+     * Tài khoản hệ thống đối ứng cho số dư mở và điều chỉnh.
+     */
+    UUID SYSTEM_ACCOUNT_ID = new UUID(0L, 0L);
+
+    /**
+     * Tài khoản đối ứng cho chuyển tiền liên shard: mỗi shard ghi một vế, tiền đang chuyển nằm ở đây.
+     */
+    UUID CLEARING_ACCOUNT_ID = new UUID(0L, 1L);
+
+    void recordTransfer(UUID transactionId, UUID senderId, UUID receiverId, BigDecimal amount, LocalDateTime createdAt);
+
+    void recordCrossShardTransfer(UUID transactionId, UUID accountId, BigDecimal delta, LocalDateTime createdAt);
+
+    void recordOpening(List<Account> accounts);
+
+    void recordAdjustment(UUID accountId, BigDecimal delta);
+
+    BigDecimal getBalance(UUID accountId);
+
+    Page<LedgerEntryDto> listEntries(UUID accountId, int page, int size);
+
+    int snapshotBalances(LocalDateTime cutoff);
+
+    int backfillOpeningEntries();
+}
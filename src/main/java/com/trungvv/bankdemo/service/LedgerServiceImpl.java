@@ -0,0 +1,274 @@
+package com.trungvv.bankdemo.service;
+
+import com.trungvv.bankdemo.dto.ILedgerAccountDelta;
+import com.trungvv.bankdemo.dto.LedgerEntryDto;
+import com.trungvv.bankdemo.model.Account;
+import com.trungvv.bankdemo.model.BalanceSnapshot;
+import com.trungvv.bankdemo.model.JobWatermark;
+import com.trungvv.bankdemo.model.LedgerEntry;
+import com.trungvv.bankdemo.model.LedgerEntrySource;
+import com.trungvv.bankdemo.model.LedgerEntryType;
+import com.trungvv.bankdemo.repository.BalanceSnapshotRepository;
+import com.trungvv.bankdemo.repository.JobWatermarkRepository;
+import com.trungvv.bankdemo.repository.LedgerEntryRepository;
+import com.trungvv.bankdemo.shard.ShardRouter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Sổ cái bút toán kép. Số dư được đọc từ snapshot gần nhất cộng các bút toán phát sinh sau đó;
+ * snapshot được cộng dồn định kỳ theo từng khoảng id. Mỗi shard có sổ cái, snapshot và mốc riêng;
+ * các job nền chạy lần lượt trên từng shard.
+ */
+@Slf4j
+@Service
+public class LedgerServiceImpl implements LedgerService {
+
+    static final long SNAPSHOT_CHUNK_SIZE = 10_000;
+    static final String SNAPSHOT_WATERMARK = "balance_snapshots";
+    static final int BACKFILL_BATCH_SIZE = 1_000;
+    private static final UUID KEYSET_START_ID = new UUID(0L, 0L);
+
+    private final LedgerEntryRepository ledgerEntryRepository;
+    private final BalanceSnapshotRepository balanceSnapshotRepository;
+    private final JobWatermarkRepository jobWatermarkRepository;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate transactionTemplate;
+    private final long snapshotLagSeconds;
+    private final boolean backfillOnStartup;
+
+    public LedgerServiceImpl(LedgerEntryRepository ledgerEntryRepository,
+                             BalanceSnapshotRepository balanceSnapshotRepository,
+                             JobWatermarkRepository jobWatermarkRepository,
+                             ShardRouter shardRouter,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${bank.ledger.snapshot-lag-seconds:60}") long snapshotLagSeconds,
+                             @Value("${bank.ledger.backfill-opening-entries:false}") boolean backfillOnStartup) {
+        this.ledgerEntryRepository = ledgerEntryRepository;
+        this.balanceSnapshotRepository = balanceSnapshotRepository;
+        this.jobWatermarkRepository = jobWatermarkRepository;
+        this.shardRouter = shardRouter;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.snapshotLagSeconds = snapshotLagSeconds;
+        this.backfillOnStartup = backfillOnStartup;
+    }
+
+    @Override
+    @Transactional
+    public void recordTransfer(UUID transactionId, UUID senderId, UUID receiverId, BigDecimal amount, LocalDateTime createdAt) {
+        ledgerEntryRepository.saveAll(List.of(
+                entry(senderId, transactionId, LedgerEntryType.DEBIT, LedgerEntrySource.TRANSFER, amount, createdAt),
+                entry(receiverId, transactionId, LedgerEntryType.CREDIT, LedgerEntrySource.TRANSFER, amount, createdAt)));
+    }
+
+    /**
+     * Một vế của chuyển tiền liên shard, đối ứng với tài khoản clearing; delta âm ghi nợ tài khoản.
+     */
+    @Override
+    @Transactional
+    public void recordCrossShardTransfer(UUID transactionId, UUID accountId, BigDecimal delta, LocalDateTime createdAt) {
+        boolean credit = delta.signum() >= 0;
+        BigDecimal amount = delta.abs();
+        ledgerEntryRepository.saveAll(List.of(
+                entry(accountId, transactionId, credit ? LedgerEntryType.CREDIT : LedgerEntryType.DEBIT, LedgerEntrySource.TRANSFER, amount, createdAt),
+                entry(CLEARING_ACCOUNT_ID, transactionId, credit ? LedgerEntryType.DEBIT : LedgerEntryType.CREDIT, LedgerEntrySource.TRANSFER, amount, createdAt)));
+    }
+
+    @Override
+    @Transactional
+    public void recordOpening(List<Account> accounts) {
+        LocalDateTime now = LocalDateTime.now();
+        List<LedgerEntry> entries = new ArrayList<>(accounts.size() * 2);
+        for (Account account : accounts) {
+            addPair(entries, account.getId(), LedgerEntrySource.OPENING, account.getBalance(), now);
+        }
+        ledgerEntryRepository.saveAll(entries);
+    }
+
+    @Override
+    @Transactional
+    public void recordAdjustment(UUID accountId, BigDecimal delta) {
+        if (delta.signum() == 0) {
+            return;
+        }
+        List<LedgerEntry> entries = new ArrayList<>(2);
+        addPair(entries, accountId, LedgerEntrySource.ADJUSTMENT, delta, LocalDateTime.now());
+        ledgerEntryRepository.saveAll(entries);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public BigDecimal getBalance(UUID accountId) {
+        BalanceSnapshot snapshot = balanceSnapshotRepository.findById(accountId).orElse(null);
+        BigDecimal base = snapshot == null ? BigDecimal.ZERO : snapshot.getBalance();
+        long afterId = snapshot == null ? 0 : snapshot.getLastEntryId();
+        return base.add(ledgerEntryRepository.sumSince(accountId, afterId));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<LedgerEntryDto> listEntries(UUID accountId, int page, int size) {
+        return ledgerEntryRepository.findDtoByAccountId(accountId, PageRequest.of(page, size));
+    }
+
+    @Scheduled(fixedDelayString = "${bank.ledger.snapshot-interval-ms:60000}")
+    public void snapshotBalances() {
+        snapshotBalances(LocalDateTime.now().minusSeconds(snapshotLagSeconds));
+    }
+
+    /**
+     * Cộng dồn các bút toán tạo trước cutoff vào snapshot. Độ trễ cutoff để các transaction
+     * đã lấy id nhưng chưa commit không bị bỏ qua khi mốc vượt qua id của chúng.
+     * Mỗi khoảng id chạy trong transaction riêng, khóa dòng mốc trước khi đọc nên nhiều instance
+     * chạy cùng lúc thì lần lượt nối tiếp nhau, không cộng một khoảng hai lần.
+     *
+     * @return số lượt cập nhật snapshot
+     */
+    @Override
+    public synchronized int snapshotBalances(LocalDateTime cutoff) {
+        int updated = 0;
+        for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+            updated += shardRouter.on(shard, () -> snapshotBalancesOnCurrentShard(cutoff));
+        }
+        return updated;
+    }
+
+    private int snapshotBalancesOnCurrentShard(LocalDateTime cutoff) {
+        Long toId = ledgerEntryRepository.findMaxIdCreatedBefore(cutoff);
+        if (toId == null) {
+            return 0;
+        }
+        int updated = 0;
+        while (true) {
+            Integer folded = transactionTemplate.execute(status -> foldNextChunk(toId));
+            if (folded == null) {
+                return updated;
+            }
+            updated += folded;
+        }
+    }
+
+    /**
+     * Cộng khoảng id kế tiếp sau mốc (tối đa SNAPSHOT_CHUNK_SIZE, không quá toId) và dời mốc; null nếu mốc đã tới toId.
+     */
+    private Integer foldNextChunk(long toId) {
+        JobWatermark watermark = jobWatermarkRepository.findForUpdate(SNAPSHOT_WATERMARK)
+                .orElseThrow(() -> new IllegalStateException("Missing job watermark " + SNAPSHOT_WATERMARK));
+        long fromId = watermark.getWatermark();
+        if (fromId >= toId) {
+            return null;
+        }
+        long chunkTo = Math.min(fromId + SNAPSHOT_CHUNK_SIZE, toId);
+        int folded = fold(fromId, chunkTo);
+        watermark.setWatermark(chunkTo);
+        return folded;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOpeningEntriesOnStartup() {
+        if (backfillOnStartup) {
+            log.info("Backfilled opening ledger entries for {} accounts", backfillOpeningEntries());
+        }
+    }
+
+    /**
+     * Ghi số dư mở cho các tài khoản tạo trước khi có sổ cái: số dư thực trừ các bút toán đã có.
+     * Chỉ cần chạy một lần sau khi nâng cấp (bank.ledger.backfill-opening-entries=true). Mỗi lô tài khoản
+     * (theo thứ tự id) được tính bằng một truy vấn và ghi trong transaction riêng; số dư và tổng bút toán
+     * được đọc trong cùng câu lệnh nên chuyển tiền chạy song song không làm lệch số dư mở.
+     */
+    @Override
+    public int backfillOpeningEntries() {
+        int backfilled = 0;
+        for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+            backfilled += shardRouter.on(shard, this::backfillOpeningEntriesOnCurrentShard);
+        }
+        return backfilled;
+    }
+
+    private int backfillOpeningEntriesOnCurrentShard() {
+        UUID afterId = KEYSET_START_ID;
+        int backfilled = 0;
+        while (true) {
+            UUID from = afterId;
+            List<ILedgerAccountDelta> accounts = transactionTemplate.execute(status -> {
+                List<ILedgerAccountDelta> batch = ledgerEntryRepository.findMissingOpeningBalances(from, PageRequest.of(0, BACKFILL_BATCH_SIZE));
+                LocalDateTime now = LocalDateTime.now();
+                List<LedgerEntry> entries = new ArrayList<>(batch.size() * 2);
+                for (ILedgerAccountDelta account : batch) {
+                    addPair(entries, account.getAccountId(), LedgerEntrySource.OPENING, account.getDelta(), now);
+                }
+                ledgerEntryRepository.saveAll(entries);
+                return batch;
+            });
+            backfilled += accounts.size();
+            if (accounts.size() < BACKFILL_BATCH_SIZE) {
+                return backfilled;
+            }
+            afterId = accounts.get(accounts.size() - 1).getAccountId();
+        }
+    }
+
+    private int fold(long fromId, long toId) {
+        List<ILedgerAccountDelta> deltas = ledgerEntryRepository.sumByAccountBetween(fromId, toId);
+        if (deltas.isEmpty()) {
+            return 0;
+        }
+        Map<UUID, BalanceSnapshot> snapshots = balanceSnapshotRepository
+                .findAllById(deltas.stream().map(ILedgerAccountDelta::getAccountId).toList())
+                .stream().collect(Collectors.toMap(BalanceSnapshot::getAccountId, Function.identity()));
+        LocalDateTime now = LocalDateTime.now();
+        List<BalanceSnapshot> changed = new ArrayList<>(deltas.size());
+        for (ILedgerAccountDelta delta : deltas) {
+            BalanceSnapshot snapshot = snapshots.get(delta.getAccountId());
+            if (snapshot == null) {
+                snapshot = BalanceSnapshot.builder().accountId(delta.getAccountId()).balance(BigDecimal.ZERO).build();
+            }
+            snapshot.setBalance(snapshot.getBalance().add(delta.getDelta()));
+            snapshot.setLastEntryId(toId);
+            snapshot.setUpdatedAt(now);
+            changed.add(snapshot);
+        }
+        balanceSnapshotRepository.saveAll(changed);
+        return changed.size();
+    }
+
+    /**
+     * Cặp bút toán giữa tài khoản và tài khoản hệ thống; amount âm ghi nợ tài khoản.
+     */
+    private static void addPair(List<LedgerEntry> entries, UUID accountId, LedgerEntrySource source, BigDecimal amount, LocalDateTime createdAt) {
+        boolean credit = amount.signum() >= 0;
+        BigDecimal absolute = amount.abs();
+        entries.add(entry(accountId, null, credit ? LedgerEntryType.CREDIT : LedgerEntryType.DEBIT, source, absolute, createdAt));
+        entries.add(entry(SYSTEM_ACCOUNT_ID, null, credit ? LedgerEntryType.DEBIT : LedgerEntryType.CREDIT, source, absolute, createdAt));
+    }
+
+    private static LedgerEntry entry(UUID accountId, UUID transactionId, LedgerEntryType type, LedgerEntrySource source, BigDecimal amount, LocalDateTime createdAt) {
+        return LedgerEntry.builder()
+                .accountId(accountId)
+                .transactionId(transactionId)
+                .entryType(type)
+                .source(source)
+                .amount(amount)
+                .createdAt(createdAt)
+                .build();
+    }
+}
@@ -0,0 +1,15 @@
+package com.trungvv.bankdemo.service;
+
+import com.trungvv.bankdemo.dto.TransactionDto;
+
+import java.time.LocalDateTime;
+
+public interface OutboxService {
+
+    String TRANSACTION_COMPLETED = "TRANSACTION_COMPLETED";
+
+    /**
+     * Ghi sự kiện giao dịch hoàn tất vào outbox, phải chạy trong transaction của giao dịch.
+     */
+    void recordTransactionCompleted(TransactionDto transaction, LocalDateTime occurredAt);
+}
@@ -0,0 +1,38 @@
+package com.trungvv.bankdemo.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trungvv.bankdemo.dto.TransactionDto;
+import com.trungvv.bankdemo.model.OutboxEvent;
+import com.trungvv.bankdemo.repository.OutboxEventRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Service
+@RequiredArgsConstructor
+public class OutboxServiceImpl implements OutboxService {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordTransactionCompleted(TransactionDto transaction, LocalDateTime occurredAt) {
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(transaction);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize transaction " + transaction.getId(), e);
+        }
+        outboxEventRepository.save(OutboxEvent.builder()
+                .aggregateId(transaction.getSenderAccountId())
+                .eventType(TRANSACTION_COMPLETED)
+                .payload(payload)
+                .createdAt(occurredAt)
+                .build());
+    }
+}
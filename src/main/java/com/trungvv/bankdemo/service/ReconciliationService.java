@@ -0,0 +1,22 @@
+package com.trungvv.bankdemo.service;
+
+import com.trungvv.bankdemo.dto.ReconciliationRunDto;
+import com.trungvv.bankdemo.model.ReconciliationResult;
+import org.springframework.data.domain.Page;
+
+public interface ReconciliationService {
+
+    /**
+     * Bắt đầu đối soát chạy nền, trả về ngay thông tin lần chạy.
+     */
+    ReconciliationRunDto startReconciliation();
+
+    /**
+     * Đối soát và chờ tới khi hoàn tất.
+     */
+    ReconciliationRunDto runReconciliation();
+
+    ReconciliationRunDto getRun(Long runId);
+
+    Page<ReconciliationResult> listMismatches(Long runId, int page, int size);
+}
@@ -0,0 +1,279 @@
+package com.trungvv.bankdemo.service;
+
+import com.trungvv.bankdemo.bulkhead.ReportConnectionGate;
+import com.trungvv.bankdemo.dto.IAccountAmount;
+import com.trungvv.bankdemo.dto.ReconciliationRunDto;
+import com.trungvv.bankdemo.exception.ResourceNotFoundException;
+import com.trungvv.bankdemo.model.ReconciliationResult;
+import com.trungvv.bankdemo.model.ReconciliationRun;
+import com.trungvv.bankdemo.model.ReconciliationRunStatus;
+import com.trungvv.bankdemo.repository.AccountRepository;
+import com.trungvv.bankdemo.repository.LedgerEntryRepository;
+import com.trungvv.bankdemo.repository.ReconciliationResultRepository;
+import com.trungvv.bankdemo.repository.ReconciliationRunRepository;
+import com.trungvv.bankdemo.repository.TransactionCarryForwardRepository;
+import com.trungvv.bankdemo.repository.TransactionRepository;
+import com.trungvv.bankdemo.shard.ShardRouter;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Đối soát số dư: chia không gian UUID theo 16 bit đầu thành các phân vùng, mỗi phân vùng
+ * được xử lý song song trên ForkJoinPool. Số dư kỳ vọng = bút toán số dư mở/điều chỉnh của sổ cái
+ * + tổng tiền nhận - tổng tiền gửi của các giao dịch SUCCESS + phần chuyển kỳ của giao dịch đã bị job retention dọn;
+ * mọi phép cộng được đẩy xuống DB bằng GROUP BY. Khi chia shard mỗi phân vùng được so trên từng shard
+ * (tài khoản chỉ nằm trên shard của nó, bản sao giao dịch liên shard cho vế bên kia); lần chạy và kết quả
+ * lệch được ghi trên shard mặc định.
+ */
+@Slf4j
+@Service
+public class ReconciliationServiceImpl implements ReconciliationService {
+
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final TransactionCarryForwardRepository transactionCarryForwardRepository;
+    private final LedgerEntryRepository ledgerEntryRepository;
+    private final ReconciliationRunRepository runRepository;
+    private final ReconciliationResultRepository resultRepository;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate readTemplate;
+    private final TransactionTemplate writeTemplate;
+    private final ForkJoinPool pool;
+    private final int partitions;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final Map<Long, RunProgress> activeRuns = new ConcurrentHashMap<>();
+
+    public ReconciliationServiceImpl(AccountRepository accountRepository,
+                                     TransactionRepository transactionRepository,
+                                     TransactionCarryForwardRepository transactionCarryForwardRepository,
+                                     LedgerEntryRepository ledgerEntryRepository,
+                                     ReconciliationRunRepository runRepository,
+                                     ReconciliationResultRepository resultRepository,
+                                     ShardRouter shardRouter,
+                                     PlatformTransactionManager transactionManager,
+                                     @Value("${bank.reconciliation.partitions:256}") int partitions,
+                                     @Value("${bank.reconciliation.parallelism:4}") int parallelism) {
+        KeyRanges.validate(partitions, "bank.reconciliation.partitions");
+        this.accountRepository = accountRepository;
+        this.transactionRepository = transactionRepository;
+        this.transactionCarryForwardRepository = transactionCarryForwardRepository;
+        this.ledgerEntryRepository = ledgerEntryRepository;
+        this.runRepository = runRepository;
+        this.resultRepository = resultRepository;
+        this.shardRouter = shardRouter;
+        // Mỗi phân vùng đọc trong một snapshot nhất quán để không báo lệch giả khi có giao dịch đang chạy
+        this.readTemplate = new TransactionTemplate(transactionManager);
+        this.readTemplate.setReadOnly(true);
+        this.readTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.writeTemplate = new TransactionTemplate(transactionManager);
+        this.partitions = partitions;
+        this.pool = new ForkJoinPool(parallelism, ReportConnectionGate.forkJoinThreadFactory("reconciliation"), null, false);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    @Override
+    public ReconciliationRunDto startReconciliation() {
+        RunProgress progress = begin();
+        pool.execute(() -> execute(progress));
+        return toDto(progress.run, progress);
+    }
+
+    @Override
+    public ReconciliationRunDto runReconciliation() {
+        RunProgress progress = begin();
+        execute(progress);
+        return toDto(progress.run, null);
+    }
+
+    @Override
+    public ReconciliationRunDto getRun(Long runId) {
+        ReconciliationRun run = runRepository.findById(runId)
+                .orElseThrow(() -> new ResourceNotFoundException("Reconciliation run not found with id: " + runId));
+        return toDto(run, activeRuns.get(runId));
+    }
+
+    @Override
+    public Page<ReconciliationResult> listMismatches(Long runId, int page, int size) {
+        return resultRepository.findByRunIdOrderById(runId, PageRequest.of(page, size));
+    }
+
+    private RunProgress begin() {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("A reconciliation run is already in progress");
+        }
+        try {
+            ReconciliationRun run = runRepository.save(ReconciliationRun.builder()
+                    .status(ReconciliationRunStatus.RUNNING)
+                    .partitions(partitions)
+                    .completedPartitions(0)
+                    .accountsChecked(0L)
+                    .mismatches(0L)
+                    .startedAt(LocalDateTime.now())
+                    .build());
+            RunProgress progress = new RunProgress(run);
+            activeRuns.put(run.getId(), progress);
+            return progress;
+        } catch (RuntimeException e) {
+            running.set(false);
+            throw e;
+        }
+    }
+
+    private void execute(RunProgress progress) {
+        ReconciliationRun run = progress.run;
+        try {
+            pool.invoke(new RangeTask(progress, 0, partitions));
+            run.setStatus(ReconciliationRunStatus.COMPLETED);
+        } catch (RuntimeException e) {
+            log.error("Reconciliation run {} failed", run.getId(), e);
+            run.setStatus(ReconciliationRunStatus.FAILED);
+            run.setErrorMessage(e.getMessage());
+        } finally {
+            run.setCompletedPartitions(progress.completedPartitions.get());
+            run.setAccountsChecked(progress.accountsChecked.get());
+            run.setMismatches(progress.mismatches.get());
+            run.setFinishedAt(LocalDateTime.now());
+            runRepository.save(run);
+            activeRuns.remove(run.getId());
+            running.set(false);
+        }
+    }
+
+    private void reconcilePartition(RunProgress progress, int index) {
+        UUID fromId = KeyRanges.lowerBound(index, partitions);
+        UUID toId = KeyRanges.upperBound(index, partitions);
+
+        int accountsChecked = 0;
+        List<ReconciliationResult> mismatches = new ArrayList<>();
+        for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+            PartitionResult result = shardRouter.on(shard, () -> readTemplate.execute(status -> compare(progress.run.getId(), fromId, toId)));
+            accountsChecked += result.accountsChecked();
+            mismatches.addAll(result.mismatches());
+        }
+        if (!mismatches.isEmpty()) {
+            writeTemplate.executeWithoutResult(status -> resultRepository.saveAll(mismatches));
+        }
+        progress.accountsChecked.addAndGet(accountsChecked);
+        progress.mismatches.addAndGet(mismatches.size());
+        progress.completedPartitions.incrementAndGet();
+    }
+
+    private PartitionResult compare(Long runId, UUID fromId, UUID toId) {
+        List<IAccountAmount> balances = accountRepository.findBalancesInRange(fromId, toId);
+        if (balances.isEmpty()) {
+            return new PartitionResult(0, List.of());
+        }
+        Map<UUID, BigDecimal> expected = new HashMap<>(balances.size() * 2);
+        ledgerEntryRepository.sumNonTransferInRange(fromId, toId)
+                .forEach(row -> expected.merge(row.getAccountId(), row.getAmount(), BigDecimal::add));
+        transactionRepository.sumReceivedInRange(fromId, toId)
+                .forEach(row -> expected.merge(row.getAccountId(), row.getAmount(), BigDecimal::add));
+        transactionRepository.sumSentInRange(fromId, toId)
+                .forEach(row -> expected.merge(row.getAccountId(), row.getAmount().negate(), BigDecimal::add));
+        transactionCarryForwardRepository.findInRange(fromId, toId)
+                .forEach(row -> expected.merge(row.getAccountId(), row.getAmount(), BigDecimal::add));
+
+        LocalDateTime now = LocalDateTime.now();
+        List<ReconciliationResult> mismatches = new ArrayList<>();
+        for (IAccountAmount balance : balances) {
+            BigDecimal expectedBalance = expected.getOrDefault(balance.getAccountId(), BigDecimal.ZERO);
+            if (balance.getAmount().compareTo(expectedBalance) != 0) {
+                mismatches.add(ReconciliationResult.builder()
+                        .runId(runId)
+                        .accountId(balance.getAccountId())
+                        .actualBalance(balance.getAmount())
+                        .expectedBalance(expectedBalance)
+                        .difference(balance.getAmount().subtract(expectedBalance))
+                        .createdAt(now)
+                        .build());
+            }
+        }
+        return new PartitionResult(balances.size(), mismatches);
+    }
+
+    private ReconciliationRunDto toDto(ReconciliationRun run, RunProgress progress) {
+        int completed = progress != null ? progress.completedPartitions.get() : run.getCompletedPartitions();
+        long accounts = progress != null ? progress.accountsChecked.get() : run.getAccountsChecked();
+        long mismatches = progress != null ? progress.mismatches.get() : run.getMismatches();
+        LocalDateTime end = run.getFinishedAt() != null ? run.getFinishedAt() : LocalDateTime.now();
+        double seconds = Math.max(Duration.between(run.getStartedAt(), end).toMillis(), 1) / 1000.0;
+        return ReconciliationRunDto.builder()
+                .id(run.getId())
+                .status(run.getStatus().name())
+                .partitions(run.getPartitions())
+                .completedPartitions(completed)
+                .progressPercent(completed * 100.0 / run.getPartitions())
+                .accountsChecked(accounts)
+                .mismatches(mismatches)
+                .accountsPerSecond(accounts / seconds)
+                .errorMessage(run.getErrorMessage())
+                .startedAt(run.getStartedAt())
+                .finishedAt(run.getFinishedAt())
+                .build();
+    }
+
+    private record PartitionResult(int accountsChecked, List<ReconciliationResult> mismatches) {
+    }
+
+    private static final class RunProgress {
+        private final ReconciliationRun run;
+        private final AtomicInteger completedPartitions = new AtomicInteger();
+        private final AtomicLong accountsChecked = new AtomicLong();
+        private final AtomicLong mismatches = new AtomicLong();
+
+        private RunProgress(ReconciliationRun run) {
+            this.run = run;
+        }
+    }
+
+    /**
+     * Chia đôi khoảng phân vùng tới khi còn một phân vùng rồi xử lý.
+     */
+    private final class RangeTask extends RecursiveAction {
+        private final RunProgress progress;
+        private final int from;
+        private final int to;
+
+        private RangeTask(RunProgress progress, int from, int to) {
+            this.progress = progress;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new RangeTask(progress, from, mid), new RangeTask(progress, mid, to));
+            } else {
+                reconcilePartition(progress, from);
+            }
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.trungvv.bankdemo.service;
+
+import com.trungvv.bankdemo.dto.ScheduledTransferDto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+public interface ScheduledTransferService {
+
+    /**
+     * Tạo lệnh chuyển tiền hẹn giờ; recurrence là ONCE, DAILY, WEEKLY hoặc MONTHLY.
+     * startAt trong quá khứ được chạy ngay (kể cả các lần đã lỡ của lệnh định kỳ).
+     */
+    ScheduledTransferDto createSchedule(UUID senderId, UUID receiverId, BigDecimal amount, String message,
+                                        String recurrence, LocalDateTime startAt, LocalDateTime endAt);
+
+    ScheduledTransferDto getSchedule(Long scheduleId);
+
+    List<ScheduledTransferDto> listSchedulesBySender(UUID senderId);
+
+    /**
+     * Hủy lệnh đang ACTIVE; lệnh đã kết thúc thì ném IllegalStateException.
+     */
+    ScheduledTransferDto cancelSchedule(Long scheduleId);
+}
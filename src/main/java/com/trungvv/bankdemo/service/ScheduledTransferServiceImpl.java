@@ -0,0 +1,156 @@
+package com.trungvv.bankdemo.service;
+
+import com.trungvv.bankdemo.dto.ScheduledTransferDto;
+import com.trungvv.bankdemo.exception.ResourceNotFoundException;
+import com.trungvv.bankdemo.model.ScheduledTransfer;
+import com.trungvv.bankdemo.model.ScheduledTransferStatus;
+import com.trungvv.bankdemo.model.TransferRecurrence;
+import com.trungvv.bankdemo.repository.AccountRepository;
+import com.trungvv.bankdemo.repository.ScheduledTransferRepository;
+import com.trungvv.bankdemo.schedule.ScheduledTransferExecutor;
+import com.trungvv.bankdemo.shard.ShardRouter;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Lệnh hẹn giờ được lưu trên shard của tài khoản gửi để mỗi lần chạy khóa lệnh và trừ tiền trong cùng
+ * một transaction. Id trả ra ngoài là id toàn cục (ShardRouter.toGlobalId), từ đó suy ra shard của lệnh.
+ */
+@Service
+public class ScheduledTransferServiceImpl implements ScheduledTransferService {
+
+    private final ScheduledTransferRepository scheduledTransferRepository;
+    private final AccountRepository accountRepository;
+    private final ScheduledTransferExecutor scheduledTransferExecutor;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate transactionTemplate;
+
+    public ScheduledTransferServiceImpl(ScheduledTransferRepository scheduledTransferRepository,
+                                        AccountRepository accountRepository,
+                                        ScheduledTransferExecutor scheduledTransferExecutor,
+                                        ShardRouter shardRouter,
+                                        PlatformTransactionManager transactionManager) {
+        this.scheduledTransferRepository = scheduledTransferRepository;
+        this.accountRepository = accountRepository;
+        this.scheduledTransferExecutor = scheduledTransferExecutor;
+        this.shardRouter = shardRouter;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public ScheduledTransferDto createSchedule(UUID senderId, UUID receiverId, BigDecimal amount, String message,
+                                               String recurrence, LocalDateTime startAt, LocalDateTime endAt) {
+        if (senderId.equals(receiverId)) {
+            throw new IllegalArgumentException("Sender và receiver không thể giống nhau");
+        }
+        if (amount.compareTo(BigDecimal.ZERO) <= 0) {
+            throw new IllegalArgumentException("Số tiền giao dịch phải lớn hơn 0");
+        }
+        if (endAt != null && endAt.isBefore(startAt)) {
+            throw new IllegalArgumentException("endAt phải sau startAt");
+        }
+        TransferRecurrence transferRecurrence = parseRecurrence(recurrence);
+        if (!shardRouter.onShardOf(senderId, () -> accountRepository.existsById(senderId))) {
+            throw new ResourceNotFoundException("Account not found with id: " + senderId);
+        }
+        if (!shardRouter.onShardOf(receiverId, () -> accountRepository.existsById(receiverId))) {
+            throw new ResourceNotFoundException("Account not found with id: " + receiverId);
+        }
+
+        int shard = shardRouter.shardOf(senderId);
+        ScheduledTransfer saved = shardRouter.on(shard, () -> scheduledTransferRepository.save(ScheduledTransfer.builder()
+                .senderAccountId(senderId)
+                .receiverAccountId(receiverId)
+                .amount(amount)
+                .message(message)
+                .recurrence(transferRecurrence)
+                .startAt(startAt)
+                .endAt(endAt)
+                .nextRunAt(startAt)
+                .occurrences(0)
+                .status(ScheduledTransferStatus.ACTIVE)
+                .createdAt(LocalDateTime.now())
+                .build()));
+        // Gọi sau khi đã commit để executor đọc thấy lệnh
+        scheduledTransferExecutor.track(shardRouter.toGlobalId(shard, saved.getId()), saved.getNextRunAt());
+        return toDto(shard, saved);
+    }
+
+    @Override
+    public ScheduledTransferDto getSchedule(Long scheduleId) {
+        int shard = shardOf(scheduleId);
+        ScheduledTransfer transfer = shardRouter.on(shard, () -> scheduledTransferRepository.findById(shardRouter.toLocalId(scheduleId)))
+                .orElseThrow(() -> notFound(scheduleId));
+        return toDto(shard, transfer);
+    }
+
+    @Override
+    public List<ScheduledTransferDto> listSchedulesBySender(UUID senderId) {
+        int shard = shardRouter.shardOf(senderId);
+        return shardRouter.on(shard, () -> scheduledTransferRepository.findBySenderAccountIdOrderById(senderId)).stream()
+                .map(transfer -> toDto(shard, transfer))
+                .toList();
+    }
+
+    @Override
+    public ScheduledTransferDto cancelSchedule(Long scheduleId) {
+        int shard = shardOf(scheduleId);
+        return shardRouter.on(shard, () -> transactionTemplate.execute(status -> {
+            // Khóa dòng để không hủy giữa lúc executor đang chạy lần đến hạn
+            ScheduledTransfer transfer = scheduledTransferRepository.findForUpdate(shardRouter.toLocalId(scheduleId))
+                    .orElseThrow(() -> notFound(scheduleId));
+            if (transfer.getStatus() != ScheduledTransferStatus.ACTIVE) {
+                throw new IllegalStateException("Scheduled transfer " + scheduleId + " is already " + transfer.getStatus());
+            }
+            transfer.setStatus(ScheduledTransferStatus.CANCELLED);
+            return toDto(shard, transfer);
+        }));
+    }
+
+    private int shardOf(Long scheduleId) {
+        if (scheduleId < 0) {
+            throw notFound(scheduleId);
+        }
+        return shardRouter.shardOfGlobalId(scheduleId);
+    }
+
+    private static ResourceNotFoundException notFound(Long scheduleId) {
+        return new ResourceNotFoundException("Scheduled transfer not found with id: " + scheduleId);
+    }
+
+    private TransferRecurrence parseRecurrence(String recurrence) {
+        if (recurrence == null || recurrence.isBlank()) {
+            return TransferRecurrence.ONCE;
+        }
+        try {
+            return TransferRecurrence.valueOf(recurrence.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Chu kỳ không hợp lệ: " + recurrence);
+        }
+    }
+
+    private ScheduledTransferDto toDto(int shard, ScheduledTransfer transfer) {
+        return ScheduledTransferDto.builder()
+                .id(shardRouter.toGlobalId(shard, transfer.getId()))
+                .senderAccountId(transfer.getSenderAccountId())
+                .receiverAccountId(transfer.getReceiverAccountId())
+                .amount(transfer.getAmount())
+                .message(transfer.getMessage())
+                .recurrence(transfer.getRecurrence().name())
+                .startAt(transfer.getStartAt())
+                .endAt(transfer.getEndAt())
+                .nextRunAt(transfer.getNextRunAt())
+                .occurrences(transfer.getOccurrences())
+                .status(transfer.getStatus().name())
+                .lastRunAt(transfer.getLastRunAt())
+                .lastTransactionId(transfer.getLastTransactionId())
+                .lastError(transfer.getLastError())
+                .build();
+    }
+}
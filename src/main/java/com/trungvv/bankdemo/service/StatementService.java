@@ -0,0 +1,20 @@
+package com.trungvv.bankdemo.service;
+
+import com.trungvv.bankdemo.dto.StatementJobDto;
+
+import java.time.YearMonth;
+
+public interface StatementService {
+
+    /**
+     * Bắt đầu (hoặc tiếp tục nếu đang dở) job sao kê của tháng, chạy nền.
+     */
+    StatementJobDto startMonthlyStatements(YearMonth month);
+
+    /**
+     * Như startMonthlyStatements nhưng chờ job chạy xong.
+     */
+    StatementJobDto runMonthlyStatements(YearMonth month);
+
+    StatementJobDto getJob(Long jobId);
+}
@@ -0,0 +1,363 @@
+package com.trungvv.bankdemo.service;
+
+import com.trungvv.bankdemo.bulkhead.ReportConnectionGate;
+import com.trungvv.bankdemo.dto.IAccountAmount;
+import com.trungvv.bankdemo.dto.IStatementAccount;
+import com.trungvv.bankdemo.dto.IStatementLine;
+import com.trungvv.bankdemo.dto.StatementJobDto;
+import com.trungvv.bankdemo.exception.ResourceNotFoundException;
+import com.trungvv.bankdemo.model.StatementChunk;
+import com.trungvv.bankdemo.model.StatementJob;
+import com.trungvv.bankdemo.model.StatementJobStatus;
+import com.trungvv.bankdemo.repository.AccountRepository;
+import com.trungvv.bankdemo.repository.LedgerEntryRepository;
+import com.trungvv.bankdemo.repository.StatementChunkRepository;
+import com.trungvv.bankdemo.repository.StatementJobRepository;
+import com.trungvv.bankdemo.repository.TransactionRepository;
+import com.trungvv.bankdemo.shard.ShardRouter;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * Sinh sao kê tháng cho mọi tài khoản. Không gian id tài khoản được chia thành các chunk (theo KeyRanges),
+ * mỗi chunk đọc stream giao dịch của tháng theo created_at và ghi một file CSV cho từng tài khoản.
+ * Chunk ghi xong được checkpoint vào statement_chunks, nên khi chạy lại job (hoặc khởi động lại ứng dụng)
+ * chỉ các chunk còn thiếu được xử lý. Bộ nhớ của một chunk tỉ lệ với lượng giao dịch trong tháng của chunk đó.
+ * Khi chia shard, mỗi chunk được đọc trên từng shard; job và checkpoint nằm ở shard mặc định.
+ * Một job chỉ do một instance chạy: instance nhận job bằng UPDATE có điều kiện trên attempt và cập nhật
+ * heartbeat sau mỗi chunk, job RUNNING chỉ được nhận lại khi heartbeat quá stale-after-seconds.
+ */
+@Slf4j
+@Service
+public class StatementServiceImpl implements StatementService {
+
+    private static final String STATEMENT_HEADER = "account_number,account_name,month,opening_balance,closing_balance\n";
+    private static final String LINE_HEADER = "created_at,type,counterparty_account_id,amount,description,transaction_id\n";
+
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final LedgerEntryRepository ledgerEntryRepository;
+    private final StatementJobRepository jobRepository;
+    private final StatementChunkRepository chunkRepository;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate readTemplate;
+    private final TransactionTemplate writeTemplate;
+    private final ExecutorService coordinator = Executors.newSingleThreadExecutor(ReportConnectionGate.threadFactory("statement-coordinator"));
+    private final ExecutorService workers;
+    private final int chunks;
+    private final Path outputDir;
+    private final Duration staleAfter;
+    private final Set<Long> activeJobs = ConcurrentHashMap.newKeySet();
+
+    public StatementServiceImpl(AccountRepository accountRepository,
+                                TransactionRepository transactionRepository,
+                                LedgerEntryRepository ledgerEntryRepository,
+                                StatementJobRepository jobRepository,
+                                StatementChunkRepository chunkRepository,
+                                ShardRouter shardRouter,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${bank.statements.output-dir:data/statements}") String outputDir,
+                                @Value("${bank.statements.chunks:1024}") int chunks,
+                                @Value("${bank.statements.parallelism:4}") int parallelism,
+                                @Value("${bank.statements.stale-after-seconds:300}") long staleAfterSeconds) {
+        KeyRanges.validate(chunks, "bank.statements.chunks");
+        this.accountRepository = accountRepository;
+        this.transactionRepository = transactionRepository;
+        this.ledgerEntryRepository = ledgerEntryRepository;
+        this.jobRepository = jobRepository;
+        this.chunkRepository = chunkRepository;
+        this.shardRouter = shardRouter;
+        this.readTemplate = new TransactionTemplate(transactionManager);
+        this.readTemplate.setReadOnly(true);
+        this.writeTemplate = new TransactionTemplate(transactionManager);
+        this.outputDir = Path.of(outputDir);
+        this.chunks = chunks;
+        this.staleAfter = Duration.ofSeconds(staleAfterSeconds);
+        this.workers = Executors.newFixedThreadPool(parallelism, ReportConnectionGate.threadFactory("statement"));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        coordinator.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    /**
+     * Tiếp tục các job bị dừng giữa chừng do instance chạy nó tắt (heartbeat quá hạn).
+     * Chạy định kỳ trên mọi instance, mỗi job chỉ một instance nhận được.
+     */
+    @Scheduled(fixedDelayString = "${bank.statements.resume-interval-ms:60000}")
+    public void resumeInterruptedJobs() {
+        for (StatementJob job : jobRepository.findByStatus(StatementJobStatus.RUNNING)) {
+            if (!isStale(job, LocalDateTime.now()) || activeJobs.contains(job.getId())) {
+                continue;
+            }
+            StatementJob claimed = prepare(YearMonth.parse(job.getMonth()));
+            if (claimed != null) {
+                log.info("Resuming statement job {} for {} (attempt {})", claimed.getId(), claimed.getMonth(), claimed.getAttempt());
+                coordinator.execute(() -> execute(claimed));
+            }
+        }
+    }
+
+    @Override
+    public StatementJobDto startMonthlyStatements(YearMonth month) {
+        StatementJob job = prepare(month);
+        if (job != null) {
+            coordinator.execute(() -> execute(job));
+            return toDto(job);
+        }
+        return getJob(jobRepository.findByMonth(month.toString()).orElseThrow().getId());
+    }
+
+    @Override
+    public StatementJobDto runMonthlyStatements(YearMonth month) {
+        StatementJob job = prepare(month);
+        if (job != null) {
+            execute(job);
+        }
+        return getJob(jobRepository.findByMonth(month.toString()).orElseThrow().getId());
+    }
+
+    @Override
+    public StatementJobDto getJob(Long jobId) {
+        StatementJob job = jobRepository.findById(jobId)
+                .orElseThrow(() -> new ResourceNotFoundException("Statement job not found with id: " + jobId));
+        return toDto(job);
+    }
+
+    /**
+     * Tạo job mới hoặc nhận job dở dang để chạy tiếp; trả về null nếu job đã xong, đang chạy
+     * (trên instance này hoặc instance khác còn heartbeat) hoặc instance khác vừa nhận trước.
+     */
+    private synchronized StatementJob prepare(YearMonth month) {
+        LocalDateTime now = LocalDateTime.now();
+        StatementJob job = jobRepository.findByMonth(month.toString()).orElse(null);
+        if (job == null) {
+            StatementJob created;
+            try {
+                created = writeTemplate.execute(status -> jobRepository.saveAndFlush(StatementJob.builder()
+                        .month(month.toString())
+                        .status(StatementJobStatus.RUNNING)
+                        .totalChunks(chunks)
+                        .outputDir(outputDir.resolve(month.toString()).toString())
+                        .startedAt(now)
+                        .attempt(1)
+                        .heartbeatAt(now)
+                        .build()));
+            } catch (DataIntegrityViolationException e) {
+                // Instance khác vừa tạo job của tháng này
+                return null;
+            }
+            activeJobs.add(created.getId());
+            return created;
+        }
+        if (job.getStatus() == StatementJobStatus.COMPLETED || activeJobs.contains(job.getId())
+                || (job.getStatus() == StatementJobStatus.RUNNING && !isStale(job, now))) {
+            return null;
+        }
+        Long jobId = job.getId();
+        int attempt = job.getAttempt();
+        Integer claimed = writeTemplate.execute(status -> jobRepository.claim(jobId, attempt, now));
+        if (claimed == null || claimed == 0) {
+            return null;
+        }
+        activeJobs.add(jobId);
+        return jobRepository.findById(jobId).orElseThrow();
+    }
+
+    private boolean isStale(StatementJob job, LocalDateTime now) {
+        return job.getHeartbeatAt() == null || job.getHeartbeatAt().isBefore(now.minus(staleAfter));
+    }
+
+    private void execute(StatementJob job) {
+        Throwable failure = null;
+        try {
+            Files.createDirectories(Path.of(job.getOutputDir()));
+            Set<Integer> completed = new HashSet<>(chunkRepository.findCompletedChunkIndexes(job.getId()));
+            List<Future<?>> futures = new ArrayList<>();
+            for (int index = 0; index < job.getTotalChunks(); index++) {
+                if (!completed.contains(index)) {
+                    int chunkIndex = index;
+                    futures.add(workers.submit(() -> processChunk(job, chunkIndex)));
+                }
+            }
+            // Chờ mọi chunk: chunk lỗi không hủy các chunk khác, chúng vẫn được checkpoint
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = e.getCause();
+                    }
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            failure = e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure = e;
+        } finally {
+            StatementJobStatus status = StatementJobStatus.COMPLETED;
+            String errorMessage = null;
+            if (failure != null) {
+                log.error("Statement job {} failed", job.getId(), failure);
+                status = StatementJobStatus.FAILED;
+                errorMessage = String.valueOf(failure.getMessage());
+            }
+            StatementJobStatus finalStatus = status;
+            String finalError = errorMessage;
+            Integer finished = writeTemplate.execute(tx -> jobRepository.finish(job.getId(), job.getAttempt(), finalStatus, finalError, LocalDateTime.now()));
+            if (finished == null || finished == 0) {
+                log.warn("Statement job {} attempt {} was claimed by another instance, result not recorded", job.getId(), job.getAttempt());
+            }
+            activeJobs.remove(job.getId());
+        }
+    }
+
+    private void processChunk(StatementJob job, int index) {
+        YearMonth month = YearMonth.parse(job.getMonth());
+        UUID fromId = KeyRanges.lowerBound(index, job.getTotalChunks());
+        UUID toId = KeyRanges.upperBound(index, job.getTotalChunks());
+        int written = 0;
+        for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+            written += shardRouter.on(shard, () -> readTemplate.execute(status -> writeChunk(Path.of(job.getOutputDir()), month, fromId, toId)));
+        }
+        int accountsWritten = written;
+        writeTemplate.executeWithoutResult(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            if (jobRepository.heartbeat(job.getId(), job.getAttempt(), now) == 0) {
+                throw new IllegalStateException("Statement job " + job.getId() + " was claimed by another instance");
+            }
+            chunkRepository.save(StatementChunk.builder()
+                    .jobId(job.getId())
+                    .chunkIndex(index)
+                    .accountsWritten(accountsWritten)
+                    .completedAt(now)
+                    .build());
+        });
+    }
+
+    private int writeChunk(Path dir, YearMonth month, UUID fromId, UUID toId) {
+        List<IStatementAccount> accounts = accountRepository.findStatementAccountsInRange(fromId, toId);
+        if (accounts.isEmpty()) {
+            return 0;
+        }
+        LocalDateTime start = month.atDay(1).atStartOfDay();
+        LocalDateTime end = month.plusMonths(1).atDay(1).atStartOfDay();
+        Map<UUID, BigDecimal> opening = toMap(ledgerEntryRepository.sumBeforeInRange(fromId, toId, start));
+        Map<UUID, BigDecimal> closing = toMap(ledgerEntryRepository.sumBeforeInRange(fromId, toId, end));
+
+        Map<UUID, StringBuilder> lines = new HashMap<>(accounts.size() * 2);
+        for (IStatementAccount account : accounts) {
+            lines.put(account.getId(), new StringBuilder());
+        }
+        try (Stream<IStatementLine> stream = transactionRepository.streamStatementLines(fromId, toId, start, end)) {
+            stream.forEach(line -> {
+                appendLine(lines.get(line.getSenderAccountId()), line, "DEBIT", line.getReceiverAccountId());
+                appendLine(lines.get(line.getReceiverAccountId()), line, "CREDIT", line.getSenderAccountId());
+            });
+        }
+
+        for (IStatementAccount account : accounts) {
+            StringBuilder content = new StringBuilder(STATEMENT_HEADER)
+                    .append(csv(account.getAccountNumber())).append(',')
+                    .append(csv(account.getAccountName())).append(',')
+                    .append(month).append(',')
+                    .append(opening.getOrDefault(account.getId(), BigDecimal.ZERO).toPlainString()).append(',')
+                    .append(closing.getOrDefault(account.getId(), BigDecimal.ZERO).toPlainString()).append("\n\n")
+                    .append(LINE_HEADER)
+                    .append(lines.get(account.getId()));
+            writeAtomically(dir.resolve(account.getAccountNumber() + ".csv"), content);
+        }
+        return accounts.size();
+    }
+
+    private static void appendLine(StringBuilder target, IStatementLine line, String type, UUID counterparty) {
+        if (target == null) {
+            return;
+        }
+        target.append(line.getCreatedAt()).append(',')
+                .append(type).append(',')
+                .append(counterparty).append(',')
+                .append(line.getAmount().toPlainString()).append(',')
+                .append(csv(line.getMessage())).append(',')
+                .append(line.getId()).append('\n');
+    }
+
+    /**
+     * Ghi ra file tạm rồi đổi tên, để file sao kê không bao giờ bị ghi dở khi job dừng đột ngột.
+     */
+    private static void writeAtomically(Path target, CharSequence content) {
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try {
+            Files.writeString(temp, content, StandardCharsets.UTF_8);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write statement " + target, e);
+        }
+    }
+
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static Map<UUID, BigDecimal> toMap(List<IAccountAmount> rows) {
+        Map<UUID, BigDecimal> result = new HashMap<>(rows.size() * 2);
+        for (IAccountAmount row : rows) {
+            result.put(row.getAccountId(), row.getAmount());
+        }
+        return result;
+    }
+
+    private StatementJobDto toDto(StatementJob job) {
+        return StatementJobDto.builder()
+                .id(job.getId())
+                .month(job.getMonth())
+                .status(job.getStatus().name())
+                .totalChunks(job.getTotalChunks())
+                .completedChunks(chunkRepository.countByJobId(job.getId()))
+                .accountsWritten(chunkRepository.sumAccountsWritten(job.getId()))
+                .outputDir(job.getOutputDir())
+                .errorMessage(job.getErrorMessage())
+                .startedAt(job.getStartedAt())
+                .finishedAt(job.getFinishedAt())
+                .build();
+    }
+}
@@ -0,0 +1,14 @@
+package com.trungvv.bankdemo.service;
+
+import com.trungvv.bankdemo.model.Account;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+public interface StripedBalanceService {
+    void credit(Account account, BigDecimal amount);
+    BigDecimal consolidate(Account account);
+    BigDecimal getSlotBalance(UUID accountId);
+    void configureSlots(Account account, int slots);
+    void removeSlots(UUID accountId);
+}
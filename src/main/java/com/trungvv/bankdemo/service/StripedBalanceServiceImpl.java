@@ -0,0 +1,105 @@
+package com.trungvv.bankdemo.service;
+
+import com.trungvv.bankdemo.model.Account;
+import com.trungvv.bankdemo.model.AccountBalanceSlot;
+import com.trungvv.bankdemo.repository.AccountBalanceSlotRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Striped balance cho tài khoản nhận nhiều giao dịch: mỗi lần nhận tiền chỉ khóa
+ * một trong N slot, nên N giao dịch vào cùng tài khoản có thể chạy song song.
+ * Khi cần trừ tiền, các slot được gộp về accounts.balance.
+ */
+@Service
+@RequiredArgsConstructor
+public class StripedBalanceServiceImpl implements StripedBalanceService {
+
+    static final int MAX_SLOTS = 64;
+
+    private final AccountBalanceSlotRepository slotRepository;
+
+    /**
+     * Cộng tiền vào một slot chọn ngẫu nhiên, không cập nhật dòng accounts.
+     */
+    @Override
+    @Transactional
+    public void credit(Account account, BigDecimal amount) {
+        int slot = ThreadLocalRandom.current().nextInt(account.getBalanceSlots());
+        if (slotRepository.credit(account.getId(), slot, amount) == 0) {
+            slotRepository.save(new AccountBalanceSlot(account.getId(), slot, amount));
+        }
+    }
+
+    /**
+     * Gộp toàn bộ slot về số dư chính của tài khoản (account phải đang được quản lý trong transaction hiện tại).
+     */
+    @Override
+    @Transactional
+    public BigDecimal consolidate(Account account) {
+        return fold(account, slotRepository.findForUpdate(account.getId()));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public BigDecimal getSlotBalance(UUID accountId) {
+        return slotRepository.sumBalance(accountId);
+    }
+
+    /**
+     * Bật/tắt hoặc đổi số slot. Số dư hiện có trong slot được gộp về số dư chính trước.
+     */
+    @Override
+    @Transactional
+    public void configureSlots(Account account, int slots) {
+        if (slots < 0 || slots > MAX_SLOTS) {
+            throw new IllegalArgumentException("Invalid slot count: " + slots + " (allowed 0.." + MAX_SLOTS + ")");
+        }
+        List<AccountBalanceSlot> existing = slotRepository.findForUpdate(account.getId());
+        fold(account, existing);
+
+        Set<Integer> kept = new HashSet<>();
+        for (AccountBalanceSlot slot : existing) {
+            if (slot.getSlot() >= slots) {
+                slotRepository.delete(slot);
+            } else {
+                kept.add(slot.getSlot());
+            }
+        }
+        for (int i = 0; i < slots; i++) {
+            if (!kept.contains(i)) {
+                slotRepository.save(new AccountBalanceSlot(account.getId(), i, BigDecimal.ZERO));
+            }
+        }
+        account.setBalanceSlots(slots == 0 ? null : slots);
+        account.setUpdatedAt(LocalDateTime.now());
+    }
+
+    @Override
+    @Transactional
+    public void removeSlots(UUID accountId) {
+        slotRepository.deleteByAccountId(accountId);
+    }
+
+    private BigDecimal fold(Account account, List<AccountBalanceSlot> slots) {
+        BigDecimal total = BigDecimal.ZERO;
+        for (AccountBalanceSlot slot : slots) {
+            total = total.add(slot.getBalance());
+            slot.setBalance(BigDecimal.ZERO);
+        }
+        if (total.signum() != 0) {
+            account.setBalance(account.getBalance().add(total));
+            account.setUpdatedAt(LocalDateTime.now());
+        }
+        return total;
+    }
+}
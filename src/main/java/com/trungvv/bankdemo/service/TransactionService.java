@@ -1,7 +1,12 @@
 package com.trungvv.bankdemo.service;
 
+import com.trungvv.bankdemo.dto.AccountDaySummaryDto;
+import com.trungvv.bankdemo.dto.AmountDistributionDto;
 import com.trungvv.bankdemo.dto.IDailLyTransactionSummary;
+import com.trungvv.bankdemo.dto.SingleFlightStatsDto;
+import com.trungvv.bankdemo.dto.TopAccountDto;
 import com.trungvv.bankdemo.dto.TransactionDto;
+import com.trungvv.bankdemo.model.CrossShardTransfer;
 import com.trungvv.bankdemo.model.Transaction;
 import com.trungvv.bankdemo.model.TransactionStatus;
 import org.springframework.data.domain.Page;
@@ -22,4 +27,13 @@ public interface TransactionService {
     Page<TransactionDto> listTransactionsByDateRange(LocalDate startDate, LocalDate endDate, UUID accountId, String status, String typeTransaction, int page, int size);
     BigDecimal getTotalTransactionsAmountByAccountId(UUID accountId);
     List<IDailLyTransactionSummary> getDailyTransactionSummary(LocalDate date);
+    List<AccountDaySummaryDto> getDailySummaries(LocalDate startDate, LocalDate endDate);
+    List<SingleFlightStatsDto> getReportSingleFlightStats();
+    String getTransactionHistoryETag(UUID accountId);
+    List<TopAccountDto> getTopAccounts(String range, String side, int limit);
+    AmountDistributionDto getAmountDistribution(LocalDate startDate, LocalDate endDate, UUID accountId);
+    CrossShardTransfer debitCrossShard(UUID transferId, UUID senderId, UUID receiverId, BigDecimal amount, String message);
+    void creditCrossShard(CrossShardTransfer transfer);
+    TransactionDto completeCrossShard(UUID transferId);
+    void compensateCrossShard(UUID transferId, String reason);
 }
@@ -1,30 +1,48 @@
 package com.trungvv.bankdemo.service;
 
+import com.trungvv.bankdemo.analytics.AmountHistogram;
+import com.trungvv.bankdemo.analytics.AmountHistogramFolder;
+import com.trungvv.bankdemo.analytics.DailySummaryCache;
+import com.trungvv.bankdemo.analytics.TopAccountsTracker;
+import com.trungvv.bankdemo.dto.AccountDaySummaryDto;
 import com.trungvv.bankdemo.dto.AccountDto;
+import com.trungvv.bankdemo.dto.AmountDistributionDto;
 import com.trungvv.bankdemo.dto.IDailLyTransactionSummary;
+import com.trungvv.bankdemo.dto.ITransactionHistoryVersion;
+import com.trungvv.bankdemo.dto.SingleFlightStatsDto;
+import com.trungvv.bankdemo.dto.TopAccountDto;
 import com.trungvv.bankdemo.dto.TransactionDto;
 import com.trungvv.bankdemo.exception.ResourceNotFoundException;
 import com.trungvv.bankdemo.mapper.TransactionMapper;
 import com.trungvv.bankdemo.model.Account;
 import com.trungvv.bankdemo.model.AccountStatus;
+import com.trungvv.bankdemo.model.CrossShardTransfer;
+import com.trungvv.bankdemo.model.CrossShardTransferStatus;
 import com.trungvv.bankdemo.model.Transaction;
+import com.trungvv.bankdemo.model.DailyAmountHistogram;
 import com.trungvv.bankdemo.model.TransactionStatus;
 import com.trungvv.bankdemo.repository.AccountRepository;
+import com.trungvv.bankdemo.repository.CrossShardTransferRepository;
 import com.trungvv.bankdemo.repository.TransactionRepository;
-import jakarta.transaction.Transactional;
+import com.trungvv.bankdemo.shard.ShardRouter;
+import com.trungvv.bankdemo.singleflight.ReportSingleFlight;
+import com.trungvv.bankdemo.velocity.VelocityGuard;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -35,6 +53,19 @@ public class TransactionServiceImpl implements TransactionService {
     private final AccountRepository accountRepository;
     private final TransactionRepository transactionRepository;
     private final TransactionMapper transactionMapper;
+    private final StripedBalanceService stripedBalanceService;
+    private final OutboxService outboxService;
+    private final LedgerService ledgerService;
+    private final VelocityGuard velocityGuard;
+    private final TopAccountsTracker topAccountsTracker;
+    private final AmountHistogramFolder amountHistogramFolder;
+    private final DailySummaryCache dailySummaryCache;
+    private final ReportSingleFlight reportSingleFlight;
+    private final CrossShardTransferRepository crossShardTransferRepository;
+    private final ShardRouter shardRouter;
+
+    private static final int MAX_RANGE_DAYS = 366;
+    private static final int MAX_ERROR_LENGTH = 255;
     /**
      * Tạo giao dịch
      */
@@ -44,11 +75,117 @@ public class TransactionServiceImpl implements TransactionService {
         validateTransactionAmount(amount);
         Account sender = getActiveAccount(senderId, "Tài khoản gửi không hợp lệ hoặc không khả dụng");
         Account receiver = getActiveAccount(receiverId, "Tài khoản nhận không hợp lệ hoặc không khả dụng");
+        if (sender.hasStripedBalance() && sender.getBalance().compareTo(amount) < 0) {
+            // Số dư chính không đủ: gộp các slot trước khi kiểm tra
+            stripedBalanceService.consolidate(sender);
+        }
         validateSenderBalance(sender, amount);
+        velocityGuard.check(senderId, amount);
         executeTransaction(sender, receiver, amount);
         return saveTransaction(senderId, receiverId, amount, TransactionStatus.SUCCESS, message);
     }
 
+    /**
+     * Chuyển tiền liên shard, bước 1 trên shard người gửi: kiểm tra như createTransaction, trừ tiền,
+     * ghi giao dịch (id = transferId) cùng vế nợ sổ cái và lưu chuyển tiền ở trạng thái PENDING.
+     */
+    @Override
+    @Transactional
+    public CrossShardTransfer debitCrossShard(UUID transferId, UUID senderId, UUID receiverId, BigDecimal amount, String message) {
+        validateSenderAndReceiver(senderId, receiverId);
+        validateTransactionAmount(amount);
+        Account sender = getActiveAccount(senderId, "Tài khoản gửi không hợp lệ hoặc không khả dụng");
+        if (sender.hasStripedBalance() && sender.getBalance().compareTo(amount) < 0) {
+            stripedBalanceService.consolidate(sender);
+        }
+        validateSenderBalance(sender, amount);
+        velocityGuard.check(senderId, amount);
+        LocalDateTime now = LocalDateTime.now();
+        sender.setBalance(sender.getBalance().subtract(amount));
+        sender.setUpdatedAt(now);
+        accountRepository.save(sender);
+        transactionRepository.save(crossShardTransaction(transferId, senderId, receiverId, amount, message, now));
+        ledgerService.recordCrossShardTransfer(transferId, senderId, amount.negate(), now);
+        return crossShardTransferRepository.save(CrossShardTransfer.builder()
+                .id(transferId)
+                .senderAccountId(senderId)
+                .receiverAccountId(receiverId)
+                .amount(amount)
+                .message(message)
+                .status(CrossShardTransferStatus.PENDING)
+                .createdAt(now)
+                .build());
+    }
+
+    /**
+     * Bước 2 trên shard người nhận: cộng tiền, ghi bản sao giao dịch cùng id và vế có sổ cái.
+     * Giao dịch đã tồn tại nghĩa là bước này đã chạy (lần chạy bù), không cộng lại;
+     * hai lần chạy đồng thời thì lần sau vi phạm khóa chính và bị rollback.
+     */
+    @Override
+    @Transactional
+    public void creditCrossShard(CrossShardTransfer transfer) {
+        if (transactionRepository.existsById(transfer.getId())) {
+            return;
+        }
+        Account receiver = getActiveAccount(transfer.getReceiverAccountId(), "Tài khoản nhận không hợp lệ hoặc không khả dụng");
+        LocalDateTime now = LocalDateTime.now();
+        creditReceiver(receiver, transfer.getAmount(), now);
+        transactionRepository.save(crossShardTransaction(transfer.getId(), transfer.getSenderAccountId(),
+                transfer.getReceiverAccountId(), transfer.getAmount(), transfer.getMessage(), transfer.getCreatedAt()));
+        ledgerService.recordCrossShardTransfer(transfer.getId(), transfer.getReceiverAccountId(), transfer.getAmount(), now);
+    }
+
+    /**
+     * Bước 3 trên shard người gửi sau khi tiền đã vào tài khoản nhận: đánh dấu COMPLETED và ghi sự kiện outbox.
+     * Chạy lại với chuyển tiền đã COMPLETED chỉ trả về giao dịch.
+     */
+    @Override
+    @Transactional
+    public TransactionDto completeCrossShard(UUID transferId) {
+        CrossShardTransfer transfer = lockCrossShardTransfer(transferId);
+        if (transfer.getStatus() == CrossShardTransferStatus.COMPENSATED) {
+            throw new IllegalStateException("Chuyển tiền " + transferId + " đã được hoàn tiền");
+        }
+        Transaction transaction = getTransactionById(transferId);
+        TransactionDto transactionDto = transactionMapper.transactionToTransactionDto(transaction);
+        if (transfer.getStatus() == CrossShardTransferStatus.PENDING) {
+            transfer.setStatus(CrossShardTransferStatus.COMPLETED);
+            transfer.setUpdatedAt(LocalDateTime.now());
+            crossShardTransferRepository.save(transfer);
+            outboxService.recordTransactionCompleted(transactionDto, transaction.getCreatedAt());
+        }
+        return transactionDto;
+    }
+
+    /**
+     * Hoàn tiền khi shard người nhận từ chối bước 2: cộng lại cho người gửi, giao dịch chuyển FAILED
+     * và ghi vế đảo trên sổ cái. Chỉ tác động lên chuyển tiền còn PENDING.
+     */
+    @Override
+    @Transactional
+    public void compensateCrossShard(UUID transferId, String reason) {
+        CrossShardTransfer transfer = lockCrossShardTransfer(transferId);
+        if (transfer.getStatus() != CrossShardTransferStatus.PENDING) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        Account sender = accountRepository.findById(transfer.getSenderAccountId())
+                .orElseThrow(() -> new IllegalStateException("Không tìm thấy tài khoản gửi để hoàn tiền: " + transfer.getSenderAccountId()));
+        sender.setBalance(sender.getBalance().add(transfer.getAmount()));
+        sender.setUpdatedAt(now);
+        accountRepository.save(sender);
+        Transaction transaction = getTransactionById(transferId);
+        transaction.setStatus(TransactionStatus.FAILED);
+        transactionRepository.save(transaction);
+        dailySummaryCache.evictAfterCommit(transaction.getCreatedAt().toLocalDate());
+        ledgerService.recordCrossShardTransfer(transferId, transfer.getSenderAccountId(), transfer.getAmount(), now);
+        transfer.setStatus(CrossShardTransferStatus.COMPENSATED);
+        transfer.setLastError(reason == null || reason.length() <= MAX_ERROR_LENGTH ? reason : reason.substring(0, MAX_ERROR_LENGTH));
+        transfer.setUpdatedAt(now);
+        crossShardTransferRepository.save(transfer);
+    }
+
     /**
      * Lấy giao dịch theo ID
      */
@@ -62,12 +199,16 @@ public class TransactionServiceImpl implements TransactionService {
         Transaction transaction = getTransactionById(transactionId);
         TransactionStatus newStatus = parseTransactionStatus(status);
         transaction.setStatus(newStatus);
-        return transactionMapper.transactionToTransactionDto(transactionRepository.save(transaction));
+        Transaction savedTransaction = transactionRepository.save(transaction);
+        dailySummaryCache.evictAfterCommit(transaction.getCreatedAt().toLocalDate());
+        return transactionMapper.transactionToTransactionDto(savedTransaction);
     }
 
     @Override
     public void deleteTransaction(UUID transactionId) {
+        Optional<Transaction> transaction = transactionRepository.findById(transactionId);
         transactionRepository.deleteById(transactionId);
+        transaction.ifPresent(deleted -> dailySummaryCache.evictAfterCommit(deleted.getCreatedAt().toLocalDate()));
     }
 
     /**
@@ -82,13 +223,12 @@ public class TransactionServiceImpl implements TransactionService {
      * Lấy danh sách giao dịch theo khoảng thời gian
      */
     @Override
+    @Transactional(readOnly = true)
     public Page<TransactionDto> listTransactionsByDateRange(LocalDate startDate, LocalDate endDate, UUID accountId, String status, String typeTransaction, int page, int size) {
 
         TransactionStatus transactionStatus = (status == null || status.trim().isEmpty()) ? null : TransactionStatus.valueOf(status.toUpperCase());
         Pageable pageable = PageRequest.of(page, size);
-        Page<Transaction> transactionPage = transactionRepository.findByCreatedAtBetween(startDate, endDate, accountId, transactionStatus, typeTransaction, pageable);
-        List<TransactionDto> transactionDtos = transactionMapper.transactionsToTransactionDtos(transactionPage.getContent());
-        return new PageImpl<>(transactionDtos, pageable, transactionPage.getTotalElements());
+        return transactionRepository.findDtoByCreatedAtBetween(startDate, endDate, accountId, transactionStatus, typeTransaction, pageable);
 
     }
 
@@ -96,13 +236,90 @@ public class TransactionServiceImpl implements TransactionService {
      * Lấy tổng số tiền giao dịch theo tài khoản
      */
     public BigDecimal getTotalTransactionsAmountByAccountId(UUID accountId) {
-        return transactionRepository.sumTransactionAmountByAccountId(accountId)
-                .orElse(BigDecimal.ZERO);
+        return reportSingleFlight.totalAmount().execute(accountId,
+                () -> transactionRepository.sumTransactionAmountByAccountId(accountId).orElse(BigDecimal.ZERO));
     }
 
+    /**
+     * Các lời gọi đồng thời cùng ngày dùng chung một lượt tổng hợp. Khi chia shard, mỗi tài khoản gửi
+     * lấy từ shard của nó (bỏ bản sao giao dịch liên shard nằm ở shard người nhận).
+     */
     @Override
     public List<IDailLyTransactionSummary> getDailyTransactionSummary(LocalDate date) {
-        return transactionRepository.getDailyTransactionSummaryForAllCustomers(date);
+        return reportSingleFlight.dailySummary().execute(date, () -> {
+            List<IDailLyTransactionSummary> summaries = new ArrayList<>();
+            for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+                int current = shard;
+                shardRouter.on(shard, () -> transactionRepository.getDailyTransactionSummaryForAllCustomers(date)).stream()
+                        .filter(summary -> shardRouter.shardOf(UUID.fromString(summary.getAccountId())) == current)
+                        .forEach(summaries::add);
+            }
+            return summaries;
+        });
+    }
+
+    @Override
+    public List<SingleFlightStatsDto> getReportSingleFlightStats() {
+        return reportSingleFlight.stats();
+    }
+
+    /**
+     * Gửi/nhận/net theo tài khoản cho từng ngày trong khoảng; ngày đã đóng được đọc từ cache.
+     */
+    @Override
+    public List<AccountDaySummaryDto> getDailySummaries(LocalDate startDate, LocalDate endDate) {
+        validateDateRange(startDate, endDate);
+        return dailySummaryCache.summarize(startDate, endDate);
+    }
+
+    /**
+     * ETag của lịch sử giao dịch: số giao dịch, số giao dịch thành công và thời điểm giao dịch mới nhất của tài khoản.
+     */
+    @Override
+    public String getTransactionHistoryETag(UUID accountId) {
+        ITransactionHistoryVersion version = transactionRepository.getTransactionHistoryVersion(accountId);
+        if (version == null || version.getLastCreatedAt() == null) {
+            return "W/\"0\"";
+        }
+        LocalDateTime lastCreatedAt = version.getLastCreatedAt();
+        return "W/\"" + version.getTransactionCount() + "-" + version.getSuccessCount() + "-" + lastCreatedAt.toEpochSecond(ZoneOffset.UTC) + "." + lastCreatedAt.getNano() + "\"";
+    }
+
+    /**
+     * Top tài khoản theo tổng tiền gửi (SENDER) hoặc nhận (RECEIVER) trong giờ/ngày gần nhất, tính từ bộ đếm streaming.
+     */
+    @Override
+    public List<TopAccountDto> getTopAccounts(String range, String side, int limit) {
+        return topAccountsTracker.top(parseEnum(TopAccountsTracker.Range.class, range, "Khoảng thời gian"),
+                parseEnum(TopAccountsTracker.Side.class, side, "Phía giao dịch"), limit);
+    }
+
+    /**
+     * Phân phối số tiền (p50/p95/p99) trong khoảng ngày, gộp từ histogram từng ngày thay vì quét bảng giao dịch.
+     * accountId null: toàn hệ thống, ngược lại: các giao dịch tài khoản đã gửi.
+     */
+    @Override
+    public AmountDistributionDto getAmountDistribution(LocalDate startDate, LocalDate endDate, UUID accountId) {
+        validateDateRange(startDate, endDate);
+        AmountHistogramFolder.Distribution distribution = amountHistogramFolder.distribution(
+                accountId == null ? DailyAmountHistogram.GLOBAL_SCOPE : accountId, startDate, endDate);
+        AmountHistogram histogram = distribution.histogram();
+        return AmountDistributionDto.builder()
+                .accountId(accountId)
+                .fromDate(startDate)
+                .toDate(endDate)
+                .transactionCount(histogram.count())
+                .totalAmount(distribution.totalAmount())
+                .p50(quantile(histogram, 0.50))
+                .p95(quantile(histogram, 0.95))
+                .p99(quantile(histogram, 0.99))
+                .relativeAccuracy(AmountHistogram.RELATIVE_ACCURACY)
+                .foldedUntil(distribution.foldedUntil())
+                .build();
+    }
+
+    private static BigDecimal quantile(AmountHistogram histogram, double q) {
+        return histogram.count() == 0 ? null : BigDecimal.valueOf(histogram.quantile(q), 2);
     }
 
 
@@ -110,6 +327,18 @@ public class TransactionServiceImpl implements TransactionService {
 
     // --- Private Helper Methods ---
 
+    /**
+     * Kiểm tra khoảng ngày hợp lệ và không quá MAX_RANGE_DAYS ngày
+     */
+    private void validateDateRange(LocalDate startDate, LocalDate endDate) {
+        if (startDate.isAfter(endDate)) {
+            throw new IllegalArgumentException("Ngày bắt đầu phải trước hoặc bằng ngày kết thúc");
+        }
+        if (startDate.plusDays(MAX_RANGE_DAYS).isBefore(endDate.plusDays(1))) {
+            throw new IllegalArgumentException("Khoảng thời gian tối đa là " + MAX_RANGE_DAYS + " ngày");
+        }
+    }
+
     /**
      * Kiểm tra số tiền giao dịch hợp lệ
      */
@@ -145,22 +374,54 @@ public class TransactionServiceImpl implements TransactionService {
 
 
     /**
-     * Thực hiện giao dịch: cập nhật số dư
+     * Thực hiện giao dịch: cập nhật số dư.
+     * Tài khoản nhận dùng striped balance được cộng vào một slot, không khóa dòng accounts.
      */
     @Transactional
     protected void executeTransaction(Account sender, Account receiver, BigDecimal amount) {
+        LocalDateTime now = LocalDateTime.now();
         sender.setBalance(sender.getBalance().subtract(amount));
-        receiver.setBalance(receiver.getBalance().add(amount));
-
+        sender.setUpdatedAt(now);
         accountRepository.save(sender);
-        accountRepository.save(receiver);
+
+        creditReceiver(receiver, amount, now);
+    }
+
+    private void creditReceiver(Account receiver, BigDecimal amount, LocalDateTime now) {
+        if (receiver.hasStripedBalance()) {
+            stripedBalanceService.credit(receiver, amount);
+        } else {
+            receiver.setBalance(receiver.getBalance().add(amount));
+            receiver.setUpdatedAt(now);
+            accountRepository.save(receiver);
+        }
+    }
+
+    private CrossShardTransfer lockCrossShardTransfer(UUID transferId) {
+        return crossShardTransferRepository.findForUpdate(transferId)
+                .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy chuyển tiền liên shard: " + transferId));
+    }
+
+    private static Transaction crossShardTransaction(UUID transferId, UUID senderId, UUID receiverId, BigDecimal amount, String message, LocalDateTime createdAt) {
+        return Transaction.builder()
+                .id(transferId)
+                .senderAccountId(senderId)
+                .receiverAccountId(receiverId)
+                .amount(amount)
+                .status(TransactionStatus.SUCCESS)
+                .message(message)
+                .createdAt(createdAt)
+                .build();
     }
 
     /**
-     * Lưu giao dịch
+     * Lưu giao dịch, ghi cặp bút toán sổ cái và sự kiện outbox trong cùng transaction.
+     * Flush trước để khóa dòng tài khoản được lấy trước khi cấp id outbox,
+     * nhờ đó các sự kiện của cùng một tài khoản có id tăng theo thứ tự commit.
      */
     @Transactional
     TransactionDto saveTransaction(UUID senderId, UUID receiverId, BigDecimal amount, TransactionStatus status, String message) {
+        accountRepository.flush();
         Transaction transaction = Transaction.builder()
                 .senderAccountId(senderId)
                 .receiverAccountId(receiverId)
@@ -169,7 +430,21 @@ public class TransactionServiceImpl implements TransactionService {
                 .message(message)
                 .createdAt(LocalDateTime.now())
                 .build();
-        return transactionMapper.transactionToTransactionDto(transactionRepository.save(transaction));
+        Transaction saved = transactionRepository.save(transaction);
+        TransactionDto transactionDto = transactionMapper.transactionToTransactionDto(saved);
+        if (status == TransactionStatus.SUCCESS) {
+            ledgerService.recordTransfer(saved.getId(), senderId, receiverId, amount, saved.getCreatedAt());
+            outboxService.recordTransactionCompleted(transactionDto, transaction.getCreatedAt());
+        }
+        return transactionDto;
+    }
+
+    private static <E extends Enum<E>> E parseEnum(Class<E> type, String value, String label) {
+        try {
+            return Enum.valueOf(type, value.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(label + " không hợp lệ: " + value);
+        }
     }
 
     /**
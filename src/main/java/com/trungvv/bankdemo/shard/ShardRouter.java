@@ -0,0 +1,123 @@
+package com.trungvv.bankdemo.shard;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Chọn shard cho tài khoản bằng jump consistent hash trên UUID: thêm shard chỉ chuyển ~1/N tài khoản.
+ * Shard của thread hiện tại được ShardRoutingDataSource đọc khi transaction lấy connection, nên phải
+ * chọn shard trước khi mở transaction. Khi tắt sharding chỉ có shard 0 và mọi lời gọi chạy như cũ.
+ */
+@Component
+public class ShardRouter {
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private final int shardCount;
+
+    public ShardRouter(@Value("${bank.sharding.enabled:false}") boolean enabled,
+                       @Value("${bank.sharding.urls:}") List<String> urls) {
+        if (enabled && urls.isEmpty()) {
+            throw new IllegalArgumentException("bank.sharding.urls must list at least one datasource url");
+        }
+        this.shardCount = enabled ? urls.size() : 1;
+    }
+
+    /**
+     * Shard của thread hiện tại; 0 nếu chưa chọn.
+     */
+    public static int current() {
+        Integer shard = CURRENT.get();
+        return shard == null ? 0 : shard;
+    }
+
+    public int shardCount() {
+        return shardCount;
+    }
+
+    public boolean isSharded() {
+        return shardCount > 1;
+    }
+
+    public int shardOf(UUID accountId) {
+        return jumpHash(accountId.getMostSignificantBits() ^ accountId.getLeastSignificantBits(), shardCount);
+    }
+
+    /**
+     * Chạy action trên shard chỉ định, khôi phục shard trước đó khi xong.
+     */
+    public <T> T on(int shard, Supplier<T> action) {
+        if (shard < 0 || shard >= shardCount) {
+            throw new IllegalArgumentException("Shard " + shard + " out of range 0.." + (shardCount - 1));
+        }
+        Integer previous = CURRENT.get();
+        CURRENT.set(shard);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    public <T> T onShardOf(UUID accountId, Supplier<T> action) {
+        return on(shardOf(accountId), action);
+    }
+
+    /**
+     * Chạy action trên một shard ngẫu nhiên, dùng khi tạo tài khoản mới.
+     */
+    public <T> T onAnyShard(Supplier<T> action) {
+        return on(ThreadLocalRandom.current().nextInt(shardCount), action);
+    }
+
+    /**
+     * Id mới thuộc shard hiện tại (trung bình shardCount lần thử).
+     */
+    public UUID newIdOnCurrentShard() {
+        int shard = current();
+        UUID id;
+        do {
+            id = UUID.randomUUID();
+        } while (shardOf(id) != shard);
+        return id;
+    }
+
+    /**
+     * Id toàn cục cho dòng có id tự tăng riêng trên từng shard: localId * shardCount + shard,
+     * giống quy tắc số tài khoản chia shardCount dư shard. Không chia shard thì bằng localId.
+     */
+    public long toGlobalId(int shard, long localId) {
+        return localId * shardCount + shard;
+    }
+
+    public int shardOfGlobalId(long globalId) {
+        return (int) (globalId % shardCount);
+    }
+
+    public long toLocalId(long globalId) {
+        return globalId / shardCount;
+    }
+
+    /**
+     * Jump consistent hash (Lamping & Veach): bucket trong [0, buckets) cho khóa 64 bit.
+     */
+    static int jumpHash(long key, int buckets) {
+        long b = -1;
+        long j = 0;
+        while (j < buckets) {
+            b = j;
+            key = key * 2862933555777941757L + 1;
+            j = (long) ((b + 1) * ((double) (1L << 31) / (double) ((key >>> 33) + 1)));
+        }
+        return (int) b;
+    }
+}
@@ -0,0 +1,169 @@
+package com.trungvv.bankdemo.shard;
+
+import com.trungvv.bankdemo.dto.TransactionDto;
+import com.trungvv.bankdemo.exception.ResourceNotFoundException;
+import com.trungvv.bankdemo.model.AccountStatus;
+import com.trungvv.bankdemo.model.CrossShardTransfer;
+import com.trungvv.bankdemo.model.TransactionStatus;
+import com.trungvv.bankdemo.repository.CrossShardTransferRepository;
+import com.trungvv.bankdemo.service.AccountBatchLoader;
+import com.trungvv.bankdemo.service.TransactionService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Điểm vào của chuyển tiền khi chia shard. Hai tài khoản cùng shard: một transaction cục bộ như trước.
+ * Khác shard: saga ba bước, mỗi bước là một transaction cục bộ trên một shard:
+ * <ol>
+ *     <li>shard gửi: trừ tiền, ghi giao dịch và chuyển tiền PENDING;</li>
+ *     <li>shard nhận: cộng tiền và ghi bản sao giao dịch cùng id (idempotent);</li>
+ *     <li>shard gửi: đánh dấu COMPLETED và ghi sự kiện outbox.</li>
+ * </ol>
+ * Shard nhận từ chối (tài khoản không tồn tại / bị khóa) thì hoàn tiền cho người gửi. Lỗi hạ tầng giữa
+ * chừng để chuyển tiền ở PENDING; job khôi phục chạy lại bước 2 và 3 cho các chuyển tiền PENDING quá lâu.
+ * Gọi trong một transaction đang mở trên shard người gửi (lệnh hẹn giờ): bước 1 tham gia transaction đó,
+ * bước 2 và 3 chạy sau khi nó commit.
+ */
+@Slf4j
+@Component
+public class TransferCoordinator {
+
+    private final ShardRouter shardRouter;
+    private final TransactionService transactionService;
+    private final AccountBatchLoader accountBatchLoader;
+    private final CrossShardTransferRepository crossShardTransferRepository;
+    private final TransactionTemplate stepTemplate;
+    private final long recoveryDelaySeconds;
+    private final int recoveryBatchSize;
+
+    public TransferCoordinator(ShardRouter shardRouter,
+                               TransactionService transactionService,
+                               AccountBatchLoader accountBatchLoader,
+                               CrossShardTransferRepository crossShardTransferRepository,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${bank.sharding.recovery-delay-seconds:30}") long recoveryDelaySeconds,
+                               @Value("${bank.sharding.recovery-batch-size:100}") int recoveryBatchSize) {
+        this.shardRouter = shardRouter;
+        this.transactionService = transactionService;
+        this.accountBatchLoader = accountBatchLoader;
+        this.crossShardTransferRepository = crossShardTransferRepository;
+        // Sau commit, resource của transaction cũ vẫn gắn với thread: bước 2 và 3 phải mở transaction mới
+        this.stepTemplate = new TransactionTemplate(transactionManager);
+        this.stepTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.recoveryDelaySeconds = recoveryDelaySeconds;
+        this.recoveryBatchSize = recoveryBatchSize;
+    }
+
+    public TransactionDto transfer(UUID senderId, UUID receiverId, BigDecimal amount, String message) {
+        int senderShard = shardRouter.shardOf(senderId);
+        if (senderShard == shardRouter.shardOf(receiverId)) {
+            return shardRouter.on(senderShard, () -> transactionService.createTransaction(senderId, receiverId, amount, message));
+        }
+        // Kiểm tra trước tài khoản nhận để trường hợp thường gặp không phải trừ tiền rồi hoàn lại
+        accountBatchLoader.load(receiverId)
+                .filter(account -> AccountStatus.ACTIVE.name().equals(account.getStatus()))
+                .orElseThrow(() -> new ResourceNotFoundException("Tài khoản nhận không hợp lệ hoặc không khả dụng"));
+        UUID transferId = UUID.randomUUID();
+        CrossShardTransfer transfer = shardRouter.on(senderShard,
+                () -> transactionService.debitCrossShard(transferId, senderId, receiverId, amount, message));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // Transaction bên ngoài giữ connection của shard gửi: chỉ settle được sau khi nó commit
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    settleAfterCommit(transfer);
+                }
+            });
+            return TransactionDto.builder()
+                    .id(transfer.getId())
+                    .senderAccountId(senderId)
+                    .receiverAccountId(receiverId)
+                    .amount(amount)
+                    .status(TransactionStatus.SUCCESS.name())
+                    .description(message)
+                    .build();
+        }
+        return settle(transfer);
+    }
+
+    private void settleAfterCommit(CrossShardTransfer transfer) {
+        try {
+            settle(transfer);
+        } catch (ResourceNotFoundException e) {
+            log.warn("Cross-shard transfer {} compensated: {}", transfer.getId(), e.getMessage());
+        } catch (RuntimeException e) {
+            log.error("Cross-shard transfer {} still pending, will retry", transfer.getId(), e);
+        }
+    }
+
+    /**
+     * Bước 2 và 3 của một chuyển tiền PENDING, mỗi bước một transaction mới trên shard của nó;
+     * hoàn tiền rồi ném lại lỗi nếu shard nhận từ chối.
+     */
+    TransactionDto settle(CrossShardTransfer transfer) {
+        int senderShard = shardRouter.shardOf(transfer.getSenderAccountId());
+        try {
+            inNewTransaction(shardRouter.shardOf(transfer.getReceiverAccountId()), () -> {
+                transactionService.creditCrossShard(transfer);
+                return null;
+            });
+        } catch (ResourceNotFoundException e) {
+            inNewTransaction(senderShard, () -> {
+                transactionService.compensateCrossShard(transfer.getId(), e.getMessage());
+                return null;
+            });
+            throw e;
+        }
+        return inNewTransaction(senderShard, () -> transactionService.completeCrossShard(transfer.getId()));
+    }
+
+    private <T> T inNewTransaction(int shard, Supplier<T> step) {
+        return shardRouter.on(shard, () -> stepTemplate.execute(status -> step.get()));
+    }
+
+    @Scheduled(fixedDelayString = "${bank.sharding.recovery-interval-ms:10000}")
+    public void recover() {
+        if (shardRouter.isSharded()) {
+            recover(LocalDateTime.now().minusSeconds(recoveryDelaySeconds));
+        }
+    }
+
+    /**
+     * Chạy lại các chuyển tiền còn PENDING tạo trước cutoff trên mọi shard.
+     *
+     * @return số chuyển tiền đã kết thúc (hoàn thành hoặc hoàn tiền)
+     */
+    int recover(LocalDateTime cutoff) {
+        int settled = 0;
+        for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+            List<CrossShardTransfer> pending = shardRouter.on(shard,
+                    () -> crossShardTransferRepository.findPendingBefore(cutoff, PageRequest.of(0, recoveryBatchSize)));
+            for (CrossShardTransfer transfer : pending) {
+                try {
+                    settle(transfer);
+                    settled++;
+                } catch (ResourceNotFoundException e) {
+                    log.warn("Cross-shard transfer {} compensated: {}", transfer.getId(), e.getMessage());
+                    settled++;
+                } catch (RuntimeException e) {
+                    log.error("Cross-shard transfer {} still pending, will retry", transfer.getId(), e);
+                }
+            }
+        }
+        return settled;
+    }
+}
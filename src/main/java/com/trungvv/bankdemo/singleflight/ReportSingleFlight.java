@@ -0,0 +1,39 @@
+package com.trungvv.bankdemo.singleflight;
+
+import com.trungvv.bankdemo.dto.IDailLyTransactionSummary;
+import com.trungvv.bankdemo.dto.SingleFlightStatsDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Single-flight cho các báo cáo tổng hợp nặng hay được nhiều dashboard gọi cùng lúc với cùng tham số.
+ */
+@Component
+public class ReportSingleFlight {
+
+    private final SingleFlight<UUID, BigDecimal> totalAmount;
+    private final SingleFlight<LocalDate, List<IDailLyTransactionSummary>> dailySummary;
+
+    public ReportSingleFlight(@Value("${bank.report-single-flight.ttl-ms:0}") long ttlMs,
+                              @Value("${bank.report-single-flight.max-entries:10000}") int maxEntries) {
+        this.totalAmount = new SingleFlight<>("total-amount", ttlMs, maxEntries);
+        this.dailySummary = new SingleFlight<>("daily-summary", ttlMs, maxEntries);
+    }
+
+    public SingleFlight<UUID, BigDecimal> totalAmount() {
+        return totalAmount;
+    }
+
+    public SingleFlight<LocalDate, List<IDailLyTransactionSummary>> dailySummary() {
+        return dailySummary;
+    }
+
+    public List<SingleFlightStatsDto> stats() {
+        return List.of(totalAmount.stats(), dailySummary.stats());
+    }
+}
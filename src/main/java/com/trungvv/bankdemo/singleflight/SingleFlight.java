@@ -0,0 +1,114 @@
+package com.trungvv.bankdemo.singleflight;
+
+import com.trungvv.bankdemo.dto.SingleFlightStatsDto;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Gộp các lời gọi đồng thời cùng khóa: lời gọi đầu tiên thực thi, các lời gọi tới trong lúc nó đang chạy
+ * chờ và nhận chung kết quả (hoặc chung exception). Tùy chọn giữ kết quả thêm ttl để các lời gọi ngay sau
+ * cũng không chạy lại; ttl = 0 chỉ gộp các lời gọi chồng nhau. Cache bị chặn bởi maxEntries.
+ */
+public class SingleFlight<K, V> {
+
+    private final String name;
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final LongSupplier nanoClock;
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<K, Cached<V>> cache = new ConcurrentHashMap<>();
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder collapsed = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+
+    public SingleFlight(String name, long ttlMs, int maxEntries) {
+        this(name, ttlMs, maxEntries, System::nanoTime);
+    }
+
+    SingleFlight(String name, long ttlMs, int maxEntries, LongSupplier nanoClock) {
+        if (ttlMs < 0 || maxEntries <= 0) {
+            throw new IllegalArgumentException("ttlMs must not be negative and maxEntries must be positive");
+        }
+        this.name = name;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMs);
+        this.maxEntries = maxEntries;
+        this.nanoClock = nanoClock;
+    }
+
+    public V execute(K key, Supplier<V> loader) {
+        calls.increment();
+        if (ttlNanos > 0) {
+            Cached<V> cached = cache.get(key);
+            if (cached != null && nanoClock.getAsLong() - cached.expiresAt() < 0) {
+                cacheHits.increment();
+                return cached.value();
+            }
+        }
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            collapsed.increment();
+            return await(running);
+        }
+        executions.increment();
+        try {
+            V value = loader.get();
+            if (ttlNanos > 0) {
+                // Ghi cache trước khi rời inFlight để lời gọi tới ngay sau đó thấy kết quả
+                store(key, value);
+            }
+            mine.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    public SingleFlightStatsDto stats() {
+        return SingleFlightStatsDto.builder()
+                .name(name)
+                .calls(calls.sum())
+                .executions(executions.sum())
+                .collapsed(collapsed.sum())
+                .cacheHits(cacheHits.sum())
+                .build();
+    }
+
+    private void store(K key, V value) {
+        long now = nanoClock.getAsLong();
+        if (cache.size() >= maxEntries) {
+            cache.values().removeIf(cached -> now - cached.expiresAt() >= 0);
+            if (cache.size() >= maxEntries) {
+                return;
+            }
+        }
+        cache.put(key, new Cached<>(value, now + ttlNanos));
+    }
+
+    private static <V> V await(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    private record Cached<V>(V value, long expiresAt) {
+    }
+}
@@ -0,0 +1,88 @@
+package com.trungvv.bankdemo.velocity;
+
+import java.util.Arrays;
+
+/**
+ * Cửa sổ trượt của một tài khoản: vòng bucket cố định, mỗi bucket giữ số giao dịch và tổng tiền (xu)
+ * của một khoảng resolution. Bucket cũ bị ghi đè khi vòng quay lại nên bộ nhớ không phụ thuộc lưu lượng.
+ * Không thread-safe, nơi gọi tự đồng bộ trên đối tượng này.
+ */
+final class SlidingWindow {
+
+    private final long[] epochs;
+    private final long[] counts;
+    private final long[] amounts;
+    private long lastEpoch = Long.MIN_VALUE;
+    // Đã bị xóa khỏi map: nơi gọi phải lấy cửa sổ mới
+    boolean evicted;
+
+    SlidingWindow(int buckets) {
+        epochs = new long[buckets];
+        counts = new long[buckets];
+        amounts = new long[buckets];
+        Arrays.fill(epochs, Long.MIN_VALUE);
+    }
+
+    /**
+     * Cộng (hoặc trừ, khi count âm) vào bucket epoch; bỏ qua nếu bucket đã trôi khỏi vòng.
+     */
+    void add(long epoch, long count, long amount) {
+        int slot = slot(epoch);
+        if (epochs[slot] != epoch) {
+            if (count < 0 || epochs[slot] > epoch) {
+                return;
+            }
+            epochs[slot] = epoch;
+            counts[slot] = 0;
+            amounts[slot] = 0;
+        }
+        counts[slot] += count;
+        amounts[slot] = saturatedAdd(amounts[slot], amount);
+        lastEpoch = Math.max(lastEpoch, epoch);
+    }
+
+    /**
+     * Tổng số giao dịch (amount = false) hoặc tổng tiền trong các bucket (epoch - buckets, epoch].
+     */
+    long sum(long epoch, int buckets, boolean amount) {
+        long total = 0;
+        for (long e = epoch - buckets + 1; e <= epoch; e++) {
+            int slot = slot(e);
+            if (epochs[slot] == e) {
+                total = saturatedAdd(total, amount ? amounts[slot] : counts[slot]);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Số bucket phải chờ cho tới khi các bucket cũ nhất trôi khỏi cửa sổ và tổng giảm đi ít nhất excess;
+     * -1 nếu có trôi hết cũng không đủ.
+     */
+    long bucketsUntilReleased(long epoch, int buckets, boolean amount, long excess) {
+        long released = 0;
+        for (long e = epoch - buckets + 1; e <= epoch; e++) {
+            int slot = slot(e);
+            if (epochs[slot] == e) {
+                released = saturatedAdd(released, amount ? amounts[slot] : counts[slot]);
+                if (released >= excess) {
+                    return e + buckets - epoch;
+                }
+            }
+        }
+        return -1;
+    }
+
+    boolean isIdle(long epoch) {
+        return lastEpoch <= epoch - epochs.length;
+    }
+
+    private int slot(long epoch) {
+        return (int) Math.floorMod(epoch, (long) epochs.length);
+    }
+
+    static long saturatedAdd(long a, long b) {
+        long sum = a + b;
+        return ((a ^ sum) & (b ^ sum)) < 0 ? (a < 0 ? Long.MIN_VALUE : Long.MAX_VALUE) : sum;
+    }
+}
@@ -0,0 +1,152 @@
+package com.trungvv.bankdemo.velocity;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Kiểm tra velocity theo tài khoản gửi hoàn toàn trong bộ nhớ: mỗi tài khoản có một SlidingWindow
+ * đủ dài cho luật có cửa sổ lớn nhất, mọi luật được đánh giá trên cùng vòng bucket.
+ * Kiểm tra và ghi nhận diễn ra trong cùng một khối synchronized của tài khoản nên hai giao dịch
+ * đồng thời không thể cùng lọt qua giới hạn. Cửa sổ không còn bucket nào trong vòng là rỗng
+ * và có thể xóa mà không mất trạng thái.
+ */
+public class VelocityEngine {
+
+    private static final long MAX_CENTS = Long.MAX_VALUE / 4;
+
+    private final List<VelocityRule> rules;
+    private final long resolutionMs;
+    private final int[] ruleBuckets;
+    private final int ringSize;
+    private final ConcurrentHashMap<UUID, SlidingWindow> windows = new ConcurrentHashMap<>();
+
+    /**
+     * Giao dịch bị từ chối bởi rule; có thể thử lại sau retryAfterMs.
+     */
+    public record Violation(VelocityRule rule, long retryAfterMs) {
+    }
+
+    public VelocityEngine(List<VelocityRule> rules, Duration resolution) {
+        if (resolution.toMillis() <= 0) {
+            throw new IllegalArgumentException("Velocity resolution must be at least 1 ms");
+        }
+        this.rules = List.copyOf(rules);
+        this.resolutionMs = resolution.toMillis();
+        this.ruleBuckets = new int[this.rules.size()];
+        int maxBuckets = 1;
+        for (int i = 0; i < ruleBuckets.length; i++) {
+            long buckets = (this.rules.get(i).window().toMillis() + resolutionMs - 1) / resolutionMs;
+            if (buckets > 86_400) {
+                throw new IllegalArgumentException("Velocity window too long for resolution: " + this.rules.get(i).window());
+            }
+            ruleBuckets[i] = (int) buckets;
+            maxBuckets = Math.max(maxBuckets, ruleBuckets[i]);
+        }
+        this.ringSize = maxBuckets;
+    }
+
+    /**
+     * Đánh giá mọi luật với giao dịch mới; nếu hợp lệ thì ghi nhận ngay.
+     *
+     * @return null nếu được phép, ngược lại là luật bị vi phạm đầu tiên
+     */
+    public Violation tryAcquire(UUID accountId, BigDecimal amount, long nowMs) {
+        if (rules.isEmpty()) {
+            return null;
+        }
+        long epoch = Math.floorDiv(nowMs, resolutionMs);
+        long cents = toCents(amount);
+        while (true) {
+            SlidingWindow window = windows.computeIfAbsent(accountId, id -> new SlidingWindow(ringSize));
+            synchronized (window) {
+                if (window.evicted) {
+                    continue;
+                }
+                Violation violation = evaluate(window, epoch, cents, nowMs);
+                if (violation == null) {
+                    window.add(epoch, 1, cents);
+                }
+                return violation;
+            }
+        }
+    }
+
+    private Violation evaluate(SlidingWindow window, long epoch, long cents, long nowMs) {
+        for (int i = 0; i < rules.size(); i++) {
+            VelocityRule rule = rules.get(i);
+            boolean byAmount = rule.type() == VelocityRule.Type.AMOUNT;
+            long total = SlidingWindow.saturatedAdd(window.sum(epoch, ruleBuckets[i], byAmount), byAmount ? cents : 1);
+            if (total > rule.limit()) {
+                long buckets = window.bucketsUntilReleased(epoch, ruleBuckets[i], byAmount, total - rule.limit());
+                long retryAfterMs = buckets < 0 ? rule.window().toMillis()
+                        : buckets * resolutionMs - Math.floorMod(nowMs, resolutionMs);
+                return new Violation(rule, Math.max(1, retryAfterMs));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Hoàn lại một giao dịch đã tryAcquire thành công nhưng không được commit.
+     */
+    public void release(UUID accountId, BigDecimal amount, long acquiredAtMs) {
+        SlidingWindow window = windows.get(accountId);
+        if (window != null) {
+            synchronized (window) {
+                window.add(Math.floorDiv(acquiredAtMs, resolutionMs), -1, -toCents(amount));
+            }
+        }
+    }
+
+    /**
+     * Ghi nhận giao dịch đã xảy ra mà không kiểm tra luật (dựng lại trạng thái khi khởi động).
+     */
+    public void record(UUID accountId, BigDecimal amount, long atMs, long nowMs) {
+        long epoch = Math.floorDiv(atMs, resolutionMs);
+        if (rules.isEmpty() || epoch <= Math.floorDiv(nowMs, resolutionMs) - ringSize) {
+            return;
+        }
+        while (true) {
+            SlidingWindow window = windows.computeIfAbsent(accountId, id -> new SlidingWindow(ringSize));
+            synchronized (window) {
+                if (!window.evicted) {
+                    window.add(epoch, 1, toCents(amount));
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Xóa cửa sổ của các tài khoản không có giao dịch trong cửa sổ dài nhất.
+     */
+    public int evictIdle(long nowMs) {
+        long epoch = Math.floorDiv(nowMs, resolutionMs);
+        int before = windows.size();
+        windows.entrySet().removeIf(entry -> {
+            SlidingWindow window = entry.getValue();
+            synchronized (window) {
+                window.evicted = window.isIdle(epoch);
+                return window.evicted;
+            }
+        });
+        return before - windows.size();
+    }
+
+    public int size() {
+        return windows.size();
+    }
+
+    public Duration longestWindow() {
+        return Duration.ofMillis(ringSize * resolutionMs);
+    }
+
+    static long toCents(BigDecimal amount) {
+        BigDecimal cents = amount.movePointRight(2).setScale(0, RoundingMode.CEILING);
+        return cents.compareTo(BigDecimal.valueOf(MAX_CENTS)) > 0 ? MAX_CENTS : cents.longValue();
+    }
+}
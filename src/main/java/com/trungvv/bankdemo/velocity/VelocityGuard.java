@@ -0,0 +1,118 @@
+package com.trungvv.bankdemo.velocity;
+
+import com.trungvv.bankdemo.dto.ISentTransfer;
+import com.trungvv.bankdemo.exception.VelocityLimitExceededException;
+import com.trungvv.bankdemo.repository.TransactionRepository;
+import com.trungvv.bankdemo.shard.ShardRouter;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Chặn các đợt chuyển tiền bất thường của một tài khoản gửi (quá nhiều giao dịch hoặc quá nhiều tiền
+ * trong một cửa sổ trượt) ngay trong TransactionServiceImpl, không cần COUNT/SUM trên bảng transactions.
+ * Giao dịch được ghi nhận khi kiểm tra và hoàn lại nếu transaction bị rollback; khi khởi động,
+ * trạng thái được dựng lại từ các giao dịch SUCCESS trong cửa sổ dài nhất trên mọi shard.
+ */
+@Slf4j
+@Component
+public class VelocityGuard {
+
+    private final TransactionRepository transactionRepository;
+    private final ShardRouter shardRouter;
+    private final boolean enabled;
+    private final VelocityEngine engine;
+
+    public VelocityGuard(TransactionRepository transactionRepository,
+                         ShardRouter shardRouter,
+                         @Value("${bank.velocity.enabled:true}") boolean enabled,
+                         @Value("${bank.velocity.resolution-ms:1000}") long resolutionMs,
+                         @Value("${bank.velocity.count.limit:20}") long countLimit,
+                         @Value("${bank.velocity.count.window-seconds:60}") long countWindowSeconds,
+                         @Value("${bank.velocity.amount.limit:500000000}") BigDecimal amountLimit,
+                         @Value("${bank.velocity.amount.window-seconds:60}") long amountWindowSeconds) {
+        this.transactionRepository = transactionRepository;
+        this.shardRouter = shardRouter;
+        this.enabled = enabled;
+        // limit <= 0 tắt luật tương ứng
+        List<VelocityRule> rules = new ArrayList<>();
+        if (countLimit > 0) {
+            rules.add(VelocityRule.count(countLimit, Duration.ofSeconds(countWindowSeconds)));
+        }
+        if (amountLimit.signum() > 0) {
+            rules.add(VelocityRule.amount(amountLimit, Duration.ofSeconds(amountWindowSeconds)));
+        }
+        this.engine = new VelocityEngine(rules, Duration.ofMillis(resolutionMs));
+    }
+
+    @PostConstruct
+    void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        LocalDateTime since = LocalDateTime.now().minus(engine.longestWindow());
+        int rebuilt = 0;
+        for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+            int current = shard;
+            List<ISentTransfer> transfers = shardRouter.on(shard, () -> transactionRepository.findSentSince(since));
+            for (ISentTransfer transfer : transfers) {
+                // Bản sao giao dịch liên shard trên shard nhận không tính lại cho người gửi
+                if (shardRouter.shardOf(transfer.getSenderAccountId()) == current) {
+                    engine.record(transfer.getSenderAccountId(), transfer.getAmount(), toMillis(transfer.getCreatedAt()), now);
+                    rebuilt++;
+                }
+            }
+        }
+        log.info("Velocity windows rebuilt from {} transactions since {}", rebuilt, since);
+    }
+
+    /**
+     * Kiểm tra và ghi nhận giao dịch của tài khoản gửi.
+     *
+     * @throws VelocityLimitExceededException nếu vượt một trong các luật
+     */
+    public void check(UUID senderId, BigDecimal amount) {
+        if (!enabled) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        VelocityEngine.Violation violation = engine.tryAcquire(senderId, amount, now);
+        if (violation != null) {
+            long retryAfterSeconds = Math.max(1, (violation.retryAfterMs() + 999) / 1000);
+            throw new VelocityLimitExceededException("Tài khoản gửi vượt giới hạn " + violation.rule().describe()
+                    + ", thử lại sau " + retryAfterSeconds + " giây", retryAfterSeconds);
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        engine.release(senderId, amount, now);
+                    }
+                }
+            });
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${bank.velocity.eviction-interval-ms:30000}")
+    public void evictIdleWindows() {
+        engine.evictIdle(System.currentTimeMillis());
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,34 @@
+package com.trungvv.bankdemo.velocity;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+
+/**
+ * Luật velocity cho tài khoản gửi: tối đa limit giao dịch (COUNT) hoặc limit xu (AMOUNT) trong mỗi cửa sổ trượt window.
+ */
+public record VelocityRule(Type type, long limit, Duration window) {
+
+    public enum Type {
+        COUNT, AMOUNT
+    }
+
+    public VelocityRule {
+        if (limit <= 0 || window.isNegative() || window.isZero()) {
+            throw new IllegalArgumentException("Velocity rule limit and window must be positive");
+        }
+    }
+
+    public static VelocityRule count(long limit, Duration window) {
+        return new VelocityRule(Type.COUNT, limit, window);
+    }
+
+    public static VelocityRule amount(BigDecimal limit, Duration window) {
+        return new VelocityRule(Type.AMOUNT, VelocityEngine.toCents(limit), window);
+    }
+
+    String describe() {
+        return type == Type.COUNT
+                ? limit + " giao dịch / " + window.toSeconds() + "s"
+                : BigDecimal.valueOf(limit, 2).stripTrailingZeros().toPlainString() + " / " + window.toSeconds() + "s";
+    }
+}
@@ -0,0 +1,7 @@
+-- Tổng tiền nhận - gửi của các giao dịch SUCCESS đã bị job retention dọn, theo tài khoản.
+-- Đối soát cộng giá trị này vào số dư kỳ vọng thay cho các giao dịch không còn trong bảng transactions.
+create table transaction_carry_forwards (
+    account_id binary(16) not null,
+    amount decimal(38,2) not null,
+    primary key (account_id)
+);
@@ -0,0 +1,4 @@
+-- Instance nào tăng attempt thành công (UPDATE có điều kiện) thì được chạy job; heartbeat_at được cập nhật
+-- sau mỗi chunk, job RUNNING chỉ được instance khác nhận lại khi heartbeat đã quá hạn.
+alter table statement_jobs add column attempt integer not null default 0;
+alter table statement_jobs add column heartbeat_at datetime(6);
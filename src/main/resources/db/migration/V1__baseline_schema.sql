@@ -0,0 +1,123 @@
+-- Schema ban đầu, trước đây do Hibernate ddl-auto=update tạo.
+-- Viết theo cú pháp chung của MySQL và H2 để test chạy cùng migration với production.
+
+create table accounts (
+    id binary(16) not null,
+    account_number varchar(255) not null,
+    account_name varchar(255) not null,
+    balance decimal(38,2) not null,
+    status enum ('ACTIVE','BLOCKED') not null,
+    created_at datetime(6) not null,
+    updated_at datetime(6),
+    balance_slots integer,
+    primary key (id)
+);
+create index idx_accounts_account_number on accounts (account_number);
+
+create table account_balance_slots (
+    account_id binary(16) not null,
+    slot integer not null,
+    balance decimal(38,2) not null,
+    -- account_id đứng đầu để SUM theo tài khoản đi theo khóa chính
+    primary key (account_id, slot)
+);
+
+create table account_number_sequences (
+    name varchar(255) not null,
+    next_value bigint not null,
+    primary key (name)
+);
+
+create table transactions (
+    id binary(16) not null,
+    sender_account_id binary(16) not null,
+    receiver_account_id binary(16) not null,
+    amount decimal(38,2),
+    status enum ('FAILED','SUCCESS'),
+    message varchar(255),
+    created_at datetime(6) not null,
+    primary key (id)
+);
+create index idx_transactions_sender_created on transactions (sender_account_id, created_at);
+create index idx_transactions_receiver_created on transactions (receiver_account_id, created_at);
+create index idx_transactions_created_at on transactions (created_at);
+
+create table outbox_events (
+    id bigint not null auto_increment,
+    aggregate_id binary(16) not null,
+    event_type varchar(64) not null,
+    payload varchar(4000) not null,
+    created_at datetime(6) not null,
+    published_at datetime(6),
+    primary key (id)
+);
+create index idx_outbox_events_published_at on outbox_events (published_at, id);
+
+create table ledger_entries (
+    id bigint not null auto_increment,
+    account_id binary(16) not null,
+    transaction_id binary(16),
+    entry_type enum ('CREDIT','DEBIT') not null,
+    source enum ('ADJUSTMENT','OPENING','TRANSFER') not null,
+    amount decimal(38,2) not null,
+    created_at datetime(6) not null,
+    primary key (id)
+);
+create index idx_ledger_entries_account_id on ledger_entries (account_id, id);
+create index idx_ledger_entries_transaction_id on ledger_entries (transaction_id);
+
+create table balance_snapshots (
+    account_id binary(16) not null,
+    balance decimal(38,2) not null,
+    last_entry_id bigint not null,
+    updated_at datetime(6) not null,
+    primary key (account_id)
+);
+
+create table reconciliation_runs (
+    id bigint not null auto_increment,
+    status enum ('COMPLETED','FAILED','RUNNING') not null,
+    partitions integer not null,
+    completed_partitions integer not null,
+    accounts_checked bigint not null,
+    mismatches bigint not null,
+    started_at datetime(6) not null,
+    finished_at datetime(6),
+    error_message varchar(255),
+    primary key (id)
+);
+
+create table reconciliation_results (
+    id bigint not null auto_increment,
+    run_id bigint not null,
+    account_id binary(16) not null,
+    expected_balance decimal(38,2) not null,
+    actual_balance decimal(38,2) not null,
+    difference decimal(38,2) not null,
+    created_at datetime(6) not null,
+    primary key (id)
+);
+create index idx_reconciliation_results_run_id on reconciliation_results (run_id, id);
+
+create table statement_jobs (
+    id bigint not null auto_increment,
+    statement_month varchar(7) not null,
+    status enum ('COMPLETED','FAILED','RUNNING') not null,
+    total_chunks integer not null,
+    output_dir varchar(255) not null,
+    started_at datetime(6) not null,
+    finished_at datetime(6),
+    error_message varchar(255),
+    primary key (id),
+    constraint uk_statement_jobs_month unique (statement_month)
+);
+
+create table statement_chunks (
+    id bigint not null auto_increment,
+    job_id bigint not null,
+    chunk_index integer not null,
+    accounts_written integer not null,
+    completed_at datetime(6) not null,
+    primary key (id),
+    constraint uk_statement_chunks_job_chunk unique (job_id, chunk_index)
+);
@@ -0,0 +1,20 @@
+create table scheduled_transfers (
+    id bigint not null auto_increment,
+    sender_account_id binary(16) not null,
+    receiver_account_id binary(16) not null,
+    amount decimal(38,2) not null,
+    message varchar(255),
+    recurrence enum ('DAILY','MONTHLY','ONCE','WEEKLY') not null,
+    start_at datetime(6) not null,
+    end_at datetime(6),
+    next_run_at datetime(6) not null,
+    occurrences integer not null,
+    status enum ('ACTIVE','CANCELLED','COMPLETED','FAILED') not null,
+    last_run_at datetime(6),
+    last_transaction_id binary(16),
+    last_error varchar(255),
+    created_at datetime(6) not null,
+    primary key (id)
+);
+create index idx_scheduled_transfers_due on scheduled_transfers (status, next_run_at);
+create index idx_scheduled_transfers_sender on scheduled_transfers (sender_account_id);
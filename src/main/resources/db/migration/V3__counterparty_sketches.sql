@@ -0,0 +1,7 @@
+create table account_counterparty_sketches (
+    account_id binary(16) not null,
+    sketch_date date not null,
+    registers varbinary(4096) not null,
+    updated_at datetime(6) not null,
+    primary key (account_id, sketch_date)
+);
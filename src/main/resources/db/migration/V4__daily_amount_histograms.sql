@@ -0,0 +1,9 @@
+create table daily_amount_histograms (
+    scope_id binary(16) not null,
+    histogram_date date not null,
+    sketch varbinary(32768) not null,
+    transaction_count bigint not null,
+    total_amount decimal(38,2) not null,
+    folded_until datetime(6) not null,
+    primary key (scope_id, histogram_date)
+);
@@ -0,0 +1,13 @@
+create table cross_shard_transfers (
+    id binary(16) not null,
+    sender_account_id binary(16) not null,
+    receiver_account_id binary(16) not null,
+    amount decimal(38,2) not null,
+    message varchar(255),
+    status enum ('COMPENSATED','COMPLETED','PENDING') not null,
+    last_error varchar(255),
+    created_at datetime(6) not null,
+    updated_at datetime(6),
+    primary key (id)
+);
+create index idx_cross_shard_transfers_status on cross_shard_transfers (status, created_at);
@@ -0,0 +1,20 @@
+-- Giao dịch hết hạn lưu giữ được chép sang đây trước khi xóa khỏi transactions (bank.retention.mode=ARCHIVE).
+create table transactions_archive (
+    id binary(16) not null,
+    sender_account_id binary(16) not null,
+    receiver_account_id binary(16) not null,
+    amount decimal(38,2),
+    status enum ('FAILED','SUCCESS'),
+    message varchar(255),
+    created_at datetime(6) not null,
+    archived_at datetime(6) not null,
+    primary key (id)
+);
+
+-- Tài khoản đã xóa còn giao dịch, bút toán và snapshot số dư chờ job retention dọn.
+create table account_deletions (
+    account_id binary(16) not null,
+    deleted_at datetime(6) not null,
+    primary key (account_id)
+);
+create index idx_account_deletions_deleted_at on account_deletions (deleted_at);
@@ -0,0 +1,4 @@
+-- Số tài khoản phải duy nhất: trước đây chỉ có index thường nên số trùng bị chấp nhận âm thầm.
+-- Migration dừng lại nếu dữ liệu cũ đã có số trùng, cần xử lý tay trước khi chạy lại.
+drop index idx_accounts_account_number on accounts;
+create unique index uk_accounts_account_number on accounts (account_number);
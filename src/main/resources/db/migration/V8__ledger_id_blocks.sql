@@ -0,0 +1,17 @@
+-- Id bút toán được cấp theo khối từ bảng này (TableGenerator) thay vì auto_increment,
+-- để Hibernate gom INSERT vào ledger_entries thành JDBC batch.
+create table id_generators (
+    name varchar(64) not null,
+    next_val bigint not null,
+    primary key (name)
+);
+insert into id_generators (name, next_val) select 'ledger_entries', coalesce(max(id), 0) + 1 from ledger_entries;
+
+-- Mốc của các job nền chạy trên nhiều instance, khóa dòng trước khi đọc để không xử lý trùng.
+-- Mốc snapshot số dư trước đây là MAX(balance_snapshots.last_entry_id).
+create table job_watermarks (
+    name varchar(64) not null,
+    watermark bigint not null,
+    primary key (name)
+);
+insert into job_watermarks (name, watermark) select 'balance_snapshots', coalesce(max(last_entry_id), 0) from balance_snapshots;
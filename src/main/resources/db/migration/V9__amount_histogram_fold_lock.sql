@@ -0,0 +1,3 @@
+-- Dòng khóa cho job cộng dồn histogram số tiền: mỗi lát khóa dòng này trước khi đọc MAX(folded_until),
+-- nên hai instance không cộng trùng cùng một lát.
+insert into job_watermarks (name, watermark) values ('amount_histograms', 0);
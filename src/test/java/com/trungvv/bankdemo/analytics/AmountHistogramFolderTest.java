@@ -0,0 +1,169 @@
+package com.trungvv.bankdemo.analytics;
+
+import com.trungvv.bankdemo.model.DailyAmountHistogram;
+import com.trungvv.bankdemo.model.Transaction;
+import com.trungvv.bankdemo.model.TransactionStatus;
+import com.trungvv.bankdemo.repository.DailyAmountHistogramRepository;
+import com.trungvv.bankdemo.repository.JobWatermarkRepository;
+import com.trungvv.bankdemo.repository.TransactionRepository;
+import com.trungvv.bankdemo.shard.ShardRouter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.EmbeddedDatabaseConnection;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@AutoConfigureTestDatabase(connection = EmbeddedDatabaseConnection.H2)
+@SpringBootTest(classes = {com.trungvv.bankdemo.BankDemoApplication.class},
+        properties = "bank.amount-histograms.fold-interval-ms=3600000")
+class AmountHistogramFolderTest {
+
+    @Autowired
+    private AmountHistogramFolder amountHistogramFolder;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private DailyAmountHistogramRepository dailyAmountHistogramRepository;
+
+    @Autowired
+    private JobWatermarkRepository jobWatermarkRepository;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void clean() {
+        // Watermark là chung cho cả bảng: mỗi test bắt đầu từ trạng thái chưa cộng dồn
+        dailyAmountHistogramRepository.deleteAll();
+        transactionRepository.deleteAll();
+    }
+
+    @Test
+    void fold_ShouldAddEachTransactionOnceAndMergeDays() {
+        LocalDate today = LocalDate.now();
+        UUID sender = UUID.randomUUID();
+        UUID other = UUID.randomUUID();
+        List<Transaction> transactions = new ArrayList<>();
+        // Hai ngày trước: sender gửi 1..100, ngày hôm qua: 10 lần 1000, other gửi 5 lần 7
+        for (int i = 1; i <= 100; i++) {
+            transactions.add(transaction(sender, BigDecimal.valueOf(i), today.minusDays(2).atTime(10, 0).plusMinutes(i)));
+        }
+        for (int i = 0; i < 10; i++) {
+            transactions.add(transaction(sender, BigDecimal.valueOf(1000), today.minusDays(1).atTime(23, 50)));
+        }
+        for (int i = 0; i < 5; i++) {
+            transactions.add(transaction(other, new BigDecimal("7.25"), today.minusDays(1).atTime(8, 0)));
+        }
+        Transaction failed = transaction(sender, BigDecimal.valueOf(999_999), today.minusDays(1).atTime(9, 0));
+        failed.setStatus(TransactionStatus.FAILED);
+        transactions.add(failed);
+        transactionRepository.saveAll(transactions);
+
+        LocalDateTime cutoff = today.atStartOfDay();
+        assertEquals(115, amountHistogramFolder.fold(cutoff));
+        // Lượt sau chỉ đọc từ watermark: không cộng lại giao dịch đã cộng
+        assertEquals(0, amountHistogramFolder.fold(cutoff));
+
+        AmountHistogramFolder.Distribution dayBefore = amountHistogramFolder.distribution(sender, today.minusDays(2), today.minusDays(2));
+        assertEquals(100, dayBefore.histogram().count());
+        assertEquals(0, BigDecimal.valueOf(5050).compareTo(dayBefore.totalAmount()));
+        assertEquals(5000, dayBefore.histogram().quantile(0.5), 5000 * AmountHistogram.RELATIVE_ACCURACY);
+        assertEquals(cutoff, dayBefore.foldedUntil());
+
+        AmountHistogramFolder.Distribution twoDays = amountHistogramFolder.distribution(sender, today.minusDays(2), today);
+        assertEquals(110, twoDays.histogram().count());
+        assertEquals(100_000, twoDays.histogram().quantile(0.95), 100_000 * AmountHistogram.RELATIVE_ACCURACY);
+
+        AmountHistogramFolder.Distribution global = amountHistogramFolder.distribution(DailyAmountHistogram.GLOBAL_SCOPE, today.minusDays(1), today.minusDays(1));
+        assertEquals(15, global.histogram().count());
+        assertEquals(725, global.histogram().quantile(0.2), 725 * AmountHistogram.RELATIVE_ACCURACY);
+        assertEquals(0, new BigDecimal("10036.25").compareTo(global.totalAmount()));
+
+        // Giao dịch mới sau watermark được cộng ở lượt kế tiếp
+        transactionRepository.save(transaction(other, new BigDecimal("7.25"), today.atTime(0, 30)));
+        assertEquals(1, amountHistogramFolder.fold(today.atTime(1, 0)));
+        assertEquals(6, amountHistogramFolder.distribution(other, today.minusDays(1), today).histogram().count());
+    }
+
+    @Test
+    void fold_ShouldSkipSubCentAmountAndAdvanceWatermark() {
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        UUID sender = UUID.randomUUID();
+        // 0.004 qua được kiểm tra số tiền nhưng được lưu thành 0.00
+        transactionRepository.saveAll(List.of(
+                transaction(sender, new BigDecimal("0.00"), yesterday.atTime(9, 0)),
+                transaction(sender, new BigDecimal("12.50"), yesterday.atTime(9, 30))));
+
+        LocalDateTime cutoff = yesterday.atTime(12, 0);
+        assertEquals(1, amountHistogramFolder.fold(cutoff));
+
+        AmountHistogramFolder.Distribution distribution = amountHistogramFolder.distribution(sender, yesterday, yesterday);
+        assertEquals(1, distribution.histogram().count());
+        assertEquals(0, new BigDecimal("12.50").compareTo(distribution.totalAmount()));
+        assertEquals(cutoff, distribution.foldedUntil());
+    }
+
+    @Test
+    void fold_ShouldNotDoubleCountWhenInstancesRunConcurrently() throws Exception {
+        LocalDate day = LocalDate.now().minusDays(3);
+        UUID sender = UUID.randomUUID();
+        List<Transaction> transactions = new ArrayList<>();
+        for (int hour = 0; hour < 48; hour++) {
+            for (int i = 0; i < 5; i++) {
+                transactions.add(transaction(sender, BigDecimal.TEN, day.atStartOfDay().plusHours(hour).plusMinutes(i)));
+            }
+        }
+        transactionRepository.saveAll(transactions);
+
+        // Instance thứ hai: synchronized của từng bean không che được nhau, chỉ còn khóa dòng job_watermarks
+        AmountHistogramFolder otherInstance = new AmountHistogramFolder(transactionRepository,
+                dailyAmountHistogramRepository, jobWatermarkRepository, shardRouter, transactionManager, 60);
+        LocalDateTime cutoff = day.plusDays(2).atStartOfDay();
+        CountDownLatch start = new CountDownLatch(1);
+        CompletableFuture<Long> first = CompletableFuture.supplyAsync(() -> awaitThenFold(start, amountHistogramFolder, cutoff));
+        CompletableFuture<Long> second = CompletableFuture.supplyAsync(() -> awaitThenFold(start, otherInstance, cutoff));
+        start.countDown();
+
+        assertEquals(240, first.get() + second.get());
+        assertEquals(240, amountHistogramFolder.distribution(sender, day, day.plusDays(1)).histogram().count());
+    }
+
+    private static long awaitThenFold(CountDownLatch start, AmountHistogramFolder folder, LocalDateTime cutoff) {
+        try {
+            start.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+        return folder.fold(cutoff);
+    }
+
+    private static Transaction transaction(UUID sender, BigDecimal amount, LocalDateTime createdAt) {
+        return Transaction.builder()
+                .senderAccountId(sender)
+                .receiverAccountId(UUID.randomUUID())
+                .amount(amount)
+                .status(TransactionStatus.SUCCESS)
+                .message("Histogram")
+                .createdAt(createdAt)
+                .build();
+    }
+}
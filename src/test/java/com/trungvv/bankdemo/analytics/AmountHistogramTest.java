@@ -0,0 +1,69 @@
+package com.trungvv.bankdemo.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AmountHistogramTest {
+
+    @Test
+    void quantile_ShouldStayWithinRelativeAccuracy() {
+        Random random = new Random(42);
+        long[] values = new long[100_000];
+        AmountHistogram histogram = new AmountHistogram();
+        for (int i = 0; i < values.length; i++) {
+            // Phân phối lệch mạnh: từ 1 xu tới hàng tỷ
+            values[i] = 1 + (long) Math.exp(random.nextDouble() * 25);
+            histogram.add(values[i]);
+        }
+        Arrays.sort(values);
+
+        for (double q : new double[]{0.0, 0.5, 0.95, 0.99, 1.0}) {
+            long exact = values[(int) Math.max(0, Math.ceil(q * values.length) - 1)];
+            long estimate = histogram.quantile(q);
+            assertTrue(Math.abs(estimate - exact) <= Math.ceil(exact * AmountHistogram.RELATIVE_ACCURACY),
+                    "q=" + q + " exact=" + exact + " estimate=" + estimate);
+        }
+        assertEquals(values.length, histogram.count());
+    }
+
+    @Test
+    void merge_ShouldEqualHistogramOfAllValues() {
+        AmountHistogram first = new AmountHistogram();
+        AmountHistogram second = new AmountHistogram();
+        AmountHistogram all = new AmountHistogram();
+        for (long cents = 1; cents <= 10_000; cents++) {
+            (cents % 3 == 0 ? first : second).add(cents * 7);
+            all.add(cents * 7);
+        }
+
+        first.merge(second);
+
+        assertArrayEquals(all.toBytes(), first.toBytes());
+        assertEquals(all.quantile(0.99), first.quantile(0.99));
+    }
+
+    @Test
+    void bytes_ShouldRoundTrip() {
+        AmountHistogram histogram = new AmountHistogram();
+        histogram.add(1);
+        histogram.add(50_000);
+        histogram.add(50_000);
+        histogram.add(Long.MAX_VALUE / 2);
+
+        AmountHistogram copy = AmountHistogram.fromBytes(histogram.toBytes());
+
+        assertEquals(4, copy.count());
+        assertEquals(histogram.quantile(0.5), copy.quantile(0.5));
+        assertEquals(histogram.quantile(1), copy.quantile(1));
+        assertEquals(0, AmountHistogram.fromBytes(new AmountHistogram().toBytes()).count());
+    }
+
+    @Test
+    void add_ShouldRejectNonPositiveAmount() {
+        assertThrows(IllegalArgumentException.class, () -> new AmountHistogram().add(0));
+    }
+}
@@ -0,0 +1,122 @@
+package com.trungvv.bankdemo.analytics;
+
+import com.trungvv.bankdemo.model.CounterpartySketch;
+import com.trungvv.bankdemo.outbox.OutboxRelay;
+import com.trungvv.bankdemo.outbox.TransactionEventBus;
+import com.trungvv.bankdemo.repository.CounterpartySketchRepository;
+import com.trungvv.bankdemo.repository.TransactionRepository;
+import com.trungvv.bankdemo.service.AccountService;
+import com.trungvv.bankdemo.service.TransactionService;
+import com.trungvv.bankdemo.shard.ShardRouter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.EmbeddedDatabaseConnection;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@AutoConfigureTestDatabase(connection = EmbeddedDatabaseConnection.H2)
+@SpringBootTest(classes = {com.trungvv.bankdemo.BankDemoApplication.class},
+        properties = "bank.counterparties.flush-interval-ms=3600000")
+class CounterpartyTrackerTest {
+
+    @Autowired
+    private CounterpartyTracker counterpartyTracker;
+
+    @Autowired
+    private CounterpartySketchRepository counterpartySketchRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private TransactionEventBus transactionEventBus;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private OutboxRelay outboxRelay;
+
+    @Test
+    void onEvent_ShouldCountBothSidesOfCommittedTransfers() {
+        UUID hub = accountService.createAccount("Hub", BigDecimal.valueOf(1000)).getId();
+        List<UUID> others = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            UUID other = accountService.createAccount("Counterparty " + i, BigDecimal.valueOf(100)).getId();
+            others.add(other);
+            transactionService.createTransaction(hub, other, BigDecimal.ONE, "Out " + i);
+            transactionService.createTransaction(hub, other, BigDecimal.ONE, "Out again " + i);
+        }
+        transactionService.createTransaction(others.get(0), hub, BigDecimal.ONE, "Back");
+
+        outboxRelay.publishPending();
+        LocalDate today = LocalDate.now();
+
+        assertEquals(5, counterpartyTracker.estimateDistinctCounterparties(hub, today, today));
+        assertEquals(1, counterpartyTracker.estimateDistinctCounterparties(others.get(0), today, today));
+        // Sau flush kết quả đọc từ DB vẫn như cũ, flush lại không đổi
+        assertTrue(counterpartyTracker.flush() > 0);
+        assertEquals(5, counterpartyTracker.estimateDistinctCounterparties(hub, today, today));
+        assertEquals(0, counterpartyTracker.flush());
+        assertTrue(counterpartySketchRepository.existsById(new CounterpartySketch.SketchId(hub, today)));
+    }
+
+    @Test
+    void estimate_ShouldMergeDailySketchesForRange() {
+        // Seed cố định: ước lượng không phụ thuộc việc các UUID ngẫu nhiên có rơi vào cùng register hay không
+        Random random = new Random(7);
+        UUID account = new UUID(random.nextLong(), random.nextLong());
+        LocalDate today = LocalDate.now();
+        UUID regular = new UUID(random.nextLong(), random.nextLong());
+        for (int day = 0; day < 30; day++) {
+            counterpartyTracker.record(account, regular, today.minusDays(day));
+            counterpartyTracker.record(account, new UUID(random.nextLong(), random.nextLong()), today.minusDays(day));
+        }
+        counterpartyTracker.flush();
+        // Một phần chưa flush cũng được tính
+        counterpartyTracker.record(new UUID(random.nextLong(), random.nextLong()), account, today);
+
+        assertEquals(3, counterpartyTracker.estimateDistinctCounterparties(account, today, today));
+        assertEquals(9, counterpartyTracker.estimateDistinctCounterparties(account, today.minusDays(6), today));
+        assertEquals(32, counterpartyTracker.estimateDistinctCounterparties(account, today.minusDays(29), today));
+        assertEquals(0, counterpartyTracker.estimateDistinctCounterparties(account, today.minusDays(60), today.minusDays(31)));
+    }
+
+    @Test
+    void start_ShouldReplayRecentTransactionsAfterRestart() throws Exception {
+        UUID sender = accountService.createAccount("Replay sender", BigDecimal.valueOf(100)).getId();
+        for (int i = 0; i < 3; i++) {
+            UUID receiver = accountService.createAccount("Replay receiver " + i, BigDecimal.ZERO).getId();
+            transactionService.createTransaction(sender, receiver, BigDecimal.ONE, "Replay " + i);
+        }
+
+        // Tracker mới chưa nhận sự kiện nào: chỉ có trạng thái phát lại từ bảng transactions
+        CounterpartyTracker restarted = new CounterpartyTracker(transactionEventBus, transactionRepository,
+                counterpartySketchRepository, shardRouter, transactionManager, 10, 500);
+        restarted.start();
+        try {
+            assertEquals(3, restarted.estimateDistinctCounterparties(sender, LocalDate.now(), LocalDate.now()));
+        } finally {
+            restarted.stop();
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.trungvv.bankdemo.analytics;
+
+import com.trungvv.bankdemo.dto.AccountDaySummaryDto;
+import com.trungvv.bankdemo.model.Transaction;
+import com.trungvv.bankdemo.model.TransactionStatus;
+import com.trungvv.bankdemo.repository.TransactionRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.EmbeddedDatabaseConnection;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@AutoConfigureTestDatabase(connection = EmbeddedDatabaseConnection.H2)
+@SpringBootTest(classes = {com.trungvv.bankdemo.BankDemoApplication.class})
+class DailySummaryCacheTest {
+
+    @Autowired
+    private DailySummaryCache dailySummaryCache;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void summarize_ShouldComputeBothSidesAndCacheOnlyClosedDays() {
+        // Các ngày xa trong quá khứ để không lẫn với giao dịch của test khác dùng chung database
+        LocalDate day = LocalDate.of(2001, 3, 10);
+        UUID alice = UUID.randomUUID();
+        UUID bob = UUID.randomUUID();
+        transactionRepository.saveAll(List.of(
+                transaction(alice, bob, "100.00", day.atTime(9, 0), TransactionStatus.SUCCESS),
+                transaction(alice, bob, "50.50", day.atTime(23, 59), TransactionStatus.SUCCESS),
+                transaction(bob, alice, "20.00", day.atTime(12, 0), TransactionStatus.SUCCESS),
+                transaction(bob, alice, "999.00", day.atTime(13, 0), TransactionStatus.FAILED),
+                transaction(bob, alice, "7.00", day.plusDays(1).atTime(0, 0), TransactionStatus.SUCCESS)));
+
+        LocalDateTime now = day.plusDays(1).atTime(12, 0);
+        List<AccountDaySummaryDto> summaries = dailySummaryCache.summarize(day, day.plusDays(1), now);
+
+        assertEquals(4, summaries.size());
+        AccountDaySummaryDto aliceFirstDay = find(summaries, day, alice);
+        assertEquals(2, aliceFirstDay.getSentCount());
+        assertEquals(0, new BigDecimal("150.50").compareTo(aliceFirstDay.getSentAmount()));
+        assertEquals(1, aliceFirstDay.getReceivedCount());
+        assertEquals(0, new BigDecimal("-130.50").compareTo(aliceFirstDay.getNetAmount()));
+        AccountDaySummaryDto bobSecondDay = find(summaries, day.plusDays(1), bob);
+        assertEquals(0, bobSecondDay.getReceivedCount());
+        assertEquals(0, new BigDecimal("-7.00").compareTo(bobSecondDay.getNetAmount()));
+        assertEquals(day, summaries.get(0).getDate());
+
+        // Ngày đã đóng được đọc từ cache, ngày đang mở được tính lại
+        transactionRepository.saveAll(List.of(
+                transaction(alice, bob, "1.00", day.atTime(10, 0), TransactionStatus.SUCCESS),
+                transaction(alice, bob, "3.00", day.plusDays(1).atTime(11, 0), TransactionStatus.SUCCESS)));
+        summaries = dailySummaryCache.summarize(day, day.plusDays(1), now);
+
+        assertEquals(2, find(summaries, day, alice).getSentCount());
+        assertEquals(1, find(summaries, day.plusDays(1), alice).getSentCount());
+
+        dailySummaryCache.evict(day);
+        summaries = dailySummaryCache.summarize(day, day, now);
+        assertEquals(3, find(summaries, day, alice).getSentCount());
+    }
+
+    @Test
+    void summarize_ShouldNotCacheDayInsideCloseLag() {
+        LocalDate day = LocalDate.of(2001, 5, 20);
+        UUID sender = UUID.randomUUID();
+        transactionRepository.save(transaction(sender, UUID.randomUUID(), "5.00", day.atTime(23, 59, 59), TransactionStatus.SUCCESS));
+
+        // Vài giây sau nửa đêm giao dịch cuối ngày có thể chưa commit
+        dailySummaryCache.summarize(day, day, day.plusDays(1).atTime(0, 0, 10));
+        transactionRepository.save(transaction(sender, UUID.randomUUID(), "5.00", day.atTime(23, 59, 59), TransactionStatus.SUCCESS));
+
+        assertEquals(2, find(dailySummaryCache.summarize(day, day, day.plusDays(2).atStartOfDay()), day, sender).getSentCount());
+    }
+
+    @Test
+    void evictAfterCommit_ShouldNotLetConcurrentReadCacheUncommittedDay() {
+        LocalDate day = LocalDate.of(2001, 7, 1);
+        LocalDateTime now = day.plusDays(2).atStartOfDay();
+        UUID sender = UUID.randomUUID();
+        transactionRepository.save(transaction(sender, UUID.randomUUID(), "5.00", day.atTime(9, 0), TransactionStatus.SUCCESS));
+        dailySummaryCache.summarize(day, day, now);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            transactionRepository.save(transaction(sender, UUID.randomUUID(), "5.00", day.atTime(10, 0), TransactionStatus.SUCCESS));
+            dailySummaryCache.evictAfterCommit(day);
+            // Lượt đọc chen giữa vẫn thấy bản cũ trong cache, không tính lại và cache dữ liệu chưa commit
+            assertEquals(1, find(dailySummaryCache.summarize(day, day, now), day, sender).getSentCount());
+        });
+
+        assertEquals(2, find(dailySummaryCache.summarize(day, day, now), day, sender).getSentCount());
+    }
+
+    private static AccountDaySummaryDto find(List<AccountDaySummaryDto> summaries, LocalDate date, UUID accountId) {
+        return summaries.stream()
+                .filter(summary -> summary.getDate().equals(date) && summary.getAccountId().equals(accountId))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private static Transaction transaction(UUID sender, UUID receiver, String amount, LocalDateTime createdAt, TransactionStatus status) {
+        return Transaction.builder()
+                .senderAccountId(sender)
+                .receiverAccountId(receiver)
+                .amount(new BigDecimal(amount))
+                .status(status)
+                .message("Summary")
+                .createdAt(createdAt)
+                .build();
+    }
+}
@@ -0,0 +1,72 @@
+package com.trungvv.bankdemo.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HyperLogLogTest {
+
+    @Test
+    void estimate_ShouldBeNearlyExactForSmallSets() {
+        HyperLogLog sketch = new HyperLogLog();
+        for (int i = 0; i < 50; i++) {
+            UUID counterparty = UUID.randomUUID();
+            sketch.add(counterparty);
+            // Thêm lại không làm tăng ước lượng
+            sketch.add(counterparty);
+        }
+
+        assertEquals(50, sketch.estimate(), 1);
+    }
+
+    @Test
+    void estimate_ShouldStayWithinThreeStandardErrors() {
+        // Seed cố định: với UUID ngẫu nhiên mỗi lần chạy, cận 3σ vẫn trượt khoảng 1% số lần
+        Random random = new Random(42);
+        for (int n : new int[]{1_000, 10_000, 200_000}) {
+            HyperLogLog sketch = new HyperLogLog();
+            for (int i = 0; i < n; i++) {
+                sketch.add(new UUID(random.nextLong(), random.nextLong()));
+            }
+            double relativeError = Math.abs(sketch.estimate() - n) / (double) n;
+            assertTrue(relativeError <= 3 * HyperLogLog.RELATIVE_STANDARD_ERROR, "n=" + n + " error=" + relativeError);
+        }
+    }
+
+    @Test
+    void merge_ShouldEstimateUnionAndBeIdempotent() {
+        HyperLogLog monday = new HyperLogLog();
+        HyperLogLog tuesday = new HyperLogLog();
+        for (int i = 0; i < 3000; i++) {
+            UUID counterparty = UUID.randomUUID();
+            monday.add(counterparty);
+            if (i % 3 == 0) {
+                tuesday.add(counterparty);
+            }
+        }
+        for (int i = 0; i < 1000; i++) {
+            tuesday.add(UUID.randomUUID());
+        }
+
+        HyperLogLog union = HyperLogLog.fromBytes(monday.toBytes());
+        union.merge(tuesday);
+        long once = union.estimate();
+        union.merge(tuesday);
+
+        assertEquals(once, union.estimate());
+        assertEquals(4000, once, 4000 * 3 * HyperLogLog.RELATIVE_STANDARD_ERROR);
+    }
+
+    @Test
+    void fromBytes_ShouldRoundTripAndRejectWrongSize() {
+        HyperLogLog sketch = new HyperLogLog();
+        sketch.add(UUID.randomUUID());
+
+        assertEquals(sketch, HyperLogLog.fromBytes(sketch.toBytes()));
+        assertEquals(HyperLogLog.REGISTERS, sketch.toBytes().length);
+        assertThrows(IllegalArgumentException.class, () -> HyperLogLog.fromBytes(new byte[16]));
+    }
+}
@@ -0,0 +1,97 @@
+package com.trungvv.bankdemo.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpaceSavingTest {
+
+    @Test
+    void offer_ShouldBeExact_WhenKeysFitInCapacity() {
+        SpaceSaving summary = new SpaceSaving(10);
+        UUID a = UUID.randomUUID();
+        UUID b = UUID.randomUUID();
+        summary.offer(a, 5);
+        summary.offer(b, 7);
+        summary.offer(a, 4);
+
+        List<SpaceSaving.Counter> top = summary.top(10);
+        assertEquals(2, top.size());
+        assertEquals(a, top.get(0).key);
+        assertEquals(9, top.get(0).count);
+        assertEquals(0, top.get(0).error);
+        assertEquals(0, summary.absentBound());
+    }
+
+    @Test
+    void offer_ShouldKeepHeavyHittersWithValidBounds_WhenStreamExceedsCapacity() {
+        Random random = new Random(7);
+        List<UUID> keys = keys(5000);
+        Map<UUID, Long> truth = new HashMap<>();
+        SpaceSaving summary = new SpaceSaving(100);
+        for (int i = 0; i < 200_000; i++) {
+            // 10 tài khoản nóng chiếm ~ nửa lưu lượng
+            UUID key = random.nextBoolean() ? keys.get(random.nextInt(10)) : keys.get(random.nextInt(keys.size()));
+            long weight = 1 + random.nextInt(100);
+            summary.offer(key, weight);
+            truth.merge(key, weight, Long::sum);
+        }
+
+        assertEquals(100, summary.size());
+        assertBounds(summary, truth);
+        List<UUID> topTen = summary.top(10).stream().map(c -> c.key).toList();
+        assertTrue(topTen.containsAll(keys.subList(0, 10)));
+    }
+
+    @Test
+    void merge_ShouldPreserveBoundsAcrossWindows() {
+        Random random = new Random(11);
+        List<UUID> keys = keys(2000);
+        Map<UUID, Long> truth = new HashMap<>();
+        List<SpaceSaving> parts = new ArrayList<>();
+        for (int w = 0; w < 6; w++) {
+            SpaceSaving part = new SpaceSaving(50);
+            for (int i = 0; i < 20_000; i++) {
+                UUID key = random.nextInt(3) == 0 ? keys.get(random.nextInt(5)) : keys.get(random.nextInt(keys.size()));
+                part.offer(key, 10);
+                truth.merge(key, 10L, Long::sum);
+            }
+            parts.add(part);
+        }
+
+        SpaceSaving merged = SpaceSaving.merge(parts, 50);
+
+        assertEquals(50, merged.size());
+        assertBounds(merged, truth);
+        assertTrue(merged.top(5).stream().map(c -> c.key).toList().containsAll(keys.subList(0, 5)));
+    }
+
+    private static void assertBounds(SpaceSaving summary, Map<UUID, Long> truth) {
+        for (SpaceSaving.Counter counter : summary.counters()) {
+            long actual = truth.getOrDefault(counter.key, 0L);
+            assertTrue(counter.count >= actual, "count must be an upper bound");
+            assertTrue(counter.count - counter.error <= actual, "count - error must be a lower bound");
+        }
+        for (Map.Entry<UUID, Long> entry : truth.entrySet()) {
+            boolean tracked = summary.counters().stream().anyMatch(c -> c.key.equals(entry.getKey()));
+            if (!tracked) {
+                assertTrue(entry.getValue() <= summary.absentBound(), "absent keys must stay under absentBound");
+            }
+        }
+    }
+
+    private static List<UUID> keys(int n) {
+        List<UUID> keys = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            keys.add(new UUID(0, i));
+        }
+        return keys;
+    }
+}
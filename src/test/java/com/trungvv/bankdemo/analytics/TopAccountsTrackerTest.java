@@ -0,0 +1,105 @@
+package com.trungvv.bankdemo.analytics;
+
+import com.trungvv.bankdemo.dto.TopAccountDto;
+import com.trungvv.bankdemo.dto.TransactionDto;
+import com.trungvv.bankdemo.outbox.TransactionEvent;
+import com.trungvv.bankdemo.outbox.TransactionEventBus;
+import com.trungvv.bankdemo.service.OutboxService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TopAccountsTrackerTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 3, 10, 14, 32, 0);
+
+    private TopAccountsTracker tracker;
+    private UUID alice;
+    private UUID bob;
+    private UUID carol;
+
+    @BeforeEach
+    void setUp() {
+        tracker = new TopAccountsTracker(Mockito.mock(TransactionEventBus.class), 100);
+        alice = UUID.randomUUID();
+        bob = UUID.randomUUID();
+        carol = UUID.randomUUID();
+    }
+
+    @Test
+    void top_ShouldRankSendersByVolumeInLastHour() {
+        tracker.record(transfer(alice, carol, "100.50"), NOW.minusMinutes(50));
+        tracker.record(transfer(bob, carol, "300"), NOW.minusMinutes(10));
+        tracker.record(transfer(alice, bob, "50"), NOW);
+        // Ngoài giờ gần nhất
+        tracker.record(transfer(bob, carol, "1000"), NOW.minusHours(2));
+
+        List<TopAccountDto> top = tracker.top(TopAccountsTracker.Range.HOUR, TopAccountsTracker.Side.SENDER, 10, millis(NOW));
+
+        assertEquals(List.of(bob, alice), top.stream().map(TopAccountDto::getAccountId).toList());
+        assertEquals(0, new BigDecimal("300").compareTo(top.get(0).getVolume()));
+        assertEquals(0, new BigDecimal("150.50").compareTo(top.get(1).getVolume()));
+        assertEquals(0, BigDecimal.ZERO.compareTo(top.get(1).getMaxError()));
+    }
+
+    @Test
+    void top_ShouldCoverLastDayAndReceiverSide() {
+        tracker.record(transfer(alice, carol, "100"), NOW.minusHours(20));
+        tracker.record(transfer(bob, carol, "300"), NOW.minusHours(2));
+        tracker.record(transfer(carol, bob, "50"), NOW.minusMinutes(1));
+
+        List<TopAccountDto> top = tracker.top(TopAccountsTracker.Range.DAY, TopAccountsTracker.Side.RECEIVER, 1, millis(NOW));
+
+        assertEquals(1, top.size());
+        assertEquals(carol, top.get(0).getAccountId());
+        assertEquals(0, new BigDecimal("400").compareTo(top.get(0).getVolume()));
+    }
+
+    @Test
+    void top_ShouldIncludeLateEventsForClosedWindows() {
+        tracker.record(transfer(alice, carol, "100"), NOW.minusMinutes(30));
+        assertEquals(alice, tracker.top(TopAccountsTracker.Range.HOUR, TopAccountsTracker.Side.SENDER, 1, millis(NOW)).get(0).getAccountId());
+
+        // Relay giao sự kiện muộn thuộc cửa sổ đã đóng và đã được cache
+        tracker.record(transfer(bob, carol, "500"), NOW.minusMinutes(20));
+
+        assertEquals(bob, tracker.top(TopAccountsTracker.Range.HOUR, TopAccountsTracker.Side.SENDER, 1, millis(NOW)).get(0).getAccountId());
+    }
+
+    @Test
+    void onEvent_ShouldCountOnlyCompletedTransactions() {
+        tracker.onEvent(new TransactionEvent(1L, OutboxService.TRANSACTION_COMPLETED, LocalDateTime.now(), transfer(alice, bob, "10")));
+        tracker.onEvent(new TransactionEvent(2L, "ACCOUNT_CREATED", LocalDateTime.now(), transfer(bob, alice, "10")));
+
+        List<TopAccountDto> top = tracker.top(TopAccountsTracker.Range.HOUR, TopAccountsTracker.Side.SENDER, 10);
+        assertEquals(List.of(alice), top.stream().map(TopAccountDto::getAccountId).toList());
+    }
+
+    @Test
+    void top_ShouldRejectLimitOutsideCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> tracker.top(TopAccountsTracker.Range.HOUR, TopAccountsTracker.Side.SENDER, 0));
+        assertThrows(IllegalArgumentException.class, () -> tracker.top(TopAccountsTracker.Range.HOUR, TopAccountsTracker.Side.SENDER, 101));
+    }
+
+    private static TransactionDto transfer(UUID sender, UUID receiver, String amount) {
+        return TransactionDto.builder()
+                .id(UUID.randomUUID())
+                .senderAccountId(sender)
+                .receiverAccountId(receiver)
+                .amount(new BigDecimal(amount))
+                .status("SUCCESS")
+                .build();
+    }
+
+    private static long millis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,82 @@
+package com.trungvv.bankdemo.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trungvv.bankdemo.dto.AccountDto;
+import com.trungvv.bankdemo.dto.TransactionDto;
+import com.trungvv.bankdemo.json.DtoJsonSerializers;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.domain.Page;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * So sánh BeanSerializer mặc định của Jackson với serializer viết tay (DtoJsonSerializers)
+ * cho các response danh sách lớn (List<TransactionDto>, Page<AccountDto>).
+ *
+ * Chạy: mvn test-compile exec:java -Dexec.classpathScope=test
+ *       -Dexec.mainClass=com.trungvv.bankdemo.benchmark.JsonSerializerBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonSerializerBenchmark {
+
+    @Param({"1000"})
+    private int size;
+
+    private ObjectMapper beanMapper;
+    private ObjectMapper handWrittenMapper;
+    private List<TransactionDto> transactions;
+    private Page<AccountDto> accountPage;
+
+    @Setup
+    public void setUp() {
+        beanMapper = Jackson2ObjectMapperBuilder.json().build();
+        handWrittenMapper = Jackson2ObjectMapperBuilder.json().modules(DtoJsonSerializers.module()).build();
+        transactions = WireFormatBenchmark.sampleTransactions(size);
+        accountPage = WireFormatBenchmark.sampleAccountPage(size);
+    }
+
+    @Benchmark
+    public byte[] transactionsBean() throws Exception {
+        return beanMapper.writeValueAsBytes(transactions);
+    }
+
+    @Benchmark
+    public byte[] transactionsHandWritten() throws Exception {
+        return handWrittenMapper.writeValueAsBytes(transactions);
+    }
+
+    @Benchmark
+    public byte[] accountPageBean() throws Exception {
+        return beanMapper.writeValueAsBytes(accountPage);
+    }
+
+    @Benchmark
+    public byte[] accountPageHandWritten() throws Exception {
+        return handWrittenMapper.writeValueAsBytes(accountPage);
+    }
+
+    public static void main(String[] args) throws Exception {
+        JsonSerializerBenchmark benchmark = new JsonSerializerBenchmark();
+        benchmark.size = 1000;
+        benchmark.setUp();
+        // Hai cách phải cho cùng một payload
+        System.out.printf("List<TransactionDto> x%d: identical=%b%n", benchmark.size,
+                Arrays.equals(benchmark.transactionsBean(), benchmark.transactionsHandWritten()));
+        System.out.printf("Page<AccountDto> x%d:     identical=%b%n", benchmark.size,
+                Arrays.equals(benchmark.accountPageBean(), benchmark.accountPageHandWritten()));
+
+        new Runner(new OptionsBuilder()
+                .include(JsonSerializerBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,149 @@
+package com.trungvv.bankdemo.benchmark;
+
+import com.trungvv.bankdemo.BankDemoApplication;
+import com.trungvv.bankdemo.dto.AccountDto;
+import com.trungvv.bankdemo.dto.TransactionDto;
+import com.trungvv.bankdemo.mapper.AccountMapper;
+import com.trungvv.bankdemo.mapper.TransactionMapper;
+import com.trungvv.bankdemo.model.Account;
+import com.trungvv.bankdemo.model.AccountStatus;
+import com.trungvv.bankdemo.model.Transaction;
+import com.trungvv.bankdemo.model.TransactionStatus;
+import com.trungvv.bankdemo.repository.AccountRepository;
+import com.trungvv.bankdemo.repository.TransactionRepository;
+import com.trungvv.bankdemo.service.AccountService;
+import com.trungvv.bankdemo.service.TransactionService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * So sánh đường đọc cũ (nạp entity + dirty checking + MapStruct) với truy vấn chiếu DTO
+ * chạy trong transaction read-only, trên H2 in-memory với các trang lớn.
+ * GCProfiler báo cáo lượng cấp phát (gc.alloc.rate.norm) cho mỗi lần gọi.
+ *
+ * Chạy: mvn test-compile exec:java -Dexec.classpathScope=test
+ *       -Dexec.mainClass=com.trungvv.bankdemo.benchmark.ReadPathBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReadPathBenchmark {
+
+    @Param({"2000"})
+    private int pageSize;
+
+    private ConfigurableApplicationContext context;
+    private AccountRepository accountRepository;
+    private TransactionRepository transactionRepository;
+    private AccountMapper accountMapper;
+    private TransactionMapper transactionMapper;
+    private AccountService accountService;
+    private TransactionService transactionService;
+    private TransactionTemplate readWriteTransaction;
+    private UUID hotAccountId;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(BankDemoApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:readpath;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.show-sql=false",
+                        "--spring.devtools.restart.enabled=false",
+                        "--logging.level.root=WARN");
+        accountRepository = context.getBean(AccountRepository.class);
+        transactionRepository = context.getBean(TransactionRepository.class);
+        accountMapper = context.getBean(AccountMapper.class);
+        transactionMapper = context.getBean(TransactionMapper.class);
+        accountService = context.getBean(AccountService.class);
+        transactionService = context.getBean(TransactionService.class);
+        readWriteTransaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        seed();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    private void seed() {
+        List<Account> accounts = new ArrayList<>();
+        for (int i = 0; i < pageSize; i++) {
+            accounts.add(Account.builder()
+                    .accountNumber(String.format("%08d", i))
+                    .accountName("Benchmark " + i)
+                    .balance(BigDecimal.valueOf(1_000_000))
+                    .status(AccountStatus.ACTIVE)
+                    .createdAt(LocalDateTime.now())
+                    .build());
+        }
+        accounts = accountRepository.saveAll(accounts);
+        hotAccountId = accounts.get(0).getId();
+
+        List<Transaction> transactions = new ArrayList<>();
+        for (int i = 1; i <= pageSize; i++) {
+            transactions.add(Transaction.builder()
+                    .senderAccountId(hotAccountId)
+                    .receiverAccountId(accounts.get(i % accounts.size()).getId())
+                    .amount(BigDecimal.valueOf(i))
+                    .status(TransactionStatus.SUCCESS)
+                    .message("Benchmark " + i)
+                    .createdAt(LocalDateTime.now())
+                    .build());
+        }
+        transactionRepository.saveAll(transactions);
+    }
+
+    @Benchmark
+    public List<AccountDto> accountsEntityPath() {
+        return readWriteTransaction.execute(status -> accountMapper.accountsToAccountDtos(
+                accountRepository.findByKeySearch("Benchmark", AccountStatus.ACTIVE, PageRequest.of(0, pageSize)).getContent()));
+    }
+
+    @Benchmark
+    public Page<AccountDto> accountsProjectionPath() {
+        return accountService.listAccountsByKey("Benchmark", "ACTIVE", 0, pageSize);
+    }
+
+    @Benchmark
+    public List<TransactionDto> transactionsEntityPath() {
+        LocalDate today = LocalDate.now();
+        return readWriteTransaction.execute(status -> transactionMapper.transactionsToTransactionDtos(
+                transactionRepository.findByCreatedAtBetween(today.minusDays(1), today, hotAccountId, null, "ALL", PageRequest.of(0, pageSize)).getContent()));
+    }
+
+    @Benchmark
+    public Page<TransactionDto> transactionsProjectionPath() {
+        LocalDate today = LocalDate.now();
+        return transactionService.listTransactionsByDateRange(today.minusDays(1), today, hotAccountId, null, "ALL", 0, pageSize);
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(ReadPathBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,182 @@
+package com.trungvv.bankdemo.benchmark;
+
+import com.trungvv.bankdemo.BankDemoApplication;
+import com.trungvv.bankdemo.dto.AccountDto;
+import com.trungvv.bankdemo.service.AccountService;
+import com.trungvv.bankdemo.shard.ShardRouter;
+import com.trungvv.bankdemo.shard.TransferCoordinator;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Đo thông lượng chuyển tiền theo số shard: mỗi cấu hình khởi động ứng dụng (không web) với N database,
+ * tạo --accounts tài khoản chia đều các shard, rồi --threads thread chuyển tiền liên tục trong --duration giây.
+ * --cross-shard là tỉ lệ chuyển tiền giữa hai shard (saga), còn lại là chuyển trong cùng shard.
+ * In số giao dịch/giây và hiệu suất so với tuyến tính (throughput / (throughput 1 shard × N)).
+ *
+ * Mặc định mỗi shard là một H2 in-memory trong cùng JVM, các shard dùng chung CPU nên chỉ thấy phần
+ * tranh chấp khóa và connection được chia nhỏ. Để đo mở rộng thật, trỏ --url-template tới các MySQL
+ * chạy trên máy riêng ({shard} được thay bằng số thứ tự shard, username/password lấy từ MYSQL_USER/MYSQL_PASSWORD).
+ *
+ * Kết quả mặc định (H2, 1 CPU, --threads=8 --cross-shard=0.1, 2-3 lần chạy): 1 shard 320-470 giao dịch/s,
+ * 2 shard 340-490, 4 shard 470-670, tức hiệu suất chỉ 25-55%, KHÔNG phải tuyến tính. Phần tăng có được
+ * chủ yếu do mỗi shard có pool Hikari riêng (10 connection) nên ít thread phải chờ connection; sau đó
+ * nút cổ chai là CPU: mọi database và ứng dụng chạy chung một tiến trình, thêm shard không thêm CPU.
+ * Chênh lệch giữa các lần chạy cũng lớn hơn phần tăng từ 1 lên 2 shard. Muốn thấy ghi mở rộng gần tuyến tính
+ * cần database của mỗi shard trên máy riêng (--url-template) và đủ instance ứng dụng để không nghẽn ở tầng app;
+ * chưa đo được cấu hình này.
+ *
+ * Chạy: mvn test-compile exec:java -Dexec.classpathScope=test
+ *       -Dexec.mainClass=com.trungvv.bankdemo.benchmark.ShardScalingBenchmark
+ *       -Dexec.args="--shards=1,2,4 --threads=32 --duration=20 --cross-shard=0.1"
+ */
+public class ShardScalingBenchmark {
+
+    private static final BigDecimal INITIAL_BALANCE = BigDecimal.valueOf(1_000_000_000L);
+
+    private final int accounts;
+    private final int threads;
+    private final int durationSeconds;
+    private final double crossShard;
+    private final String urlTemplate;
+
+    ShardScalingBenchmark(int accounts, int threads, int durationSeconds, double crossShard, String urlTemplate) {
+        this.accounts = accounts;
+        this.threads = threads;
+        this.durationSeconds = durationSeconds;
+        this.crossShard = crossShard;
+        this.urlTemplate = urlTemplate;
+    }
+
+    public static void main(String[] args) throws Exception {
+        // devtools đọc cờ này từ system property trước khi có application arguments
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        List<Integer> shardCounts = List.of(1, 2, 4);
+        int accounts = 2000;
+        int threads = 16;
+        int duration = 15;
+        double crossShard = 0.0;
+        String urlTemplate = null;
+        for (String arg : args) {
+            if (arg.startsWith("--shards=")) {
+                shardCounts = parseInts(arg.substring("--shards=".length()));
+            } else if (arg.startsWith("--accounts=")) {
+                accounts = Integer.parseInt(arg.substring("--accounts=".length()));
+            } else if (arg.startsWith("--threads=")) {
+                threads = Integer.parseInt(arg.substring("--threads=".length()));
+            } else if (arg.startsWith("--duration=")) {
+                duration = Integer.parseInt(arg.substring("--duration=".length()));
+            } else if (arg.startsWith("--cross-shard=")) {
+                crossShard = Double.parseDouble(arg.substring("--cross-shard=".length()));
+            } else if (arg.startsWith("--url-template=")) {
+                urlTemplate = arg.substring("--url-template=".length());
+            } else {
+                throw new IllegalArgumentException("Unknown option: " + arg);
+            }
+        }
+
+        ShardScalingBenchmark benchmark = new ShardScalingBenchmark(accounts, threads, duration, crossShard, urlTemplate);
+        double baseline = 0;
+        for (int shards : shardCounts) {
+            Result result = benchmark.run(shards);
+            if (baseline == 0) {
+                baseline = result.throughput() / shards;
+            }
+            System.out.printf("shards=%-3d transfers/s=%9.1f  errors=%-6d efficiency=%5.1f%%  (threads=%d, cross-shard=%.0f%%)%n",
+                    shards, result.throughput(), result.errors(), result.throughput() / (baseline * shards) * 100,
+                    threads, crossShard * 100);
+        }
+    }
+
+    Result run(int shards) throws Exception {
+        List<String> urls = new ArrayList<>();
+        for (int shard = 0; shard < shards; shard++) {
+            urls.add(urlTemplate != null ? urlTemplate.replace("{shard}", String.valueOf(shard))
+                    : "jdbc:h2:mem:scaling-" + shards + "-" + shard + ";DB_CLOSE_DELAY=-1");
+        }
+        List<String> args = new ArrayList<>(List.of(
+                "--bank.sharding.enabled=true",
+                "--bank.sharding.urls=" + String.join(",", urls),
+                "--bank.velocity.enabled=false",
+                "--bank.scheduled-transfers.enabled=false",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN"));
+        if (urlTemplate == null) {
+            args.addAll(List.of("--spring.datasource.driver-class-name=org.h2.Driver",
+                    "--spring.datasource.username=sa",
+                    "--spring.datasource.password="));
+        }
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(BankDemoApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(args.toArray(String[]::new))) {
+            ShardRouter shardRouter = context.getBean(ShardRouter.class);
+            AccountService accountService = context.getBean(AccountService.class);
+            TransferCoordinator transferCoordinator = context.getBean(TransferCoordinator.class);
+
+            List<List<UUID>> byShard = new ArrayList<>();
+            for (int shard = 0; shard < shards; shard++) {
+                byShard.add(new ArrayList<>());
+            }
+            for (int i = 0; i < accounts; i++) {
+                int shard = i % shards;
+                AccountDto account = shardRouter.on(shard, () -> accountService.createAccount("Scaling", INITIAL_BALANCE));
+                byShard.get(shard).add(account.getId());
+            }
+
+            LongAdder completed = new LongAdder();
+            LongAdder errors = new LongAdder();
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(durationSeconds);
+            ExecutorService workers = Executors.newFixedThreadPool(threads);
+            for (int t = 0; t < threads; t++) {
+                workers.execute(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    while (System.nanoTime() < deadline) {
+                        int senderShard = random.nextInt(shards);
+                        int receiverShard = shards > 1 && random.nextDouble() < crossShard
+                                ? (senderShard + 1 + random.nextInt(shards - 1)) % shards : senderShard;
+                        UUID sender = pick(byShard.get(senderShard), random);
+                        UUID receiver = pick(byShard.get(receiverShard), random);
+                        if (sender.equals(receiver)) {
+                            continue;
+                        }
+                        try {
+                            transferCoordinator.transfer(sender, receiver, BigDecimal.ONE, "scaling");
+                            completed.increment();
+                        } catch (RuntimeException e) {
+                            errors.increment();
+                        }
+                    }
+                });
+            }
+            workers.shutdown();
+            workers.awaitTermination(durationSeconds + 60L, TimeUnit.SECONDS);
+            return new Result(completed.sum() / (double) durationSeconds, errors.sum());
+        }
+    }
+
+    private static UUID pick(List<UUID> accounts, ThreadLocalRandom random) {
+        return accounts.get(random.nextInt(accounts.size()));
+    }
+
+    private static List<Integer> parseInts(String value) {
+        List<Integer> values = new ArrayList<>();
+        for (String part : value.split(",")) {
+            values.add(Integer.parseInt(part.trim()));
+        }
+        return values;
+    }
+
+    record Result(double throughput, long errors) {
+    }
+}
@@ -0,0 +1,166 @@
+package com.trungvv.bankdemo.benchmark;
+
+import com.trungvv.bankdemo.BankDemoApplication;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Đo time-to-first-request: khởi động ứng dụng trong một JVM riêng (H2 in-memory, schema do Flyway tạo)
+ * và tính thời gian từ lúc start process tới khi GET /api/accounts/ trả về 200 lần đầu.
+ * Mỗi cấu hình chạy --runs lần (mặc định 5), in min/median/max.
+ *
+ * Chạy: mvn test-compile exec:java -Dexec.classpathScope=test
+ *       -Dexec.mainClass=com.trungvv.bankdemo.benchmark.StartupBenchmark
+ * Thêm -Dexec.args="--jar=target/bank-demo-0.0.1-SNAPSHOT.jar" (jar build bằng mvn -Pfast-startup package)
+ * để đo thêm jar đã extract, AOT (-Dspring.aot.enabled=true) và AOT + CDS archive.
+ */
+public class StartupBenchmark {
+
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(2);
+    private static final Path WORK_DIR = Paths.get("target", "startup-benchmark");
+
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+    private final int runs;
+
+    StartupBenchmark(int runs) {
+        this.runs = runs;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int runs = 5;
+        String jar = null;
+        for (String arg : args) {
+            if (arg.startsWith("--runs=")) {
+                runs = Integer.parseInt(arg.substring("--runs=".length()));
+            } else if (arg.startsWith("--jar=")) {
+                jar = arg.substring("--jar=".length());
+            } else {
+                throw new IllegalArgumentException("Unknown option: " + arg);
+            }
+        }
+
+        Files.createDirectories(WORK_DIR);
+        StartupBenchmark benchmark = new StartupBenchmark(runs);
+        String classpath = System.getProperty("java.class.path");
+        String mainClass = BankDemoApplication.class.getName();
+        benchmark.measure("classpath", List.of(), List.of("-cp", classpath, mainClass), List.of());
+        benchmark.measure("classpath+fast", List.of(), List.of("-cp", classpath, mainClass), List.of("--spring.profiles.active=fast"));
+
+        if (jar != null) {
+            Path extracted = WORK_DIR.resolve("app");
+            benchmark.run(List.of(javaBin(), "-Djarmode=tools", "-jar", jar, "extract", "--force", "--destination", extracted.toString()));
+            List<String> launch = List.of("-jar", extracted.resolve(Paths.get(jar).getFileName()).toString());
+            List<String> fast = List.of("--spring.profiles.active=fast");
+            benchmark.measure("jar+fast", List.of(), launch, fast);
+            benchmark.measure("jar+fast+aot", List.of("-Dspring.aot.enabled=true"), launch, fast);
+
+            // Training run: khởi động tới hết refresh rồi thoát, JVM ghi lại các class đã nạp vào archive
+            Path archive = WORK_DIR.resolve("application.jsa").toAbsolutePath();
+            List<String> training = new ArrayList<>(List.of(javaBin(), "-XX:ArchiveClassesAtExit=" + archive,
+                    "-Dspring.context.exit=onRefresh", "-Dspring.aot.enabled=true"));
+            training.addAll(launch);
+            training.addAll(appArgs(freePort(), fast));
+            benchmark.run(training);
+            benchmark.measure("jar+fast+aot+cds", List.of("-Dspring.aot.enabled=true", "-XX:SharedArchiveFile=" + archive), launch, fast);
+        }
+    }
+
+    void measure(String name, List<String> jvmOptions, List<String> launch, List<String> extraArgs) throws Exception {
+        List<Long> samples = new ArrayList<>();
+        for (int i = 0; i < runs; i++) {
+            int port = freePort();
+            List<String> command = new ArrayList<>();
+            command.add(javaBin());
+            // devtools đọc cờ này từ system property trước khi có application arguments
+            command.add("-Dspring.devtools.restart.enabled=false");
+            command.addAll(jvmOptions);
+            command.addAll(launch);
+            command.addAll(appArgs(port, extraArgs));
+            samples.add(timeToFirstRequest(command, port));
+        }
+        Collections.sort(samples);
+        System.out.printf("%-20s min=%5d ms  median=%5d ms  max=%5d ms  (runs=%d)%n",
+                name, samples.get(0), samples.get(samples.size() / 2), samples.get(samples.size() - 1), samples.size());
+    }
+
+    private long timeToFirstRequest(List<String> command, int port) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/accounts/"))
+                .timeout(Duration.ofSeconds(10)).GET().build();
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(WORK_DIR.resolve("last-run.log").toFile())
+                .start();
+        try {
+            while (System.nanoTime() - start < STARTUP_TIMEOUT.toNanos()) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("Application exited with code " + process.exitValue()
+                            + ", see " + WORK_DIR.resolve("last-run.log"));
+                }
+                try {
+                    if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                    }
+                } catch (ConnectException e) {
+                    // server chưa mở cổng
+                }
+                Thread.sleep(10);
+            }
+            throw new IllegalStateException("No successful request within " + STARTUP_TIMEOUT);
+        } finally {
+            process.destroy();
+            if (!process.waitFor(10, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    private void run(List<String> command) throws Exception {
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(WORK_DIR.resolve("prepare.log").toFile())
+                .start();
+        if (process.waitFor() != 0) {
+            throw new IllegalStateException("Command failed: " + String.join(" ", command)
+                    + ", see " + WORK_DIR.resolve("prepare.log"));
+        }
+    }
+
+    private static List<String> appArgs(int port, List<String> extraArgs) {
+        List<String> args = new ArrayList<>(Arrays.asList(
+                "--server.port=" + port,
+                // Mỗi lần chạy một database mới để Flyway luôn migrate từ đầu
+                "--spring.datasource.url=jdbc:h2:mem:startup;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--logging.level.root=WARN"));
+        args.addAll(extraArgs);
+        return args;
+    }
+
+    private static String javaBin() {
+        return Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
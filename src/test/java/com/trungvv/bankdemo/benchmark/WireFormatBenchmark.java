@@ -0,0 +1,117 @@
+package com.trungvv.bankdemo.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trungvv.bankdemo.dto.AccountDto;
+import com.trungvv.bankdemo.dto.TransactionDto;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * So sánh chi phí serialize và kích thước payload giữa JSON và CBOR
+ * cho các response danh sách lớn (List<TransactionDto>, Page<AccountDto>).
+ *
+ * Chạy: mvn test-compile exec:java -Dexec.classpathScope=test
+ *       -Dexec.mainClass=com.trungvv.bankdemo.benchmark.WireFormatBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WireFormatBenchmark {
+
+    @Param({"1000"})
+    private int size;
+
+    private ObjectMapper jsonMapper;
+    private ObjectMapper cborMapper;
+    private List<TransactionDto> transactions;
+    private Page<AccountDto> accountPage;
+
+    @Setup
+    public void setUp() {
+        // Cùng cấu hình mà Spring MVC dùng cho MappingJackson2(Cbor)HttpMessageConverter
+        jsonMapper = Jackson2ObjectMapperBuilder.json().build();
+        cborMapper = Jackson2ObjectMapperBuilder.cbor().build();
+        transactions = sampleTransactions(size);
+        accountPage = sampleAccountPage(size);
+    }
+
+    @Benchmark
+    public byte[] transactionsJson() throws Exception {
+        return jsonMapper.writeValueAsBytes(transactions);
+    }
+
+    @Benchmark
+    public byte[] transactionsCbor() throws Exception {
+        return cborMapper.writeValueAsBytes(transactions);
+    }
+
+    @Benchmark
+    public byte[] accountPageJson() throws Exception {
+        return jsonMapper.writeValueAsBytes(accountPage);
+    }
+
+    @Benchmark
+    public byte[] accountPageCbor() throws Exception {
+        return cborMapper.writeValueAsBytes(accountPage);
+    }
+
+    static List<TransactionDto> sampleTransactions(int size) {
+        Random random = new Random(42);
+        List<TransactionDto> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(TransactionDto.builder()
+                    .id(UUID.randomUUID())
+                    .senderAccountId(UUID.randomUUID())
+                    .receiverAccountId(UUID.randomUUID())
+                    .amount(BigDecimal.valueOf(random.nextInt(10_000_000), 2))
+                    .status("SUCCESS")
+                    .description("Chuyen tien " + i)
+                    .build());
+        }
+        return result;
+    }
+
+    static Page<AccountDto> sampleAccountPage(int size) {
+        Random random = new Random(42);
+        List<AccountDto> content = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            content.add(AccountDto.builder()
+                    .id(UUID.randomUUID())
+                    .accountNumber(String.format("%08d", random.nextInt(100000000)))
+                    .accountName("Account " + i)
+                    .balance(BigDecimal.valueOf(random.nextInt(100_000_000), 2))
+                    .status("ACTIVE")
+                    .build());
+        }
+        return new PageImpl<>(content, PageRequest.of(0, size), size * 10L);
+    }
+
+    public static void main(String[] args) throws Exception {
+        WireFormatBenchmark benchmark = new WireFormatBenchmark();
+        benchmark.size = 1000;
+        benchmark.setUp();
+        System.out.printf("List<TransactionDto> x%d: json=%d bytes, cbor=%d bytes%n", benchmark.size,
+                benchmark.transactionsJson().length, benchmark.transactionsCbor().length);
+        System.out.printf("Page<AccountDto> x%d:     json=%d bytes, cbor=%d bytes%n", benchmark.size,
+                benchmark.accountPageJson().length, benchmark.accountPageCbor().length);
+
+        new Runner(new OptionsBuilder()
+                .include(WireFormatBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
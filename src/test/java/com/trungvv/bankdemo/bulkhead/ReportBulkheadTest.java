@@ -0,0 +1,57 @@
+package com.trungvv.bankdemo.bulkhead;
+
+import com.trungvv.bankdemo.exception.BulkheadFullException;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReportBulkheadTest {
+
+    @Test
+    void submit_ShouldRejectWhenThreadsAndQueueAreFull() throws Exception {
+        ReportBulkhead bulkhead = new ReportBulkhead(1, 1, 2);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            CompletableFuture<String> running = bulkhead.submit(() -> {
+                await(release);
+                return "first";
+            });
+            CompletableFuture<String> queued = bulkhead.submit(() -> "second");
+            CompletableFuture<String> rejected = bulkhead.submit(() -> "third");
+
+            ExecutionException error = assertThrows(ExecutionException.class, rejected::get);
+            BulkheadFullException full = assertInstanceOf(BulkheadFullException.class, error.getCause());
+            assertEquals(2, full.getRetryAfterSeconds());
+
+            release.countDown();
+            assertEquals("first", running.get());
+            assertEquals("second", queued.get());
+            assertEquals(0, bulkhead.queued());
+        } finally {
+            release.countDown();
+            bulkhead.shutdown();
+        }
+    }
+
+    @Test
+    void submit_ShouldRunOnReportThreads() throws Exception {
+        ReportBulkhead bulkhead = new ReportBulkhead(2, 10, 1);
+        try {
+            assertTrue(bulkhead.submit(() -> Thread.currentThread().getName()).get().startsWith("report-"));
+        } finally {
+            bulkhead.shutdown();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.trungvv.bankdemo.bulkhead;
+
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReportConnectionGateTest {
+
+    @Test
+    void constructor_ShouldLeaveConnectionsForTransfers() {
+        assertThrows(IllegalArgumentException.class, () -> new ReportConnectionGate(10, 1000, 10));
+    }
+
+    @Test
+    void getConnection_ShouldLimitGatedThreadsOnly() throws Exception {
+        DataSource pool = mock(DataSource.class);
+        when(pool.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+        ReportConnectionGate.GatedDataSource gated = (ReportConnectionGate.GatedDataSource) new ReportConnectionGate(2, 50, 10).guard(pool);
+        ExecutorService reportThreads = Executors.newFixedThreadPool(1, ReportConnectionGate.threadFactory("test-report"));
+        try {
+            List<Connection> held = new ArrayList<>();
+            held.add(run(reportThreads, gated::getConnection));
+            held.add(run(reportThreads, gated::getConnection));
+            assertEquals(0, gated.availablePermits());
+
+            ExecutionException exhausted = assertThrows(ExecutionException.class, () -> run(reportThreads, gated::getConnection));
+            assertInstanceOf(SQLTransientConnectionException.class, exhausted.getCause());
+            // Thread chuyển tiền (không qua threadFactory) không bị giới hạn
+            gated.getConnection().close();
+
+            // Đóng hai lần chỉ trả một permit
+            held.get(0).close();
+            held.get(0).close();
+            assertEquals(1, gated.availablePermits());
+            run(reportThreads, gated::getConnection).close();
+            held.get(1).close();
+            assertEquals(2, gated.availablePermits());
+        } finally {
+            reportThreads.shutdownNow();
+        }
+    }
+
+    @Test
+    void forkJoinThreadFactory_ShouldGateWorkerThreads() throws Exception {
+        DataSource pool = mock(DataSource.class);
+        when(pool.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+        ReportConnectionGate.GatedDataSource gated = (ReportConnectionGate.GatedDataSource) new ReportConnectionGate(1, 50, 10).guard(pool);
+        ForkJoinPool workers = new ForkJoinPool(1, ReportConnectionGate.forkJoinThreadFactory("test-reconciliation"), null, false);
+        try {
+            Connection connection = run(workers, gated::getConnection);
+            assertEquals(0, gated.availablePermits());
+            connection.close();
+            assertEquals(1, gated.availablePermits());
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    private static <T> T run(ExecutorService executor, Callable<T> task) throws Exception {
+        return executor.submit(task).get();
+    }
+}
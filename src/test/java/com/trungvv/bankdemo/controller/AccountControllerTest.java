@@ -1,27 +1,41 @@
 package com.trungvv.bankdemo.controller;
 
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.trungvv.bankdemo.bulkhead.ReportBulkhead;
 import com.trungvv.bankdemo.dto.AccountDto;
+import com.trungvv.bankdemo.dto.BulkImportResultDto;
+import com.trungvv.bankdemo.dto.CounterpartyCountDto;
+import com.trungvv.bankdemo.dto.LedgerEntryDto;
 import com.trungvv.bankdemo.exception.ResourceNotFoundException;
+import com.trungvv.bankdemo.service.AccountImportService;
 import com.trungvv.bankdemo.service.AccountService;
+import com.trungvv.bankdemo.service.LedgerService;
+import com.trungvv.bankdemo.shard.ShardRouter;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
+@Import({ReportBulkhead.class, ShardRouter.class})
 @WebMvcTest(AccountController.class)
 class AccountControllerTest {
 
@@ -31,6 +45,12 @@ class AccountControllerTest {
     @MockitoBean
     private AccountService accountService;
 
+    @MockitoBean
+    private AccountImportService accountImportService;
+
+    @MockitoBean
+    private LedgerService ledgerService;
+
     private AccountDto accountDto;
     private UUID accountId;
 
@@ -46,6 +66,44 @@ class AccountControllerTest {
                 .build();
     }
 
+    @Test
+    void getCounterpartyCount_ShouldReturnEstimateWithErrorBound() throws Exception {
+        LocalDate today = LocalDate.now();
+        when(accountService.getCounterpartyCount(accountId, 7))
+                .thenReturn(new CounterpartyCountDto(accountId, today.minusDays(6), today, 42, 0.01625));
+
+        mockMvc.perform(get("/api/accounts/{accountId}/analytics/counterparties", accountId).param("days", "7"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.distinctCounterparties").value(42))
+                .andExpect(jsonPath("$.relativeStandardError").value(0.01625));
+    }
+
+    @Test
+    void getCounterpartyCount_ShouldReturnBadRequest_WhenDaysOutOfRange() throws Exception {
+        when(accountService.getCounterpartyCount(accountId, 365)).thenThrow(new IllegalArgumentException("days phải nằm trong khoảng 1..90"));
+
+        mockMvc.perform(get("/api/accounts/{accountId}/analytics/counterparties", accountId).param("days", "365"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getAccountsByIds_ShouldReturnFoundAccounts() throws Exception {
+        UUID missingId = UUID.randomUUID();
+        when(accountService.getAccountsByIds(List.of(accountId, missingId))).thenReturn(List.of(accountDto));
+
+        mockMvc.perform(get("/api/accounts").param("ids", accountId + "," + missingId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(accountId.toString()));
+    }
+
+    @Test
+    void getAccountsByIds_ShouldReturnBadRequest_WhenIdInvalid() throws Exception {
+        mockMvc.perform(get("/api/accounts").param("ids", accountId + ",not-a-uuid"))
+                .andExpect(status().isBadRequest());
+        verify(accountService, never()).getAccountsByIds(anyList());
+    }
+
     @Test
     void createAccount_ShouldReturnCreatedAccount() throws Exception {
         when(accountService.createAccount(anyString(), any(BigDecimal.class))).thenReturn(accountDto);
@@ -91,6 +149,23 @@ class AccountControllerTest {
         verify(accountService, times(1)).getAccountById(accountId);
     }
 
+    @Test
+    void getAccountBalance_ShouldReturnLedgerBalance() throws Exception {
+        when(accountService.getAccountBalance(accountId)).thenReturn(new BigDecimal("750.25"));
+
+        mockMvc.perform(get("/api/accounts/{accountId}/balance", accountId.toString()))
+                .andExpect(status().isOk())
+                .andExpect(content().string("750.25"));
+    }
+
+    @Test
+    void getAccountBalance_ShouldReturnNotFound_WhenAccountDoesNotExist() throws Exception {
+        when(accountService.getAccountBalance(accountId)).thenThrow(new ResourceNotFoundException("Account not found"));
+
+        mockMvc.perform(get("/api/accounts/{accountId}/balance", accountId.toString()))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     void deleteAccount_ShouldReturnNoContent() throws Exception {
         ResultActions result = mockMvc.perform(delete("/api/accounts/{accountId}", accountId.toString())
@@ -104,7 +179,7 @@ class AccountControllerTest {
     void listAllAccounts_ShouldReturnListOfAccounts() throws Exception {
         when(accountService.listAllAccounts()).thenReturn(List.of(accountDto));
 
-        ResultActions result = mockMvc.perform(get("/api/accounts/")
+        ResultActions result = performAsync(get("/api/accounts/")
                 .contentType(MediaType.APPLICATION_JSON));
 
         result.andExpect(status().isOk())
@@ -120,7 +195,7 @@ class AccountControllerTest {
     void listAllAccounts_ShouldReturnEmptyList_WhenNoAccountsExist() throws Exception {
         when(accountService.listAllAccounts()).thenReturn(Collections.emptyList());
 
-        ResultActions result = mockMvc.perform(get("/api/accounts/")
+        ResultActions result = performAsync(get("/api/accounts/")
                 .contentType(MediaType.APPLICATION_JSON));
 
         result.andExpect(status().isOk())
@@ -179,4 +254,82 @@ class AccountControllerTest {
         verify(accountService, times(1)).listAccountsByKey(keySearch, status, page, size);
     }
 
+    @Test
+    void listAllAccounts_ShouldReturnCbor_WhenCborAccepted() throws Exception {
+        when(accountService.listAllAccounts()).thenReturn(List.of(accountDto));
+
+        byte[] body = performAsync(get("/api/accounts/")
+                        .accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        AccountDto[] decoded = new CBORMapper().readValue(body, AccountDto[].class);
+        assertEquals(accountDto, decoded[0]);
+    }
+
+    @Test
+    void getAccountById_ShouldReturnNotModified_WhenETagMatches() throws Exception {
+        when(accountService.getAccountETag(accountId)).thenReturn("W/\"1700000000.0\"");
+
+        mockMvc.perform(get("/api/accounts/{accountId}", accountId.toString())
+                        .header("If-None-Match", "W/\"1700000000.0\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "W/\"1700000000.0\""));
+
+        verify(accountService, never()).getAccountById(any());
+    }
+
+    @Test
+    void getAccountById_ShouldReturnETag_WhenETagChanged() throws Exception {
+        when(accountService.getAccountETag(accountId)).thenReturn("W/\"1700000001.0\"");
+        when(accountService.getAccountById(accountId)).thenReturn(accountDto);
+
+        mockMvc.perform(get("/api/accounts/{accountId}", accountId.toString())
+                        .header("If-None-Match", "W/\"1700000000.0\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "W/\"1700000001.0\""))
+                .andExpect(jsonPath("$.id").value(accountId.toString()));
+    }
+
+    @Test
+    void importAccounts_ShouldReturnImportReport() throws Exception {
+        BulkImportResultDto report = BulkImportResultDto.builder()
+                .totalRows(2)
+                .importedRows(1)
+                .failedRows(1)
+                .errors(List.of(new BulkImportResultDto.RowError(3, "initialBalance must not be negative")))
+                .build();
+        when(accountImportService.importAccounts(any(), any(MediaType.class))).thenReturn(report);
+
+        mockMvc.perform(post("/api/accounts/bulk")
+                        .contentType("text/csv")
+                        .content("accountName,initialBalance\nAlice,100\nBob,-1\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.importedRows").value(1))
+                .andExpect(jsonPath("$.errors[0].line").value(3));
+    }
+
+    @Test
+    void listLedgerEntries_ShouldReturnEntriesPage() throws Exception {
+        LedgerEntryDto entry = LedgerEntryDto.builder()
+                .id(1L)
+                .accountId(accountId)
+                .entryType("CREDIT")
+                .source("OPENING")
+                .amount(BigDecimal.valueOf(1000))
+                .build();
+        when(ledgerService.listEntries(accountId, 0, 50)).thenReturn(new PageImpl<>(List.of(entry)));
+
+        mockMvc.perform(get("/api/accounts/" + accountId + "/ledger"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].entryType").value("CREDIT"))
+                .andExpect(jsonPath("$.content[0].source").value("OPENING"));
+    }
+
+    // Endpoint báo cáo trả về CompletableFuture: chờ bulkhead xong rồi dispatch lại để lấy response
+    private ResultActions performAsync(MockHttpServletRequestBuilder builder) throws Exception {
+        MvcResult started = mockMvc.perform(builder).andExpect(request().asyncStarted()).andReturn();
+        return mockMvc.perform(asyncDispatch(started));
+    }
 }
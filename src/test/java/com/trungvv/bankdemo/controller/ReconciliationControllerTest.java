@@ -0,0 +1,54 @@
+package com.trungvv.bankdemo.controller;
+
+import com.trungvv.bankdemo.dto.ReconciliationRunDto;
+import com.trungvv.bankdemo.exception.ResourceNotFoundException;
+import com.trungvv.bankdemo.service.ReconciliationService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(ReconciliationController.class)
+class ReconciliationControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private ReconciliationService reconciliationService;
+
+    @Test
+    void startReconciliation_ShouldReturnAccepted() throws Exception {
+        when(reconciliationService.startReconciliation())
+                .thenReturn(ReconciliationRunDto.builder().id(1L).status("RUNNING").partitions(256).build());
+
+        mockMvc.perform(post("/api/reconciliations"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.id", is(1)))
+                .andExpect(jsonPath("$.status", is("RUNNING")));
+    }
+
+    @Test
+    void startReconciliation_ShouldReturnConflict_WhenRunInProgress() throws Exception {
+        when(reconciliationService.startReconciliation())
+                .thenThrow(new IllegalStateException("A reconciliation run is already in progress"));
+
+        mockMvc.perform(post("/api/reconciliations"))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    void getRun_ShouldReturnNotFound_WhenRunMissing() throws Exception {
+        when(reconciliationService.getRun(42L)).thenThrow(new ResourceNotFoundException("Reconciliation run not found with id: 42"));
+
+        mockMvc.perform(get("/api/reconciliations/42"))
+                .andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,93 @@
+package com.trungvv.bankdemo.controller;
+
+import com.trungvv.bankdemo.dto.ScheduledTransferDto;
+import com.trungvv.bankdemo.exception.ResourceNotFoundException;
+import com.trungvv.bankdemo.service.ScheduledTransferService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(ScheduledTransferController.class)
+class ScheduledTransferControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private ScheduledTransferService scheduledTransferService;
+
+    private final UUID senderId = UUID.randomUUID();
+    private final UUID receiverId = UUID.randomUUID();
+
+    @Test
+    void createSchedule_ShouldReturnCreated() throws Exception {
+        LocalDateTime startAt = LocalDateTime.of(2026, 1, 31, 9, 0);
+        when(scheduledTransferService.createSchedule(senderId, receiverId, new BigDecimal("100"), null, "MONTHLY", startAt, null))
+                .thenReturn(ScheduledTransferDto.builder().id(7L).recurrence("MONTHLY").status("ACTIVE").nextRunAt(startAt).build());
+
+        mockMvc.perform(post("/api/scheduled-transfers")
+                        .param("senderId", senderId.toString())
+                        .param("receiverId", receiverId.toString())
+                        .param("amount", "100")
+                        .param("recurrence", "MONTHLY")
+                        .param("startAt", "2026-01-31T09:00:00"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.id", is(7)))
+                .andExpect(jsonPath("$.status", is("ACTIVE")));
+    }
+
+    @Test
+    void createSchedule_ShouldReturnBadRequest_WhenStartAtInvalid() throws Exception {
+        mockMvc.perform(post("/api/scheduled-transfers")
+                        .param("senderId", senderId.toString())
+                        .param("receiverId", receiverId.toString())
+                        .param("amount", "100")
+                        .param("startAt", "tomorrow"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void createSchedule_ShouldReturnBadRequest_WhenRecurrenceInvalid() throws Exception {
+        when(scheduledTransferService.createSchedule(eq(senderId), eq(receiverId), any(), any(), eq("HOURLY"), any(), any()))
+                .thenThrow(new IllegalArgumentException("Chu kỳ không hợp lệ: HOURLY"));
+
+        mockMvc.perform(post("/api/scheduled-transfers")
+                        .param("senderId", senderId.toString())
+                        .param("receiverId", receiverId.toString())
+                        .param("amount", "100")
+                        .param("recurrence", "HOURLY")
+                        .param("startAt", "2026-01-31T09:00:00"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getSchedule_ShouldReturnNotFound_WhenMissing() throws Exception {
+        when(scheduledTransferService.getSchedule(42L)).thenThrow(new ResourceNotFoundException("Scheduled transfer not found with id: 42"));
+
+        mockMvc.perform(get("/api/scheduled-transfers/42"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void cancelSchedule_ShouldReturnConflict_WhenAlreadyFinished() throws Exception {
+        when(scheduledTransferService.cancelSchedule(7L)).thenThrow(new IllegalStateException("Scheduled transfer 7 is already COMPLETED"));
+
+        mockMvc.perform(delete("/api/scheduled-transfers/7"))
+                .andExpect(status().isConflict());
+    }
+}
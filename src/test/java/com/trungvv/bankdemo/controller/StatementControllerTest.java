@@ -0,0 +1,44 @@
+package com.trungvv.bankdemo.controller;
+
+import com.trungvv.bankdemo.dto.StatementJobDto;
+import com.trungvv.bankdemo.service.StatementService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.YearMonth;
+
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(StatementController.class)
+class StatementControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private StatementService statementService;
+
+    @Test
+    void startMonthlyStatements_ShouldReturnAccepted() throws Exception {
+        when(statementService.startMonthlyStatements(YearMonth.of(2024, 9)))
+                .thenReturn(StatementJobDto.builder().id(3L).month("2024-09").status("RUNNING").totalChunks(1024).build());
+
+        mockMvc.perform(post("/api/statements").param("month", "2024-09"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.month", is("2024-09")))
+                .andExpect(jsonPath("$.status", is("RUNNING")));
+    }
+
+    @Test
+    void startMonthlyStatements_ShouldReturnBadRequest_WhenMonthInvalid() throws Exception {
+        mockMvc.perform(post("/api/statements").param("month", "09/2024"))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(statementService);
+    }
+}
@@ -1,18 +1,34 @@
 package com.trungvv.bankdemo.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.trungvv.bankdemo.bulkhead.ReportBulkhead;
+import com.trungvv.bankdemo.dto.AccountDaySummaryDto;
+import com.trungvv.bankdemo.dto.AmountDistributionDto;
+import com.trungvv.bankdemo.dto.SingleFlightStatsDto;
+import com.trungvv.bankdemo.dto.TopAccountDto;
 import com.trungvv.bankdemo.dto.TransactionDto;
+import com.trungvv.bankdemo.exception.VelocityLimitExceededException;
 import com.trungvv.bankdemo.model.Transaction;
 import com.trungvv.bankdemo.model.TransactionStatus;
+import com.trungvv.bankdemo.repository.CrossShardTransferRepository;
+import com.trungvv.bankdemo.service.AccountBatchLoader;
 import com.trungvv.bankdemo.service.TransactionService;
+import com.trungvv.bankdemo.shard.ShardRouter;
+import com.trungvv.bankdemo.shard.TransferCoordinator;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.Page;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -20,11 +36,14 @@ import java.util.List;
 import java.util.UUID;
 
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
+@Import({ReportBulkhead.class, ShardRouter.class, TransferCoordinator.class})
 @WebMvcTest(TransactionController.class)
 class TransactionControllerTest {
 
@@ -34,6 +53,15 @@ class TransactionControllerTest {
     @MockitoBean
     private TransactionService transactionService;
 
+    @MockitoBean
+    private AccountBatchLoader accountBatchLoader;
+
+    @MockitoBean
+    private CrossShardTransferRepository crossShardTransferRepository;
+
+    @MockitoBean
+    private PlatformTransactionManager transactionManager;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -55,6 +83,122 @@ class TransactionControllerTest {
                 .andExpect(jsonPath("$.amount", is(1000)));
     }
 
+    @Test
+    void createTransaction_ShouldReturnTooManyRequests_WhenVelocityLimitExceeded() throws Exception {
+        Mockito.when(transactionService.createTransaction(any(UUID.class), any(UUID.class), any(BigDecimal.class), any(String.class)))
+                .thenThrow(new VelocityLimitExceededException("Tài khoản gửi vượt giới hạn 20 giao dịch / 60s, thử lại sau 12 giây", 12));
+
+        mockMvc.perform(post("/api/transactions")
+                        .param("senderId", UUID.randomUUID().toString())
+                        .param("receiverId", UUID.randomUUID().toString())
+                        .param("amount", "1000")
+                        .param("message", "Test Message"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "12"));
+    }
+
+    @Test
+    void getTopAccounts_ShouldReturnRankedAccounts() throws Exception {
+        UUID accountId = UUID.randomUUID();
+        Mockito.when(transactionService.getTopAccounts("DAY", "RECEIVER", 5))
+                .thenReturn(List.of(new TopAccountDto(accountId, BigDecimal.valueOf(1500), BigDecimal.ZERO)));
+
+        mockMvc.perform(get("/api/transactions/top")
+                        .param("range", "DAY")
+                        .param("side", "RECEIVER")
+                        .param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].accountId", is(accountId.toString())))
+                .andExpect(jsonPath("$[0].volume", is(1500)));
+    }
+
+    @Test
+    void getTopAccounts_ShouldReturnBadRequest_WhenRangeInvalid() throws Exception {
+        Mockito.when(transactionService.getTopAccounts("WEEK", "SENDER", 100))
+                .thenThrow(new IllegalArgumentException("Khoảng thời gian không hợp lệ: WEEK"));
+
+        mockMvc.perform(get("/api/transactions/top").param("range", "WEEK"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getAmountDistribution_ShouldReturnPercentiles() throws Exception {
+        UUID accountId = UUID.randomUUID();
+        LocalDate today = LocalDate.now();
+        Mockito.when(transactionService.getAmountDistribution(today.minusDays(6), today, accountId))
+                .thenReturn(AmountDistributionDto.builder()
+                        .accountId(accountId)
+                        .transactionCount(42)
+                        .p50(new BigDecimal("120.50"))
+                        .p99(new BigDecimal("9800.00"))
+                        .build());
+
+        mockMvc.perform(get("/api/transactions/amount-distribution")
+                        .param("startDate", today.minusDays(6).toString())
+                        .param("endDate", today.toString())
+                        .param("accountId", accountId.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.transactionCount", is(42)))
+                .andExpect(jsonPath("$.p50", is(120.50)));
+    }
+
+    @Test
+    void getAmountDistribution_ShouldReturnBadRequest_WhenRangeInvalid() throws Exception {
+        LocalDate today = LocalDate.now();
+        Mockito.when(transactionService.getAmountDistribution(today, today.minusDays(1), null))
+                .thenThrow(new IllegalArgumentException("Ngày bắt đầu phải trước hoặc bằng ngày kết thúc"));
+
+        mockMvc.perform(get("/api/transactions/amount-distribution")
+                        .param("startDate", today.toString())
+                        .param("endDate", today.minusDays(1).toString()))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getReportStats_ShouldReturnCollapsedCounts() throws Exception {
+        Mockito.when(transactionService.getReportSingleFlightStats())
+                .thenReturn(List.of(new SingleFlightStatsDto("daily-summary", 30, 2, 28, 0)));
+
+        mockMvc.perform(get("/api/transactions/report-stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name", is("daily-summary")))
+                .andExpect(jsonPath("$[0].collapsed", is(28)));
+    }
+
+    @Test
+    void getDailySummaries_ShouldReturnPerAccountDays() throws Exception {
+        UUID accountId = UUID.randomUUID();
+        LocalDate today = LocalDate.now();
+        Mockito.when(transactionService.getDailySummaries(today.minusDays(29), today))
+                .thenReturn(List.of(AccountDaySummaryDto.builder()
+                        .date(today)
+                        .accountId(accountId)
+                        .sentCount(1)
+                        .sentAmount(BigDecimal.valueOf(300))
+                        .receivedAmount(BigDecimal.valueOf(100))
+                        .netAmount(BigDecimal.valueOf(-200))
+                        .build()));
+
+        performAsync(get("/api/transactions/daily-summary/range")
+                        .param("startDate", today.minusDays(29).toString())
+                        .param("endDate", today.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].accountId", is(accountId.toString())))
+                .andExpect(jsonPath("$[0].netAmount", is(-200)));
+    }
+
+    @Test
+    void getDailySummaries_ShouldReturnBadRequest_WhenRangeTooLong() throws Exception {
+        LocalDate today = LocalDate.now();
+        Mockito.when(transactionService.getDailySummaries(today.minusYears(2), today))
+                .thenThrow(new IllegalArgumentException("Khoảng thời gian tối đa là 366 ngày"));
+
+        performAsync(get("/api/transactions/daily-summary/range")
+                        .param("startDate", today.minusYears(2).toString())
+                        .param("endDate", today.toString()))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void getTransactionById_ShouldReturnTransaction() throws Exception {
         UUID transactionId = UUID.randomUUID();
@@ -125,7 +269,7 @@ class TransactionControllerTest {
         Mockito.when(transactionService.listTransactionsByDateRange(any(LocalDate.class), any(LocalDate.class), eq(accountId), eq("SUCCESS"),eq("ALL"), eq(0), eq(10)))
                 .thenReturn(Page.empty());
 
-        mockMvc.perform(get("/api/transactions/date-range")
+        performAsync(get("/api/transactions/date-range")
                         .param("startDate", LocalDate.now().minusDays(1).toString())
                         .param("endDate", LocalDate.now().toString())
                         .param("accountId", accountId.toString())
@@ -155,9 +299,45 @@ class TransactionControllerTest {
 
         Mockito.when(transactionService.getDailyTransactionSummary(eq(date))).thenReturn(List.of());
 
-        mockMvc.perform(get("/api/transactions/daily-summary")
+        performAsync(get("/api/transactions/daily-summary")
                         .param("date", date.toString()))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$", hasSize(0)));
     }
+
+    @Test
+    void listTransactionsByUserId_ShouldReturnCbor_WhenCborAccepted() throws Exception {
+        UUID userId = UUID.randomUUID();
+        TransactionDto transactionDto = new TransactionDto(UUID.randomUUID(), userId, UUID.randomUUID(), new BigDecimal("1250.75"), "SUCCESS", "Test Message");
+
+        Mockito.when(transactionService.listTransactionsByUserId(eq(userId))).thenReturn(List.of(transactionDto));
+
+        byte[] body = mockMvc.perform(get("/api/transactions/user/{userId}", userId.toString())
+                        .accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        TransactionDto[] decoded = new CBORMapper().readValue(body, TransactionDto[].class);
+        assertEquals(transactionDto, decoded[0]);
+        assertTrue(body.length < objectMapper.writeValueAsBytes(List.of(transactionDto)).length);
+    }
+
+    @Test
+    void listTransactionsByUserId_ShouldReturnNotModified_WhenETagMatches() throws Exception {
+        UUID userId = UUID.randomUUID();
+        Mockito.when(transactionService.getTransactionHistoryETag(eq(userId))).thenReturn("W/\"2-2-1700000000.0\"");
+
+        mockMvc.perform(get("/api/transactions/user/{userId}", userId.toString())
+                        .header("If-None-Match", "W/\"2-2-1700000000.0\""))
+                .andExpect(status().isNotModified());
+
+        Mockito.verify(transactionService, Mockito.never()).listTransactionsByUserId(any(UUID.class));
+    }
+
+    // Report endpoints return a CompletableFuture: wait for the bulkhead, then redispatch to get the response
+    private ResultActions performAsync(MockHttpServletRequestBuilder builder) throws Exception {
+        MvcResult started = mockMvc.perform(builder).andExpect(request().asyncStarted()).andReturn();
+        return mockMvc.perform(asyncDispatch(started));
+    }
 }
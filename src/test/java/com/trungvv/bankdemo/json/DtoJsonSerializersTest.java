@@ -0,0 +1,83 @@
+package com.trungvv.bankdemo.json;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trungvv.bankdemo.dto.AccountDto;
+import com.trungvv.bankdemo.dto.TransactionDto;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.json.JsonTest;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Output của serializer viết tay phải trùng từng byte với BeanSerializer mặc định của Jackson.
+ */
+@JsonTest
+class DtoJsonSerializersTest {
+
+    // ObjectMapper của Spring Boot, đã đăng ký các @JsonComponent
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final ObjectMapper reference = Jackson2ObjectMapperBuilder.json().build();
+
+    @Test
+    void springObjectMapper_ShouldUseHandWrittenSerializers() throws Exception {
+        assertInstanceOf(DtoJsonSerializers.TransactionDtoSerializer.class,
+                objectMapper.getSerializerProviderInstance().findValueSerializer(TransactionDto.class));
+        assertInstanceOf(DtoJsonSerializers.AccountDtoSerializer.class,
+                objectMapper.getSerializerProviderInstance().findValueSerializer(AccountDto.class));
+        assertInstanceOf(DtoJsonSerializers.PageSerializer.class,
+                objectMapper.getSerializerProviderInstance().findValueSerializer(PageImpl.class));
+    }
+
+    @Test
+    void json_ShouldMatchDefaultSerializationByteForByte() throws Exception {
+        for (Object value : samples()) {
+            byte[] expected = reference.writeValueAsBytes(value);
+            byte[] actual = objectMapper.writeValueAsBytes(value);
+            assertEquals(new String(expected, StandardCharsets.UTF_8), new String(actual, StandardCharsets.UTF_8));
+            assertArrayEquals(expected, actual);
+        }
+    }
+
+    @Test
+    void cborAndTokenBuffer_ShouldMatchDefaultSerialization() throws Exception {
+        ObjectMapper cborReference = Jackson2ObjectMapperBuilder.cbor().build();
+        ObjectMapper cbor = Jackson2ObjectMapperBuilder.cbor().modules(DtoJsonSerializers.module()).build();
+        for (Object value : samples()) {
+            assertArrayEquals(cborReference.writeValueAsBytes(value), cbor.writeValueAsBytes(value),
+                    () -> "khác output CBOR mặc định: " + value);
+            // valueToTree ghi qua TokenBuffer: UUID vẫn là chuỗi
+            assertEquals(reference.valueToTree(value), objectMapper.valueToTree(value));
+        }
+    }
+
+    private static List<Object> samples() {
+        List<TransactionDto> transactions = new ArrayList<>(List.of(
+                new TransactionDto(UUID.randomUUID(), UUID.randomUUID(), new UUID(0L, 1L), new BigDecimal("1234.50"), "SUCCESS", "Chuyển tiền \"quà\"\n"),
+                new TransactionDto(new UUID(-1L, -1L), UUID.randomUUID(), UUID.randomUUID(), new BigDecimal("1E+3"), "FAILED", null),
+                new TransactionDto(null, null, null, null, null, null)));
+        transactions.add(null);
+        List<AccountDto> accounts = List.of(
+                new AccountDto(UUID.randomUUID(), "00000042", "Nguyễn Văn A", new BigDecimal("0.00"), "ACTIVE"),
+                new AccountDto(UUID.randomUUID(), null, "\u0001 ", BigDecimal.valueOf(-5, 3), null));
+        return Arrays.asList(
+                transactions,
+                accounts.get(0),
+                new PageImpl<>(transactions, PageRequest.of(3, 4), 100),
+                new PageImpl<>(accounts, PageRequest.of(0, 20, Sort.by("accountName").descending()), 2),
+                new PageImpl<>(List.of(), PageRequest.of(5, 10), 7));
+    }
+}
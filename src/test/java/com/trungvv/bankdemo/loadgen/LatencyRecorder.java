@@ -0,0 +1,60 @@
+package com.trungvv.bankdemo.loadgen;
+
+import java.util.Arrays;
+
+/**
+ * Lưu toàn bộ độ trễ (ns) của một loại request để tính percentile chính xác khi kết thúc.
+ */
+class LatencyRecorder {
+
+    private long[] latencies = new long[1024];
+    private int count;
+    private long errors;
+    private long throttled;
+
+    synchronized void record(long latencyNanos, int status) {
+        if (status == 429) {
+            throttled++;
+        } else if (status < 200 || status >= 400) {
+            errors++;
+        }
+        if (count == latencies.length) {
+            latencies = Arrays.copyOf(latencies, count * 2);
+        }
+        latencies[count++] = latencyNanos;
+    }
+
+    synchronized void mergeInto(LatencyRecorder target) {
+        synchronized (target) {
+            if (target.count + count > target.latencies.length) {
+                target.latencies = Arrays.copyOf(target.latencies, target.count + count);
+            }
+            System.arraycopy(latencies, 0, target.latencies, target.count, count);
+            target.count += count;
+            target.errors += errors;
+            target.throttled += throttled;
+        }
+    }
+
+    synchronized Summary summarize() {
+        long[] sorted = Arrays.copyOf(latencies, count);
+        Arrays.sort(sorted);
+        return new Summary(count, errors, throttled,
+                percentile(sorted, 0.50), percentile(sorted, 0.99), percentile(sorted, 0.999),
+                count == 0 ? 0 : sorted[count - 1]);
+    }
+
+    /**
+     * Percentile theo nearest-rank.
+     */
+    static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(p * sorted.length);
+        return sorted[Math.max(0, Math.min(rank, sorted.length) - 1)];
+    }
+
+    record Summary(long count, long errors, long throttled, long p50, long p99, long p999, long max) {
+    }
+}
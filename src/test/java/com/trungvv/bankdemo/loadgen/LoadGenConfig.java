@@ -0,0 +1,77 @@
+package com.trungvv.bankdemo.loadgen;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Cấu hình tải, đọc từ tham số dạng --key=value:
+ * --target=http://host:port (bỏ trống để tự chạy ứng dụng trên H2), --accounts=1000, --rate=200 (req/s),
+ * --duration=30s, --warmup=5s, --mix=transfer:50,history:20,search:20,summary:10, --zipf=1.1, --seed=42,
+ * --report-flood=0 (số client đóng vòng liên tục gọi các endpoint báo cáo song song với tải chính).
+ */
+class LoadGenConfig {
+
+    String target;
+    int accounts = 1000;
+    double rate = 200;
+    Duration duration = Duration.ofSeconds(30);
+    Duration warmup = Duration.ofSeconds(5);
+    Map<Operation, Integer> mix = parseMix("transfer:50,history:20,search:20,summary:10");
+    double zipfExponent = 1.1;
+    long seed = 42;
+    int reportFlood;
+
+    static LoadGenConfig parse(String[] args) {
+        LoadGenConfig config = new LoadGenConfig();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --key=value but got " + arg);
+            }
+            String key = arg.substring(2, arg.indexOf('='));
+            String value = arg.substring(arg.indexOf('=') + 1);
+            switch (key) {
+                case "target" -> config.target = value;
+                case "accounts" -> config.accounts = Integer.parseInt(value);
+                case "rate" -> config.rate = Double.parseDouble(value);
+                case "duration" -> config.duration = parseDuration(value);
+                case "warmup" -> config.warmup = parseDuration(value);
+                case "mix" -> config.mix = parseMix(value);
+                case "zipf" -> config.zipfExponent = Double.parseDouble(value);
+                case "seed" -> config.seed = Long.parseLong(value);
+                case "report-flood" -> config.reportFlood = Integer.parseInt(value);
+                default -> throw new IllegalArgumentException("Unknown option --" + key);
+            }
+        }
+        if (config.accounts < 2 || config.rate <= 0 || config.reportFlood < 0) {
+            throw new IllegalArgumentException("--accounts must be >= 2, --rate must be positive and --report-flood must not be negative");
+        }
+        return config;
+    }
+
+    private static Duration parseDuration(String value) {
+        if (value.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+        }
+        if (value.endsWith("m")) {
+            return Duration.ofMinutes(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+        return Duration.ofSeconds(Long.parseLong(value.endsWith("s") ? value.substring(0, value.length() - 1) : value));
+    }
+
+    private static Map<Operation, Integer> parseMix(String value) {
+        Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+        for (String part : value.split(",")) {
+            String[] weight = part.split(":");
+            mix.put(Operation.valueOf(weight[0].trim().toUpperCase()), Integer.parseInt(weight[1].trim()));
+        }
+        if (mix.values().stream().mapToInt(Integer::intValue).sum() <= 0) {
+            throw new IllegalArgumentException("--mix must have a positive total weight");
+        }
+        return mix;
+    }
+
+    enum Operation {
+        TRANSFER, HISTORY, SEARCH, SUMMARY
+    }
+}
@@ -0,0 +1,252 @@
+package com.trungvv.bankdemo.loadgen;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trungvv.bankdemo.BankDemoApplication;
+import com.trungvv.bankdemo.loadgen.LoadGenConfig.Operation;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bộ sinh tải HTTP: seed tài khoản qua /api/accounts/bulk rồi bắn request vào các endpoint thật
+ * theo mô hình open-loop (thời điểm đến theo phân phối Poisson, không chờ response trước đó),
+ * tài khoản được chọn theo Zipf để tạo tài khoản nóng. Độ trễ tính từ thời điểm request lẽ ra được gửi,
+ * nên không bị coordinated omission khi server chậm lại.
+ *
+ * Chạy: mvn test-compile exec:java -Dexec.classpathScope=test
+ *       -Dexec.mainClass=com.trungvv.bankdemo.loadgen.LoadGenerator
+ *       -Dexec.args="--rate=500 --duration=60s --mix=transfer:70,history:20,search:5,summary:5"
+ * Không có --target thì ứng dụng được khởi động với profile loadgen (H2 in-memory, cổng ngẫu nhiên).
+ *
+ * Kiểm tra bulkhead báo cáo: so sánh độ trễ transfer giữa --mix=transfer:100 và
+ * --mix=transfer:100 --report-flood=64; các client flood làm pool báo cáo bão hòa (nhận 503)
+ * nhưng p99 của transfer phải gần như không đổi. Dòng "flood" được in riêng, không tính vào total.
+ */
+public class LoadGenerator {
+
+    private static final String ACCOUNT_PREFIX = "LoadGen ";
+
+    private final LoadGenConfig config;
+    private final String baseUrl;
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<Operation, LatencyRecorder> recorders = new EnumMap<>(Operation.class);
+    private final LatencyRecorder floodRecorder = new LatencyRecorder();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private List<String> accountIds;
+
+    LoadGenerator(LoadGenConfig config, String baseUrl) {
+        this.config = config;
+        this.baseUrl = baseUrl;
+        for (Operation operation : Operation.values()) {
+            recorders.put(operation, new LatencyRecorder());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadGenConfig config = LoadGenConfig.parse(args);
+        ConfigurableApplicationContext context = null;
+        String baseUrl = config.target;
+        if (baseUrl == null) {
+            // devtools sẽ gọi lại main() với tham số của Spring nếu restart còn bật
+            System.setProperty("spring.devtools.restart.enabled", "false");
+            context = new SpringApplicationBuilder(BankDemoApplication.class)
+                    .profiles("loadgen")
+                    .run("--server.port=0");
+            baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+        }
+        try {
+            LoadGenerator generator = new LoadGenerator(config, baseUrl);
+            generator.seed();
+            generator.run();
+            generator.report(System.out);
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+        }
+    }
+
+    void seed() throws Exception {
+        StringBuilder csv = new StringBuilder("accountName,initialBalance\n");
+        for (int i = 0; i < config.accounts; i++) {
+            csv.append(ACCOUNT_PREFIX).append(i).append(",1000000000\n");
+        }
+        HttpResponse<String> imported = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/accounts/bulk"))
+                .header("Content-Type", "text/csv")
+                .POST(HttpRequest.BodyPublishers.ofString(csv.toString()))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        if (imported.statusCode() != 200) {
+            throw new IllegalStateException("Seeding failed: " + imported.statusCode() + " " + imported.body());
+        }
+        HttpResponse<String> listed = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/accounts/")).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        accountIds = new ArrayList<>();
+        for (JsonNode account : objectMapper.readTree(listed.body())) {
+            if (account.path("accountName").asText().startsWith(ACCOUNT_PREFIX)) {
+                accountIds.add(account.path("id").asText());
+            }
+        }
+        if (accountIds.size() < 2) {
+            throw new IllegalStateException("Need at least 2 seeded accounts, found " + accountIds.size());
+        }
+        System.out.printf("Seeded %d accounts against %s%n", accountIds.size(), baseUrl);
+    }
+
+    void run() throws InterruptedException {
+        Random random = new Random(config.seed);
+        ZipfSampler accounts = new ZipfSampler(accountIds.size(), config.zipfExponent);
+        Operation[] operations = weightedOperations();
+        double meanIntervalNanos = TimeUnit.SECONDS.toNanos(1) / config.rate;
+
+        long start = System.nanoTime();
+        long measureFrom = start + config.warmup.toNanos();
+        long end = measureFrom + config.duration.toNanos();
+        List<Thread> flood = startReportFlood(measureFrom, end);
+        long next = start;
+        while (next < end) {
+            long delay = next - System.nanoTime();
+            if (delay > 0) {
+                LockSupport.parkNanos(delay);
+            }
+            Operation operation = operations[random.nextInt(operations.length)];
+            long intended = next;
+            boolean measured = intended >= measureFrom;
+            inFlight.incrementAndGet();
+            client.sendAsync(request(operation, accounts, random), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        if (measured) {
+                            recorders.get(operation).record(System.nanoTime() - intended, error == null ? response.statusCode() : -1);
+                        }
+                        inFlight.decrementAndGet();
+                    });
+            next += (long) (-Math.log(1 - random.nextDouble()) * meanIntervalNanos);
+        }
+        long drainDeadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (inFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+            Thread.sleep(10);
+        }
+        for (Thread thread : flood) {
+            thread.join(TimeUnit.SECONDS.toMillis(30));
+        }
+    }
+
+    /**
+     * Các client đóng vòng gọi liên tục các báo cáo nặng (lịch sử 30 ngày, tổng hợp ngày, danh sách tài khoản)
+     * tới khi hết thời gian chạy.
+     */
+    private List<Thread> startReportFlood(long measureFrom, long end) {
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < config.reportFlood; i++) {
+            Random random = new Random(config.seed + 1 + i);
+            Thread thread = new Thread(() -> {
+                while (System.nanoTime() < end) {
+                    long sent = System.nanoTime();
+                    int status;
+                    try {
+                        status = client.send(reportRequest(random), HttpResponse.BodyHandlers.discarding()).statusCode();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    } catch (Exception e) {
+                        status = -1;
+                    }
+                    if (sent >= measureFrom) {
+                        floodRecorder.record(System.nanoTime() - sent, status);
+                    }
+                }
+            }, "report-flood-" + i);
+            thread.setDaemon(true);
+            thread.start();
+            threads.add(thread);
+        }
+        return threads;
+    }
+
+    void report(PrintStream out) {
+        double seconds = config.duration.toNanos() / 1e9;
+        out.printf("%nOpen-loop target %.0f req/s for %s (warmup %s), zipf=%.2f%n", config.rate, config.duration, config.warmup, config.zipfExponent);
+        out.printf("%-10s %9s %7s %7s %10s %9s %9s %9s %9s%n", "operation", "count", "errors", "429", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+        LatencyRecorder total = new LatencyRecorder();
+        for (Map.Entry<Operation, LatencyRecorder> entry : recorders.entrySet()) {
+            LatencyRecorder.Summary summary = entry.getValue().summarize();
+            if (summary.count() > 0) {
+                print(out, entry.getKey().name().toLowerCase(), summary, seconds);
+                entry.getValue().mergeInto(total);
+            }
+        }
+        print(out, "total", total.summarize(), seconds);
+        if (config.reportFlood > 0) {
+            out.printf("%n%d report flood clients (503 counted as errors):%n", config.reportFlood);
+            print(out, "flood", floodRecorder.summarize(), seconds);
+        }
+    }
+
+    private static void print(PrintStream out, String name, LatencyRecorder.Summary summary, double seconds) {
+        out.printf("%-10s %9d %7d %7d %10.1f %9.2f %9.2f %9.2f %9.2f%n", name, summary.count(), summary.errors(), summary.throttled(),
+                summary.count() / seconds, summary.p50() / 1e6, summary.p99() / 1e6, summary.p999() / 1e6, summary.max() / 1e6);
+    }
+
+    private Operation[] weightedOperations() {
+        List<Operation> weighted = new ArrayList<>();
+        config.mix.forEach((operation, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                weighted.add(operation);
+            }
+        });
+        return weighted.toArray(new Operation[0]);
+    }
+
+    private HttpRequest request(Operation operation, ZipfSampler accounts, Random random) {
+        String accountId = accountIds.get(accounts.next(random));
+        LocalDate today = LocalDate.now();
+        return switch (operation) {
+            case TRANSFER -> {
+                String receiverId = accountIds.get(accounts.next(random));
+                if (receiverId.equals(accountId)) {
+                    receiverId = accountIds.get((accountIds.indexOf(accountId) + 1 + random.nextInt(accountIds.size() - 1)) % accountIds.size());
+                }
+                yield HttpRequest.newBuilder(uri("/api/transactions?senderId=" + accountId + "&receiverId=" + receiverId
+                        + "&amount=" + (1 + random.nextInt(100)) + "&message=loadgen")).POST(HttpRequest.BodyPublishers.noBody()).build();
+            }
+            case HISTORY -> HttpRequest.newBuilder(uri("/api/transactions/date-range?startDate=" + today.minusDays(7) + "&endDate=" + today
+                    + "&accountId=" + accountId + "&status=&page=0&size=20&typeTransaction=ALL")).GET().build();
+            case SEARCH -> HttpRequest.newBuilder(uri("/api/accounts/search?keySearch="
+                    + URLEncoder.encode(ACCOUNT_PREFIX + accounts.next(random), StandardCharsets.UTF_8) + "&status=ACTIVE&page=0&size=20")).GET().build();
+            case SUMMARY -> HttpRequest.newBuilder(uri("/api/transactions/daily-summary?date=" + today)).GET().build();
+        };
+    }
+
+    private HttpRequest reportRequest(Random random) {
+        LocalDate day = LocalDate.now().minusDays(random.nextInt(30));
+        return switch (random.nextInt(3)) {
+            case 0 -> HttpRequest.newBuilder(uri("/api/transactions/date-range?startDate=" + day.minusDays(30) + "&endDate=" + day
+                    + "&accountId=" + accountIds.get(random.nextInt(accountIds.size())) + "&status=&page=0&size=500&typeTransaction=ALL")).GET().build();
+            case 1 -> HttpRequest.newBuilder(uri("/api/transactions/daily-summary?date=" + day)).GET().build();
+            default -> HttpRequest.newBuilder(uri("/api/accounts/")).GET().build();
+        };
+    }
+
+    private URI uri(String pathAndQuery) {
+        return URI.create(baseUrl + pathAndQuery);
+    }
+}
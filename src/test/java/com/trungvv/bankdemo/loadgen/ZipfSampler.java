@@ -0,0 +1,29 @@
+package com.trungvv.bankdemo.loadgen;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Chọn chỉ số 0..n-1 theo phân phối Zipf (chỉ số nhỏ là tài khoản "nóng"), exponent 0 là phân phối đều.
+ */
+class ZipfSampler {
+
+    private final double[] cdf;
+
+    ZipfSampler(int n, double exponent) {
+        cdf = new double[n];
+        double sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += 1.0 / Math.pow(i + 1, exponent);
+            cdf[i] = sum;
+        }
+        for (int i = 0; i < n; i++) {
+            cdf[i] /= sum;
+        }
+    }
+
+    int next(Random random) {
+        int index = Arrays.binarySearch(cdf, random.nextDouble());
+        return Math.min(index >= 0 ? index : -index - 1, cdf.length - 1);
+    }
+}
@@ -0,0 +1,84 @@
+package com.trungvv.bankdemo.model;
+
+import com.trungvv.bankdemo.shard.ShardRouter;
+import org.hibernate.id.IdentifierGeneratorHelper;
+import org.hibernate.id.IntegralDataTypeHolder;
+import org.hibernate.id.enhanced.AccessCallback;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ExpiringPooledLoOptimizerTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private final FakeTable table = new FakeTable(1, 3);
+    private final ExpiringPooledLoOptimizer optimizer = new ExpiringPooledLoOptimizer(Long.class, 3, 100, clock::get);
+
+    @Test
+    void generate_ShouldHandOutWholeBlockBeforeReadingTableAgain() {
+        List<Object> ids = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            ids.add(optimizer.generate(table));
+        }
+
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L, 7L), ids);
+        assertEquals(3, table.reads);
+    }
+
+    @Test
+    void generate_ShouldAbandonBlockOlderThanMaxAge() {
+        assertEquals(1L, optimizer.generate(table));
+        clock.addAndGet(101);
+
+        // Phần còn lại của khối [1, 4) bị bỏ để id không tụt sau id của instance khác
+        assertEquals(4L, optimizer.generate(table));
+        assertEquals(5L, optimizer.generate(table));
+        assertEquals(2, table.reads);
+    }
+
+    @Test
+    void generate_ShouldKeepSeparateBlockPerShard() {
+        ShardRouter shardRouter = new ShardRouter(true, List.of("shard-0", "shard-1"));
+        FakeTable shard1Table = new FakeTable(1, 3);
+
+        assertEquals(1L, optimizer.generate(table));
+        // Bảng id của shard 1 cũng bắt đầu từ 1, khối của shard 0 không được dùng cho nó
+        assertEquals(1L, shardRouter.on(1, () -> optimizer.generate(shard1Table)));
+        assertEquals(2L, optimizer.generate(table));
+        assertEquals(2L, shardRouter.on(1, () -> optimizer.generate(shard1Table)));
+        assertEquals(1, table.reads);
+        assertEquals(1, shard1Table.reads);
+    }
+
+    /**
+     * Giả lập bảng id_generators: mỗi lần đọc trả giá trị hiện tại rồi cộng thêm incrementSize.
+     */
+    private static final class FakeTable implements AccessCallback {
+        private long nextValue;
+        private final int incrementSize;
+        private int reads;
+
+        private FakeTable(long nextValue, int incrementSize) {
+            this.nextValue = nextValue;
+            this.incrementSize = incrementSize;
+        }
+
+        @Override
+        public IntegralDataTypeHolder getNextValue() {
+            reads++;
+            IntegralDataTypeHolder value = IdentifierGeneratorHelper.getIntegralDataTypeHolder(Long.class);
+            value.initialize(nextValue);
+            nextValue += incrementSize;
+            return value;
+        }
+
+        @Override
+        public String getTenantIdentifier() {
+            return null;
+        }
+    }
+}
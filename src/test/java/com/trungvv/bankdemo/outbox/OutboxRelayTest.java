@@ -0,0 +1,208 @@
+package com.trungvv.bankdemo.outbox;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trungvv.bankdemo.dto.TransactionDto;
+import com.trungvv.bankdemo.model.Account;
+import com.trungvv.bankdemo.model.AccountStatus;
+import com.trungvv.bankdemo.model.OutboxEvent;
+import com.trungvv.bankdemo.repository.AccountRepository;
+import com.trungvv.bankdemo.repository.OutboxEventRepository;
+import com.trungvv.bankdemo.service.TransactionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.EmbeddedDatabaseConnection;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@AutoConfigureTestDatabase(connection = EmbeddedDatabaseConnection.H2)
+@SpringBootTest(classes = {com.trungvv.bankdemo.BankDemoApplication.class})
+class OutboxRelayTest {
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private OutboxRelay outboxRelay;
+
+    @Autowired
+    private TransactionEventBus transactionEventBus;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private UUID senderId;
+    private UUID receiverId;
+
+    @BeforeEach
+    void setUp() {
+        senderId = accountRepository.save(account("Sender", 1000)).getId();
+        receiverId = accountRepository.save(account("Receiver", 0)).getId();
+    }
+
+    @Test
+    void createTransaction_ShouldWriteOutboxEventAndRelayInOrder() throws Exception {
+        List<TransactionEvent> received = new CopyOnWriteArrayList<>();
+        try (AutoCloseable ignored = transactionEventBus.subscribe(event -> {
+            if (senderId.equals(event.getTransaction().getSenderAccountId())) {
+                received.add(event);
+            }
+        })) {
+            TransactionDto first = transactionService.createTransaction(senderId, receiverId, BigDecimal.valueOf(10), "First");
+            TransactionDto second = transactionService.createTransaction(senderId, receiverId, BigDecimal.valueOf(20), "Second");
+
+            outboxRelay.publishPending();
+
+            assertEquals(List.of(first.getId(), second.getId()),
+                    received.stream().map(e -> e.getTransaction().getId()).toList());
+            assertTrue(received.get(0).getEventId() < received.get(1).getEventId());
+        }
+        assertTrue(outboxEventRepository.findAll().stream()
+                .filter(e -> e.getAggregateId().equals(senderId))
+                .allMatch(e -> e.getPublishedAt() != null));
+    }
+
+    @Test
+    void publishPending_ShouldRedeliverToFailedSubscriberOnly() throws Exception {
+        List<UUID> counted = new CopyOnWriteArrayList<>();
+        List<UUID> flaky = new CopyOnWriteArrayList<>();
+        AtomicBoolean failOnce = new AtomicBoolean(true);
+        try (AutoCloseable first = transactionEventBus.subscribe(event -> {
+            if (senderId.equals(event.getTransaction().getSenderAccountId())) {
+                counted.add(event.getTransaction().getId());
+            }
+        }); AutoCloseable second = transactionEventBus.subscribe(event -> {
+            if (senderId.equals(event.getTransaction().getSenderAccountId())) {
+                if (failOnce.getAndSet(false)) {
+                    throw new IllegalStateException("subscriber down");
+                }
+                flaky.add(event.getTransaction().getId());
+            }
+        })) {
+            TransactionDto transaction = transactionService.createTransaction(senderId, receiverId, BigDecimal.valueOf(10), "Retry");
+
+            // Relay theo lịch cũng có thể chạy xen vào, chỉ kiểm tra kết quả cuối
+            for (int attempt = 0; attempt < 5 && flaky.isEmpty(); attempt++) {
+                outboxRelay.publishPending();
+            }
+            assertFalse(failOnce.get());
+            assertEquals(List.of(transaction.getId()), flaky);
+            // Subscriber đã nhận ở lần đầu không bị phát trùng
+            assertEquals(List.of(transaction.getId()), counted);
+        }
+        assertTrue(outboxEventRepository.findAll().stream()
+                .filter(e -> e.getAggregateId().equals(senderId))
+                .allMatch(e -> e.getPublishedAt() != null));
+    }
+
+    @Test
+    void publish_ShouldDeliverEventCommittedAfterHigherId() throws Exception {
+        List<Long> received = new CopyOnWriteArrayList<>();
+        try (AutoCloseable ignored = transactionEventBus.subscribe(event -> {
+            if (senderId.equals(event.getTransaction().getSenderAccountId())) {
+                received.add(event.getEventId());
+            }
+        })) {
+            // Id N+1 commit trước, id N commit sau nên relay phát ở lô sau
+            transactionEventBus.publish(List.of(transactionEvent(-101L)));
+            transactionEventBus.publish(List.of(transactionEvent(-102L)));
+            // Phát lại cả hai thì không sự kiện nào bị nhận trùng
+            transactionEventBus.publish(List.of(transactionEvent(-102L), transactionEvent(-101L)));
+        }
+        assertEquals(List.of(-101L, -102L), received);
+    }
+
+    @Test
+    void purgePublished_ShouldDeleteOnlyEventsPublishedBeforeCutoff() {
+        LocalDateTime now = LocalDateTime.now();
+        OutboxEvent old = outboxEventRepository.save(event(now.minusDays(2)));
+        OutboxEvent recent = outboxEventRepository.save(event(now.minusMinutes(5)));
+        OutboxEvent pending = outboxEventRepository.save(event(null));
+
+        assertTrue(outboxRelay.purgePublished(now.minusDays(1)) >= 1);
+
+        assertFalse(outboxEventRepository.existsById(old.getId()));
+        assertTrue(outboxEventRepository.existsById(recent.getId()));
+        assertTrue(outboxEventRepository.existsById(pending.getId()));
+        outboxEventRepository.deleteAllById(List.of(recent.getId(), pending.getId()));
+    }
+
+    @Test
+    void logFileSink_ShouldAppendOneJsonLinePerEvent(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("events.ndjson");
+        LogFileOutboxSink sink = new LogFileOutboxSink(objectMapper, file.toString());
+        OutboxEvent event = OutboxEvent.builder()
+                .id(7L)
+                .aggregateId(senderId)
+                .eventType("TRANSACTION_COMPLETED")
+                .payload("{\"amount\":10}")
+                .createdAt(LocalDateTime.now())
+                .build();
+
+        sink.publish(List.of(event));
+        sink.publish(List.of(event));
+
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(2, lines.size());
+        JsonNode line = objectMapper.readTree(lines.get(0));
+        assertEquals(7, line.get("id").asLong());
+        assertEquals(senderId.toString(), line.get("aggregateId").asText());
+        assertEquals(10, line.get("payload").get("amount").asInt());
+    }
+
+    private OutboxEvent transactionEvent(long id) throws Exception {
+        TransactionDto transaction = TransactionDto.builder()
+                .id(UUID.randomUUID())
+                .senderAccountId(senderId)
+                .receiverAccountId(receiverId)
+                .amount(BigDecimal.TEN)
+                .status("SUCCESS")
+                .build();
+        return OutboxEvent.builder()
+                .id(id)
+                .aggregateId(senderId)
+                .eventType("TRANSACTION_COMPLETED")
+                .payload(objectMapper.writeValueAsString(transaction))
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+
+    private OutboxEvent event(LocalDateTime publishedAt) {
+        return OutboxEvent.builder()
+                .aggregateId(senderId)
+                .eventType("TRANSACTION_COMPLETED")
+                .payload("{}")
+                .createdAt(LocalDateTime.now())
+                .publishedAt(publishedAt)
+                .build();
+    }
+
+    private static Account account(String name, long balance) {
+        return Account.builder()
+                .accountNumber(String.valueOf(10_000_000 + (int) (Math.random() * 89_999_999)))
+                .accountName(name)
+                .balance(BigDecimal.valueOf(balance))
+                .status(AccountStatus.ACTIVE)
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+}
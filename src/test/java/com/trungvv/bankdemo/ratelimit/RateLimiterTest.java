@@ -0,0 +1,124 @@
+package com.trungvv.bankdemo.ratelimit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimiterTest {
+
+    private AtomicLong clock;
+    private RateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        clock = new AtomicLong(TimeUnit.SECONDS.toNanos(100));
+        rateLimiter = new RateLimiter(3, 1, 2, clock::get);
+    }
+
+    @Test
+    void tryAcquire_ShouldAllowBurstThenReject() {
+        assertEquals(0, rateLimiter.tryAcquire("a"));
+        assertEquals(0, rateLimiter.tryAcquire("a"));
+        assertEquals(0, rateLimiter.tryAcquire("a"));
+
+        long wait = rateLimiter.tryAcquire("a");
+        assertEquals(TimeUnit.SECONDS.toNanos(1), wait);
+        assertEquals(0, rateLimiter.tryAcquire("b"));
+    }
+
+    @Test
+    void tryAcquire_ShouldRefillOverTime() {
+        for (int i = 0; i < 3; i++) {
+            rateLimiter.tryAcquire("a");
+        }
+        assertTrue(rateLimiter.tryAcquire("a") > 0);
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+
+        assertEquals(0, rateLimiter.tryAcquire("a"));
+        assertTrue(rateLimiter.tryAcquire("a") > 0);
+    }
+
+    @Test
+    void evictIdle_ShouldRemoveOnlyRefilledBuckets() {
+        rateLimiter.tryAcquire("a");
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+        rateLimiter.tryAcquire("b");
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(600));
+
+        assertEquals(1, rateLimiter.evictIdle());
+        assertEquals(1, rateLimiter.size());
+    }
+
+    @Test
+    void tryAcquire_ShouldShareOverflowBucket_WhenKeyLimitReached() {
+        rateLimiter.tryAcquire("a");
+        rateLimiter.tryAcquire("b");
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, rateLimiter.tryAcquire("new-" + i));
+        }
+        assertTrue(rateLimiter.tryAcquire("another") > 0);
+        assertEquals(3, rateLimiter.size());
+    }
+
+    @Test
+    void interceptor_ShouldReturn429WithRetryAfter_WhenSenderOverLimit() throws Exception {
+        RateLimitInterceptor interceptor = new RateLimitInterceptor(true, 1, 1, 100, 100, 1000);
+        String senderId = UUID.randomUUID().toString();
+
+        assertTrue(interceptor.preHandle(transferRequest(senderId), new MockHttpServletResponse(), null));
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertFalse(interceptor.preHandle(transferRequest(senderId.toUpperCase()), response, null));
+        assertEquals(429, response.getStatus());
+        assertEquals("1", response.getHeader("Retry-After"));
+
+        assertTrue(interceptor.preHandle(transferRequest(UUID.randomUUID().toString()), new MockHttpServletResponse(), null));
+    }
+
+    @Test
+    void release_ShouldReturnTokenWithoutExceedingCapacity() {
+        for (int i = 0; i < 3; i++) {
+            rateLimiter.tryAcquire("a");
+        }
+        rateLimiter.release("a");
+        assertEquals(0, rateLimiter.tryAcquire("a"));
+        assertTrue(rateLimiter.tryAcquire("a") > 0);
+
+        rateLimiter.tryAcquire("b");
+        rateLimiter.release("b");
+        rateLimiter.release("b");
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, rateLimiter.tryAcquire("b"));
+        }
+        assertTrue(rateLimiter.tryAcquire("b") > 0);
+    }
+
+    @Test
+    void interceptor_ShouldNotSpendClientToken_WhenSenderOverLimit() throws Exception {
+        RateLimitInterceptor interceptor = new RateLimitInterceptor(true, 1, 1, 2, 1, 1000);
+        String senderId = UUID.randomUUID().toString();
+
+        assertTrue(interceptor.preHandle(transferRequest(senderId), new MockHttpServletResponse(), null));
+        for (int i = 0; i < 3; i++) {
+            assertFalse(interceptor.preHandle(transferRequest(senderId), new MockHttpServletResponse(), null));
+        }
+
+        // Client mới dùng 1/2 token, các request bị chặn theo sender không làm cạn giới hạn client
+        assertTrue(interceptor.preHandle(transferRequest(UUID.randomUUID().toString()), new MockHttpServletResponse(), null));
+    }
+
+    private static MockHttpServletRequest transferRequest(String senderId) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/transactions");
+        request.setParameter("senderId", senderId);
+        return request;
+    }
+}
@@ -1,5 +1,6 @@
 package com.trungvv.bankdemo.repository;
 
+import com.trungvv.bankdemo.dto.AccountDto;
 import com.trungvv.bankdemo.model.Account;
 import com.trungvv.bankdemo.model.AccountStatus;
 import com.trungvv.bankdemo.service.AccountService;
@@ -10,11 +11,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.jdbc.EmbeddedDatabaseConnection;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 
 import java.math.BigDecimal;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -70,4 +73,32 @@ public class AccountRepositoryTest {
         Assertions.assertThat(account).isNotPresent();
     }
 
-}
\ No newline at end of file
+    @Test
+    public void UserRepository_FindDtoByKeySearch_ThenReturnDtos() {
+        Pageable pageable = PageRequest.of(0, 10);
+        Page<AccountDto> accounts = accountRepository.findDtoByKeySearch("Trung", AccountStatus.ACTIVE, pageable);
+        Assertions.assertThat(accounts.getTotalElements()).isEqualTo(1);
+        Assertions.assertThat(accounts.getContent().get(0).getId()).isEqualTo(accountId);
+        Assertions.assertThat(accounts.getContent().get(0).getStatus()).isEqualTo("ACTIVE");
+    }
+
+    @Test
+    public void UserRepository_FindAllAccountDtos_ThenReturnDtos() {
+        List<AccountDto> accounts = accountRepository.findAllAccountDtos();
+        Assertions.assertThat(accounts).extracting(AccountDto::getAccountNumber).containsExactly("12345677");
+    }
+
+    @Test
+    public void UserRepository_SaveDuplicateAccountNumber_ThenThrow() {
+        Account duplicate = Account.builder()
+                .accountNumber("12345677")
+                .accountName("Other")
+                .balance(BigDecimal.ONE)
+                .createdAt(java.time.LocalDateTime.now())
+                .status(AccountStatus.ACTIVE)
+                .build();
+        Assertions.assertThatThrownBy(() -> accountRepository.saveAndFlush(duplicate))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+}
@@ -0,0 +1,373 @@
+package com.trungvv.bankdemo.repository;
+
+import com.trungvv.bankdemo.model.Account;
+import com.trungvv.bankdemo.model.AccountStatus;
+import com.trungvv.bankdemo.model.Transaction;
+import com.trungvv.bankdemo.model.TransactionStatus;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.TestFactory;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.jdbc.EmbeddedDatabaseConnection;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Kiểm tra kế hoạch thực thi của các @Query trong AccountRepository và TransactionRepository.
+ * Mỗi truy vấn được gọi thật qua repository trên H2 đã seed dữ liệu, SQL và tham số được bắt lại
+ * qua DataSource proxy rồi chạy lại bằng EXPLAIN ANALYZE. Test fail khi truy vấn không dùng index
+ * mong đợi, quét toàn bảng (ngoài các trường hợp được liệt kê rõ lý do) hoặc đọc quá số dòng cho phép.
+ */
+@AutoConfigureTestDatabase(connection = EmbeddedDatabaseConnection.H2)
+@SpringBootTest(classes = {com.trungvv.bankdemo.BankDemoApplication.class})
+@Import(QueryPlanTest.CapturingDataSourceConfig.class)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class QueryPlanTest {
+
+    private static final int ACCOUNTS = 1_000;
+    private static final int TRANSACTIONS = 20_000;
+    private static final int DAYS = 100;
+
+    private static final Pattern SCAN_COUNT = Pattern.compile("scanCount: (\\d+)");
+    private static final Pattern TABLE_SCAN = Pattern.compile("PUBLIC\\.(\\w+)\\.tableScan");
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Account probeAccount;
+    private LocalDate firstDay;
+
+    @BeforeAll
+    void seed() throws Exception {
+        transactionRepository.deleteAll();
+        accountRepository.deleteAll();
+
+        Random random = new Random(42);
+        List<Account> accounts = new ArrayList<>(ACCOUNTS);
+        for (int i = 0; i < ACCOUNTS; i++) {
+            accounts.add(Account.builder()
+                    .accountNumber(String.format("%010d", i))
+                    .accountName("Customer " + i)
+                    .balance(BigDecimal.valueOf(1_000_000))
+                    .status(i % 10 == 0 ? AccountStatus.BLOCKED : AccountStatus.ACTIVE)
+                    .createdAt(LocalDateTime.now())
+                    .build());
+        }
+        accounts = accountRepository.saveAll(accounts);
+        probeAccount = accounts.get(0);
+
+        firstDay = LocalDate.now().minusDays(DAYS - 1);
+        List<Transaction> transactions = new ArrayList<>(TRANSACTIONS);
+        for (int i = 0; i < TRANSACTIONS; i++) {
+            int sender = random.nextInt(ACCOUNTS);
+            int receiver = (sender + 1 + random.nextInt(ACCOUNTS - 1)) % ACCOUNTS;
+            transactions.add(Transaction.builder()
+                    .senderAccountId(accounts.get(sender).getId())
+                    .receiverAccountId(accounts.get(receiver).getId())
+                    .amount(BigDecimal.valueOf(1 + random.nextInt(1_000)))
+                    .status(i % 20 == 0 ? TransactionStatus.FAILED : TransactionStatus.SUCCESS)
+                    .message("Seed " + i)
+                    .createdAt(firstDay.atStartOfDay().plusSeconds(random.nextInt(DAYS * 86_400)))
+                    .build());
+        }
+        transactionRepository.saveAll(transactions);
+
+        // Cập nhật thống kê để optimizer của H2 chọn index như trên dữ liệu thật
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("ANALYZE");
+        }
+    }
+
+    @TestFactory
+    Stream<DynamicTest> accountRepositoryQueries() {
+        UUID probeId = probeAccount.getId();
+        return Stream.of(
+                plan("findByKeySearch", () -> accountRepository.findByKeySearch("Customer 1", AccountStatus.ACTIVE, PageRequest.of(0, 1)))
+                        .allowTableScan("ACCOUNTS", "LIKE '%key%' không dùng được index"),
+                plan("findDtoByKeySearch", () -> accountRepository.findDtoByKeySearch("Customer 1", AccountStatus.ACTIVE, PageRequest.of(0, 1)))
+                        .allowTableScan("ACCOUNTS", "LIKE '%key%' không dùng được index"),
+                plan("findAllAccountDtos", () -> accountRepository.findAllAccountDtos())
+                        .allowTableScan("ACCOUNTS", "liệt kê toàn bộ tài khoản"),
+                plan("findVersionById", () -> accountRepository.findVersionById(probeId))
+                        .usesIndex("PRIMARY_KEY").maxRows(5),
+                plan("findAccountDtosByIdIn", () -> accountRepository.findAccountDtosByIdIn(List.of(probeId, rangeFrom())))
+                        .usesIndex("PRIMARY_KEY").maxRows(5),
+                plan("findAccountNumbersBetween", () -> accountRepository.findAccountNumbersBetween("0000000100", "0000000199"))
+                        .usesIndex("UK_ACCOUNTS_ACCOUNT_NUMBER").maxRows(150),
+                plan("findBalancesInRange", () -> accountRepository.findBalancesInRange(rangeFrom(), rangeTo()))
+                        .usesIndex("PRIMARY_KEY").maxRows(ACCOUNTS / 8),
+                plan("findStatementAccountsInRange", () -> accountRepository.findStatementAccountsInRange(rangeFrom(), rangeTo()))
+                        .usesIndex("PRIMARY_KEY").maxRows(ACCOUNTS / 8)
+        ).map(this::toDynamicTest);
+    }
+
+    @TestFactory
+    Stream<DynamicTest> transactionRepositoryQueries() {
+        UUID probeId = probeAccount.getId();
+        LocalDate lastDay = firstDay.plusDays(DAYS - 1);
+        // Một tuần ~ 7% số giao dịch, một ngày ~ 1%
+        int weekRows = TRANSACTIONS * 7 / DAYS;
+        int dayRows = TRANSACTIONS / DAYS;
+        return Stream.of(
+                plan("findByCreatedAtBetween", () -> transactionRepository.findByCreatedAtBetween(lastDay.minusDays(6), lastDay, probeId, null, "ALL", PageRequest.of(0, 1)))
+                        .usesIndex("IDX_TRANSACTIONS_CREATED_AT").maxRows(weekRows * 3 / 2),
+                plan("findDtoByCreatedAtBetween", () -> transactionRepository.findDtoByCreatedAtBetween(lastDay.minusDays(6), lastDay, probeId, null, "TRANSFER", PageRequest.of(0, 1)))
+                        .usesIndex("IDX_TRANSACTIONS_CREATED_AT").maxRows(weekRows * 3 / 2),
+                plan("sumTransactionAmountByAccountId", () -> transactionRepository.sumTransactionAmountByAccountId(probeId))
+                        .usesIndex("IDX_TRANSACTIONS_SENDER_CREATED").usesIndex("IDX_TRANSACTIONS_RECEIVER_CREATED").maxRows(200),
+                plan("countBySenderAccountIdOrReceiverAccountId", () -> transactionRepository.countBySenderAccountIdOrReceiverAccountId(probeId))
+                        .usesIndex("IDX_TRANSACTIONS_SENDER_CREATED").usesIndex("IDX_TRANSACTIONS_RECEIVER_CREATED").maxRows(200),
+                plan("getDailyTransactionSummaryForAllCustomers", () -> transactionRepository.getDailyTransactionSummaryForAllCustomers(lastDay))
+                        .usesIndex("IDX_TRANSACTIONS_CREATED_AT").maxRows(dayRows * 3 / 2),
+                plan("sumSentBetween", () -> transactionRepository.sumSentBetween(lastDay.atStartOfDay(), lastDay.plusDays(1).atStartOfDay()))
+                        .usesIndex("IDX_TRANSACTIONS_CREATED_AT").maxRows(dayRows * 3 / 2),
+                plan("sumReceivedBetween", () -> transactionRepository.sumReceivedBetween(lastDay.atStartOfDay(), lastDay.plusDays(1).atStartOfDay()))
+                        .usesIndex("IDX_TRANSACTIONS_CREATED_AT").maxRows(dayRows * 3 / 2),
+                plan("getTransactionHistoryVersion", () -> transactionRepository.getTransactionHistoryVersion(probeId))
+                        .usesIndex("IDX_TRANSACTIONS_SENDER_CREATED").usesIndex("IDX_TRANSACTIONS_RECEIVER_CREATED").maxRows(200),
+                plan("sumReceivedInRange", () -> transactionRepository.sumReceivedInRange(rangeFrom(), rangeTo()))
+                        .usesIndex("IDX_TRANSACTIONS_RECEIVER_CREATED").maxRows(TRANSACTIONS / 8),
+                plan("sumSentInRange", () -> transactionRepository.sumSentInRange(rangeFrom(), rangeTo()))
+                        .usesIndex("IDX_TRANSACTIONS_SENDER_CREATED").maxRows(TRANSACTIONS / 8),
+                plan("streamStatementLines", () -> new TransactionTemplate(transactionManager).execute(status -> {
+                    try (Stream<?> lines = transactionRepository.streamStatementLines(rangeFrom(), rangeTo(),
+                            lastDay.minusDays(6).atStartOfDay(), lastDay.plusDays(1).atStartOfDay())) {
+                        return lines.count();
+                    }
+                }))
+                        .usesIndex("IDX_TRANSACTIONS_CREATED_AT").maxRows(weekRows * 3 / 2),
+                plan("findSentSince", () -> transactionRepository.findSentSince(lastDay.atStartOfDay()))
+                        .usesIndex("IDX_TRANSACTIONS_CREATED_AT").maxRows(dayRows * 3 / 2),
+                plan("streamSentBetween", () -> new TransactionTemplate(transactionManager).execute(status -> {
+                    try (Stream<?> transfers = transactionRepository.streamSentBetween(lastDay.atStartOfDay(), lastDay.atTime(1, 0))) {
+                        return transfers.count();
+                    }
+                }))
+                        .usesIndex("IDX_TRANSACTIONS_CREATED_AT").maxRows(dayRows),
+                plan("findFirstCreatedAt", () -> transactionRepository.findFirstCreatedAt())
+                        .usesIndex("IDX_TRANSACTIONS_CREATED_AT").maxRows(1),
+                plan("findKeysCreatedBefore", () -> transactionRepository.findKeysCreatedBefore(firstDay.plusDays(7).atStartOfDay(),
+                        firstDay.plusDays(6).atStartOfDay(), new UUID(0L, 0L), PageRequest.of(0, 100)))
+                        .usesIndex("IDX_TRANSACTIONS_CREATED_AT").maxRows(dayRows * 3 / 2),
+                plan("findKeysBySender", () -> transactionRepository.findKeysBySender(probeId, firstDay.atStartOfDay(), new UUID(0L, 0L), PageRequest.of(0, 100)))
+                        .usesIndex("IDX_TRANSACTIONS_SENDER_CREATED").maxRows(100),
+                plan("findKeysByReceiver", () -> transactionRepository.findKeysByReceiver(probeId, firstDay.atStartOfDay(), new UUID(0L, 0L), PageRequest.of(0, 100)))
+                        .usesIndex("IDX_TRANSACTIONS_RECEIVER_CREATED").maxRows(100)
+        ).map(this::toDynamicTest);
+    }
+
+    /**
+     * Khoảng id 1/16 không gian UUID (prefix 0x1...), tương ứng vài partition của đối soát/sao kê.
+     */
+    private static UUID rangeFrom() {
+        return new UUID(0x1000_0000_0000_0000L, 0L);
+    }
+
+    private static UUID rangeTo() {
+        return new UUID(0x1FFF_FFFF_FFFF_FFFFL, -1L);
+    }
+
+    private DynamicTest toDynamicTest(PlanExpectation expectation) {
+        return DynamicTest.dynamicTest(expectation.name, () -> verify(expectation));
+    }
+
+    private void verify(PlanExpectation expectation) throws Exception {
+        List<CapturedStatement> statements;
+        synchronized (CAPTURED) {
+            CAPTURED.clear();
+            expectation.query.run();
+            statements = new ArrayList<>(CAPTURED);
+        }
+        statements.removeIf(statement -> !statement.sql.trim().toLowerCase().startsWith("select"));
+        assertFalse(statements.isEmpty(), expectation.name + ": không bắt được câu SELECT nào");
+
+        StringBuilder plans = new StringBuilder();
+        long rowsScanned = 0;
+        try (Connection connection = dataSource.getConnection()) {
+            for (CapturedStatement statement : statements) {
+                String plan = explainAnalyze(connection, statement);
+                plans.append(plan).append('\n');
+
+                Matcher scans = SCAN_COUNT.matcher(plan);
+                while (scans.find()) {
+                    rowsScanned += Long.parseLong(scans.group(1));
+                }
+                Matcher tableScan = TABLE_SCAN.matcher(plan);
+                while (tableScan.find()) {
+                    if (!expectation.tablesAllowedToScan.contains(tableScan.group(1))) {
+                        fail(expectation.name + ": quét toàn bảng " + tableScan.group(1) + "\n" + plan);
+                    }
+                }
+            }
+        }
+        for (String index : expectation.expectedIndexes) {
+            assertTrue(plans.toString().toUpperCase().contains(index),
+                    expectation.name + ": không dùng index " + index + "\n" + plans);
+        }
+        if (expectation.maxRows > 0) {
+            assertTrue(rowsScanned <= expectation.maxRows,
+                    expectation.name + ": đọc " + rowsScanned + " dòng, giới hạn " + expectation.maxRows + "\n" + plans);
+        }
+    }
+
+    private static String explainAnalyze(Connection connection, CapturedStatement statement) throws Exception {
+        try (PreparedStatement explain = connection.prepareStatement("EXPLAIN ANALYZE " + statement.sql)) {
+            for (Binding binding : statement.bindings) {
+                binding.method.invoke(explain, binding.args);
+            }
+            StringBuilder plan = new StringBuilder();
+            try (ResultSet resultSet = explain.executeQuery()) {
+                while (resultSet.next()) {
+                    plan.append(resultSet.getString(1));
+                }
+            }
+            return plan.toString();
+        }
+    }
+
+    private static PlanExpectation plan(String name, Runnable query) {
+        return new PlanExpectation(name, query);
+    }
+
+    private static final class PlanExpectation {
+        private final String name;
+        private final Runnable query;
+        private final List<String> expectedIndexes = new ArrayList<>();
+        private final Set<String> tablesAllowedToScan = new java.util.HashSet<>();
+        private long maxRows;
+
+        private PlanExpectation(String name, Runnable query) {
+            this.name = name;
+            this.query = query;
+        }
+
+        PlanExpectation usesIndex(String index) {
+            expectedIndexes.add(index);
+            return this;
+        }
+
+        PlanExpectation maxRows(long maxRows) {
+            this.maxRows = maxRows;
+            return this;
+        }
+
+        /**
+         * Cho phép quét toàn bảng khi đó là bản chất của truy vấn; lý do chỉ để ghi lại trong spec.
+         */
+        PlanExpectation allowTableScan(String table, String reason) {
+            tablesAllowedToScan.add(table);
+            return this;
+        }
+    }
+
+    // ---- bắt SQL và tham số qua DataSource proxy ----
+
+    private static final List<CapturedStatement> CAPTURED = Collections.synchronizedList(new ArrayList<>());
+
+    private record Binding(Method method, Object[] args) {
+    }
+
+    private record CapturedStatement(String sql, List<Binding> bindings) {
+    }
+
+    @TestConfiguration
+    static class CapturingDataSourceConfig {
+
+        @Bean
+        static BeanPostProcessor capturingDataSourcePostProcessor() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (bean instanceof DataSource target) {
+                        return proxy(DataSource.class, (proxy, method, args) -> {
+                            Object result = invoke(target, method, args);
+                            return result instanceof Connection connection ? capturingConnection(connection) : result;
+                        });
+                    }
+                    return bean;
+                }
+            };
+        }
+
+        private static Connection capturingConnection(Connection target) {
+            return proxy(Connection.class, (proxy, method, args) -> {
+                Object result = invoke(target, method, args);
+                if (result instanceof PreparedStatement statement && method.getName().equals("prepareStatement")) {
+                    return capturingStatement(statement, (String) args[0]);
+                }
+                return result;
+            });
+        }
+
+        private static PreparedStatement capturingStatement(PreparedStatement target, String sql) {
+            List<Binding> bindings = new ArrayList<>();
+            return proxy(PreparedStatement.class, (proxy, method, args) -> {
+                String name = method.getName();
+                if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                    bindings.add(new Binding(method, args.clone()));
+                } else if (name.equals("clearParameters")) {
+                    bindings.clear();
+                } else if (name.startsWith("execute") && (args == null || args.length == 0)) {
+                    CAPTURED.add(new CapturedStatement(sql, new ArrayList<>(bindings)));
+                }
+                return invoke(target, method, args);
+            });
+        }
+
+        private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+            return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler);
+        }
+    }
+}
@@ -1,12 +1,16 @@
 package com.trungvv.bankdemo.repository;
 
 import com.trungvv.bankdemo.dto.IDailLyTransactionSummary;
+import com.trungvv.bankdemo.dto.ITransactionHistoryVersion;
+import com.trungvv.bankdemo.dto.TransactionDto;
 import com.trungvv.bankdemo.model.Transaction;
 import com.trungvv.bankdemo.model.TransactionStatus;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 
 import java.math.BigDecimal;
@@ -103,4 +107,29 @@ class TransactionRepositoryTest {
         }
         assertTrue(found, "Summary for senderId not found");
     }
+
+    @Test
+    void getTransactionHistoryVersion_ShouldReturnCountAndLatestCreatedAt() {
+        ITransactionHistoryVersion version = transactionRepository.getTransactionHistoryVersion(senderId);
+
+        assertEquals(2L, version.getTransactionCount());
+        assertEquals(2L, version.getSuccessCount());
+        assertNotNull(version.getLastCreatedAt());
+
+        ITransactionHistoryVersion empty = transactionRepository.getTransactionHistoryVersion(UUID.randomUUID());
+        assertEquals(0L, empty.getTransactionCount());
+        assertNull(empty.getLastCreatedAt());
+    }
+
+    @Test
+    void findDtoByCreatedAtBetween_ShouldProjectTransactionsInDateRange() {
+        Page<TransactionDto> transactions = transactionRepository.findDtoByCreatedAtBetween(
+                LocalDate.now().minusDays(2), LocalDate.now(), senderId, null, "TRANSFER", PageRequest.of(0, 10));
+
+        assertEquals(1, transactions.getTotalElements());
+        TransactionDto dto = transactions.getContent().get(0);
+        assertEquals(senderId, dto.getSenderAccountId());
+        assertEquals("SUCCESS", dto.getStatus());
+        assertEquals(0, BigDecimal.valueOf(1000).compareTo(dto.getAmount()));
+    }
 }
@@ -0,0 +1,206 @@
+package com.trungvv.bankdemo.retention;
+
+import com.trungvv.bankdemo.analytics.DailySummaryCache;
+import com.trungvv.bankdemo.dto.ReconciliationRunDto;
+import com.trungvv.bankdemo.model.ReconciliationResult;
+import com.trungvv.bankdemo.model.Transaction;
+import com.trungvv.bankdemo.model.TransactionStatus;
+import com.trungvv.bankdemo.repository.AccountDeletionRepository;
+import com.trungvv.bankdemo.repository.BalanceSnapshotRepository;
+import com.trungvv.bankdemo.repository.LedgerEntryRepository;
+import com.trungvv.bankdemo.repository.TransactionCarryForwardRepository;
+import com.trungvv.bankdemo.repository.TransactionRepository;
+import com.trungvv.bankdemo.service.AccountService;
+import com.trungvv.bankdemo.service.LedgerService;
+import com.trungvv.bankdemo.service.ReconciliationService;
+import com.trungvv.bankdemo.service.TransactionService;
+import com.trungvv.bankdemo.shard.ShardRouter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.EmbeddedDatabaseConnection;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@AutoConfigureTestDatabase(connection = EmbeddedDatabaseConnection.H2)
+@SpringBootTest(classes = {com.trungvv.bankdemo.BankDemoApplication.class},
+        properties = {"bank.retention.enabled=false", "bank.velocity.enabled=false"})
+class RetentionPurgerTest {
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private TransactionCarryForwardRepository transactionCarryForwardRepository;
+
+    @Autowired
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    @Autowired
+    private BalanceSnapshotRepository balanceSnapshotRepository;
+
+    @Autowired
+    private AccountDeletionRepository accountDeletionRepository;
+
+    @Autowired
+    private DailySummaryCache dailySummaryCache;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private ReconciliationService reconciliationService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final ReplicaLagProbe replicaLagProbe = mock(ReplicaLagProbe.class);
+    private final List<UUID> seeded = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        transactionRepository.deleteAllById(seeded);
+    }
+
+    @Test
+    void purge_ShouldArchiveTransactionsOlderThanRetentionInChunks() {
+        LocalDateTime now = LocalDateTime.now();
+        List<UUID> old = seed(45, now.minusDays(400));
+        List<UUID> recent = seed(5, now.minusDays(10));
+
+        // Lô 10 dòng: phải qua nhiều lô và lô cuối thiếu
+        assertEquals(45, purger(RetentionMode.ARCHIVE, 365).purge(now));
+
+        assertTrue(transactionRepository.findAllById(old).isEmpty());
+        assertEquals(5, transactionRepository.findAllById(recent).size());
+        for (UUID id : old) {
+            assertEquals(1, archivedCount(id));
+        }
+        assertEquals(0, purger(RetentionMode.ARCHIVE, 365).purge(now));
+    }
+
+    @Test
+    void purge_ShouldDeleteWithoutArchivingInDeleteMode() {
+        LocalDateTime now = LocalDateTime.now();
+        List<UUID> old = seed(12, now.minusDays(400));
+
+        assertEquals(12, purger(RetentionMode.DELETE, 365).purge(now));
+
+        assertTrue(transactionRepository.findAllById(old).isEmpty());
+        assertEquals(0, archivedCount(old.get(0)));
+    }
+
+    @Test
+    void purge_ShouldRemoveOrphansOfDeletedAccount() {
+        UUID deleted = accountService.createAccount("Closed", BigDecimal.valueOf(1000)).getId();
+        UUID kept = accountService.createAccount("Counterparty", BigDecimal.valueOf(1000)).getId();
+        UUID sent = transactionService.createTransaction(deleted, kept, BigDecimal.valueOf(100), "out").getId();
+        UUID received = transactionService.createTransaction(kept, deleted, BigDecimal.valueOf(40), "in").getId();
+        UUID unrelated = seed(1, LocalDateTime.now()).get(0);
+        ledgerService.snapshotBalances(LocalDateTime.now().plusSeconds(1));
+        accountService.deleteAccount(deleted);
+
+        int purged = purger(RetentionMode.ARCHIVE, 0).purge(LocalDateTime.now());
+
+        // 2 giao dịch + 3 bút toán (mở tài khoản, gửi, nhận) của tài khoản đã xóa
+        assertEquals(5, purged);
+        assertTrue(transactionRepository.findAllById(List.of(sent, received)).isEmpty());
+        assertTrue(transactionRepository.existsById(unrelated));
+        assertTrue(ledgerEntryRepository.findIdsByAccountId(deleted, 0L, PageRequest.of(0, 10)).isEmpty());
+        assertFalse(balanceSnapshotRepository.existsById(deleted));
+        assertFalse(accountDeletionRepository.existsById(deleted));
+        // Sổ cái của tài khoản còn lại không bị đụng tới
+        assertEquals(0, BigDecimal.valueOf(1060).compareTo(ledgerService.getBalance(kept)));
+    }
+
+    @Test
+    void purge_ShouldKeepSurvivingAccountsReconciled() {
+        UUID deleted = accountService.createAccount("Closed", BigDecimal.valueOf(1000)).getId();
+        UUID counterparty = accountService.createAccount("Counterparty", BigDecimal.valueOf(1000)).getId();
+        UUID other = accountService.createAccount("Other", BigDecimal.valueOf(1000)).getId();
+        transactionService.createTransaction(deleted, counterparty, BigDecimal.valueOf(100), "out");
+        transactionService.createTransaction(counterparty, deleted, BigDecimal.valueOf(40), "in");
+        UUID old = transactionService.createTransaction(other, counterparty, BigDecimal.valueOf(30), "old").getId();
+        jdbcTemplate.update("UPDATE transactions SET created_at = ? WHERE id = ?", LocalDateTime.now().minusDays(400), old);
+        accountService.deleteAccount(deleted);
+
+        // Dọn cả giao dịch của tài khoản đã xóa lẫn giao dịch quá hạn giữa hai tài khoản còn lại
+        purger(RetentionMode.DELETE, 365).purge(LocalDateTime.now());
+
+        assertFalse(transactionRepository.existsById(old));
+        assertEquals(0, BigDecimal.valueOf(90).compareTo(transactionCarryForwardRepository.findById(counterparty).orElseThrow().getAmount()));
+        assertEquals(0, BigDecimal.valueOf(-30).compareTo(transactionCarryForwardRepository.findById(other).orElseThrow().getAmount()));
+        assertFalse(transactionCarryForwardRepository.existsById(deleted));
+
+        ReconciliationRunDto run = reconciliationService.runReconciliation();
+        List<ReconciliationResult> mismatches = reconciliationService.listMismatches(run.getId(), 0, 1000).getContent();
+        assertTrue(mismatches.stream().noneMatch(r -> r.getAccountId().equals(counterparty) || r.getAccountId().equals(other)),
+                () -> "Mismatches after purge: " + mismatches);
+    }
+
+    @Test
+    void purge_ShouldPauseWhileReplicaLags() {
+        LocalDateTime now = LocalDateTime.now();
+        List<UUID> old = seed(3, now.minusDays(400));
+        when(replicaLagProbe.lagSeconds()).thenReturn(60L);
+
+        assertEquals(0, purger(RetentionMode.ARCHIVE, 365).purge(now));
+        assertEquals(3, transactionRepository.findAllById(old).size());
+
+        when(replicaLagProbe.lagSeconds()).thenReturn(0L);
+        assertEquals(3, purger(RetentionMode.ARCHIVE, 365).purge(now));
+    }
+
+    private RetentionPurger purger(RetentionMode mode, int transactionDays) {
+        return new RetentionPurger(shardRouter, transactionRepository, transactionCarryForwardRepository, ledgerEntryRepository, balanceSnapshotRepository,
+                accountDeletionRepository, dailySummaryCache, replicaLagProbe, transactionManager,
+                false, mode, transactionDays, 60000, 10, 0, 500, 5, 5);
+    }
+
+    private List<UUID> seed(int count, LocalDateTime createdAt) {
+        List<Transaction> transactions = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            transactions.add(Transaction.builder()
+                    .senderAccountId(UUID.randomUUID())
+                    .receiverAccountId(UUID.randomUUID())
+                    .amount(BigDecimal.TEN)
+                    .status(TransactionStatus.SUCCESS)
+                    .message("Retention " + i)
+                    // Nhiều giao dịch cùng created_at để con trỏ keyset phải so thêm id
+                    .createdAt(createdAt.minusSeconds(i / 3))
+                    .build());
+        }
+        List<UUID> ids = transactionRepository.saveAll(transactions).stream().map(Transaction::getId).toList();
+        seeded.addAll(ids);
+        return ids;
+    }
+
+    private int archivedCount(UUID id) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transactions_archive WHERE id = ?", Integer.class, id);
+    }
+}
@@ -0,0 +1,150 @@
+package com.trungvv.bankdemo.schedule;
+
+import com.trungvv.bankdemo.dto.ScheduledTransferDto;
+import com.trungvv.bankdemo.repository.AccountRepository;
+import com.trungvv.bankdemo.repository.ScheduledTransferRepository;
+import com.trungvv.bankdemo.repository.TransactionRepository;
+import com.trungvv.bankdemo.service.AccountService;
+import com.trungvv.bankdemo.service.ScheduledTransferService;
+import com.trungvv.bankdemo.shard.ShardRouter;
+import com.trungvv.bankdemo.shard.TransferCoordinator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.EmbeddedDatabaseConnection;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@AutoConfigureTestDatabase(connection = EmbeddedDatabaseConnection.H2)
+@SpringBootTest(classes = {com.trungvv.bankdemo.BankDemoApplication.class},
+        properties = "bank.scheduled-transfers.enabled=false")
+class ScheduledTransferExecutorTest {
+
+    @Autowired
+    private ScheduledTransferService scheduledTransferService;
+
+    @Autowired
+    private ScheduledTransferRepository scheduledTransferRepository;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransferCoordinator transferCoordinator;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Executor riêng cho mỗi test để điều khiển đồng hồ của wheel
+    private ScheduledTransferExecutor executor;
+    private UUID senderId;
+    private UUID receiverId;
+    private LocalDateTime now;
+
+    @BeforeEach
+    void setUp() {
+        executor = new ScheduledTransferExecutor(scheduledTransferRepository, transferCoordinator, shardRouter,
+                transactionManager, false, 1000, 300, 2, 2);
+        senderId = accountService.createAccount("Standing order sender", BigDecimal.valueOf(1000)).getId();
+        receiverId = accountService.createAccount("Standing order receiver", BigDecimal.ZERO).getId();
+        now = LocalDateTime.now().withNano(0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void tick_ShouldCatchUpEveryMissedOccurrenceExactlyOnce() {
+        ScheduledTransferDto schedule = scheduledTransferService.createSchedule(senderId, receiverId, BigDecimal.valueOf(100),
+                "Rent", "DAILY", now.minusDays(3), null);
+
+        assertEquals(4, executor.tick(now));
+        // Tick lại không chạy trùng
+        assertEquals(0, executor.tick(now.plusSeconds(1)));
+
+        ScheduledTransferDto after = scheduledTransferService.getSchedule(schedule.getId());
+        assertEquals("ACTIVE", after.getStatus());
+        assertEquals(4, after.getOccurrences());
+        assertEquals(now.plusDays(1), after.getNextRunAt());
+        assertNotNull(after.getLastTransactionId());
+        assertEquals(0, BigDecimal.valueOf(600).compareTo(accountRepository.findById(senderId).orElseThrow().getBalance()));
+        assertEquals(4, transactionRepository.countBySenderAccountIdOrReceiverAccountId(senderId));
+    }
+
+    @Test
+    void tick_ShouldStopAtEndAt() {
+        ScheduledTransferDto schedule = scheduledTransferService.createSchedule(senderId, receiverId, BigDecimal.valueOf(100),
+                null, "DAILY", now.minusDays(3), now.minusDays(1).minusHours(1));
+
+        assertEquals(2, executor.tick(now));
+
+        ScheduledTransferDto after = scheduledTransferService.getSchedule(schedule.getId());
+        assertEquals("COMPLETED", after.getStatus());
+        assertEquals(2, after.getOccurrences());
+        assertEquals(0, BigDecimal.valueOf(800).compareTo(accountRepository.findById(senderId).orElseThrow().getBalance()));
+    }
+
+    @Test
+    void tick_ShouldRunFutureScheduleWhenDueAndNotBefore() {
+        // 90 giây > 64 ô x 1 giây: đi qua tầng overflow của wheel
+        ScheduledTransferDto schedule = scheduledTransferService.createSchedule(senderId, receiverId, BigDecimal.valueOf(250),
+                "Later", "ONCE", now.plusSeconds(90), null);
+
+        assertEquals(0, executor.tick(now));
+        assertEquals(1, executor.pendingCount());
+        assertEquals(0, executor.tick(now.plusSeconds(89)));
+        assertEquals(1, executor.tick(now.plusSeconds(90)));
+
+        ScheduledTransferDto after = scheduledTransferService.getSchedule(schedule.getId());
+        assertEquals("COMPLETED", after.getStatus());
+        assertEquals(0, executor.pendingCount());
+        assertEquals(0, BigDecimal.valueOf(750).compareTo(accountRepository.findById(senderId).orElseThrow().getBalance()));
+    }
+
+    @Test
+    void tick_ShouldMarkRejectedOneOffScheduleAsFailed() {
+        ScheduledTransferDto schedule = scheduledTransferService.createSchedule(senderId, receiverId, BigDecimal.valueOf(5000),
+                "Too much", "ONCE", now.minusMinutes(1), null);
+
+        assertEquals(1, executor.tick(now));
+
+        ScheduledTransferDto after = scheduledTransferService.getSchedule(schedule.getId());
+        assertEquals("FAILED", after.getStatus());
+        assertNotNull(after.getLastError());
+        assertNull(after.getLastTransactionId());
+        assertEquals(0, BigDecimal.valueOf(1000).compareTo(accountRepository.findById(senderId).orElseThrow().getBalance()));
+    }
+
+    @Test
+    void tick_ShouldSkipCancelledSchedule() {
+        ScheduledTransferDto schedule = scheduledTransferService.createSchedule(senderId, receiverId, BigDecimal.valueOf(100),
+                null, "WEEKLY", now.plusSeconds(5), null);
+        assertEquals(0, executor.tick(now));
+
+        scheduledTransferService.cancelSchedule(schedule.getId());
+        executor.tick(now.plusSeconds(5));
+
+        assertEquals("CANCELLED", scheduledTransferService.getSchedule(schedule.getId()).getStatus());
+        assertEquals(0, BigDecimal.valueOf(1000).compareTo(accountRepository.findById(senderId).orElseThrow().getBalance()));
+        assertThrows(IllegalStateException.class, () -> scheduledTransferService.cancelSchedule(schedule.getId()));
+    }
+}
@@ -0,0 +1,92 @@
+package com.trungvv.bankdemo.schedule;
+
+import com.trungvv.bankdemo.dto.AccountDto;
+import com.trungvv.bankdemo.dto.ScheduledTransferDto;
+import com.trungvv.bankdemo.model.CrossShardTransferStatus;
+import com.trungvv.bankdemo.repository.CrossShardTransferRepository;
+import com.trungvv.bankdemo.repository.ScheduledTransferRepository;
+import com.trungvv.bankdemo.service.AccountService;
+import com.trungvv.bankdemo.service.ScheduledTransferService;
+import com.trungvv.bankdemo.shard.ShardRouter;
+import com.trungvv.bankdemo.shard.TransferCoordinator;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Lệnh hẹn giờ khi chia ba shard: lệnh nằm trên shard người gửi, người nhận ở shard khác.
+ */
+@SpringBootTest(classes = {com.trungvv.bankdemo.BankDemoApplication.class}, properties = {
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "bank.sharding.enabled=true",
+        "bank.sharding.urls=jdbc:h2:mem:shard-schedule-0;DB_CLOSE_DELAY=-1,jdbc:h2:mem:shard-schedule-1;DB_CLOSE_DELAY=-1,jdbc:h2:mem:shard-schedule-2;DB_CLOSE_DELAY=-1",
+        "bank.sharding.recovery-interval-ms=3600000",
+        "bank.scheduled-transfers.enabled=false",
+        "bank.velocity.enabled=false"
+})
+class ShardedScheduledTransferExecutorTest {
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private TransferCoordinator transferCoordinator;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private ScheduledTransferService scheduledTransferService;
+
+    @Autowired
+    private ScheduledTransferRepository scheduledTransferRepository;
+
+    @Autowired
+    private CrossShardTransferRepository crossShardTransferRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void scheduledTransfer_ShouldRunFromSenderShardAndSettleOnReceiverShard() {
+        AccountDto sender = createAccountOn(2, 1000);
+        AccountDto receiver = createAccountOn(0, 0);
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+        ScheduledTransferDto schedule = scheduledTransferService.createSchedule(sender.getId(), receiver.getId(),
+                BigDecimal.valueOf(100), "Cross-shard rent", "ONCE", now.minusMinutes(1), null);
+        assertEquals(2, shardRouter.shardOfGlobalId(schedule.getId()));
+
+        ScheduledTransferExecutor executor = new ScheduledTransferExecutor(scheduledTransferRepository, transferCoordinator,
+                shardRouter, transactionManager, false, 1000, 300, 2, 2);
+        try {
+            assertEquals(1, executor.tick(now));
+        } finally {
+            executor.shutdown();
+        }
+
+        ScheduledTransferDto after = scheduledTransferService.getSchedule(schedule.getId());
+        assertEquals("COMPLETED", after.getStatus());
+        assertNotNull(after.getLastTransactionId());
+        assertEquals(CrossShardTransferStatus.COMPLETED, shardRouter.on(2,
+                () -> crossShardTransferRepository.findById(after.getLastTransactionId())).orElseThrow().getStatus());
+        assertBalance(sender, 900);
+        assertBalance(receiver, 100);
+    }
+
+    private AccountDto createAccountOn(int shard, long balance) {
+        return shardRouter.on(shard, () -> accountService.createAccount("Schedule shard " + shard, BigDecimal.valueOf(balance)));
+    }
+
+    private void assertBalance(AccountDto account, long expected) {
+        BigDecimal balance = accountService.getAccountById(account.getId()).getBalance();
+        assertEquals(0, BigDecimal.valueOf(expected).compareTo(balance), "balance of " + account.getAccountName());
+    }
+}
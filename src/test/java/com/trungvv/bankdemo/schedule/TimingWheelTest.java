@@ -0,0 +1,77 @@
+package com.trungvv.bankdemo.schedule;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimingWheelTest {
+
+    @Test
+    void advance_ShouldReturnItemsInDeadlineOrderAndNeverEarly() {
+        TimingWheel<String> wheel = new TimingWheel<>(100, 8, 0);
+        assertTrue(wheel.add(250, "b"));
+        assertTrue(wheel.add(120, "a"));
+        assertTrue(wheel.add(300, "c"));
+
+        assertEquals(List.of(), wheel.advance(199));
+        assertEquals(List.of("a"), wheel.advance(200));
+        // 250 được làm tròn lên 300: trễ tối đa một tick, không bao giờ sớm
+        assertEquals(List.of(), wheel.advance(299));
+        assertEquals(List.of("b", "c"), wheel.advance(300));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void add_ShouldRejectItemsAlreadyDue() {
+        TimingWheel<String> wheel = new TimingWheel<>(100, 8, 1000);
+
+        assertFalse(wheel.add(1000, "now"));
+        assertFalse(wheel.add(500, "past"));
+        assertTrue(wheel.add(1001, "next tick"));
+        assertEquals(1, wheel.size());
+    }
+
+    @Test
+    void advance_ShouldCascadeFarDeadlinesThroughOverflowWheels() {
+        TimingWheel<Long> wheel = new TimingWheel<>(10, 4, 0);
+        Random random = new Random(42);
+        List<Long> deadlines = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            long deadline = 1 + random.nextInt(100_000);
+            deadlines.add(deadline);
+            assertTrue(wheel.add(deadline, deadline));
+        }
+
+        List<Long> fired = new ArrayList<>();
+        for (long now = 0; now <= 100_010; now += 10) {
+            for (Long deadline : wheel.advance(now)) {
+                assertTrue(deadline <= now, "fired early: " + deadline + " at " + now);
+                assertTrue(now - deadline < 10, "fired late: " + deadline + " at " + now);
+                fired.add(deadline);
+            }
+        }
+        assertEquals(deadlines.size(), fired.size());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void advance_ShouldReturnEverythingDueAfterLargeClockJump() {
+        TimingWheel<Integer> wheel = new TimingWheel<>(1000, 64, 0);
+        for (int i = 1; i <= 500; i++) {
+            wheel.add(i * 60_000L, i);
+        }
+
+        // Ứng dụng ngừng 4 giờ: mọi mục quá hạn được trả về một lần theo thứ tự hạn
+        List<Integer> due = wheel.advance(240 * 60_000L);
+
+        assertEquals(240, due.size());
+        assertEquals(1, due.get(0));
+        assertEquals(240, due.get(239));
+        assertEquals(260, wheel.size());
+        assertEquals(List.of(241), wheel.advance(241 * 60_000L));
+    }
+}
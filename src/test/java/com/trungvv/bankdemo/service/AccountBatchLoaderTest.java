@@ -0,0 +1,114 @@
+package com.trungvv.bankdemo.service;
+
+import com.trungvv.bankdemo.dto.AccountDto;
+import com.trungvv.bankdemo.repository.AccountRepository;
+import com.trungvv.bankdemo.shard.ShardRouter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+class AccountBatchLoaderTest {
+
+    private final Map<UUID, AccountDto> accounts = new HashMap<>();
+    private final List<UUID> ids = new ArrayList<>();
+    private AccountRepository accountRepository;
+    private AccountBatchLoader loader;
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < 250; i++) {
+            UUID id = UUID.randomUUID();
+            ids.add(id);
+            accounts.put(id, AccountDto.builder().id(id).accountNumber(String.format("%08d", i)).build());
+        }
+        accountRepository = mock(AccountRepository.class);
+        when(accountRepository.findAccountDtosByIdIn(anyCollection())).thenAnswer(invocation -> {
+            Collection<UUID> requested = invocation.getArgument(0);
+            return requested.stream().map(accounts::get).filter(account -> account != null).toList();
+        });
+        loader = loader(true, 50);
+    }
+
+    @AfterEach
+    void tearDown() {
+        loader.shutdown();
+    }
+
+    @Test
+    void load_ShouldCoalesceConcurrentLookupsIntoOneQuery() throws Exception {
+        int callers = 40;
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Optional<AccountDto>>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < callers; i++) {
+                // Các request chồng lên nhau trên 10 tài khoản
+                UUID id = ids.get(i % 10);
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return loader.load(id);
+                }));
+            }
+            start.countDown();
+            for (int i = 0; i < callers; i++) {
+                assertEquals(ids.get(i % 10), results.get(i).get().orElseThrow().getId());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        verify(accountRepository, atMost(3)).findAccountDtosByIdIn(anyCollection());
+    }
+
+    @Test
+    void loadAll_ShouldSplitIntoBatchesOfMaxSize() {
+        Map<UUID, AccountDto> loaded = loader.loadAll(ids);
+
+        assertEquals(250, loaded.size());
+        verify(accountRepository, times(3)).findAccountDtosByIdIn(anyCollection());
+    }
+
+    @Test
+    void load_ShouldReturnEmpty_WhenAccountMissing() {
+        assertTrue(loader.load(UUID.randomUUID()).isEmpty());
+        assertEquals(ids.get(0), loader.load(ids.get(0)).orElseThrow().getId());
+    }
+
+    @Test
+    void load_ShouldPropagateQueryFailureToEveryCaller() {
+        when(accountRepository.findAccountDtosByIdIn(anyCollection())).thenThrow(new IllegalStateException("database down"));
+
+        IllegalStateException error = assertThrows(IllegalStateException.class, () -> loader.load(ids.get(0)));
+        assertEquals("database down", error.getMessage());
+    }
+
+    @Test
+    void load_ShouldQueryDirectly_WhenDisabled() {
+        loader.shutdown();
+        loader = loader(false, 50);
+
+        assertEquals(2, loader.loadAll(List.of(ids.get(0), ids.get(1), ids.get(0))).size());
+        verify(accountRepository, times(1)).findAccountDtosByIdIn(anyCollection());
+    }
+
+    private AccountBatchLoader loader(boolean enabled, long windowMs) {
+        return new AccountBatchLoader(accountRepository, new ShardRouter(false, List.of()), mock(PlatformTransactionManager.class), enabled, windowMs, 100, 2);
+    }
+}
@@ -0,0 +1,99 @@
+package com.trungvv.bankdemo.service;
+
+import com.trungvv.bankdemo.dto.BulkImportResultDto;
+import com.trungvv.bankdemo.model.Account;
+import com.trungvv.bankdemo.model.AccountStatus;
+import com.trungvv.bankdemo.repository.AccountRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.EmbeddedDatabaseConnection;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@AutoConfigureTestDatabase(connection = EmbeddedDatabaseConnection.H2)
+@SpringBootTest(classes = {com.trungvv.bankdemo.BankDemoApplication.class})
+class AccountImportServiceImplTest {
+
+    @Autowired
+    private AccountImportService accountImportService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private AccountService accountService;
+
+    @BeforeEach
+    void setUp() {
+        accountRepository.deleteAll();
+    }
+
+    @Test
+    void importAccounts_ShouldImportValidCsvRowsAndReportInvalidOnes() throws Exception {
+        String csv = "accountName,initialBalance\n" +
+                "Alice,100.50\n" +
+                "\"Bob, Jr.\",0\n" +
+                ",10\n" +
+                "Carol,-5\n" +
+                "Dave,abc\n";
+
+        BulkImportResultDto result = accountImportService.importAccounts(stream(csv), MediaType.parseMediaType("text/csv"));
+
+        assertEquals(5, result.getTotalRows());
+        assertEquals(2, result.getImportedRows());
+        assertEquals(3, result.getFailedRows());
+        assertEquals(List.of(4L, 5L, 6L), result.getErrors().stream().map(BulkImportResultDto.RowError::getLine).collect(Collectors.toList()));
+        assertTrue(accountRepository.findAll().stream().anyMatch(a -> a.getAccountName().equals("Bob, Jr.")));
+    }
+
+    @Test
+    void importAccounts_ShouldImportNdjsonAcrossBatchesWithUniqueAccountNumbers() throws Exception {
+        accountRepository.save(Account.builder()
+                .accountNumber("00000001")
+                .accountName("Existing")
+                .balance(BigDecimal.ONE)
+                .status(AccountStatus.ACTIVE)
+                .createdAt(LocalDateTime.now())
+                .build());
+        int rows = AccountImportServiceImpl.BATCH_SIZE + 10;
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < rows; i++) {
+            ndjson.append("{\"accountName\":\"Partner ").append(i).append("\",\"initialBalance\":").append(i).append("}\n");
+        }
+
+        BulkImportResultDto result = accountImportService.importAccounts(stream(ndjson.toString()), MediaType.APPLICATION_NDJSON);
+
+        assertEquals(rows, result.getImportedRows());
+        assertEquals(0, result.getFailedRows());
+        List<String> numbers = accountRepository.findAll().stream().map(Account::getAccountNumber).collect(Collectors.toList());
+        assertEquals(rows + 1, numbers.size());
+        assertEquals(numbers.size(), numbers.stream().distinct().count());
+    }
+
+    @Test
+    void importAccounts_ShouldNotShareNumberRangeWithCreateAccount() throws Exception {
+        String created = accountService.createAccount("Single", BigDecimal.ONE).getAccountNumber();
+
+        accountImportService.importAccounts(stream("accountName,initialBalance\nBulk,1\n"), MediaType.parseMediaType("text/csv"));
+
+        String imported = accountRepository.findAll().stream().filter(a -> a.getAccountName().equals("Bulk"))
+                .findFirst().orElseThrow().getAccountNumber();
+        assertTrue(Long.parseLong(created) >= AccountNumberAllocator.BLOCK_RANGE_END);
+        assertTrue(Long.parseLong(imported) < AccountNumberAllocator.BLOCK_RANGE_END);
+    }
+
+    private static ByteArrayInputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -3,9 +3,12 @@ package com.trungvv.bankdemo.service;
 import com.trungvv.bankdemo.dto.AccountDto;
 import com.trungvv.bankdemo.mapper.AccountMapper;
 import com.trungvv.bankdemo.model.Account;
+import com.trungvv.bankdemo.model.AccountDeletion;
 import com.trungvv.bankdemo.model.AccountStatus;
+import com.trungvv.bankdemo.repository.AccountDeletionRepository;
 import com.trungvv.bankdemo.repository.AccountRepository;
 import com.trungvv.bankdemo.exception.ResourceNotFoundException;
+import com.trungvv.bankdemo.shard.ShardRouter;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
@@ -30,6 +33,21 @@ class AccountServiceImplTest {
     @Mock
     private AccountMapper accountMapper;
 
+    @Mock
+    private StripedBalanceService stripedBalanceService;
+
+    @Mock
+    private LedgerService ledgerService;
+
+    @Mock
+    private AccountBatchLoader accountBatchLoader;
+
+    @Mock
+    private AccountDeletionRepository accountDeletionRepository;
+
+    @Spy
+    private ShardRouter shardRouter = new ShardRouter(false, List.of());
+
     private Account account;
     private AccountDto accountDto;
     private UUID accountId;
@@ -67,27 +85,51 @@ class AccountServiceImplTest {
         assertNotNull(result);
         assertEquals("Test Account", result.getAccountName());
         verify(accountRepository, times(1)).save(any(Account.class));
+        verify(ledgerService, times(1)).recordOpening(List.of(account));
     }
 
     @Test
     void getAccountById_ShouldReturnAccount_WhenAccountExists() {
-        when(accountRepository.findById(accountId)).thenReturn(Optional.of(account));
-        when(accountMapper.accountToAccountDto(account)).thenReturn(accountDto);
+        when(accountBatchLoader.load(accountId)).thenReturn(Optional.of(accountDto));
 
         AccountDto result = accountService.getAccountById(accountId);
 
         assertNotNull(result);
         assertEquals(accountId, result.getId());
-        verify(accountRepository, times(1)).findById(accountId);
+        verify(accountBatchLoader, times(1)).load(accountId);
     }
 
     @Test
     void getAccountById_ShouldThrowException_WhenAccountNotFound() {
-        when(accountRepository.findById(accountId)).thenReturn(Optional.empty());
+        when(accountBatchLoader.load(accountId)).thenReturn(Optional.empty());
 
         assertThrows(ResourceNotFoundException.class, () -> accountService.getAccountById(accountId));
     }
 
+    @Test
+    void getAccountsByIds_ShouldKeepRequestOrderAndSkipMissing() {
+        UUID missingId = UUID.randomUUID();
+        UUID otherId = UUID.randomUUID();
+        AccountDto other = AccountDto.builder().id(otherId).accountNumber("87654321").build();
+        when(accountBatchLoader.loadAll(List.of(otherId, missingId, accountId)))
+                .thenReturn(Map.of(accountId, accountDto, otherId, other));
+
+        List<AccountDto> result = accountService.getAccountsByIds(List.of(otherId, missingId, accountId));
+
+        assertEquals(List.of(other, accountDto), result);
+    }
+
+    @Test
+    void getAccountsByIds_ShouldRejectTooManyIds() {
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 101; i++) {
+            ids.add(UUID.randomUUID());
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> accountService.getAccountsByIds(ids));
+        verifyNoInteractions(accountBatchLoader);
+    }
+
     @Test
     void updateAccountStatus_ShouldUpdateStatus_WhenValidStatusProvided() {
         when(accountRepository.findById(accountId)).thenReturn(Optional.of(account));
@@ -113,6 +155,7 @@ class AccountServiceImplTest {
         assertNotNull(result);
         assertEquals(newBalance, account.getBalance());
         verify(accountRepository, times(1)).save(account);
+        verify(ledgerService, times(1)).recordAdjustment(accountId, BigDecimal.valueOf(1000));
     }
 
     @Test
@@ -122,19 +165,36 @@ class AccountServiceImplTest {
         accountService.deleteAccount(accountId);
 
         verify(accountRepository, times(1)).delete(account);
+        verify(accountDeletionRepository).save(argThat((AccountDeletion deletion) -> deletion.getAccountId().equals(accountId)));
     }
 
     @Test
     void listAllAccounts_ShouldReturnAllAccounts() {
-        List<Account> accounts = List.of(account);
         List<AccountDto> accountDtos = List.of(accountDto);
-        when(accountRepository.findAll()).thenReturn(accounts);
-        when(accountMapper.accountsToAccountDtos(accounts)).thenReturn(accountDtos);
+        when(accountRepository.findAllAccountDtos()).thenReturn(accountDtos);
 
         List<AccountDto> result = accountService.listAllAccounts();
 
         assertNotNull(result);
         assertEquals(1, result.size());
-        verify(accountRepository, times(1)).findAll();
+        verify(accountRepository, times(1)).findAllAccountDtos();
+        verifyNoInteractions(accountMapper);
+    }
+
+    @Test
+    void getAccountBalance_ShouldBeServedFromLedger() {
+        when(accountRepository.existsById(accountId)).thenReturn(true);
+        when(ledgerService.getBalance(accountId)).thenReturn(BigDecimal.valueOf(1250));
+
+        assertEquals(BigDecimal.valueOf(1250), accountService.getAccountBalance(accountId));
+        verify(accountRepository, never()).findById(accountId);
+    }
+
+    @Test
+    void getAccountBalance_ShouldThrowException_WhenAccountNotFound() {
+        when(accountRepository.existsById(accountId)).thenReturn(false);
+
+        assertThrows(ResourceNotFoundException.class, () -> accountService.getAccountBalance(accountId));
+        verifyNoInteractions(ledgerService);
     }
 }
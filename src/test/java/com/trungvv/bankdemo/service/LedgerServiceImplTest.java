@@ -0,0 +1,82 @@
+package com.trungvv.bankdemo.service;
+
+import com.trungvv.bankdemo.dto.LedgerEntryDto;
+import com.trungvv.bankdemo.repository.AccountRepository;
+import com.trungvv.bankdemo.repository.BalanceSnapshotRepository;
+import com.trungvv.bankdemo.repository.LedgerEntryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.EmbeddedDatabaseConnection;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@AutoConfigureTestDatabase(connection = EmbeddedDatabaseConnection.H2)
+@SpringBootTest(classes = {com.trungvv.bankdemo.BankDemoApplication.class})
+class LedgerServiceImplTest {
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    @Autowired
+    private BalanceSnapshotRepository balanceSnapshotRepository;
+
+    private UUID aliceId;
+    private UUID bobId;
+
+    @BeforeEach
+    void setUp() {
+        aliceId = accountService.createAccount("Alice", BigDecimal.valueOf(1000)).getId();
+        bobId = accountService.createAccount("Bob", BigDecimal.valueOf(200)).getId();
+    }
+
+    @Test
+    void transfers_ShouldWriteBalancedEntriesAndMatchAccountBalance() {
+        transactionService.createTransaction(aliceId, bobId, BigDecimal.valueOf(300), "Rent");
+        transactionService.createTransaction(bobId, aliceId, BigDecimal.valueOf(50), "Refund");
+
+        assertEquals(0, BigDecimal.valueOf(750).compareTo(accountService.getAccountBalance(aliceId)));
+        assertEquals(0, BigDecimal.valueOf(450).compareTo(accountService.getAccountBalance(bobId)));
+        assertEquals(0, accountRepository.findById(aliceId).orElseThrow().getBalance().compareTo(ledgerService.getBalance(aliceId)));
+        assertEquals(0, BigDecimal.ZERO.compareTo(ledgerEntryRepository.sumAll()));
+
+        List<LedgerEntryDto> entries = ledgerService.listEntries(aliceId, 0, 10).getContent();
+        assertEquals(3, entries.size());
+        assertEquals("CREDIT", entries.get(0).getEntryType());
+        assertEquals("TRANSFER", entries.get(0).getSource());
+        assertEquals("OPENING", entries.get(2).getSource());
+    }
+
+    @Test
+    void snapshotBalances_ShouldFoldEntriesWithoutChangingBalance() {
+        transactionService.createTransaction(aliceId, bobId, BigDecimal.valueOf(100), "Before snapshot");
+        assertTrue(ledgerService.snapshotBalances(LocalDateTime.now().plusSeconds(1)) > 0);
+        assertEquals(0, BigDecimal.valueOf(900).compareTo(balanceSnapshotRepository.findById(aliceId).orElseThrow().getBalance()));
+
+        transactionService.createTransaction(aliceId, bobId, BigDecimal.valueOf(100), "After snapshot");
+        accountService.updateAccountBalance(bobId, BigDecimal.valueOf(1000));
+
+        assertEquals(0, BigDecimal.valueOf(800).compareTo(ledgerService.getBalance(aliceId)));
+        assertEquals(0, BigDecimal.valueOf(1000).compareTo(ledgerService.getBalance(bobId)));
+        assertEquals(0, ledgerService.snapshotBalances(LocalDateTime.now().minusHours(1)));
+    }
+}
@@ -0,0 +1,61 @@
+package com.trungvv.bankdemo.service;
+
+import com.trungvv.bankdemo.dto.ReconciliationRunDto;
+import com.trungvv.bankdemo.model.Account;
+import com.trungvv.bankdemo.model.ReconciliationResult;
+import com.trungvv.bankdemo.repository.AccountRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.EmbeddedDatabaseConnection;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@AutoConfigureTestDatabase(connection = EmbeddedDatabaseConnection.H2)
+@SpringBootTest(classes = {com.trungvv.bankdemo.BankDemoApplication.class})
+class ReconciliationServiceImplTest {
+
+    @Autowired
+    private ReconciliationService reconciliationService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Test
+    void runReconciliation_ShouldCheckEveryAccountAndReportOnlyDriftedBalances() {
+        UUID aliceId = accountService.createAccount("Alice", BigDecimal.valueOf(1000)).getId();
+        UUID bobId = accountService.createAccount("Bob", BigDecimal.valueOf(100)).getId();
+        transactionService.createTransaction(aliceId, bobId, BigDecimal.valueOf(250), "Rent");
+        accountService.updateAccountBalance(bobId, BigDecimal.valueOf(500));
+
+        // Số dư bị sửa trực tiếp, không qua giao dịch hay sổ cái
+        Account alice = accountRepository.findById(aliceId).orElseThrow();
+        alice.setBalance(alice.getBalance().add(BigDecimal.valueOf(7)));
+        accountRepository.save(alice);
+
+        ReconciliationRunDto run = reconciliationService.runReconciliation();
+
+        assertEquals("COMPLETED", run.getStatus());
+        assertEquals(run.getPartitions(), run.getCompletedPartitions());
+        assertEquals(accountRepository.count(), run.getAccountsChecked());
+
+        List<ReconciliationResult> mismatches = reconciliationService.listMismatches(run.getId(), 0, 1000).getContent();
+        ReconciliationResult drifted = mismatches.stream()
+                .filter(r -> r.getAccountId().equals(aliceId)).findFirst().orElseThrow();
+        assertEquals(0, BigDecimal.valueOf(750).compareTo(drifted.getExpectedBalance()));
+        assertEquals(0, BigDecimal.valueOf(7).compareTo(drifted.getDifference()));
+        assertTrue(mismatches.stream().noneMatch(r -> r.getAccountId().equals(bobId)));
+        assertEquals(run.getMismatches(), mismatches.size());
+    }
+}
@@ -0,0 +1,137 @@
+package com.trungvv.bankdemo.service;
+
+import com.trungvv.bankdemo.dto.AccountDto;
+import com.trungvv.bankdemo.dto.StatementJobDto;
+import com.trungvv.bankdemo.model.StatementChunk;
+import com.trungvv.bankdemo.model.StatementJob;
+import com.trungvv.bankdemo.model.StatementJobStatus;
+import com.trungvv.bankdemo.repository.AccountRepository;
+import com.trungvv.bankdemo.repository.StatementChunkRepository;
+import com.trungvv.bankdemo.repository.StatementJobRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.EmbeddedDatabaseConnection;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@AutoConfigureTestDatabase(connection = EmbeddedDatabaseConnection.H2)
+@SpringBootTest(classes = {com.trungvv.bankdemo.BankDemoApplication.class},
+        properties = {"bank.statements.output-dir=target/test-statements", "bank.statements.chunks=16",
+                "bank.statements.resume-interval-ms=3600000"})
+class StatementServiceImplTest {
+
+    private static final int CHUNKS = 16;
+
+    @Autowired
+    private StatementService statementService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private StatementJobRepository jobRepository;
+
+    @Autowired
+    private StatementChunkRepository chunkRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void runMonthlyStatements_ShouldWriteOneFilePerAccountAndResumeFromCheckpoints() throws Exception {
+        YearMonth month = YearMonth.now();
+        AccountDto alice = accountService.createAccount("Alice", BigDecimal.valueOf(1000));
+        AccountDto bob = accountService.createAccount("Bob, Jr.", BigDecimal.valueOf(100));
+        transactionService.createTransaction(alice.getId(), bob.getId(), BigDecimal.valueOf(250), "Rent");
+
+        StatementJobDto job = statementService.runMonthlyStatements(month);
+
+        assertEquals("COMPLETED", job.getStatus());
+        assertEquals(CHUNKS, job.getCompletedChunks());
+        assertEquals(accountRepository.count(), job.getAccountsWritten());
+        Path aliceFile = Path.of(job.getOutputDir(), alice.getAccountNumber() + ".csv");
+        Path bobFile = Path.of(job.getOutputDir(), bob.getAccountNumber() + ".csv");
+        List<String> aliceLines = Files.readAllLines(aliceFile);
+        assertTrue(aliceLines.get(1).endsWith(",750.00"));
+        assertTrue(aliceLines.stream().anyMatch(l -> l.contains(",DEBIT," + bob.getId() + ",250.00,Rent,")));
+        assertTrue(Files.readString(bobFile).contains("\"Bob, Jr.\""));
+
+        // Giả lập instance chạy job bị tắt giữa chừng: chunk của Alice chưa được checkpoint, heartbeat đã cũ
+        int aliceChunk = KeyRanges.indexOf(alice.getId(), CHUNKS);
+        boolean sameChunk = aliceChunk == KeyRanges.indexOf(bob.getId(), CHUNKS);
+        StatementChunk checkpoint = chunkRepository.findAll().stream()
+                .filter(c -> c.getJobId().equals(job.getId()) && c.getChunkIndex() == aliceChunk)
+                .findFirst().orElseThrow();
+        chunkRepository.delete(checkpoint);
+        StatementJob stored = jobRepository.findById(job.getId()).orElseThrow();
+        stored.setStatus(StatementJobStatus.RUNNING);
+        stored.setHeartbeatAt(LocalDateTime.now().minusHours(1));
+        jobRepository.save(stored);
+        Files.delete(aliceFile);
+        Files.writeString(bobFile, "untouched");
+
+        StatementJobDto resumed = statementService.runMonthlyStatements(month);
+
+        assertEquals(job.getId(), resumed.getId());
+        assertEquals("COMPLETED", resumed.getStatus());
+        assertEquals(CHUNKS, resumed.getCompletedChunks());
+        assertTrue(Files.exists(aliceFile));
+        assertEquals(!sameChunk, Files.readString(bobFile).equals("untouched"));
+    }
+
+    @Test
+    void runMonthlyStatements_ShouldNotTakeOverJobHeldByAnotherInstance() {
+        YearMonth month = YearMonth.now().minusMonths(3);
+        LocalDateTime now = LocalDateTime.now();
+        StatementJob running = jobRepository.save(StatementJob.builder()
+                .month(month.toString())
+                .status(StatementJobStatus.RUNNING)
+                .totalChunks(CHUNKS)
+                .outputDir("target/test-statements/" + month)
+                .startedAt(now)
+                .attempt(1)
+                .heartbeatAt(now)
+                .build());
+
+        // Heartbeat còn mới: instance khác vẫn đang chạy job
+        assertEquals("RUNNING", statementService.runMonthlyStatements(month).getStatus());
+        assertEquals(0, chunkRepository.countByJobId(running.getId()));
+
+        // Hai instance cùng thấy attempt 1 thì chỉ một instance nhận được job
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        assertEquals(Integer.valueOf(1), tx.execute(status -> jobRepository.claim(running.getId(), 1, LocalDateTime.now())));
+        assertEquals(Integer.valueOf(0), tx.execute(status -> jobRepository.claim(running.getId(), 1, LocalDateTime.now())));
+        assertEquals(2, jobRepository.findById(running.getId()).orElseThrow().getAttempt());
+    }
+
+    @Test
+    void keyRanges_ShouldCoverKeySpaceWithoutOverlap() {
+        for (int partitions : new int[]{1, 3, 16, 256, 65536}) {
+            assertEquals(0, KeyRanges.lowerBound(0, partitions).getMostSignificantBits());
+            assertEquals(-1L, KeyRanges.upperBound(partitions - 1, partitions).getMostSignificantBits());
+            for (int i = 0; i + 1 < Math.min(partitions, 64); i++) {
+                assertEquals(KeyRanges.upperBound(i, partitions).getMostSignificantBits() + 1,
+                        KeyRanges.lowerBound(i + 1, partitions).getMostSignificantBits());
+                assertEquals(i, KeyRanges.indexOf(KeyRanges.lowerBound(i, partitions), partitions));
+                assertEquals(i, KeyRanges.indexOf(KeyRanges.upperBound(i, partitions), partitions));
+            }
+        }
+    }
+}
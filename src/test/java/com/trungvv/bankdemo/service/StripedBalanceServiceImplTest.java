@@ -0,0 +1,104 @@
+package com.trungvv.bankdemo.service;
+
+import com.trungvv.bankdemo.dto.AccountDto;
+import com.trungvv.bankdemo.model.Account;
+import com.trungvv.bankdemo.model.AccountStatus;
+import com.trungvv.bankdemo.repository.AccountBalanceSlotRepository;
+import com.trungvv.bankdemo.repository.AccountRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.EmbeddedDatabaseConnection;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@AutoConfigureTestDatabase(connection = EmbeddedDatabaseConnection.H2)
+@SpringBootTest(classes = {com.trungvv.bankdemo.BankDemoApplication.class})
+class StripedBalanceServiceImplTest {
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private AccountBalanceSlotRepository slotRepository;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    private UUID merchantId;
+    private UUID customerId;
+
+    @BeforeEach
+    void setUp() {
+        slotRepository.deleteAll();
+        accountRepository.deleteAll();
+        merchantId = accountRepository.save(account("Merchant", 0)).getId();
+        customerId = accountRepository.save(account("Customer", 1000)).getId();
+        ledgerService.backfillOpeningEntries();
+    }
+
+    @Test
+    void transfersIntoStripedAccount_ShouldLandInSlotsAndSumOnRead() {
+        accountService.updateBalanceSlots(merchantId, 4);
+
+        for (int i = 0; i < 10; i++) {
+            transactionService.createTransaction(customerId, merchantId, BigDecimal.valueOf(10), "Payment " + i);
+        }
+
+        assertEquals(0, BigDecimal.ZERO.compareTo(accountRepository.findById(merchantId).orElseThrow().getBalance()));
+        assertEquals(0, BigDecimal.valueOf(100).compareTo(accountService.getAccountBalance(merchantId)));
+        assertEquals(0, BigDecimal.valueOf(100).compareTo(accountService.getAccountById(merchantId).getBalance()));
+        AccountDto listed = accountService.listAllAccounts().stream()
+                .filter(a -> a.getId().equals(merchantId)).findFirst().orElseThrow();
+        assertEquals(0, BigDecimal.valueOf(100).compareTo(listed.getBalance()));
+    }
+
+    @Test
+    void debitFromStripedAccount_ShouldConsolidateSlots() {
+        accountService.updateBalanceSlots(merchantId, 4);
+        transactionService.createTransaction(customerId, merchantId, BigDecimal.valueOf(300), "Payment");
+
+        transactionService.createTransaction(merchantId, customerId, BigDecimal.valueOf(120), "Refund");
+
+        assertEquals(0, BigDecimal.valueOf(180).compareTo(accountRepository.findById(merchantId).orElseThrow().getBalance()));
+        assertEquals(0, BigDecimal.ZERO.compareTo(slotRepository.sumBalance(merchantId)));
+        assertEquals(0, BigDecimal.valueOf(820).compareTo(accountService.getAccountBalance(customerId)));
+    }
+
+    @Test
+    void disablingStriping_ShouldFoldSlotsIntoMainBalance() {
+        accountService.updateBalanceSlots(merchantId, 4);
+        transactionService.createTransaction(customerId, merchantId, BigDecimal.valueOf(50), "Payment");
+        String eTagBefore = accountService.getAccountETag(merchantId);
+        transactionService.createTransaction(customerId, merchantId, BigDecimal.valueOf(25), "Payment");
+        assertNotEquals(eTagBefore, accountService.getAccountETag(merchantId));
+
+        AccountDto result = accountService.updateBalanceSlots(merchantId, 0);
+
+        assertEquals(0, BigDecimal.valueOf(75).compareTo(result.getBalance()));
+        assertTrue(slotRepository.findAll().isEmpty());
+        assertNull(accountRepository.findById(merchantId).orElseThrow().getBalanceSlots());
+    }
+
+    private static Account account(String name, long balance) {
+        return Account.builder()
+                .accountNumber(String.valueOf(Math.abs(name.hashCode()) % 100000000))
+                .accountName(name)
+                .balance(BigDecimal.valueOf(balance))
+                .status(AccountStatus.ACTIVE)
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+}
@@ -1,7 +1,9 @@
 package com.trungvv.bankdemo.service;
 
+import com.trungvv.bankdemo.analytics.DailySummaryCache;
 import com.trungvv.bankdemo.dto.TransactionDto;
 import com.trungvv.bankdemo.exception.ResourceNotFoundException;
+import com.trungvv.bankdemo.exception.VelocityLimitExceededException;
 import com.trungvv.bankdemo.mapper.TransactionMapper;
 import com.trungvv.bankdemo.model.Account;
 import com.trungvv.bankdemo.model.AccountStatus;
@@ -9,6 +11,7 @@ import com.trungvv.bankdemo.model.Transaction;
 import com.trungvv.bankdemo.model.TransactionStatus;
 import com.trungvv.bankdemo.repository.AccountRepository;
 import com.trungvv.bankdemo.repository.TransactionRepository;
+import com.trungvv.bankdemo.velocity.VelocityGuard;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
@@ -39,6 +42,21 @@ class TransactionServiceImplTest {
     @Mock
     private TransactionMapper transactionMapper;
 
+    @Mock
+    private StripedBalanceService stripedBalanceService;
+
+    @Mock
+    private OutboxService outboxService;
+
+    @Mock
+    private LedgerService ledgerService;
+
+    @Mock
+    private VelocityGuard velocityGuard;
+
+    @Mock
+    private DailySummaryCache dailySummaryCache;
+
     private UUID senderId;
     private UUID receiverId;
     private Transaction transaction;
@@ -100,6 +118,23 @@ class TransactionServiceImplTest {
         assertEquals("Test transaction", result.getDescription());
         verify(accountRepository, times(2)).save(any(Account.class));
         verify(transactionRepository, times(1)).save(any(Transaction.class));
+        verify(ledgerService, times(1)).recordTransfer(eq(transaction.getId()), eq(senderId), eq(receiverId), eq(BigDecimal.valueOf(200)), any(LocalDateTime.class));
+        verify(outboxService, times(1)).recordTransactionCompleted(eq(transactionDto), any(LocalDateTime.class));
+    }
+
+    @Test
+    void createTransaction_ShouldNotMoveMoney_WhenVelocityLimitExceeded() {
+        when(accountRepository.findById(senderId)).thenReturn(Optional.of(sender));
+        when(accountRepository.findById(receiverId)).thenReturn(Optional.of(receiver));
+        doThrow(new VelocityLimitExceededException("Tài khoản gửi vượt giới hạn", 30))
+                .when(velocityGuard).check(senderId, BigDecimal.valueOf(200));
+
+        assertThrows(VelocityLimitExceededException.class,
+                () -> transactionService.createTransaction(senderId, receiverId, BigDecimal.valueOf(200), "Test transaction"));
+
+        assertEquals(BigDecimal.valueOf(1000), sender.getBalance());
+        verify(accountRepository, never()).save(any(Account.class));
+        verify(transactionRepository, never()).save(any(Transaction.class));
     }
 
     @Test
@@ -129,17 +164,16 @@ class TransactionServiceImplTest {
         int size = 5;
         Pageable pageable = PageRequest.of(page, size);
 
-        List<Transaction> transactions = List.of(transaction);
-        Page<Transaction> transactionPage = new PageImpl<>(transactions, pageable, transactions.size());
-        when(transactionRepository.findByCreatedAtBetween(startDate, endDate, senderId, null,"ALL", pageable)).thenReturn(transactionPage);
-        when(transactionMapper.transactionsToTransactionDtos(transactions)).thenReturn(List.of(transactionDto));
+        Page<TransactionDto> transactionPage = new PageImpl<>(List.of(transactionDto), pageable, 1);
+        when(transactionRepository.findDtoByCreatedAtBetween(startDate, endDate, senderId, null,"ALL", pageable)).thenReturn(transactionPage);
 
         Page<TransactionDto> result = transactionService.listTransactionsByDateRange(startDate, endDate, senderId, null,"ALL", page, size);
 
         assertNotNull(result);
         assertEquals(1, result.getContent().size());
         assertEquals(transactionDto.getDescription(), result.getContent().get(0).getDescription());
-        verify(transactionRepository, times(1)).findByCreatedAtBetween(startDate, endDate, senderId, null,"ALL", pageable);
+        verify(transactionRepository, times(1)).findDtoByCreatedAtBetween(startDate, endDate, senderId, null,"ALL", pageable);
+        verifyNoInteractions(transactionMapper);
     }
 
     @Test
@@ -150,5 +184,41 @@ class TransactionServiceImplTest {
         transactionService.deleteTransaction(transactionId);
 
         verify(transactionRepository, times(1)).deleteById(transactionId);
+        verify(dailySummaryCache).evictAfterCommit(transaction.getCreatedAt().toLocalDate());
+    }
+
+    @Test
+    void createTransaction_ShouldCreditSlot_WhenReceiverHasStripedBalance() {
+        receiver.setBalanceSlots(8);
+        when(accountRepository.findById(senderId)).thenReturn(Optional.of(sender));
+        when(accountRepository.findById(receiverId)).thenReturn(Optional.of(receiver));
+        when(transactionRepository.save(any(Transaction.class))).thenReturn(transaction);
+        when(transactionMapper.transactionToTransactionDto(transaction)).thenReturn(transactionDto);
+
+        transactionService.createTransaction(senderId, receiverId, BigDecimal.valueOf(200), "Test transaction");
+
+        verify(stripedBalanceService).credit(receiver, BigDecimal.valueOf(200));
+        verify(accountRepository, times(1)).save(sender);
+        verify(accountRepository, never()).save(receiver);
+        assertEquals(BigDecimal.valueOf(500), receiver.getBalance());
+    }
+
+    @Test
+    void createTransaction_ShouldConsolidateSlots_WhenStripedSenderMainBalanceIsShort() {
+        sender.setBalanceSlots(4);
+        sender.setBalance(BigDecimal.valueOf(100));
+        when(accountRepository.findById(senderId)).thenReturn(Optional.of(sender));
+        when(accountRepository.findById(receiverId)).thenReturn(Optional.of(receiver));
+        when(stripedBalanceService.consolidate(sender)).thenAnswer(invocation -> {
+            sender.setBalance(sender.getBalance().add(BigDecimal.valueOf(300)));
+            return BigDecimal.valueOf(300);
+        });
+        when(transactionRepository.save(any(Transaction.class))).thenReturn(transaction);
+        when(transactionMapper.transactionToTransactionDto(transaction)).thenReturn(transactionDto);
+
+        transactionService.createTransaction(senderId, receiverId, BigDecimal.valueOf(200), "Test transaction");
+
+        verify(stripedBalanceService).consolidate(sender);
+        assertEquals(BigDecimal.valueOf(200), sender.getBalance());
     }
 }
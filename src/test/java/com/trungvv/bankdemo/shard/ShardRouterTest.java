@@ -0,0 +1,70 @@
+package com.trungvv.bankdemo.shard;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardRouterTest {
+
+    private static final int KEYS = 100_000;
+
+    @Test
+    void jumpHash_ShouldSpreadEvenlyAndMoveOnlyNewShareWhenAddingShard() {
+        Random random = new Random(7);
+        int[] counts = new int[4];
+        int moved = 0;
+        for (int i = 0; i < KEYS; i++) {
+            long key = random.nextLong();
+            int before = ShardRouter.jumpHash(key, 4);
+            int after = ShardRouter.jumpHash(key, 5);
+            counts[before]++;
+            if (before != after) {
+                // Khóa chỉ được chuyển sang shard mới, không đổi chỗ giữa các shard cũ
+                assertEquals(4, after);
+                moved++;
+            }
+        }
+        for (int count : counts) {
+            assertEquals(KEYS / 4.0, count, KEYS * 0.01);
+        }
+        assertEquals(KEYS / 5.0, moved, KEYS * 0.01);
+    }
+
+    @Test
+    void on_ShouldRouteNestedCallsAndRestorePreviousShard() {
+        ShardRouter router = new ShardRouter(true, List.of("a", "b", "c"));
+
+        assertEquals(0, ShardRouter.current());
+        int inner = router.on(2, () -> {
+            int nested = router.on(1, ShardRouter::current);
+            assertEquals(1, nested);
+            return ShardRouter.current();
+        });
+        assertEquals(2, inner);
+        assertEquals(0, ShardRouter.current());
+        assertThrows(IllegalArgumentException.class, () -> router.on(3, ShardRouter::current));
+    }
+
+    @Test
+    void newIdOnCurrentShard_ShouldReturnIdOwnedByCurrentShard() {
+        ShardRouter router = new ShardRouter(true, List.of("a", "b", "c", "d"));
+
+        for (int shard = 0; shard < 4; shard++) {
+            UUID id = router.on(shard, router::newIdOnCurrentShard);
+            assertEquals(shard, router.shardOf(id));
+        }
+    }
+
+    @Test
+    void disabled_ShouldUseSingleShard() {
+        ShardRouter router = new ShardRouter(false, List.of());
+
+        assertFalse(router.isSharded());
+        assertEquals(0, router.shardOf(UUID.randomUUID()));
+        assertEquals(0, router.onAnyShard(ShardRouter::current));
+    }
+}
@@ -0,0 +1,161 @@
+package com.trungvv.bankdemo.shard;
+
+import com.trungvv.bankdemo.analytics.AmountHistogramFolder;
+import com.trungvv.bankdemo.dto.AccountDto;
+import com.trungvv.bankdemo.dto.BulkImportResultDto;
+import com.trungvv.bankdemo.dto.ReconciliationRunDto;
+import com.trungvv.bankdemo.dto.StatementJobDto;
+import com.trungvv.bankdemo.dto.TransactionDto;
+import com.trungvv.bankdemo.model.Account;
+import com.trungvv.bankdemo.outbox.OutboxRelay;
+import com.trungvv.bankdemo.outbox.TransactionEventBus;
+import com.trungvv.bankdemo.repository.AccountRepository;
+import com.trungvv.bankdemo.service.AccountImportService;
+import com.trungvv.bankdemo.service.AccountService;
+import com.trungvv.bankdemo.service.LedgerService;
+import com.trungvv.bankdemo.service.ReconciliationService;
+import com.trungvv.bankdemo.service.StatementService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Import và các job nền khi chia ba shard: dữ liệu nằm trên shard 1 và 2 cũng phải được xử lý.
+ */
+@SpringBootTest(classes = {com.trungvv.bankdemo.BankDemoApplication.class}, properties = {
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "bank.sharding.enabled=true",
+        "bank.sharding.urls=jdbc:h2:mem:shard-jobs-0;DB_CLOSE_DELAY=-1,jdbc:h2:mem:shard-jobs-1;DB_CLOSE_DELAY=-1,jdbc:h2:mem:shard-jobs-2;DB_CLOSE_DELAY=-1",
+        "bank.sharding.recovery-interval-ms=3600000",
+        "bank.velocity.enabled=false",
+        "bank.statements.output-dir=target/test-statements-sharded",
+        "bank.statements.chunks=16"
+})
+class ShardedBackgroundJobsTest {
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private TransferCoordinator transferCoordinator;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private AccountImportService accountImportService;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private ReconciliationService reconciliationService;
+
+    @Autowired
+    private AmountHistogramFolder amountHistogramFolder;
+
+    @Autowired
+    private OutboxRelay outboxRelay;
+
+    @Autowired
+    private TransactionEventBus transactionEventBus;
+
+    @Autowired
+    private StatementService statementService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Test
+    void importAccounts_ShouldStoreEachRowOnItsShard() throws Exception {
+        StringBuilder csv = new StringBuilder("accountName,initialBalance\n");
+        for (int i = 0; i < 9; i++) {
+            csv.append("Imported ").append(i).append(",10\n");
+        }
+
+        BulkImportResultDto result = accountImportService.importAccounts(
+                new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8)), MediaType.parseMediaType("text/csv"));
+
+        assertEquals(9, result.getImportedRows());
+        for (int shard = 0; shard < 3; shard++) {
+            List<Account> imported = shardRouter.on(shard, () -> accountRepository.findAll()).stream()
+                    .filter(account -> account.getAccountName().startsWith("Imported "))
+                    .toList();
+            assertEquals(3, imported.size());
+            for (Account account : imported) {
+                assertEquals(shard, shardRouter.shardOf(account.getId()));
+                assertEquals(shard, Integer.parseInt(account.getAccountNumber()) % 3);
+            }
+        }
+    }
+
+    @Test
+    void backgroundJobs_ShouldProcessEveryShard() throws Exception {
+        AccountDto sender = createAccountOn(2, 500);
+        AccountDto receiver = createAccountOn(2, 0);
+        List<UUID> relayed = new CopyOnWriteArrayList<>();
+        TransactionDto transaction;
+        try (AutoCloseable ignored = transactionEventBus.subscribe(event -> relayed.add(event.getTransaction().getId()))) {
+            transaction = transferCoordinator.transfer(sender.getId(), receiver.getId(), BigDecimal.valueOf(50), "Jobs");
+            outboxRelay.publishPending();
+        }
+        assertTrue(relayed.contains(transaction.getId()));
+
+        assertTrue(ledgerService.snapshotBalances(LocalDateTime.now().plusSeconds(1)) > 0);
+        assertEquals(0, BigDecimal.valueOf(50).compareTo(shardRouter.on(2, () -> ledgerService.getBalance(receiver.getId()))));
+
+        amountHistogramFolder.fold(LocalDateTime.now().plusSeconds(1));
+        LocalDate today = LocalDate.now();
+        assertEquals(1, amountHistogramFolder.distribution(sender.getId(), today, today).histogram().count());
+
+        long accounts = 0;
+        for (int shard = 0; shard < 3; shard++) {
+            accounts += shardRouter.on(shard, accountRepository::count);
+        }
+        ReconciliationRunDto run = reconciliationService.runReconciliation();
+        assertEquals("COMPLETED", run.getStatus());
+        assertEquals(accounts, run.getAccountsChecked());
+        assertEquals(0, run.getMismatches());
+    }
+
+    @Test
+    void monthlyStatements_ShouldWriteAccountsOfEveryShard() throws Exception {
+        AccountDto sender = createAccountOn(1, 300);
+        AccountDto receiver = createAccountOn(2, 0);
+        transferCoordinator.transfer(sender.getId(), receiver.getId(), BigDecimal.valueOf(30), "Statement");
+        long accounts = 0;
+        for (int shard = 0; shard < 3; shard++) {
+            accounts += shardRouter.on(shard, accountRepository::count);
+        }
+
+        StatementJobDto job = statementService.runMonthlyStatements(YearMonth.now());
+
+        assertEquals("COMPLETED", job.getStatus());
+        assertEquals(accounts, job.getAccountsWritten());
+        String receiverStatement = Files.readString(Path.of(job.getOutputDir(), receiver.getAccountNumber() + ".csv"));
+        assertTrue(receiverStatement.contains(",CREDIT," + sender.getId() + ",30.00,Statement,"));
+        String senderStatement = Files.readString(Path.of(job.getOutputDir(), sender.getAccountNumber() + ".csv"));
+        assertTrue(senderStatement.contains(",DEBIT," + receiver.getId() + ",30.00,Statement,"));
+    }
+
+    private AccountDto createAccountOn(int shard, long balance) {
+        return shardRouter.on(shard, () -> accountService.createAccount("Jobs shard " + shard, BigDecimal.valueOf(balance)));
+    }
+}
@@ -0,0 +1,126 @@
+package com.trungvv.bankdemo.shard;
+
+import com.trungvv.bankdemo.controller.AccountController;
+import com.trungvv.bankdemo.controller.TransactionController;
+import com.trungvv.bankdemo.dto.AccountDaySummaryDto;
+import com.trungvv.bankdemo.dto.AccountDto;
+import com.trungvv.bankdemo.dto.IDailLyTransactionSummary;
+import com.trungvv.bankdemo.dto.TransactionDto;
+import com.trungvv.bankdemo.model.Transaction;
+import com.trungvv.bankdemo.model.TransactionStatus;
+import com.trungvv.bankdemo.repository.TransactionRepository;
+import com.trungvv.bankdemo.service.AccountService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Các API đọc/ghi theo id và các danh sách, báo cáo khi chia ba shard: dữ liệu ngoài shard 0 phải được thấy đủ.
+ */
+@SpringBootTest(classes = {com.trungvv.bankdemo.BankDemoApplication.class}, properties = {
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "bank.sharding.enabled=true",
+        "bank.sharding.urls=jdbc:h2:mem:shard-query-0;DB_CLOSE_DELAY=-1,jdbc:h2:mem:shard-query-1;DB_CLOSE_DELAY=-1,jdbc:h2:mem:shard-query-2;DB_CLOSE_DELAY=-1",
+        "bank.sharding.recovery-interval-ms=3600000",
+        "bank.velocity.enabled=false"
+})
+class ShardedQueriesTest {
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private AccountController accountController;
+
+    @Autowired
+    private TransactionController transactionController;
+
+    @Autowired
+    private TransferCoordinator transferCoordinator;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Test
+    void accountEndpoints_ShouldReadAccountsOnEveryShard() throws Exception {
+        String tag = "Query " + UUID.randomUUID().toString().substring(0, 8);
+        AccountDto first = createAccountOn(1, tag, 100);
+        AccountDto second = createAccountOn(2, tag, 200);
+
+        ResponseEntity<AccountDto> byId = accountController.getAccountById(second.getId().toString(),
+                new ServletWebRequest(new MockHttpServletRequest()));
+        assertEquals(HttpStatus.OK, byId.getStatusCode());
+        assertEquals(second.getAccountNumber(), byId.getBody().getAccountNumber());
+
+        assertEquals(HttpStatus.OK, accountController.getCounterpartyCount(first.getId().toString(), 30).getStatusCode());
+
+        ResponseEntity<?> byIds = accountController.getAccountsByIds(List.of(second.getId().toString(), first.getId().toString()));
+        assertEquals(List.of(second.getId(), first.getId()), ((List<?>) byIds.getBody()).stream()
+                .map(account -> ((AccountDto) account).getId()).toList());
+
+        List<AccountDto> all = accountController.listAllAccounts().get().getBody();
+        assertTrue(all.stream().map(AccountDto::getId).toList().containsAll(List.of(first.getId(), second.getId())));
+
+        Page<?> page = (Page<?>) accountController.listAccountsByStatus(tag, "ACTIVE", 0, 1).getBody();
+        assertEquals(2, page.getTotalElements());
+        assertEquals(List.of(first.getAccountNumber().compareTo(second.getAccountNumber()) < 0 ? first.getId() : second.getId()),
+                page.getContent().stream().map(account -> ((AccountDto) account).getId()).toList());
+    }
+
+    @Test
+    void transactionEndpoints_ShouldFindAndChangeEveryCopy() throws Exception {
+        AccountDto sender = createAccountOn(1, "Query sender", 500);
+        AccountDto receiver = createAccountOn(2, "Query receiver", 0);
+        TransactionDto transaction = transferCoordinator.transfer(sender.getId(), receiver.getId(), BigDecimal.valueOf(40), "Query");
+        String id = transaction.getId().toString();
+        LocalDate today = LocalDate.now();
+
+        assertEquals(HttpStatus.OK, transactionController.getTransactionById(id).getStatusCode());
+
+        @SuppressWarnings("unchecked")
+        List<IDailLyTransactionSummary> daily = (List<IDailLyTransactionSummary>) transactionController.getDailyTransactionSummary(today).get().getBody();
+        assertEquals(1, daily.stream().filter(summary -> summary.getAccountId().equals(sender.getId().toString())).count());
+
+        @SuppressWarnings("unchecked")
+        List<AccountDaySummaryDto> summaries = (List<AccountDaySummaryDto>) transactionController.getDailySummaries(today, today).get().getBody();
+        assertEquals(0, BigDecimal.valueOf(40).compareTo(summaryOf(summaries, sender.getId()).getSentAmount()));
+        assertEquals(0, BigDecimal.valueOf(40).compareTo(summaryOf(summaries, receiver.getId()).getReceivedAmount()));
+
+        assertEquals(HttpStatus.OK, transactionController.updateTransactionStatus(id, "FAILED").getStatusCode());
+        for (int shard : List.of(1, 2)) {
+            Transaction copy = shardRouter.on(shard, () -> transactionRepository.findById(transaction.getId())).orElseThrow();
+            assertEquals(TransactionStatus.FAILED, copy.getStatus());
+        }
+
+        assertEquals(HttpStatus.NO_CONTENT, transactionController.deleteTransaction(id).getStatusCode());
+        for (int shard : List.of(1, 2)) {
+            assertFalse(shardRouter.on(shard, () -> transactionRepository.existsById(transaction.getId())));
+        }
+        assertEquals(HttpStatus.NOT_FOUND, transactionController.getTransactionById(id).getStatusCode());
+    }
+
+    private static AccountDaySummaryDto summaryOf(List<AccountDaySummaryDto> summaries, UUID accountId) {
+        return summaries.stream().filter(summary -> summary.getAccountId().equals(accountId)).findFirst().orElseThrow();
+    }
+
+    private AccountDto createAccountOn(int shard, String name, long balance) {
+        return shardRouter.on(shard, () -> accountService.createAccount(name, BigDecimal.valueOf(balance)));
+    }
+}
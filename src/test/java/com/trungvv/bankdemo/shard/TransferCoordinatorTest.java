@@ -0,0 +1,159 @@
+package com.trungvv.bankdemo.shard;
+
+import com.trungvv.bankdemo.dto.AccountDto;
+import com.trungvv.bankdemo.dto.TransactionDto;
+import com.trungvv.bankdemo.exception.ResourceNotFoundException;
+import com.trungvv.bankdemo.model.CrossShardTransfer;
+import com.trungvv.bankdemo.model.CrossShardTransferStatus;
+import com.trungvv.bankdemo.model.TransactionStatus;
+import com.trungvv.bankdemo.repository.AccountRepository;
+import com.trungvv.bankdemo.repository.CrossShardTransferRepository;
+import com.trungvv.bankdemo.repository.TransactionRepository;
+import com.trungvv.bankdemo.service.AccountService;
+import com.trungvv.bankdemo.service.LedgerService;
+import com.trungvv.bankdemo.service.TransactionService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Ba database H2 in-memory làm ba shard.
+ */
+@SpringBootTest(classes = {com.trungvv.bankdemo.BankDemoApplication.class}, properties = {
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "bank.sharding.enabled=true",
+        "bank.sharding.urls=jdbc:h2:mem:shard-test-0;DB_CLOSE_DELAY=-1,jdbc:h2:mem:shard-test-1;DB_CLOSE_DELAY=-1,jdbc:h2:mem:shard-test-2;DB_CLOSE_DELAY=-1",
+        "bank.sharding.recovery-interval-ms=3600000",
+        "bank.velocity.enabled=false"
+})
+class TransferCoordinatorTest {
+
+    @Autowired
+    private TransferCoordinator transferCoordinator;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private CrossShardTransferRepository crossShardTransferRepository;
+
+    @Test
+    void createAccount_ShouldStoreAccountOnlyOnItsShard() {
+        for (int shard = 0; shard < 3; shard++) {
+            AccountDto account = createAccountOn(shard, 100);
+            assertEquals(shard, shardRouter.shardOf(account.getId()));
+            assertEquals(shard, Integer.parseInt(account.getAccountNumber()) % 3);
+            for (int other = 0; other < 3; other++) {
+                boolean stored = shardRouter.on(other, () -> accountRepository.existsById(account.getId()));
+                assertEquals(other == shard, stored);
+            }
+            assertEquals(0, BigDecimal.valueOf(100).compareTo(accountService.getAccountById(account.getId()).getBalance()));
+        }
+    }
+
+    @Test
+    void transfer_ShouldMoveMoneyWithinAndAcrossShards() {
+        AccountDto sender = createAccountOn(0, 1000);
+        AccountDto sameShard = createAccountOn(0, 0);
+        AccountDto otherShard = createAccountOn(2, 0);
+
+        transferCoordinator.transfer(sender.getId(), sameShard.getId(), BigDecimal.valueOf(100), "same shard");
+        TransactionDto cross = transferCoordinator.transfer(sender.getId(), otherShard.getId(), BigDecimal.valueOf(250), "cross shard");
+
+        assertBalance(sender, 650);
+        assertBalance(sameShard, 100);
+        assertBalance(otherShard, 250);
+        // Giao dịch liên shard có cùng id trên cả hai shard, mỗi shard ghi một vế sổ cái
+        assertTrue(shardRouter.on(0, () -> transactionRepository.existsById(cross.getId())));
+        assertTrue(shardRouter.on(2, () -> transactionRepository.existsById(cross.getId())));
+        assertEquals(CrossShardTransferStatus.COMPLETED,
+                shardRouter.on(0, () -> crossShardTransferRepository.findById(cross.getId()).orElseThrow().getStatus()));
+        assertEquals(0, BigDecimal.valueOf(250).compareTo(shardRouter.on(2, () -> ledgerService.getBalance(otherShard.getId()))));
+    }
+
+    @Test
+    void transfer_ShouldRejectInactiveReceiverOnOtherShardWithoutDebiting() {
+        AccountDto sender = createAccountOn(1, 500);
+        AccountDto receiver = createAccountOn(2, 0);
+        shardRouter.onShardOf(receiver.getId(), () -> accountService.updateAccountStatus(receiver.getId(), "BLOCKED"));
+
+        assertThrows(ResourceNotFoundException.class,
+                () -> transferCoordinator.transfer(sender.getId(), receiver.getId(), BigDecimal.TEN, "blocked"));
+        assertBalance(sender, 500);
+    }
+
+    @Test
+    void recover_ShouldFinishTransferInterruptedAfterDebit() {
+        AccountDto sender = createAccountOn(0, 300);
+        AccountDto receiver = createAccountOn(1, 0);
+        // Ứng dụng dừng ngay sau bước 1: tiền đã trừ, chuyển tiền còn PENDING
+        CrossShardTransfer transfer = shardRouter.on(0, () -> transactionService.debitCrossShard(
+                UUID.randomUUID(), sender.getId(), receiver.getId(), BigDecimal.valueOf(120), "interrupted"));
+        assertBalance(sender, 180);
+        assertBalance(receiver, 0);
+
+        assertEquals(1, transferCoordinator.recover(LocalDateTime.now().plusSeconds(1)));
+        assertBalance(receiver, 120);
+        assertEquals(CrossShardTransferStatus.COMPLETED,
+                shardRouter.on(0, () -> crossShardTransferRepository.findById(transfer.getId()).orElseThrow().getStatus()));
+
+        // Bước cộng tiền chạy lại (ví dụ recover song song) không cộng hai lần
+        shardRouter.on(1, () -> {
+            transactionService.creditCrossShard(transfer);
+            return null;
+        });
+        assertBalance(receiver, 120);
+        assertEquals(0, transferCoordinator.recover(LocalDateTime.now().plusSeconds(1)));
+    }
+
+    @Test
+    void recover_ShouldRefundSenderWhenReceiverWasBlocked() {
+        AccountDto sender = createAccountOn(2, 300);
+        AccountDto receiver = createAccountOn(0, 0);
+        CrossShardTransfer transfer = shardRouter.on(2, () -> transactionService.debitCrossShard(
+                UUID.randomUUID(), sender.getId(), receiver.getId(), BigDecimal.valueOf(80), "refund"));
+        shardRouter.onShardOf(receiver.getId(), () -> accountService.updateAccountStatus(receiver.getId(), "BLOCKED"));
+
+        assertEquals(1, transferCoordinator.recover(LocalDateTime.now().plusSeconds(1)));
+
+        assertBalance(sender, 300);
+        assertBalance(receiver, 0);
+        CrossShardTransfer compensated = shardRouter.on(2, () -> crossShardTransferRepository.findById(transfer.getId()).orElseThrow());
+        assertEquals(CrossShardTransferStatus.COMPENSATED, compensated.getStatus());
+        assertNotNull(compensated.getLastError());
+        assertEquals(TransactionStatus.FAILED, shardRouter.on(2, () -> transactionRepository.findById(transfer.getId()).orElseThrow().getStatus()));
+        assertEquals(0, BigDecimal.valueOf(300).compareTo(shardRouter.on(2, () -> ledgerService.getBalance(sender.getId()))));
+    }
+
+    private AccountDto createAccountOn(int shard, long balance) {
+        return shardRouter.on(shard, () -> accountService.createAccount("Shard " + shard, BigDecimal.valueOf(balance)));
+    }
+
+    private void assertBalance(AccountDto account, long expected) {
+        BigDecimal balance = accountService.getAccountById(account.getId()).getBalance();
+        assertEquals(0, BigDecimal.valueOf(expected).compareTo(balance), "balance of " + account.getAccountName());
+    }
+}
@@ -0,0 +1,110 @@
+package com.trungvv.bankdemo.singleflight;
+
+import com.trungvv.bankdemo.dto.SingleFlightStatsDto;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    @Test
+    void execute_ShouldShareOneComputationAmongConcurrentCalls() throws Exception {
+        SingleFlight<String, Integer> flight = new SingleFlight<>("test", 0, 100);
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(10);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            results.add(pool.submit(() -> flight.execute("day", () -> {
+                started.countDown();
+                await(release);
+                return executions.incrementAndGet();
+            })));
+            started.await();
+            for (int i = 0; i < 9; i++) {
+                results.add(pool.submit(() -> flight.execute("day", executions::incrementAndGet)));
+            }
+            // Chờ 9 lời gọi trùng đã vào hàng chờ
+            while (flight.stats().getCollapsed() < 9) {
+                Thread.sleep(1);
+            }
+            release.countDown();
+            for (Future<Integer> result : results) {
+                assertEquals(1, result.get());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        SingleFlightStatsDto stats = flight.stats();
+        assertEquals(10, stats.getCalls());
+        assertEquals(1, stats.getExecutions());
+        assertEquals(9, stats.getCollapsed());
+        // Không có ttl: lời gọi sau khi xong chạy lại
+        assertEquals(2, flight.execute("day", executions::incrementAndGet));
+    }
+
+    @Test
+    void execute_ShouldServeCachedValueUntilTtlExpires() {
+        AtomicLong now = new AtomicLong();
+        SingleFlight<String, Integer> flight = new SingleFlight<>("test", 1000, 100, now::get);
+        AtomicInteger executions = new AtomicInteger();
+
+        assertEquals(1, flight.execute("a", executions::incrementAndGet));
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(999));
+        assertEquals(1, flight.execute("a", executions::incrementAndGet));
+        assertEquals(2, flight.execute("b", executions::incrementAndGet));
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+        assertEquals(3, flight.execute("a", executions::incrementAndGet));
+        assertEquals(1, flight.stats().getCacheHits());
+    }
+
+    @Test
+    void execute_ShouldNotCacheFailures() {
+        AtomicLong now = new AtomicLong();
+        SingleFlight<String, Integer> flight = new SingleFlight<>("test", 1000, 100, now::get);
+
+        assertThrows(IllegalStateException.class, () -> flight.execute("a", () -> {
+            throw new IllegalStateException("boom");
+        }));
+        assertEquals(7, flight.execute("a", () -> 7));
+    }
+
+    @Test
+    void execute_ShouldStopCachingAtMaxEntries() {
+        AtomicLong now = new AtomicLong();
+        SingleFlight<Integer, Integer> flight = new SingleFlight<>("test", 1000, 2, now::get);
+        AtomicInteger executions = new AtomicInteger();
+
+        for (int key = 0; key < 3; key++) {
+            flight.execute(key, executions::incrementAndGet);
+        }
+        flight.execute(2, executions::incrementAndGet);
+
+        assertEquals(4, executions.get());
+        // Khi các mục cũ hết hạn, chỗ trống được dùng lại
+        now.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        flight.execute(2, executions::incrementAndGet);
+        flight.execute(2, executions::incrementAndGet);
+        assertEquals(5, executions.get());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
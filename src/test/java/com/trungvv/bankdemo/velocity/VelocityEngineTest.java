@@ -0,0 +1,102 @@
+package com.trungvv.bankdemo.velocity;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VelocityEngineTest {
+
+    private static final long T0 = 1_000_000_000L;
+
+    private VelocityEngine engine;
+    private UUID sender;
+
+    @BeforeEach
+    void setUp() {
+        engine = new VelocityEngine(List.of(
+                VelocityRule.count(3, Duration.ofSeconds(60)),
+                VelocityRule.amount(BigDecimal.valueOf(1000), Duration.ofSeconds(10))), Duration.ofSeconds(1));
+        sender = UUID.randomUUID();
+    }
+
+    @Test
+    void tryAcquire_ShouldRejectCountBurstUntilOldestLeavesWindow() {
+        assertNull(engine.tryAcquire(sender, BigDecimal.ONE, T0));
+        assertNull(engine.tryAcquire(sender, BigDecimal.ONE, T0 + 20_000));
+        assertNull(engine.tryAcquire(sender, BigDecimal.ONE, T0 + 30_000));
+
+        VelocityEngine.Violation violation = engine.tryAcquire(sender, BigDecimal.ONE, T0 + 40_000);
+        assertNotNull(violation);
+        assertEquals(VelocityRule.Type.COUNT, violation.rule().type());
+        // Giao dịch đầu tiên rời cửa sổ 60s ở T0 + 60s
+        assertEquals(20_000, violation.retryAfterMs());
+
+        assertNotNull(engine.tryAcquire(sender, BigDecimal.ONE, T0 + 59_999));
+        assertNull(engine.tryAcquire(sender, BigDecimal.ONE, T0 + 60_000));
+        // Tài khoản khác không bị ảnh hưởng
+        assertNull(engine.tryAcquire(UUID.randomUUID(), BigDecimal.ONE, T0 + 60_000));
+    }
+
+    @Test
+    void tryAcquire_ShouldRejectAmountAboveLimitInWindow() {
+        assertNull(engine.tryAcquire(sender, new BigDecimal("600.50"), T0));
+        VelocityEngine.Violation violation = engine.tryAcquire(sender, new BigDecimal("399.51"), T0 + 5_000);
+        assertNotNull(violation);
+        assertEquals(VelocityRule.Type.AMOUNT, violation.rule().type());
+        assertEquals(5_000, violation.retryAfterMs());
+
+        assertNull(engine.tryAcquire(sender, new BigDecimal("399.50"), T0 + 5_000));
+        assertNull(engine.tryAcquire(sender, new BigDecimal("600"), T0 + 10_000));
+    }
+
+    @Test
+    void tryAcquire_ShouldNeverAllowSingleTransferAboveAmountLimit() {
+        VelocityEngine.Violation violation = engine.tryAcquire(sender, BigDecimal.valueOf(1001), T0);
+
+        assertNotNull(violation);
+        assertEquals(10_000, violation.retryAfterMs());
+        // Giao dịch bị từ chối không được ghi nhận
+        assertNull(engine.tryAcquire(sender, BigDecimal.valueOf(1000), T0));
+    }
+
+    @Test
+    void release_ShouldUndoAcquiredTransfer() {
+        assertNull(engine.tryAcquire(sender, BigDecimal.valueOf(900), T0));
+        assertNotNull(engine.tryAcquire(sender, BigDecimal.valueOf(200), T0 + 1_000));
+
+        engine.release(sender, BigDecimal.valueOf(900), T0);
+
+        assertNull(engine.tryAcquire(sender, BigDecimal.valueOf(200), T0 + 1_000));
+    }
+
+    @Test
+    void record_ShouldRebuildWindowAndIgnoreExpiredTransfers() {
+        engine.record(sender, BigDecimal.ONE, T0 - 61_000, T0);
+        engine.record(sender, BigDecimal.ONE, T0 - 30_000, T0);
+        engine.record(sender, BigDecimal.ONE, T0 - 1_000, T0);
+
+        assertNull(engine.tryAcquire(sender, BigDecimal.ONE, T0));
+        assertNotNull(engine.tryAcquire(sender, BigDecimal.ONE, T0));
+    }
+
+    @Test
+    void evictIdle_ShouldRemoveOnlyWindowsWithoutRecentTransfers() {
+        UUID idle = UUID.randomUUID();
+        assertNull(engine.tryAcquire(idle, BigDecimal.ONE, T0));
+        assertNull(engine.tryAcquire(sender, BigDecimal.ONE, T0 + 30_000));
+
+        assertEquals(1, engine.evictIdle(T0 + 60_000));
+        assertEquals(1, engine.size());
+
+        // Cửa sổ bị xóa là rỗng: tài khoản quay lại có đủ hạn mức
+        for (int i = 0; i < 3; i++) {
+            assertNull(engine.tryAcquire(idle, BigDecimal.ONE, T0 + 60_000));
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.trungvv.bankdemo.velocity;
+
+import com.trungvv.bankdemo.exception.VelocityLimitExceededException;
+import com.trungvv.bankdemo.model.Transaction;
+import com.trungvv.bankdemo.model.TransactionStatus;
+import com.trungvv.bankdemo.repository.AccountRepository;
+import com.trungvv.bankdemo.repository.TransactionRepository;
+import com.trungvv.bankdemo.service.AccountService;
+import com.trungvv.bankdemo.service.TransactionService;
+import com.trungvv.bankdemo.shard.ShardRouter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.EmbeddedDatabaseConnection;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@AutoConfigureTestDatabase(connection = EmbeddedDatabaseConnection.H2)
+@SpringBootTest(classes = {com.trungvv.bankdemo.BankDemoApplication.class},
+        properties = {"bank.velocity.count.limit=5", "bank.velocity.amount.limit=10000"})
+class VelocityGuardTest {
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Test
+    void createTransaction_ShouldRejectBurstAboveCountLimit() {
+        UUID senderId = accountService.createAccount("Velocity sender", BigDecimal.valueOf(1000)).getId();
+        UUID receiverId = accountService.createAccount("Velocity receiver", BigDecimal.ZERO).getId();
+
+        for (int i = 0; i < 5; i++) {
+            transactionService.createTransaction(senderId, receiverId, BigDecimal.TEN, "Burst " + i);
+        }
+        VelocityLimitExceededException exception = assertThrows(VelocityLimitExceededException.class,
+                () -> transactionService.createTransaction(senderId, receiverId, BigDecimal.TEN, "Burst 5"));
+
+        assertTrue(exception.getRetryAfterSeconds() >= 1);
+        assertEquals(0, BigDecimal.valueOf(950).compareTo(accountRepository.findById(senderId).orElseThrow().getBalance()));
+        assertEquals(5, transactionRepository.countBySenderAccountIdOrReceiverAccountId(senderId));
+    }
+
+    @Test
+    void createTransaction_ShouldNotCountRejectedTransfers() {
+        UUID senderId = accountService.createAccount("Velocity sender", BigDecimal.valueOf(100)).getId();
+        UUID receiverId = accountService.createAccount("Velocity receiver", BigDecimal.ZERO).getId();
+
+        // Số dư không đủ: bị từ chối trước khi kiểm tra velocity nên không chiếm hạn mức
+        for (int i = 0; i < 10; i++) {
+            assertThrows(IllegalArgumentException.class,
+                    () -> transactionService.createTransaction(senderId, receiverId, BigDecimal.valueOf(500), "Too much"));
+        }
+        for (int i = 0; i < 5; i++) {
+            transactionService.createTransaction(senderId, receiverId, BigDecimal.ONE, "Small " + i);
+        }
+        assertThrows(VelocityLimitExceededException.class,
+                () -> transactionService.createTransaction(senderId, receiverId, BigDecimal.ONE, "Small 5"));
+    }
+
+    @Test
+    void rebuild_ShouldRestoreWindowsFromRecentTransactions() {
+        UUID senderId = UUID.randomUUID();
+        LocalDateTime now = LocalDateTime.now();
+        List<Transaction> transactions = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            transactions.add(Transaction.builder()
+                    .senderAccountId(senderId)
+                    .receiverAccountId(UUID.randomUUID())
+                    .amount(BigDecimal.valueOf(100))
+                    .status(TransactionStatus.SUCCESS)
+                    .createdAt(now.minusSeconds(10 + i))
+                    .build());
+        }
+        // Ngoài cửa sổ hoặc không thành công: không được tính
+        transactions.add(Transaction.builder().senderAccountId(senderId).receiverAccountId(UUID.randomUUID())
+                .amount(BigDecimal.valueOf(100)).status(TransactionStatus.SUCCESS).createdAt(now.minusMinutes(5)).build());
+        transactions.add(Transaction.builder().senderAccountId(senderId).receiverAccountId(UUID.randomUUID())
+                .amount(BigDecimal.valueOf(100)).status(TransactionStatus.FAILED).createdAt(now.minusSeconds(5)).build());
+        transactionRepository.saveAll(transactions);
+
+        // Mô phỏng khởi động lại: guard mới chỉ có trạng thái dựng từ DB
+        VelocityGuard restarted = new VelocityGuard(transactionRepository, shardRouter, true, 1000, 5, 60, BigDecimal.valueOf(10000), 60);
+        restarted.rebuild();
+
+        restarted.check(senderId, BigDecimal.valueOf(100));
+        assertThrows(VelocityLimitExceededException.class, () -> restarted.check(senderId, BigDecimal.valueOf(100)));
+    }
+}